@@ -0,0 +1,182 @@
+package com.weighttracker.app
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.Paint
+import android.graphics.Path
+import android.util.Log
+import android.view.View
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+
+import org.junit.Test
+import org.junit.runner.RunWith
+
+import org.junit.Assert.*
+
+import java.util.Date
+import java.util.Random
+
+/**
+ * Times the original Path.lineTo + drawCircle rendering against the
+ * batched drawLines + drawPoints path in [SeriesRenderer] at 1k, 10k and
+ * 100k points. Draws into a software bitmap canvas; timings are only
+ * logged, under the "GraphDrawBenchmark" tag. [graphView_batchedMatchesPath]
+ * checks that both paths draw the same graph.
+ */
+@RunWith(AndroidJUnit4::class)
+class GraphDrawBenchmark {
+
+    private val width = 1080
+    private val height = 400
+    private val sizes = intArrayOf(1_000, 10_000, 100_000)
+
+    @Test
+    fun rawSeries_batchedVsPath() {
+        val bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+        val canvas = Canvas(bitmap)
+
+        val linePaint = Paint().apply {
+            style = Paint.Style.STROKE
+            strokeWidth = 2.5f
+            strokeCap = Paint.Cap.ROUND
+            isAntiAlias = true
+        }
+        val dotPaint = Paint().apply {
+            style = Paint.Style.FILL
+            isAntiAlias = true
+        }
+        val markerPaint = Paint().also { SeriesRenderer.setupMarkerPaint(it, 5f) }
+        val renderer = SeriesRenderer()
+        val path = Path()
+
+        for (n in sizes) {
+            val xs = FloatArray(n) { i -> width * i / (n - 1f) }
+            val random = Random(n.toLong())
+            val ys = FloatArray(n) { height * random.nextFloat() }
+
+            val pathMs = medianMs {
+                path.rewind()
+                path.moveTo(xs[0], ys[0])
+                for (i in 1 until n) path.lineTo(xs[i], ys[i])
+                canvas.drawPath(path, linePaint)
+                for (i in 0 until n) canvas.drawCircle(xs[i], ys[i], 5f, dotPaint)
+            }
+            val batchedMs = medianMs {
+                renderer.beginLine()
+                for (i in 0 until n) {
+                    renderer.lineTo(xs[i], ys[i])
+                    renderer.point(xs[i], ys[i])
+                }
+                renderer.flushLines(canvas, linePaint)
+                renderer.flushPoints(canvas, markerPaint)
+            }
+            Log.i(TAG, "raw n=$n path+circles=%.2fms batched=%.2fms".format(pathMs, batchedMs))
+        }
+        bitmap.recycle()
+    }
+
+    @Test
+    fun graphView_batchedVsPath() {
+        // Views (and their gesture detectors) need the main looper
+        InstrumentationRegistry.getInstrumentation().runOnMainSync { drawGraphViews() }
+    }
+
+    @Test
+    fun graphView_batchedMatchesPath() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync {
+            val view = layOut(WeightGraphView(InstrumentationRegistry.getInstrumentation().targetContext))
+            view.setEntries(generateEntries(200))
+            view.setTileCaching(false)
+
+            view.setBatchedRendering(false)
+            val path = render(view)
+            view.setBatchedRendering(true)
+            val batched = render(view)
+
+            // Anti-aliasing blends overlapping segment ends a little
+            // differently from path joins; the shapes must match
+            var differing = 0
+            for (i in path.indices) {
+                if (channelDistance(path[i], batched[i]) > PIXEL_TOLERANCE) differing++
+            }
+            assertTrue("$differing of ${path.size} pixels differ", differing <= path.size / 100)
+        }
+    }
+
+    private fun layOut(view: WeightGraphView): WeightGraphView {
+        view.measure(
+            View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY)
+        )
+        view.layout(0, 0, width, height)
+        return view
+    }
+
+    private fun render(view: View): IntArray {
+        val bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+        bitmap.eraseColor(Color.WHITE)
+        view.draw(Canvas(bitmap))
+        val pixels = IntArray(width * height)
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height)
+        bitmap.recycle()
+        return pixels
+    }
+
+    private fun channelDistance(a: Int, b: Int): Int = maxOf(
+        Math.abs(Color.alpha(a) - Color.alpha(b)),
+        Math.abs(Color.red(a) - Color.red(b)),
+        Math.abs(Color.green(a) - Color.green(b)),
+        Math.abs(Color.blue(a) - Color.blue(b))
+    )
+
+    private fun drawGraphViews() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        val bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+        val canvas = Canvas(bitmap)
+
+        for (n in sizes) {
+            val view = layOut(WeightGraphView(context))
+            view.setEntries(generateEntries(n))
+            // Measure vector drawing, not tile blits
+            view.setTileCaching(false)
+
+            view.setBatchedRendering(false)
+            val pathMs = medianMs { view.draw(canvas) }
+            view.setBatchedRendering(true)
+            val batchedMs = medianMs { view.draw(canvas) }
+            Log.i(TAG, "view n=$n path=%.2fms batched=%.2fms".format(pathMs, batchedMs))
+        }
+        bitmap.recycle()
+    }
+
+    private fun generateEntries(n: Int): List<WeightEntry> {
+        val random = Random(42)
+        val start = System.currentTimeMillis() - n * 6L * 60 * 60 * 1000
+        var weight = 90.0
+        // Newest first, as DataStore stores them
+        return (n - 1 downTo 0).map { i ->
+            weight += random.nextGaussian() * 0.2
+            WeightEntry(Date(start + i * 6L * 60 * 60 * 1000), weight, true)
+        }
+    }
+
+    private inline fun medianMs(block: () -> Unit): Double {
+        repeat(WARMUP) { block() }
+        val samples = DoubleArray(RUNS) {
+            val t0 = System.nanoTime()
+            block()
+            (System.nanoTime() - t0) / 1_000_000.0
+        }
+        samples.sort()
+        return samples[RUNS / 2]
+    }
+
+    companion object {
+        private const val TAG = "GraphDrawBenchmark"
+        private const val WARMUP = 3
+        private const val RUNS = 11
+        private const val PIXEL_TOLERANCE = 64
+    }
+}
@@ -1,11 +1,16 @@
 package com.weighttracker.app;
 
 import android.app.DatePickerDialog;
+import android.content.Context;
+import android.net.Uri;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.EditText;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 
 import java.text.SimpleDateFormat;
@@ -27,6 +32,15 @@ public class AddEntryActivity extends AppCompatActivity {
 
     private DataStore dataStore;
     private Date selectedDate;
+    private Uri pendingPhotoUri; // imported on save so it links to the final date
+
+    private final ActivityResultLauncher<String> pickPhoto = registerForActivityResult(
+            new ActivityResultContracts.GetContent(), uri -> {
+                if (uri != null) {
+                    pendingPhotoUri = uri;
+                    Toast.makeText(this, "Photo attached.", Toast.LENGTH_SHORT).show();
+                }
+            });
 
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("MMMM dd, yyyy", Locale.US);
     private static final SimpleDateFormat DATE_FORMAT_SHORT = new SimpleDateFormat("MMM dd, yyyy", Locale.US);
@@ -69,10 +83,9 @@ public class AddEntryActivity extends AppCompatActivity {
         findViewById(R.id.btn_got_it).setOnClickListener(v ->
                 cardTip.setVisibility(View.GONE));
 
-        // Progress photo button (placeholder for Week 8)
-        findViewById(R.id.btn_add_photo).setOnClickListener(v -> {
-            // Camera functionality will be implemented in Week 8
-        });
+        // Progress photo button
+        findViewById(R.id.btn_add_photo).setOnClickListener(v ->
+                pickPhoto.launch("image/*"));
     }
 
     /**
@@ -133,6 +146,18 @@ public class AddEntryActivity extends AppCompatActivity {
         WeightEntry entry = new WeightEntry(selectedDate, weight, dataStore.isMetric());
         dataStore.addEntry(entry);
 
+        // Store the attached photo under the entry's date. It is opened
+        // now, before finish(); the toast outlives this screen.
+        if (pendingPhotoUri != null) {
+            final Context app = getApplicationContext();
+            PhotoStore.getInstance().importPhotoAsync(pendingPhotoUri,
+                    EpochDay.fromDate(selectedDate), hash -> {
+                        if (hash == null) {
+                            Toast.makeText(app, "Could not save photo.", Toast.LENGTH_SHORT).show();
+                        }
+                    });
+        }
+
         // Navigate back to main screen
         finish();
     }
@@ -0,0 +1,165 @@
+package com.weighttracker.app;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * One mutation in the sync change log: an entry put, an entry delete or a
+ * setting change, stamped with a logical clock.
+ *
+ * A stamp packs a Lamport counter above the originating device tag, so
+ * comparing two stamps as longs gives a total order that every device
+ * agrees on. Batches of records travel deflate-compressed.
+ */
+public final class ChangeRecord {
+
+    public static final int TYPE_PUT = 1;
+    public static final int TYPE_DELETE = 2;
+    public static final int TYPE_SETTING = 3;
+
+    private final int type;
+    private final long stamp;
+    private final long entryId;
+    private final long time;
+    private final double weight;
+    private final boolean metric;
+    private final String key;
+    private final String value;
+
+    private ChangeRecord(int type, long stamp, long entryId, long time, double weight,
+                         boolean metric, String key, String value) {
+        this.type = type;
+        this.stamp = stamp;
+        this.entryId = entryId;
+        this.time = time;
+        this.weight = weight;
+        this.metric = metric;
+        this.key = key;
+        this.value = value;
+    }
+
+    public static ChangeRecord put(long stamp, WeightEntry entry) {
+        return new ChangeRecord(TYPE_PUT, stamp, entry.getId(), entry.getTime(),
+                entry.getWeight(), entry.isMetric(), null, null);
+    }
+
+    public static ChangeRecord delete(long stamp, long entryId) {
+        return new ChangeRecord(TYPE_DELETE, stamp, entryId, 0, 0, false, null, null);
+    }
+
+    public static ChangeRecord setting(long stamp, String key, String value) {
+        return new ChangeRecord(TYPE_SETTING, stamp, 0, 0, 0, false, key, value != null ? value : "");
+    }
+
+    /**
+     * Builds a stamp from a Lamport counter and a device tag.
+     */
+    public static long stamp(long lamport, int deviceTag) {
+        return (lamport << DataStore.DEVICE_TAG_BITS) | deviceTag;
+    }
+
+    public static long lamportOf(long stamp) {
+        return stamp >>> DataStore.DEVICE_TAG_BITS;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public long getStamp() {
+        return stamp;
+    }
+
+    public long getEntryId() {
+        return entryId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * The entry this put carries.
+     */
+    public WeightEntry toEntry() {
+        return new WeightEntry(entryId, new Date(time), weight, metric);
+    }
+
+    // ─── Batch encoding ─────────────────────────────────────────────────
+
+    /**
+     * Encodes records into one deflate-compressed batch.
+     */
+    public static byte[] encodeBatch(List<ChangeRecord> records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(records.size());
+            for (ChangeRecord r : records) {
+                out.writeByte(r.type);
+                out.writeLong(r.stamp);
+                switch (r.type) {
+                    case TYPE_PUT:
+                        out.writeLong(r.entryId);
+                        out.writeLong(r.time);
+                        out.writeDouble(r.weight);
+                        out.writeBoolean(r.metric);
+                        break;
+                    case TYPE_DELETE:
+                        out.writeLong(r.entryId);
+                        break;
+                    default:
+                        out.writeUTF(r.key);
+                        out.writeUTF(r.value);
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a batch produced by {@link #encodeBatch}.
+     */
+    public static List<ChangeRecord> decodeBatch(byte[] batch) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(batch)))) {
+            int count = in.readInt();
+            if (count < 0) throw new IOException("Corrupt change batch");
+            List<ChangeRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int type = in.readByte();
+                long stamp = in.readLong();
+                switch (type) {
+                    case TYPE_PUT:
+                        records.add(new ChangeRecord(TYPE_PUT, stamp, in.readLong(), in.readLong(),
+                                in.readDouble(), in.readBoolean(), null, null));
+                        break;
+                    case TYPE_DELETE:
+                        records.add(delete(stamp, in.readLong()));
+                        break;
+                    case TYPE_SETTING:
+                        records.add(setting(stamp, in.readUTF(), in.readUTF()));
+                        break;
+                    default:
+                        throw new IOException("Unknown change type " + type);
+                }
+            }
+            return records;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.weighttracker.app;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Batch statistics over many users' histories, e.g. a coach's client list.
+ *
+ * Each history is scanned once straight out of its {@link CompressedHistory}
+ * blocks. Work is split on a fork/join pool by client range; every leaf
+ * produces a {@link Partial} of sums and fixed-bin histograms that merges
+ * with its sibling in constant time, so nothing is serialized except the
+ * final O(bins) merges and throughput scales with cores.
+ *
+ * All weights are normalized to kg so mixed-unit cohorts compare directly.
+ * Weekly rate follows {@link DataStore#calculateAvgWeeklyLoss}: newest minus
+ * oldest weight per week, so losses are negative.
+ */
+public final class CohortAnalytics {
+
+    private static final double LBS_TO_KG = 0.453592;
+    private static final double MILLIS_PER_WEEK = 7.0 * EpochDay.MILLIS_PER_DAY;
+
+    // Clients per leaf task; one history is a few hundred entries, so this
+    // keeps leaves around a millisecond of work
+    private static final int LEAF_CLIENTS = 32;
+
+    private CohortAnalytics() {
+    }
+
+    // ─── Input / output ─────────────────────────────────────────────────
+
+    /**
+     * One client's exported history and goal.
+     */
+    public static final class ClientHistory {
+        public final String clientId;
+        public final CompressedHistory history;
+        public final double goalWeight;   // 0 if unset
+        public final boolean goalMetric;  // unit of goalWeight
+
+        public ClientHistory(String clientId, CompressedHistory history,
+                             double goalWeight, boolean goalMetric) {
+            this.clientId = clientId;
+            this.history = history;
+            this.goalWeight = goalWeight;
+            this.goalMetric = goalMetric;
+        }
+    }
+
+    /**
+     * Per-client aggregates, all in kg.
+     */
+    public static final class UserStats {
+        public final String clientId;
+        public final int entryCount;
+        public final double startWeight;
+        public final double currentWeight;
+        /** kg per week, negative for a loss; NaN with fewer than 2 entries. */
+        public final double weeklyRate;
+        /** Entries per week over the span of the history. */
+        public final double adherence;
+        /** Current minus goal weight; NaN if no goal is set. */
+        public final double distanceToGoal;
+
+        UserStats(String clientId, int entryCount, double startWeight, double currentWeight,
+                  double weeklyRate, double adherence, double distanceToGoal) {
+            this.clientId = clientId;
+            this.entryCount = entryCount;
+            this.startWeight = startWeight;
+            this.currentWeight = currentWeight;
+            this.weeklyRate = weeklyRate;
+            this.adherence = adherence;
+            this.distanceToGoal = distanceToGoal;
+        }
+    }
+
+    /**
+     * Result of {@link #analyze}: per-client stats in input order plus the
+     * merged cohort aggregates.
+     */
+    public static final class Result {
+        public final UserStats[] users;
+        public final Partial cohort;
+
+        Result(UserStats[] users, Partial cohort) {
+            this.users = users;
+            this.cohort = cohort;
+        }
+    }
+
+    // ─── Analysis ───────────────────────────────────────────────────────
+
+    /**
+     * Analyzes {@code clients} on the common fork/join pool.
+     */
+    public static Result analyze(List<ClientHistory> clients) {
+        return analyze(clients, ForkJoinPool.commonPool());
+    }
+
+    public static Result analyze(List<ClientHistory> clients, ForkJoinPool pool) {
+        UserStats[] users = new UserStats[clients.size()];
+        Partial cohort = pool.invoke(new RangeTask(clients, users, 0, clients.size()));
+        return new Result(users, cohort);
+    }
+
+    /**
+     * Computes one client's stats in a single pass over its history.
+     */
+    public static UserStats analyzeClient(ClientHistory client) {
+        final double[] acc = new double[5]; // count, firstTime, firstKg, lastTime, lastKg
+        client.history.scan(Long.MIN_VALUE, Long.MAX_VALUE, (id, time, weight, isMetric) -> {
+            double kg = isMetric ? weight : weight * LBS_TO_KG;
+            if (acc[0] == 0) {
+                acc[1] = time;
+                acc[2] = kg;
+            }
+            acc[0]++;
+            acc[3] = time;
+            acc[4] = kg;
+        });
+
+        int count = (int) acc[0];
+        if (count == 0) {
+            return new UserStats(client.clientId, 0, Double.NaN, Double.NaN,
+                    Double.NaN, 0, Double.NaN);
+        }
+
+        double weeks = (acc[3] - acc[1]) / MILLIS_PER_WEEK;
+        double rate = count >= 2 && weeks > 0 ? (acc[4] - acc[2]) / weeks : Double.NaN;
+        // A history shorter than a week counts as one week of logging
+        double adherence = count / Math.max(1.0, weeks);
+
+        double distance = Double.NaN;
+        if (client.goalWeight > 0) {
+            double goalKg = client.goalMetric ? client.goalWeight : client.goalWeight * LBS_TO_KG;
+            distance = acc[4] - goalKg;
+        }
+        return new UserStats(client.clientId, count, acc[2], acc[4], rate, adherence, distance);
+    }
+
+    private static final class RangeTask extends RecursiveTask<Partial> {
+        private final List<ClientHistory> clients;
+        private final UserStats[] out;
+        private final int from;
+        private final int to;
+
+        RangeTask(List<ClientHistory> clients, UserStats[] out, int from, int to) {
+            this.clients = clients;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= LEAF_CLIENTS) {
+                Partial partial = new Partial();
+                for (int i = from; i < to; i++) {
+                    UserStats stats = analyzeClient(clients.get(i));
+                    out[i] = stats;
+                    partial.add(stats);
+                }
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(clients, out, from, mid);
+            left.fork();
+            Partial right = new RangeTask(clients, out, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // ─── Mergeable aggregates ───────────────────────────────────────────
+
+    /**
+     * Cohort aggregates that combine associatively, so partial results from
+     * any split of the client list (or from separate runs) can be merged.
+     */
+    public static final class Partial {
+        public final Distribution weeklyRate = new Distribution(-5, 5, 0.01);
+        public final Distribution adherence = new Distribution(0, 21, 0.05);
+        public final Distribution distanceToGoal = new Distribution(-50, 150, 0.1);
+        private int users;
+        private long entries;
+
+        public void add(UserStats stats) {
+            users++;
+            entries += stats.entryCount;
+            weeklyRate.add(stats.weeklyRate);
+            if (stats.entryCount > 0) adherence.add(stats.adherence);
+            distanceToGoal.add(stats.distanceToGoal);
+        }
+
+        /**
+         * Folds {@code other} into this partial and returns this.
+         */
+        public Partial merge(Partial other) {
+            users += other.users;
+            entries += other.entries;
+            weeklyRate.merge(other.weeklyRate);
+            adherence.merge(other.adherence);
+            distanceToGoal.merge(other.distanceToGoal);
+            return this;
+        }
+
+        public int getUserCount() {
+            return users;
+        }
+
+        public long getEntryCount() {
+            return entries;
+        }
+    }
+
+    /**
+     * Fixed-bin histogram with exact count, mean and variance. Percentiles
+     * are accurate to one bin width; values outside the range land in the
+     * edge bins. NaN values are ignored.
+     */
+    public static final class Distribution {
+        private final double min;
+        private final double binWidth;
+        private final long[] bins;
+        private long count;
+        private double sum;
+        private double sumSquares;
+
+        Distribution(double min, double max, double binWidth) {
+            this.min = min;
+            this.binWidth = binWidth;
+            this.bins = new long[(int) Math.ceil((max - min) / binWidth)];
+        }
+
+        void add(double value) {
+            if (Double.isNaN(value)) return;
+            int bin = (int) Math.floor((value - min) / binWidth);
+            bins[Math.max(0, Math.min(bins.length - 1, bin))]++;
+            count++;
+            sum += value;
+            sumSquares += value * value;
+        }
+
+        void merge(Distribution other) {
+            for (int i = 0; i < bins.length; i++) {
+                bins[i] += other.bins[i];
+            }
+            count += other.count;
+            sum += other.sum;
+            sumSquares += other.sumSquares;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return count > 0 ? sum / count : Double.NaN;
+        }
+
+        public double getStdDev() {
+            if (count < 2) return Double.NaN;
+            double mean = sum / count;
+            return Math.sqrt(Math.max(0, (sumSquares - count * mean * mean) / (count - 1)));
+        }
+
+        /**
+         * Value below which {@code p} (0..1) of the samples fall,
+         * interpolated within the bin.
+         */
+        public double percentile(double p) {
+            if (count == 0) return Double.NaN;
+            double target = Math.max(0, Math.min(1, p)) * count;
+            long seen = 0;
+            for (int i = 0; i < bins.length; i++) {
+                if (bins[i] > 0 && seen + bins[i] >= target) {
+                    double within = (target - seen) / bins[i];
+                    return min + (i + within) * binWidth;
+                }
+                seen += bins[i];
+            }
+            return min + bins.length * binWidth;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.weighttracker.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A weight history held as a sequence of {@link TimeSeriesBlock}s in
+ * chronological order. Used as the on-disk history format and as a
+ * compact cold copy of histories that don't need per-entry objects
+ * (e.g. other profiles, or analytics over many users).
+ *
+ * Range scans skip whole blocks by their time bounds and stream entries
+ * out of the overlapping ones without materializing WeightEntry objects.
+ */
+public final class CompressedHistory {
+
+    public static final int BLOCK_SIZE = 512;
+
+    private static final int MAGIC = 0x57544853; // "WTHS"
+    private static final int FORMAT_VERSION = 2; // 2: entry IDs
+    private static final int FILE_HEADER_BYTES = 3 * 4;
+
+    /**
+     * Receives entries during a scan, oldest first.
+     */
+    public interface Visitor {
+        void visit(long id, long time, double weight, boolean isMetric);
+    }
+
+    private static final Comparator<WeightEntry> OLDEST_FIRST = (a, b) -> {
+        int byTime = Long.compare(a.getTime(), b.getTime());
+        return byTime != 0 ? byTime : Long.compare(a.getId(), b.getId());
+    };
+
+    private final List<TimeSeriesBlock> blocks;
+    private final int entryCount;
+
+    private CompressedHistory(List<TimeSeriesBlock> blocks) {
+        this.blocks = Collections.unmodifiableList(blocks);
+        int total = 0;
+        for (TimeSeriesBlock block : blocks) {
+            total += block.getCount();
+        }
+        this.entryCount = total;
+    }
+
+    /**
+     * Compresses entries in any order. They are sorted oldest first, equal
+     * times by ascending ID, so {@link #toEntries()} gives back exactly
+     * DataStore's order (newest first, then highest ID).
+     */
+    public static CompressedHistory fromEntries(List<WeightEntry> entries) {
+        WeightEntry[] sorted = entries.toArray(new WeightEntry[0]);
+        Arrays.sort(sorted, OLDEST_FIRST);
+
+        int n = sorted.length;
+        long[] ids = new long[n];
+        long[] times = new long[n];
+        double[] weights = new double[n];
+        boolean[] metric = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = sorted[i].getId();
+            times[i] = sorted[i].getTime();
+            weights[i] = sorted[i].getWeight();
+            metric[i] = sorted[i].isMetric();
+        }
+
+        List<TimeSeriesBlock> blocks = new ArrayList<>((n + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        for (int from = 0; from < n; from += BLOCK_SIZE) {
+            blocks.add(TimeSeriesBlock.encode(ids, times, weights, metric, from, Math.min(n, from + BLOCK_SIZE)));
+        }
+        return new CompressedHistory(blocks);
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public List<TimeSeriesBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Encoded size of all blocks in bytes.
+     */
+    public long sizeBytes() {
+        long total = 0;
+        for (TimeSeriesBlock block : blocks) {
+            total += block.sizeBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Streams every entry with start <= time <= end to {@code visitor},
+     * oldest first.
+     */
+    public void scan(long start, long end, Visitor visitor) {
+        for (TimeSeriesBlock block : blocks) {
+            if (block.getFirstTime() > end) break;
+            if (!block.overlaps(start, end)) continue;
+
+            TimeSeriesBlock.Cursor cursor = block.cursor();
+            if (!cursor.seek(start)) continue;
+            do {
+                if (cursor.getTime() > end) return;
+                visitor.visit(cursor.getId(), cursor.getTime(), cursor.getWeight(), cursor.isMetric());
+            } while (cursor.next());
+        }
+    }
+
+    /**
+     * Inflates the whole history into entry objects, newest first, equal
+     * times by descending ID (the order DataStore keeps them in).
+     */
+    public List<WeightEntry> toEntries() {
+        final ArrayList<WeightEntry> entries = new ArrayList<>(entryCount);
+        scan(Long.MIN_VALUE, Long.MAX_VALUE, (id, time, weight, isMetric) ->
+                entries.add(new WeightEntry(id, new Date(time), weight, isMetric)));
+        // Files written before ties were ordered by ID may hold them the
+        // other way round; one linear check, a sort only in that case
+        for (int i = 1; i < entries.size(); i++) {
+            if (OLDEST_FIRST.compare(entries.get(i - 1), entries.get(i)) > 0) {
+                entries.sort(OLDEST_FIRST);
+                break;
+            }
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    // ─── File format ────────────────────────────────────────────────────
+
+    /**
+     * Writes the history to {@code file} atomically (temp file + rename).
+     * The temp file is synced to disk before the rename, so a power loss
+     * leaves either the old history or the complete new one.
+     */
+    public void writeTo(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(blocks.size());
+            for (TimeSeriesBlock block : blocks) {
+                block.writeTo(out);
+            }
+            out.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * Reads a history written by {@link #writeTo}. A missing file is an
+     * empty history; a corrupt or truncated one throws IOException, with
+     * every size checked against the file length before it is allocated.
+     */
+    public static CompressedHistory readFrom(File file) throws IOException {
+        if (!file.exists()) {
+            return new CompressedHistory(new ArrayList<>());
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a weight history file: " + file);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported history format " + version);
+            }
+            int blockCount = in.readInt();
+            long remaining = file.length() - FILE_HEADER_BYTES;
+            if (blockCount < 0 || blockCount > remaining / TimeSeriesBlock.HEADER_BYTES) {
+                throw new IOException("Corrupt history file: " + file);
+            }
+            List<TimeSeriesBlock> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                TimeSeriesBlock block = TimeSeriesBlock.readFrom(in, remaining);
+                remaining -= block.sizeBytes();
+                blocks.add(block);
+            }
+            return new CompressedHistory(blocks);
+        }
+    }
+}
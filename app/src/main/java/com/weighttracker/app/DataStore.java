@@ -1,35 +1,198 @@
 package com.weighttracker.app;
 
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Singleton in-memory data store for weight entries and user settings.
- * Week 6: Data lives in memory only (no SQLite persistence yet).
+ * Singleton data store for weight entries and user settings.
+ * Entries are kept in memory and, once {@link #attachStorageAsync} has
+ * loaded the saved history, persisted as a {@link CompressedHistory} file
+ * after each change.
+ *
+ * Entries are kept sorted by date, newest first, and each one has a stable
+ * 64-bit ID: the device tag in the top {@value #DEVICE_TAG_BITS} bits and a
+ * per-device sequence number below it, so IDs never collide across synced
+ * devices. Hash indexes find an entry by ID or by day in O(1), and its
+ * list position from there by binary search, so edits, deletes and
+ * same-day upserts never scan the history. Entries are never changed in
+ * place once added (snapshots share them); {@link #updateEntry} replaces
+ * one under the same ID.
+ *
+ * Entries that look like scale glitches are flagged by an
+ * {@link OutlierDetector} as they arrive and left out of the statistics
+ * and {@link #getInlierEntries()}; they stay in the history. Rolling
+ * statistics ({@link #getRollingWindow}) are kept over the inliers.
  */
 public class DataStore {
 
     private static DataStore instance;
 
-    // Weight entries list (most recent first)
+    public static final int DEVICE_TAG_BITS = 20;
+    private static final int SEQUENCE_BITS = 64 - DEVICE_TAG_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * Observer for local mutations, e.g. the sync change log.
+     */
+    public interface MutationListener {
+        void onEntryAdded(WeightEntry entry);
+
+        void onEntryRemoved(WeightEntry entry);
+
+        void onSettingChanged(String key, String value);
+
+        /**
+         * A batch from {@link #addEntries}, oldest first.
+         */
+        default void onEntriesAdded(List<WeightEntry> entries) {
+            for (WeightEntry entry : entries) {
+                onEntryAdded(entry);
+            }
+        }
+
+        /**
+         * A batch from {@link #removeEntriesById} or {@link #removeEntriesBetween}.
+         */
+        default void onEntriesRemoved(List<WeightEntry> entries) {
+            for (WeightEntry entry : entries) {
+                onEntryRemoved(entry);
+            }
+        }
+    }
+
+    /**
+     * Notified on the main thread after any change to the entries or their
+     * outlier flags, with the new {@link #getVersion()}.
+     */
+    public interface ChangeListener {
+        void onEntriesChanged(long version);
+    }
+
+    // Setting keys passed to MutationListener.onSettingChanged
+    public static final String KEY_GOAL_WEIGHT = "goalWeight";
+    public static final String KEY_GOAL_DATE = "goalDate";
+    public static final String KEY_GENDER = "gender";
+    public static final String KEY_HEIGHT = "height";
+    public static final String KEY_BEGINNING_WEIGHT = "beginningWeight";
+    public static final String KEY_METRIC = "isMetric";
+
+    // Weight entries list (most recent first) and its month sections
     private List<WeightEntry> weightEntries;
+    private MonthIndex monthIndex = new MonthIndex();
+
+    // Every entry by ID, and the newest entry of each local epoch day
+    private final EntryHashIndex entriesById = new EntryHashIndex();
+    private final EntryHashIndex entriesByDay = new EntryHashIndex();
+
+    // Bumped on every change to the entries or their outlier flags; the
+    // column copy for queries and the snapshot for screens are rebuilt on
+    // first use after a change
+    private long version;
+    private EntryColumns columns;
+    private EntrySnapshot snapshot;
+
+    // A single add or remove since `columns` or `snapshot` was taken lets
+    // getColumns()/getSnapshot() patch them instead of rebuilding; outlier
+    // bits are re-read only if the detector re-ran in between
+    private long patchVersion = -1;
+    private int patchIndex;
+    private WeightEntry patchInserted;  // null for a removal
+    private boolean outliersRebuilt;
+    private final List<ChangeListener> changeListeners = new ArrayList<>();
+
+    // User settings; heights are in cm or inches and weights in kg or lbs
+    // depending on isMetric. On the heap until attachStorage() maps the file.
+    private SettingsStore settings;
+    // Whether settings were changed on the heap before attaching, so
+    // attaching copies them over the saved ones
+    private boolean settingsChangedEarly;
+    private boolean attached;
 
-    // User settings
-    private double goalWeight;
-    private String goalDate;       // formatted string e.g. "Dec 31, 2024"
-    private String gender;         // "Male", "Female", "Other"
-    private double height;         // in cm or inches depending on unit
-    private double beginningWeight;
-    private boolean isMetric;      // true = kg/cm, false = lbs/in
+    // History file; null until attached, or if the saved one couldn't be
+    // read or moved aside
+    private File historyFile;
+    private final ExecutorService persistExecutor = Executors.newSingleThreadExecutor();
 
-    private DataStore() {
+    // Single changes are appended to a journal next to the history file,
+    // which is rewritten whole once the journal holds this many
+    private static final int JOURNAL_MAX_RECORDS = 512;
+    private int journalRecords;
+    // Set on the persist thread when a write fails; the next change then
+    // rewrites the whole history
+    private volatile boolean journalFailed;
+
+    // Entry ID allocation
+    private int deviceTag;
+    private long lastSequence;
+
+    private MutationListener mutationListener;
+
+    // Outlier detection over weights normalized to kg
+    private static final int OUTLIER_WINDOW = 15;
+    // Entries back a flag depends on: the detector's window, and the
+    // window each of their residuals was taken against
+    private static final int OUTLIER_REACH = 2 * OUTLIER_WINDOW;
+    private static final double DEFAULT_OUTLIER_THRESHOLD = 3.5;
+    private static final double OUTLIER_MIN_DEVIATION_KG = 0.5;
+    private static final double LBS_TO_KG = 0.453592;
+    private double outlierThreshold = DEFAULT_OUTLIER_THRESHOLD;
+    private OutlierDetector outlierDetector;
+    private final Set<Long> outlierIds = new HashSet<>();
+
+    public static final long WINDOW_7_DAYS = 7 * EpochDay.MILLIS_PER_DAY;
+    public static final long WINDOW_30_DAYS = 30 * EpochDay.MILLIS_PER_DAY;
+
+    // Rolling windows requested so far, keyed by length; kept current on append
+    private final Map<Long, RollingWindow> rollingWindows = new HashMap<>();
+
+    // Resampled grids requested so far; each change refreshes only the
+    // buckets it touched, unless a batch is big enough that a rebuild wins
+    private final List<ResampledSeries> resampledSeries = new ArrayList<>();
+    private static final int RESAMPLE_REBUILD_BATCH = 256;
+
+    // Hot-path latency (see Metrics)
+    private static final LatencyHistogram ADD_LATENCY = Metrics.histogram("DataStore.addEntry");
+    private static final LatencyHistogram REMOVE_LATENCY = Metrics.histogram("DataStore.removeEntry");
+    private static final LatencyHistogram UPDATE_LATENCY = Metrics.histogram("DataStore.updateEntry");
+    private static final LatencyHistogram BULK_ADD_LATENCY = Metrics.histogram("DataStore.addEntries");
+    private static final LatencyHistogram BULK_REMOVE_LATENCY = Metrics.histogram("DataStore.removeEntries");
+    private static final LatencyHistogram BMI_LATENCY = Metrics.histogram("DataStore.calculateBMI");
+    private static final LatencyHistogram WEEKLY_LATENCY = Metrics.histogram("DataStore.calculateAvgWeeklyLoss");
+    private static final LatencyHistogram TOTAL_LATENCY = Metrics.histogram("DataStore.calculateTotalLoss");
+    private static final LatencyHistogram LAST_CHANGE_LATENCY = Metrics.histogram("DataStore.calculateLastChange");
+
+    /**
+     * A store of its own, e.g. one per simulated device in tests; the app
+     * uses {@link #getInstance()}.
+     */
+    DataStore() {
         weightEntries = new ArrayList<>();
-        goalWeight = 0;
-        goalDate = "";
-        gender = "";
-        height = 0;
-        beginningWeight = 0;
-        isMetric = true; // default to metric
+        settings = SettingsStore.inMemory();
+        deviceTag = new SecureRandom().nextInt(1 << DEVICE_TAG_BITS);
+        outlierDetector = newOutlierDetector();
+        MemoryBudget.getInstance().register("DataStore.columns", MemoryBudget.PRIORITY_DERIVED,
+                new ColumnsBudget());
     }
 
     public static DataStore getInstance() {
@@ -39,23 +202,793 @@ public class DataStore {
         return instance;
     }
 
+    // ─── Persistence ────────────────────────────────────────────────────
+
+    /**
+     * Loads the saved history from {@code file} and saves to it from now on,
+     * without blocking the calling (main) thread: the files are read and
+     * decoded on the persist thread, then installed on the main thread,
+     * which notifies {@link ChangeListener}s and then runs {@code onAttached}.
+     * Entries added before that are kept and merged in.
+     */
+    public void attachStorageAsync(File file, Runnable onAttached) {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        persistExecutor.execute(() -> {
+            LoadedStorage loaded = readStorage(file);
+            mainHandler.post(() -> {
+                install(loaded);
+                if (onAttached != null) onAttached.run();
+            });
+        });
+    }
+
+    /**
+     * {@link #attachStorageAsync}, reading on the calling thread. For tests
+     * and callers already off the main thread.
+     */
+    public void attachStorage(File file) {
+        install(readStorage(file));
+    }
+
+    /**
+     * What attaching reads from disk, gathered on any thread.
+     */
+    private static final class LoadedStorage {
+        final File historyFile;  // null: don't save this session
+        final int deviceTag;
+        final SettingsStore settings;  // null: keep the in-memory settings
+        final List<WeightEntry> entries;
+        final boolean journaled;  // a journal was applied: fold it into the file
+
+        LoadedStorage(File historyFile, int deviceTag, SettingsStore settings, List<WeightEntry> entries,
+                      boolean journaled) {
+            this.historyFile = historyFile;
+            this.deviceTag = deviceTag;
+            this.settings = settings;
+            this.entries = entries;
+            this.journaled = journaled;
+        }
+    }
+
+    /**
+     * Reads the device tag, settings and history next to {@code file}, with
+     * its journal applied. An unreadable history or journal is renamed
+     * aside so the first save cannot replace it; if even that fails,
+     * nothing is saved this session.
+     */
+    private static LoadedStorage readStorage(File file) {
+        File dir = file.getParentFile();
+        int tag = loadDeviceTag(new File(dir, "device.tag"));
+        SettingsStore settings = null;
+        try {
+            settings = SettingsStore.open(new File(dir, "settings.bin"));
+        } catch (IOException e) {
+            // Keep the in-memory settings for this session
+        }
+        File historyFile = file;
+        List<WeightEntry> entries;
+        try {
+            entries = CompressedHistory.readFrom(file).toEntries();
+        } catch (IOException e) {
+            entries = new ArrayList<>();
+            File aside = new File(file.getPath() + ".unreadable-" + System.currentTimeMillis());
+            if (!file.renameTo(aside)) {
+                historyFile = null;
+            }
+        }
+
+        File journal = HistoryJournal.fileFor(file);
+        boolean journaled = journal.exists();
+        if (journaled) {
+            Map<Long, WeightEntry> byId = new LinkedHashMap<>();
+            for (WeightEntry entry : entries) {
+                byId.put(entry.getId(), entry);
+            }
+            boolean readable;
+            try {
+                readable = HistoryJournal.replay(journal, byId);
+            } catch (IOException e) {
+                readable = false;
+            }
+            if (!readable) {
+                // Keep what was read before the bad record, and the log itself
+                File aside = new File(journal.getPath() + ".unreadable-" + System.currentTimeMillis());
+                if (!journal.renameTo(aside)) {
+                    historyFile = null;
+                }
+            }
+            entries = new ArrayList<>(byId.values());
+            entries.sort((a, b) -> comesBefore(a, b) ? -1 : comesBefore(b, a) ? 1 : 0);
+        }
+        return new LoadedStorage(historyFile, tag, settings, entries, journaled);
+    }
+
+    private void install(LoadedStorage loaded) {
+        List<WeightEntry> early = weightEntries;
+        historyFile = loaded.historyFile;
+        deviceTag = loaded.deviceTag;
+        if (loaded.settings != null) {
+            if (settingsChangedEarly) loaded.settings.copyFrom(settings);
+            settings = loaded.settings;
+        }
+        attached = true;
+        weightEntries = new ArrayList<>(loaded.entries);
+        rebuildIndexes();
+
+        // Entries added while loading: the file doesn't have them yet
+        boolean merged = false;
+        for (WeightEntry entry : early) {
+            if (entriesById.get(entry.getId()) == null) {
+                weightEntries.add(entry);
+                merged = true;
+            }
+        }
+        if (merged) {
+            weightEntries.sort((a, b) -> comesBefore(a, b) ? -1 : comesBefore(b, a) ? 1 : 0);
+            rebuildIndexes();
+        }
+        monthIndex = MonthIndex.build(weightEntries);
+
+        // Continue this device's ID sequence after the highest one on disk
+        lastSequence = 0;
+        for (WeightEntry entry : weightEntries) {
+            if (getDeviceTag(entry.getId()) == deviceTag) {
+                lastSequence = Math.max(lastSequence, entry.getId() & SEQUENCE_MASK);
+            }
+        }
+        rebuildDerived();
+        for (ResampledSeries series : resampledSeries) {
+            series.rebuild(weightEntries);
+        }
+        entriesChanged();
+        if (merged || loaded.journaled) persist();
+    }
+
+    /**
+     * Reads this install's device tag, creating a random one on first run.
+     */
+    private static int loadDeviceTag(File tagFile) {
+        if (tagFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new FileInputStream(tagFile))) {
+                return in.readInt();
+            } catch (IOException e) {
+                // Fall through and replace the unreadable tag
+            }
+        }
+        int tag = new SecureRandom().nextInt(1 << DEVICE_TAG_BITS);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tagFile))) {
+            out.writeInt(tag);
+        } catch (IOException e) {
+            // Tag is still valid for this session
+        }
+        return tag;
+    }
+
+    /**
+     * Forces settings writes out to disk on the persist thread, e.g. when
+     * the app leaves the foreground.
+     */
+    public void flushSettings() {
+        final SettingsStore current = settings;
+        persistExecutor.execute(current::flush);
+    }
+
+    /**
+     * Compresses a copy of the current entries and writes it on a
+     * background thread, so the UI never waits on disk. The journal is
+     * deleted once the file has everything in it.
+     */
+    private void persist() {
+        if (historyFile == null) return;
+        final File file = historyFile;
+        final List<WeightEntry> snapshot = new ArrayList<>(weightEntries);
+        journalRecords = 0;
+        journalFailed = false;
+        persistExecutor.execute(() -> {
+            try {
+                CompressedHistory.fromEntries(snapshot).writeTo(file);
+                HistoryJournal.fileFor(file).delete();
+            } catch (IOException e) {
+                // Keep the previous file and journal; the next change retries
+                journalFailed = true;
+            }
+        });
+    }
+
+    /**
+     * Runs {@code task} on the persist thread after the saves queued so
+     * far, for small file writes that don't merit a thread of their own.
+     */
+    public void runOnPersistThread(Runnable task) {
+        persistExecutor.execute(task);
+    }
+
+    private void journalPuts(Collection<WeightEntry> entries) {
+        if (startJournal(entries.size())) appendJournal(HistoryJournal.puts(entries));
+    }
+
+    private void journalDeletes(Collection<WeightEntry> entries) {
+        if (startJournal(entries.size())) appendJournal(HistoryJournal.deletes(entries));
+    }
+
+    /**
+     * Whether {@code records} more changes go to the journal. Otherwise the
+     * whole history is written instead: the journal is full, or the last
+     * write failed.
+     */
+    private boolean startJournal(int records) {
+        if (historyFile == null) return false;
+        journalRecords += records;
+        if (journalRecords > JOURNAL_MAX_RECORDS || journalFailed) {
+            persist();
+            return false;
+        }
+        return true;
+    }
+
+    private void appendJournal(final byte[] records) {
+        final File journal = HistoryJournal.fileFor(historyFile);
+        persistExecutor.execute(() -> {
+            try {
+                HistoryJournal.append(journal, records);
+            } catch (IOException e) {
+                journalFailed = true;
+            }
+        });
+    }
+
+    // ─── Entry IDs ──────────────────────────────────────────────────────
+
+    public int getDeviceTag() {
+        return deviceTag;
+    }
+
+    /**
+     * Device tag encoded in an entry ID.
+     */
+    public static int getDeviceTag(long entryId) {
+        return (int) (entryId >>> SEQUENCE_BITS);
+    }
+
+    private long nextEntryId() {
+        return ((long) deviceTag << SEQUENCE_BITS) | (++lastSequence & SEQUENCE_MASK);
+    }
+
+    public void setMutationListener(MutationListener listener) {
+        this.mutationListener = listener;
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void entriesChanged() {
+        version++;
+        for (ChangeListener listener : changeListeners) {
+            listener.onEntriesChanged(version);
+        }
+    }
+
     // ─── Weight Entries ─────────────────────────────────────────────────
 
+    /**
+     * Adds an entry at its date position (newest first), so back-dated
+     * entries land where they belong. Assigns an ID if it has none.
+     */
     public void addEntry(WeightEntry entry) {
-        // Insert at the beginning so most recent is first
-        weightEntries.add(0, entry);
+        long start = Metrics.start();
+        if (entry.getId() == 0) {
+            entry.setId(nextEntryId());
+        }
+        int index = insertionIndex(entry);
+        weightEntries.add(index, entry);
+        monthIndex.onInserted(index, MonthIndex.monthKeyOf(entry));
+        indexAdded(entry);
+        for (ResampledSeries series : resampledSeries) {
+            series.refresh(weightEntries, entry.getTime());
+        }
+        if (index == 0) {
+            // New latest entry: one O(log w) detector step, O(1) per rolling window
+            if (outlierDetector.add(toKg(entry))) {
+                outlierIds.add(entry.getId());
+            } else {
+                for (RollingWindow window : rollingWindows.values()) {
+                    window.add(entry.getTime(), toKg(entry));
+                }
+            }
+        } else {
+            // Back-dated entries change the flags just after them
+            int position = weightEntries.size() - 1 - index;
+            refreshDerived(position, position);
+        }
+        notePatch(index, entry);
+        entriesChanged();
+        journalPuts(Collections.singletonList(entry));
+        if (mutationListener != null) mutationListener.onEntryAdded(entry);
+        Metrics.stop(ADD_LATENCY, start);
+    }
+
+    /**
+     * Binary search for the slot keeping entries sorted by date descending,
+     * then ID descending, so every device orders ties the same way.
+     */
+    private int insertionIndex(WeightEntry entry) {
+        int lo = 0;
+        int hi = weightEntries.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comesBefore(weightEntries.get(mid), entry)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Whether {@code a} sorts ahead of {@code b}: newer, or same time and
+     * higher ID.
+     */
+    private static boolean comesBefore(WeightEntry a, WeightEntry b) {
+        long timeA = a.getTime();
+        long timeB = b.getTime();
+        return timeA > timeB || (timeA == timeB && a.getId() > b.getId());
+    }
+
+    /**
+     * Adds a batch of entries, e.g. an import or restore. Sorts the batch
+     * once and merges it into the list in one linear pass, then updates
+     * derived data, saves and notifies once for the whole batch. Assigns
+     * IDs to entries that have none. An entry whose ID is already stored
+     * replaces the stored one, as does a later one in the batch.
+     */
+    public void addEntries(Collection<WeightEntry> entries) {
+        if (entries.isEmpty()) return;
+        long start = Metrics.start();
+        Map<Long, WeightEntry> byId = new LinkedHashMap<>();
+        for (WeightEntry entry : entries) {
+            if (entry.getId() == 0) {
+                entry.setId(nextEntryId());
+            }
+            byId.put(entry.getId(), entry);
+        }
+        List<WeightEntry> batch = new ArrayList<>(byId.values());
+        batch.sort((a, b) -> comesBefore(a, b) ? -1 : comesBefore(b, a) ? 1 : 0);
+        List<WeightEntry> replaced = new ArrayList<>();
+        for (WeightEntry entry : batch) {
+            WeightEntry existing = entriesById.get(entry.getId());
+            if (existing != null) replaced.add(existing);
+        }
+
+        // Everything newer than the current latest entry: the detector and
+        // windows can take the batch as ordinary appends
+        boolean appendOnly = replaced.isEmpty() && (weightEntries.isEmpty()
+                || comesBefore(batch.get(batch.size() - 1), weightEntries.get(0)));
+
+        // Merge, dropping replaced entries, and note the oldest and newest
+        // chronological positions whose predecessor changed
+        int size = weightEntries.size() + batch.size() - replaced.size();
+        List<WeightEntry> merged = new ArrayList<>(size);
+        int first = size;
+        int last = 0;
+        int i = 0;
+        int j = 0;
+        while (i < weightEntries.size() || j < batch.size()) {
+            if (i == weightEntries.size()
+                    || (j < batch.size() && comesBefore(batch.get(j), weightEntries.get(i)))) {
+                int position = size - 1 - merged.size();
+                first = Math.min(first, position);
+                last = Math.max(last, position);
+                merged.add(batch.get(j++));
+            } else {
+                WeightEntry entry = weightEntries.get(i++);
+                if (!replaced.isEmpty() && byId.containsKey(entry.getId())) {
+                    int position = size - merged.size();
+                    first = Math.min(first, position);
+                    last = Math.max(last, position);
+                } else {
+                    merged.add(entry);
+                }
+            }
+        }
+        weightEntries = merged;
+        monthIndex = MonthIndex.build(weightEntries);
+        for (WeightEntry entry : replaced) {
+            indexRemoved(entry);
+            outlierIds.remove(entry.getId());
+        }
+        for (WeightEntry entry : batch) {
+            indexAdded(entry);
+        }
+        List<WeightEntry> changed = new ArrayList<>(batch);
+        changed.addAll(replaced);
+        updateResampled(changed);
+
+        List<WeightEntry> oldestFirst = new ArrayList<>(batch);
+        Collections.reverse(oldestFirst);
+        if (appendOnly) {
+            for (WeightEntry entry : oldestFirst) {
+                if (outlierDetector.add(toKg(entry))) {
+                    outlierIds.add(entry.getId());
+                } else {
+                    for (RollingWindow window : rollingWindows.values()) {
+                        window.add(entry.getTime(), toKg(entry));
+                    }
+                }
+            }
+        } else {
+            refreshDerived(first, last);
+        }
+        entriesChanged();
+        journalPuts(batch);
+        if (mutationListener != null) mutationListener.onEntriesAdded(oldestFirst);
+        Metrics.stop(BULK_ADD_LATENCY, start);
     }
 
     public void removeEntry(int index) {
+        long start = Metrics.start();
         if (index >= 0 && index < weightEntries.size()) {
-            weightEntries.remove(index);
+            WeightEntry removed = weightEntries.remove(index);
+            monthIndex.onRemoved(index, MonthIndex.monthKeyOf(removed));
+            indexRemoved(removed);
+            for (ResampledSeries series : resampledSeries) {
+                series.refresh(weightEntries, removed.getTime());
+            }
+            outlierIds.remove(removed.getId());
+            // The entries that were just newer than it are re-checked
+            int position = weightEntries.size() - index;
+            refreshDerived(position, position);
+            notePatch(index, null);
+            entriesChanged();
+            journalDeletes(Collections.singletonList(removed));
+            if (mutationListener != null) mutationListener.onEntryRemoved(removed);
+        }
+        Metrics.stop(REMOVE_LATENCY, start);
+    }
+
+    /**
+     * Removes the entry with the given ID, as the caller saw it at
+     * {@code index} of the snapshot at {@code expectedVersion}. While the
+     * store is still at that version the index is used directly; after any
+     * change the entry is found again by ID, so the delete can never land
+     * on another row. Returns false if the entry is gone.
+     */
+    public boolean removeEntryById(long id, long expectedVersion, int index) {
+        if (version == expectedVersion && index >= 0 && index < weightEntries.size()
+                && weightEntries.get(index).getId() == id) {
+            removeEntry(index);
+            return true;
+        }
+        return removeEntryById(id);
+    }
+
+    /**
+     * Removes the entry with the given ID; returns false if there is none.
+     */
+    public boolean removeEntryById(long id) {
+        WeightEntry entry = entriesById.get(id);
+        if (entry == null) return false;
+        removeEntry(insertionIndex(entry));
+        return true;
+    }
+
+    /**
+     * Removes every entry whose ID is in {@code ids} in one compaction pass;
+     * returns how many were removed.
+     */
+    public int removeEntriesById(Collection<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        long start = Metrics.start();
+        // Look the IDs up first: sync batches often name entries that are
+        // not here, and then the list is left alone
+        EntryHashIndex doomed = new EntryHashIndex();
+        for (long id : ids) {
+            WeightEntry entry = entriesById.get(id);
+            if (entry != null) doomed.put(id, entry);
+        }
+        List<WeightEntry> removed = new ArrayList<>(doomed.size());
+        int newestIndex = -1;
+        int oldestIndex = -1;
+        if (doomed.size() > 0) {
+            int kept = 0;
+            for (int i = 0; i < weightEntries.size(); i++) {
+                WeightEntry entry = weightEntries.get(i);
+                if (doomed.get(entry.getId()) != null) {
+                    removed.add(entry);
+                    if (newestIndex < 0) newestIndex = i;
+                    oldestIndex = i;
+                } else {
+                    weightEntries.set(kept++, entry);
+                }
+            }
+            weightEntries.subList(kept, weightEntries.size()).clear();
+        }
+        afterBulkRemove(removed, newestIndex, oldestIndex);
+        Metrics.stop(BULK_REMOVE_LATENCY, start);
+        return removed.size();
+    }
+
+    /**
+     * Removes every entry at or after {@code fromMillis} and before
+     * {@code toMillis}; returns how many were removed.
+     */
+    public int removeEntriesBetween(long fromMillis, long toMillis) {
+        long start = Metrics.start();
+        // Newest first: the range starts at the first entry before toMillis
+        int lo = firstIndexBefore(toMillis);
+        int hi = firstIndexBefore(fromMillis);
+        List<WeightEntry> range = weightEntries.subList(lo, Math.max(lo, hi));
+        List<WeightEntry> removed = new ArrayList<>(range);
+        range.clear();
+        afterBulkRemove(removed, lo, hi - 1);
+        Metrics.stop(BULK_REMOVE_LATENCY, start);
+        return removed.size();
+    }
+
+    private int firstIndexBefore(long millis) {
+        int lo = 0;
+        int hi = weightEntries.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (weightEntries.get(mid).getTime() >= millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
         }
+        return lo;
     }
 
+    /**
+     * Updates indexes and derived data after {@code removed} left the list,
+     * from between {@code newestIndex} and {@code oldestIndex}.
+     */
+    private void afterBulkRemove(List<WeightEntry> removed, int newestIndex, int oldestIndex) {
+        if (removed.isEmpty()) return;
+        monthIndex = MonthIndex.build(weightEntries);
+        for (WeightEntry entry : removed) {
+            indexRemoved(entry);
+            outlierIds.remove(entry.getId());
+        }
+        updateResampled(removed);
+        // Entries older than the oldest removed one kept their places, and
+        // the newer ones their distance from the latest
+        refreshDerived(weightEntries.size() + removed.size() - 1 - oldestIndex,
+                weightEntries.size() - newestIndex);
+        entriesChanged();
+        journalDeletes(removed);
+        if (mutationListener != null) mutationListener.onEntriesRemoved(removed);
+    }
+
+    /**
+     * Returns the entry with the given ID, or null.
+     */
+    public WeightEntry findEntryById(long id) {
+        return entriesById.get(id);
+    }
+
+    /**
+     * Returns the newest entry on the given local epoch day, or null.
+     */
+    public WeightEntry findEntryForDay(int epochDay) {
+        return entriesByDay.get(epochDay);
+    }
+
+    /**
+     * Replaces the entry with the given ID by one with the new date, weight
+     * and unit, keeping the ID, and moves it to its new date position.
+     * Returns the replacement, or null if there is no such entry.
+     */
+    public WeightEntry updateEntry(long id, Date date, double weight, boolean metric) {
+        WeightEntry existing = entriesById.get(id);
+        if (existing == null) return null;
+        long start = Metrics.start();
+        WeightEntry replacement = new WeightEntry(id, date, weight, metric);
+
+        int from = insertionIndex(existing);
+        weightEntries.remove(from);
+        monthIndex.onRemoved(from, MonthIndex.monthKeyOf(existing));
+        indexRemoved(existing);
+        int to = insertionIndex(replacement);
+        weightEntries.add(to, replacement);
+        monthIndex.onInserted(to, MonthIndex.monthKeyOf(replacement));
+        indexAdded(replacement);
+
+        updateResampled(Arrays.asList(existing, replacement));
+        // Both the old and the new position are re-checked
+        int last = weightEntries.size() - 1;
+        refreshDerived(Math.min(last - from, last - to), Math.max(last - from, last - to));
+        entriesChanged();
+        journalPuts(Collections.singletonList(replacement));
+        // A put under the same ID: other devices replace their copy
+        if (mutationListener != null) mutationListener.onEntryAdded(replacement);
+        Metrics.stop(UPDATE_LATENCY, start);
+        return replacement;
+    }
+
+    /**
+     * Records a weight for a day: updates that day's entry if there is one,
+     * otherwise adds a new entry. Returns the stored entry.
+     */
+    public WeightEntry upsertEntryForDay(Date date, double weight, boolean metric) {
+        WeightEntry existing = entriesByDay.get(EpochDay.fromDate(date));
+        if (existing != null) {
+            return updateEntry(existing.getId(), date, weight, metric);
+        }
+        WeightEntry entry = new WeightEntry(date, weight, metric);
+        addEntry(entry);
+        return entry;
+    }
+
+    // ─── Hash indexes ───────────────────────────────────────────────────
+
+    private void indexAdded(WeightEntry entry) {
+        entriesById.put(entry.getId(), entry);
+        int day = EpochDay.fromMillis(entry.getTime());
+        WeightEntry newest = entriesByDay.get(day);
+        if (newest == null || comesBefore(entry, newest)) {
+            entriesByDay.put(day, entry);
+        }
+    }
+
+    /**
+     * Drops {@code entry}, already gone from the list, from the indexes. If
+     * it was its day's newest, the next entry of that day takes over: the
+     * first one before the following midnight, found by binary search.
+     */
+    private void indexRemoved(WeightEntry entry) {
+        entriesById.remove(entry.getId());
+        int day = EpochDay.fromMillis(entry.getTime());
+        if (entriesByDay.get(day) != entry) return;
+        int next = firstIndexBefore(EpochDay.toMillis(day + 1));
+        if (next < weightEntries.size() && EpochDay.fromMillis(weightEntries.get(next).getTime()) == day) {
+            entriesByDay.put(day, weightEntries.get(next));
+        } else {
+            entriesByDay.remove(day);
+        }
+    }
+
+    private void rebuildIndexes() {
+        entriesById.clear();
+        entriesByDay.clear();
+        for (WeightEntry entry : weightEntries) {
+            indexAdded(entry);
+        }
+    }
+
+    /**
+     * The live entry list, newest first. It changes in place; screens that
+     * read it more than once per pass should use {@link #getSnapshot()}.
+     */
     public List<WeightEntry> getWeightEntries() {
         return weightEntries;
     }
 
+    /**
+     * Month sections of {@link #getWeightEntries()}, kept in step with it.
+     * Treat it as read-only; {@link #getSnapshot()} pairs a fixed copy with
+     * the entries.
+     */
+    public MonthIndex getMonthIndex() {
+        return monthIndex;
+    }
+
+    /**
+     * Changes whenever the entries or their outlier flags do, so callers
+     * can cache anything derived from them.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Column copy of the entries at the current version, for
+     * {@link EntryQuery} and derived columns. Built on the first call after
+     * a change: patched with array copies after a single add or remove,
+     * otherwise rebuilt.
+     */
+    public EntryColumns getColumns() {
+        if (columns == null || columns.getVersion() != version) {
+            if (columns != null && patchVersion == version && columns.getVersion() == version - 1) {
+                columns = patchInserted != null
+                        ? columns.withInserted(patchIndex, patchInserted, outlierIds, outliersRebuilt, version)
+                        : columns.withRemoved(patchIndex, outlierIds, outliersRebuilt, version);
+            } else {
+                columns = EntryColumns.build(weightEntries, outlierIds, version);
+            }
+            outliersRebuilt = false;
+            MemoryBudget.getInstance().onCacheGrew();
+        }
+        return columns;
+    }
+
+    /**
+     * Immutable entries and month sections at the current version. Taken
+     * on the first call after a change: after a single add or remove it
+     * shares all but one chunk with the previous snapshot, otherwise it is
+     * rebuilt. Callers keep the one they took for a whole render pass.
+     */
+    public EntrySnapshot getSnapshot() {
+        if (snapshot == null || snapshot.getVersion() != version) {
+            MonthIndex months = monthIndex.copy();
+            if (snapshot != null && patchVersion == version && snapshot.getVersion() == version - 1) {
+                snapshot = patchInserted != null
+                        ? snapshot.withInserted(patchIndex, patchInserted, months, version)
+                        : snapshot.withRemoved(patchIndex, months, version);
+            } else {
+                snapshot = EntrySnapshot.build(weightEntries, months, version);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Lets {@link MemoryBudget} shed the column copy: derived columns go
+     * first, then the snapshot itself (rebuilt by the next getColumns()).
+     */
+    private class ColumnsBudget implements MemoryBudget.Consumer {
+        @Override
+        public long sizeBytes() {
+            EntryColumns current = columns;
+            return current != null ? current.estimateBytes() : 0;
+        }
+
+        @Override
+        public void trimTo(long targetBytes) {
+            EntryColumns current = columns;
+            if (current == null) return;
+            current.clearDerived();
+            if (current.estimateBytes() > targetBytes) {
+                columns = null;
+            }
+        }
+    }
+
+    /**
+     * Records a single-row change about to bump the version.
+     */
+    private void notePatch(int index, WeightEntry inserted) {
+        if ((columns != null && columns.getVersion() == version)
+                || (snapshot != null && snapshot.getVersion() == version)) {
+            patchVersion = version + 1;
+            patchIndex = index;
+            patchInserted = inserted;
+        } else {
+            patchVersion = -1;
+        }
+    }
+
+    // ─── Derived columns ────────────────────────────────────────────────
+
+    /**
+     * The metric of {@code kind} for the current settings.
+     */
+    public DerivedMetric getDerivedMetric(DerivedMetric.Kind kind) {
+        boolean metric = settings.isMetric();
+        switch (kind) {
+            case BMI:
+                return DerivedMetric.bmi(settings.getHeight(), metric);
+            case PERCENT_OF_GOAL:
+                return DerivedMetric.percentOfGoal(settings.getBeginningWeight(), settings.getGoalWeight(), metric);
+            default:
+                return DerivedMetric.distanceToGoal(settings.getGoalWeight(), metric);
+        }
+    }
+
+    /**
+     * {@code kind} for every entry, newest first, indexed like
+     * {@link #getColumns()}. Cached per version and per the settings it
+     * uses; a single new entry computes only its own row. Read-only.
+     */
+    public double[] getDerivedColumn(DerivedMetric.Kind kind) {
+        return getColumns().getDerived(getDerivedMetric(kind));
+    }
+
     public int getEntryCount() {
         return weightEntries.size();
     }
@@ -76,54 +1009,312 @@ public class DataStore {
         return weightEntries.get(1);
     }
 
+    // ─── Outliers ───────────────────────────────────────────────────────
+
+    private OutlierDetector newOutlierDetector() {
+        return new OutlierDetector(OUTLIER_WINDOW, outlierThreshold, OUTLIER_MIN_DEVIATION_KG);
+    }
+
+    static double toKg(WeightEntry entry) {
+        return entry.isMetric() ? entry.getWeight() : entry.getWeight() * LBS_TO_KG;
+    }
+
+    /**
+     * Re-runs the outlier detector and rolling windows over the whole
+     * history, oldest first.
+     */
+    private void rebuildDerived() {
+        outliersRebuilt = true;
+        outlierDetector.reset();
+        outlierIds.clear();
+        for (RollingWindow window : rollingWindows.values()) {
+            window.clear();
+        }
+        for (int i = weightEntries.size() - 1; i >= 0; i--) {
+            WeightEntry entry = weightEntries.get(i);
+            if (outlierDetector.add(toKg(entry))) {
+                outlierIds.add(entry.getId());
+            } else {
+                for (RollingWindow window : rollingWindows.values()) {
+                    window.add(entry.getTime(), toKg(entry));
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings outlier flags and rolling windows up to date after changes
+     * between chronological positions {@code first} and {@code last} (0 =
+     * oldest; the entry count if only the latest entry went away). A flag
+     * depends only on the {@link #OUTLIER_REACH} entries before it, so the
+     * detector is replayed from that far back and flags are re-evaluated
+     * only up to that far past {@code last}: O(w log w) for one change
+     * instead of a pass over the whole history.
+     */
+    private void refreshDerived(int first, int last) {
+        int n = weightEntries.size();
+        int end = Math.min(n, last + OUTLIER_REACH + 1);
+        OutlierDetector replay = newOutlierDetector();
+        for (int c = Math.max(0, first - OUTLIER_REACH); c < end; c++) {
+            WeightEntry entry = weightEntries.get(n - 1 - c);
+            boolean outlier = replay.add(toKg(entry));
+            if (c < first) continue;
+            boolean changed = outlier ? outlierIds.add(entry.getId()) : outlierIds.remove(entry.getId());
+            if (changed) outliersRebuilt = true;
+        }
+        // Further back than the reach from the end, the live detector's
+        // window never saw the change
+        if (end == n) outlierDetector = replay;
+        refillRollingWindows();
+    }
+
+    /**
+     * Refills each rolling window from the inliers it covers, ending at the
+     * latest inlier as if they had been appended one by one.
+     */
+    private void refillRollingWindows() {
+        WeightEntry newest = recentInlier(0);
+        for (RollingWindow window : rollingWindows.values()) {
+            window.clear();
+            if (newest == null) continue;
+            long start = newest.getTime() - window.getLength();
+            for (int i = firstIndexBefore(start + 1) - 1; i >= 0; i--) {
+                WeightEntry entry = weightEntries.get(i);
+                if (!outlierIds.contains(entry.getId())) {
+                    window.add(entry.getTime(), toKg(entry));
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets how many robust standard deviations from the recent median an
+     * entry must be to count as an outlier.
+     */
+    public void setOutlierThreshold(double threshold) {
+        if (outlierThreshold == threshold) return;
+        outlierThreshold = threshold;
+        outlierDetector = newOutlierDetector();
+        rebuildDerived();
+        entriesChanged();
+    }
+
+    public double getOutlierThreshold() {
+        return outlierThreshold;
+    }
+
+    public boolean isOutlier(WeightEntry entry) {
+        return outlierIds.contains(entry.getId());
+    }
+
+    public int getOutlierCount() {
+        return outlierIds.size();
+    }
+
+    /**
+     * Returns the most recent entry not flagged as an outlier, or null.
+     */
+    public WeightEntry getLatestInlier() {
+        return recentInlier(0);
+    }
+
+    /**
+     * Returns the entries that are not flagged as outliers, newest first.
+     */
+    public List<WeightEntry> getInlierEntries() {
+        if (outlierIds.isEmpty()) return new ArrayList<>(weightEntries);
+        List<WeightEntry> inliers = new ArrayList<>(weightEntries.size() - outlierIds.size());
+        for (WeightEntry entry : weightEntries) {
+            if (!outlierIds.contains(entry.getId())) inliers.add(entry);
+        }
+        return inliers;
+    }
+
+    /**
+     * Returns the rolling statistics, in kg, over the trailing
+     * {@code lengthMs} of inlier entries, ending at the latest entry. The
+     * first call for a length fills it from the history; after that it is
+     * updated on every append, so reading it is O(1). Treat it as read-only.
+     */
+    public RollingWindow getRollingWindow(long lengthMs) {
+        RollingWindow window = rollingWindows.get(lengthMs);
+        if (window == null) {
+            window = new RollingWindow(lengthMs);
+            for (int i = weightEntries.size() - 1; i >= 0; i--) {
+                WeightEntry entry = weightEntries.get(i);
+                if (!outlierIds.contains(entry.getId())) {
+                    window.add(entry.getTime(), toKg(entry));
+                }
+            }
+            rollingWindows.put(lengthMs, window);
+        }
+        return window;
+    }
+
+    /**
+     * {@link #getRollingWindow(long)} ending at {@code nowMs} if that is
+     * after the latest entry, so a window with no recent entries reads as
+     * empty rather than as of the last weigh-in.
+     */
+    public RollingWindow getRollingWindow(long lengthMs, long nowMs) {
+        RollingWindow window = getRollingWindow(lengthMs);
+        window.advanceTo(nowMs);
+        return window;
+    }
+
+    /**
+     * Returns the history on a regular day or week grid, in kg (all
+     * entries, outliers included). The first call for a combination builds it;
+     * after that only the buckets touched by each change are recomputed.
+     * Treat it as read-only.
+     */
+    public ResampledSeries getResampledSeries(ResampledSeries.Period period,
+                                              ResampledSeries.Aggregation aggregation,
+                                              ResampledSeries.GapFill gapFill) {
+        for (ResampledSeries series : resampledSeries) {
+            if (series.getPeriod() == period && series.getAggregation() == aggregation
+                    && series.getGapFill() == gapFill) {
+                return series;
+            }
+        }
+        ResampledSeries series = new ResampledSeries(period, aggregation, gapFill);
+        series.rebuild(weightEntries);
+        resampledSeries.add(series);
+        return series;
+    }
+
+    private void updateResampled(List<WeightEntry> changed) {
+        for (ResampledSeries series : resampledSeries) {
+            if (changed.size() > RESAMPLE_REBUILD_BATCH) {
+                series.rebuild(weightEntries);
+                continue;
+            }
+            for (WeightEntry entry : changed) {
+                series.refresh(weightEntries, entry.getTime());
+            }
+        }
+    }
+
+    /**
+     * Returns the n-th most recent inlier (0 = latest), or null.
+     */
+    private WeightEntry recentInlier(int n) {
+        for (WeightEntry entry : weightEntries) {
+            if (outlierIds.contains(entry.getId())) continue;
+            if (n-- == 0) return entry;
+        }
+        return null;
+    }
+
+    private WeightEntry oldestInlier() {
+        for (int i = weightEntries.size() - 1; i >= 0; i--) {
+            WeightEntry entry = weightEntries.get(i);
+            if (!outlierIds.contains(entry.getId())) return entry;
+        }
+        return null;
+    }
+
     // ─── Settings ───────────────────────────────────────────────────────
 
     public double getGoalWeight() {
-        return goalWeight;
+        return settings.getGoalWeight();
     }
 
     public void setGoalWeight(double goalWeight) {
-        this.goalWeight = goalWeight;
+        if (settings.getGoalWeight() == goalWeight) return;
+        settings.setGoalWeight(goalWeight);
+        notifySetting(KEY_GOAL_WEIGHT, String.valueOf(goalWeight));
     }
 
-    public String getGoalDate() {
-        return goalDate;
+    /**
+     * Goal date as a local epoch day, or {@link EpochDay#NONE} if unset.
+     */
+    public int getGoalDay() {
+        return settings.getGoalDay();
     }
 
-    public void setGoalDate(String goalDate) {
-        this.goalDate = goalDate;
+    public void setGoalDay(int epochDay) {
+        if (settings.getGoalDay() == epochDay) return;
+        settings.setGoalDay(epochDay);
+        notifySetting(KEY_GOAL_DATE, String.valueOf(epochDay));
     }
 
     public String getGender() {
-        return gender;
+        return settings.getGender();
     }
 
     public void setGender(String gender) {
-        this.gender = gender;
+        if (settings.getGender().equals(gender)) return;
+        settings.setGender(gender);
+        notifySetting(KEY_GENDER, settings.getGender());
     }
 
     public double getHeight() {
-        return height;
+        return settings.getHeight();
     }
 
     public void setHeight(double height) {
-        this.height = height;
+        if (settings.getHeight() == height) return;
+        settings.setHeight(height);
+        notifySetting(KEY_HEIGHT, String.valueOf(height));
     }
 
     public double getBeginningWeight() {
-        return beginningWeight;
+        return settings.getBeginningWeight();
     }
 
     public void setBeginningWeight(double beginningWeight) {
-        this.beginningWeight = beginningWeight;
+        if (settings.getBeginningWeight() == beginningWeight) return;
+        settings.setBeginningWeight(beginningWeight);
+        notifySetting(KEY_BEGINNING_WEIGHT, String.valueOf(beginningWeight));
     }
 
     public boolean isMetric() {
-        return isMetric;
+        return settings.isMetric();
     }
 
     public void setMetric(boolean metric) {
-        isMetric = metric;
+        if (settings.isMetric() == metric) return;
+        settings.setMetric(metric);
+        notifySetting(KEY_METRIC, String.valueOf(metric));
+    }
+
+    private void notifySetting(String key, String value) {
+        if (!attached) settingsChangedEarly = true;
+        if (mutationListener != null) mutationListener.onSettingChanged(key, value);
+    }
+
+    /**
+     * Applies a setting by key, as received from another device. Unknown
+     * keys are ignored so newer devices can add settings.
+     */
+    public void applySetting(String key, String value) {
+        try {
+            switch (key) {
+                case KEY_GOAL_WEIGHT:
+                    setGoalWeight(Double.parseDouble(value));
+                    break;
+                case KEY_GOAL_DATE:
+                    setGoalDay(Integer.parseInt(value));
+                    break;
+                case KEY_GENDER:
+                    setGender(value);
+                    break;
+                case KEY_HEIGHT:
+                    setHeight(Double.parseDouble(value));
+                    break;
+                case KEY_BEGINNING_WEIGHT:
+                    setBeginningWeight(Double.parseDouble(value));
+                    break;
+                case KEY_METRIC:
+                    setMetric(Boolean.parseBoolean(value));
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            // Ignore a malformed remote value; the local one stays
+        }
     }
 
     // ─── Computed Statistics ────────────────────────────────────────────
@@ -133,13 +1324,21 @@ public class DataStore {
      * Returns 0 if data is insufficient.
      */
     public double calculateBMI() {
-        WeightEntry latest = getLatestEntry();
+        long start = Metrics.start();
+        double bmi = computeBMI();
+        Metrics.stop(BMI_LATENCY, start);
+        return bmi;
+    }
+
+    private double computeBMI() {
+        WeightEntry latest = recentInlier(0);
+        double height = settings.getHeight();
         if (latest == null || height <= 0) return 0;
 
         double weightKg;
         double heightM;
 
-        if (isMetric) {
+        if (settings.isMetric()) {
             weightKg = latest.getWeight();
             heightM = height / 100.0; // cm to m
         } else {
@@ -152,16 +1351,22 @@ public class DataStore {
     }
 
     /**
-     * Calculates average weekly weight loss based on all entries.
+     * Calculates average weekly weight loss based on all non-outlier entries.
      * Returns 0 if fewer than 2 entries.
      */
     public double calculateAvgWeeklyLoss() {
-        if (weightEntries.size() < 2) return 0;
+        long start = Metrics.start();
+        double loss = computeAvgWeeklyLoss();
+        Metrics.stop(WEEKLY_LATENCY, start);
+        return loss;
+    }
 
-        WeightEntry newest = weightEntries.get(0);
-        WeightEntry oldest = weightEntries.get(weightEntries.size() - 1);
+    private double computeAvgWeeklyLoss() {
+        WeightEntry newest = recentInlier(0);
+        WeightEntry oldest = oldestInlier();
+        if (newest == null || oldest == newest) return 0;
 
-        long timeDiffMs = newest.getDate().getTime() - oldest.getDate().getTime();
+        long timeDiffMs = newest.getTime() - oldest.getTime();
         double timeDiffWeeks = timeDiffMs / (1000.0 * 60 * 60 * 24 * 7);
 
         if (timeDiffWeeks <= 0) return 0;
@@ -175,17 +1380,34 @@ public class DataStore {
      * Returns 0 if no entries or no beginning weight set.
      */
     public double calculateTotalLoss() {
-        WeightEntry latest = getLatestEntry();
+        long start = Metrics.start();
+        double loss = computeTotalLoss();
+        Metrics.stop(TOTAL_LATENCY, start);
+        return loss;
+    }
+
+    private double computeTotalLoss() {
+        WeightEntry latest = recentInlier(0);
+        double beginningWeight = settings.getBeginningWeight();
         if (latest == null || beginningWeight <= 0) return 0;
         return latest.getWeight() - beginningWeight;
     }
 
     /**
-     * Returns the change between the two most recent entries.
+     * Returns the change between the two most recent non-outlier entries.
      * Returns 0 if fewer than 2 entries.
      */
     public double calculateLastChange() {
-        if (weightEntries.size() < 2) return 0;
-        return weightEntries.get(0).getWeight() - weightEntries.get(1).getWeight();
+        long start = Metrics.start();
+        double change = computeLastChange();
+        Metrics.stop(LAST_CHANGE_LATENCY, start);
+        return change;
+    }
+
+    private double computeLastChange() {
+        WeightEntry latest = recentInlier(0);
+        WeightEntry previous = recentInlier(1);
+        if (latest == null || previous == null) return 0;
+        return latest.getWeight() - previous.getWeight();
     }
 }
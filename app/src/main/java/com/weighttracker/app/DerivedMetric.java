@@ -0,0 +1,86 @@
+package com.weighttracker.app;
+
+/**
+ * A per-entry value derived from its weight and the user's settings, e.g.
+ * BMI. Instances capture the settings they depend on and compare equal
+ * when those match, so {@link EntryColumns#getDerived} can tell which
+ * cached columns a settings change made stale: a new height changes the
+ * BMI metric only.
+ *
+ * Weights are taken in kg from {@link EntryColumns}, so entries recorded
+ * in either unit give the same result. Goal and beginning weights are in
+ * the display unit, like the settings that hold them.
+ */
+public final class DerivedMetric {
+
+    public enum Kind { BMI, PERCENT_OF_GOAL, DISTANCE_TO_GOAL }
+
+    private static final double LBS_TO_KG = 0.453592;
+
+    private final Kind kind;
+    private final double a;
+    private final double b;
+    private final double kgToDisplay;
+
+    private DerivedMetric(Kind kind, double a, double b, boolean metric) {
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+        this.kgToDisplay = metric ? 1.0 : 1.0 / LBS_TO_KG;
+    }
+
+    /**
+     * @param height in cm when {@code metric}, otherwise in inches
+     */
+    public static DerivedMetric bmi(double height, boolean metric) {
+        double heightM = metric ? height / 100.0 : height * 0.0254;
+        return new DerivedMetric(Kind.BMI, heightM, 0, true);
+    }
+
+    /**
+     * Share of the way from the beginning weight to the goal, in percent.
+     */
+    public static DerivedMetric percentOfGoal(double beginningWeight, double goalWeight, boolean metric) {
+        return new DerivedMetric(Kind.PERCENT_OF_GOAL, beginningWeight, goalWeight, metric);
+    }
+
+    /**
+     * Weight minus goal in the display unit; negative once past the goal
+     * of a weight-loss plan.
+     */
+    public static DerivedMetric distanceToGoal(double goalWeight, boolean metric) {
+        return new DerivedMetric(Kind.DISTANCE_TO_GOAL, goalWeight, 0, metric);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Value for one entry; NaN if the settings don't allow one (no height,
+     * or goal equal to the beginning weight).
+     */
+    public double compute(double weightKg) {
+        switch (kind) {
+            case BMI:
+                return a > 0 ? weightKg / (a * a) : Double.NaN;
+            case PERCENT_OF_GOAL:
+                double span = a - b;
+                return span != 0 ? (a - weightKg * kgToDisplay) / span * 100.0 : Double.NaN;
+            default:
+                return weightKg * kgToDisplay - a;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof DerivedMetric)) return false;
+        DerivedMetric other = (DerivedMetric) o;
+        return kind == other.kind && a == other.a && b == other.b && kgToDisplay == other.kgToDisplay;
+    }
+
+    @Override
+    public int hashCode() {
+        return kind.hashCode() * 31 + Double.hashCode(a) * 17 + Double.hashCode(b) + Double.hashCode(kgToDisplay);
+    }
+}
@@ -0,0 +1,228 @@
+package com.weighttracker.app;
+
+import android.os.Parcel;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compact binary form of {@link WeightEntry}s for Bundles, Intents, saved
+ * state and files, in place of Java serialization (class descriptors and
+ * a boxed Date per entry).
+ *
+ * An entry is its ID and time as zigzag varints, one flags byte, and the
+ * weight: a zigzag varint of hundredths when that reproduces the double
+ * exactly (as it does for anything typed in), otherwise the raw 8-byte
+ * double. In a batch the ID, time and hundredths are deltas from the
+ * previous entry, so a typical daily entry takes about 8 bytes.
+ *
+ * The ByteBuffer methods read and write at the buffer's position; writes
+ * throw {@link BufferOverflowException} when it is too small (size it with
+ * {@link #maxBatchBytes}).
+ */
+public final class EntryCodec {
+
+    /** Largest encoding of one entry: two 10-byte varints, flags, a double. */
+    public static final int MAX_ENTRY_BYTES = 10 + 10 + 1 + 8;
+
+    private static final int FLAG_METRIC = 1;
+    private static final int FLAG_CENTI = 1 << 1;
+    private static final int KNOWN_FLAGS = FLAG_METRIC | FLAG_CENTI;
+
+    // Hundredths beyond this could lose precision as a double
+    private static final double MAX_CENTI_WEIGHT = 1e12;
+
+    private EntryCodec() {
+    }
+
+    // ─── Single entries ─────────────────────────────────────────────────
+
+    public static void write(ByteBuffer out, WeightEntry entry) {
+        new Writer().write(out, entry);
+    }
+
+    public static WeightEntry read(ByteBuffer in) throws IOException {
+        try {
+            return new Reader().read(in);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated entry", e);
+        }
+    }
+
+    public static byte[] encode(WeightEntry entry) {
+        ByteBuffer out = ByteBuffer.allocate(MAX_ENTRY_BYTES);
+        write(out, entry);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    public static WeightEntry decode(byte[] bytes) throws IOException {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    // ─── Batches ────────────────────────────────────────────────────────
+
+    /**
+     * Upper bound on the encoded size of a batch of {@code count} entries.
+     */
+    public static int maxBatchBytes(int count) {
+        return 5 + count * MAX_ENTRY_BYTES;
+    }
+
+    /**
+     * Writes the entry count, then each entry delta-coded against the one
+     * before it. Any order works; entries sorted by time (either way)
+     * encode smallest.
+     */
+    public static void writeBatch(ByteBuffer out, List<WeightEntry> entries) {
+        writeVarLong(out, entries.size());
+        Writer writer = new Writer();
+        for (WeightEntry entry : entries) {
+            writer.write(out, entry);
+        }
+    }
+
+    public static List<WeightEntry> readBatch(ByteBuffer in) throws IOException {
+        try {
+            long count = readVarLong(in);
+            // Every entry takes at least four bytes
+            if (count < 0 || count > in.remaining() / 4) {
+                throw new IOException("Corrupt entry batch");
+            }
+            List<WeightEntry> entries = new ArrayList<>((int) count);
+            Reader reader = new Reader();
+            for (int i = 0; i < count; i++) {
+                entries.add(reader.read(in));
+            }
+            return entries;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated entry batch", e);
+        }
+    }
+
+    public static byte[] encodeBatch(List<WeightEntry> entries) {
+        ByteBuffer out = ByteBuffer.allocate(maxBatchBytes(entries.size()));
+        writeBatch(out, entries);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    public static List<WeightEntry> decodeBatch(byte[] bytes) throws IOException {
+        return readBatch(ByteBuffer.wrap(bytes));
+    }
+
+    // ─── Parcel ─────────────────────────────────────────────────────────
+
+    /**
+     * Writes a batch as one byte array, for Parcelables holding entry
+     * lists. Single entries are Parcelable themselves.
+     */
+    public static void writeBatch(Parcel dest, List<WeightEntry> entries) {
+        dest.writeByteArray(encodeBatch(entries));
+    }
+
+    /**
+     * Reads a batch written by {@link #writeBatch(Parcel, List)}. A parcel
+     * only ever holds what this process or a trusted caller wrote, so
+     * corruption is a programming error.
+     */
+    public static List<WeightEntry> readBatch(Parcel source) {
+        try {
+            return decodeBatch(source.createByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ─── Entry fields ───────────────────────────────────────────────────
+
+    /**
+     * Encodes entries as deltas from the previously written one.
+     */
+    private static final class Writer {
+        private long previousId;
+        private long previousTime;
+        private long previousCenti;
+
+        void write(ByteBuffer out, WeightEntry entry) {
+            long time = entry.getTime();
+            double weight = entry.getWeight();
+            long centi = Math.round(weight * 100);
+            // Bit-exact, so -0.0 keeps its sign
+            boolean exact = Math.abs(weight) < MAX_CENTI_WEIGHT
+                    && Double.doubleToLongBits(centi / 100.0) == Double.doubleToLongBits(weight);
+
+            writeVarLong(out, zigzag(entry.getId() - previousId));
+            writeVarLong(out, zigzag(time - previousTime));
+            out.put((byte) ((entry.isMetric() ? FLAG_METRIC : 0) | (exact ? FLAG_CENTI : 0)));
+            if (exact) {
+                writeVarLong(out, zigzag(centi - previousCenti));
+                previousCenti = centi;
+            } else {
+                out.putDouble(weight);
+            }
+            previousId = entry.getId();
+            previousTime = time;
+        }
+    }
+
+    private static final class Reader {
+        private long previousId;
+        private long previousTime;
+        private long previousCenti;
+
+        WeightEntry read(ByteBuffer in) throws IOException {
+            long id = previousId + unzigzag(readVarLong(in));
+            long time = previousTime + unzigzag(readVarLong(in));
+            int flags = in.get();
+            if ((flags & ~KNOWN_FLAGS) != 0) {
+                throw new IOException("Unknown entry flags " + flags);
+            }
+            double weight;
+            if ((flags & FLAG_CENTI) != 0) {
+                previousCenti += unzigzag(readVarLong(in));
+                weight = previousCenti / 100.0;
+            } else {
+                weight = in.getDouble();
+            }
+            previousId = id;
+            previousTime = time;
+            return new WeightEntry(id, new Date(time), weight, (flags & FLAG_METRIC) != 0);
+        }
+    }
+
+    // ─── Varints ────────────────────────────────────────────────────────
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Seven bits per byte, low group first; the high bit marks more bytes.
+     */
+    private static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,244 @@
+package com.weighttracker.app;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column copy of the entry list for scans that would otherwise chase a
+ * WeightEntry and its Date per row: timestamps, weights in kg and a packed
+ * flag byte, all in list order (newest first), plus the entries themselves.
+ * Rows are never modified after it is built, so it doubles as a snapshot
+ * that background work can read while the list changes.
+ *
+ * Flag byte layout: bits 0-2 hold the day of week (Calendar.SUNDAY - 1
+ * through Calendar.SATURDAY - 1, local time), bit 3 is set for entries
+ * recorded in kg and bit 4 for entries flagged as outliers.
+ *
+ * Derived columns ({@link #getDerived}) are computed on first request and
+ * cached here, one per {@link DerivedMetric.Kind}. After a single add or
+ * remove, {@link #withInserted}/{@link #withRemoved} copy every column
+ * across and compute only the changed row.
+ */
+public final class EntryColumns {
+
+    static final int DAY_OF_WEEK_MASK = 0x07;
+    static final int FLAG_METRIC = 1 << 3;
+    static final int FLAG_OUTLIER = 1 << 4;
+
+    private static final double LBS_TO_KG = 0.453592;
+
+    private final long version;
+    private final WeightEntry[] entries;
+    private final long[] times;       // ms, descending
+    private final double[] weightsKg;
+    private final byte[] flags;
+
+    // Latest derived column per kind, with the metric it was computed for
+    private final Map<DerivedMetric.Kind, Derived> derived = new EnumMap<>(DerivedMetric.Kind.class);
+
+    private static final class Derived {
+        final DerivedMetric metric;
+        final double[] values;
+
+        Derived(DerivedMetric metric, double[] values) {
+            this.metric = metric;
+            this.values = values;
+        }
+    }
+
+    private EntryColumns(long version, int size) {
+        this.version = version;
+        entries = new WeightEntry[size];
+        times = new long[size];
+        weightsKg = new double[size];
+        flags = new byte[size];
+    }
+
+    /**
+     * Copies {@code entries} (sorted newest first) into columns, tagged with
+     * the store version they were taken at.
+     */
+    static EntryColumns build(List<WeightEntry> entries, Set<Long> outlierIds, long version) {
+        int n = entries.size();
+        EntryColumns columns = new EntryColumns(version, n);
+        for (int i = 0; i < n; i++) {
+            columns.setRow(i, entries.get(i), outlierIds);
+        }
+        return columns;
+    }
+
+    private void setRow(int i, WeightEntry entry, Set<Long> outlierIds) {
+        entries[i] = entry;
+        long time = entry.getTime();
+        times[i] = time;
+        weightsKg[i] = entry.isMetric() ? entry.getWeight() : entry.getWeight() * LBS_TO_KG;
+        int flag = dayOfWeekIndex(EpochDay.fromMillis(time));
+        if (entry.isMetric()) flag |= FLAG_METRIC;
+        if (outlierIds.contains(entry.getId())) flag |= FLAG_OUTLIER;
+        flags[i] = (byte) flag;
+    }
+
+    /**
+     * These columns with {@code entry} inserted at {@code index}. Only the
+     * new row is computed; outlier bits are re-read for every row only if
+     * {@code outliersChanged}.
+     */
+    EntryColumns withInserted(int index, WeightEntry entry, Set<Long> outlierIds,
+                              boolean outliersChanged, long newVersion) {
+        int n = size();
+        EntryColumns next = new EntryColumns(newVersion, n + 1);
+        copyRows(this, 0, next, 0, index);
+        copyRows(this, index, next, index + 1, n - index);
+        next.setRow(index, entry, outlierIds);
+        if (outliersChanged) next.refreshOutlierBits(outlierIds);
+        synchronized (this) {
+            for (Derived d : derived.values()) {
+                double[] values = new double[n + 1];
+                System.arraycopy(d.values, 0, values, 0, index);
+                System.arraycopy(d.values, index, values, index + 1, n - index);
+                values[index] = d.metric.compute(next.weightsKg[index]);
+                next.derived.put(d.metric.getKind(), new Derived(d.metric, values));
+            }
+        }
+        return next;
+    }
+
+    /**
+     * These columns without the row at {@code index}.
+     */
+    EntryColumns withRemoved(int index, Set<Long> outlierIds, boolean outliersChanged, long newVersion) {
+        int n = size();
+        EntryColumns next = new EntryColumns(newVersion, n - 1);
+        copyRows(this, 0, next, 0, index);
+        copyRows(this, index + 1, next, index, n - index - 1);
+        if (outliersChanged) next.refreshOutlierBits(outlierIds);
+        synchronized (this) {
+            for (Derived d : derived.values()) {
+                double[] values = new double[n - 1];
+                System.arraycopy(d.values, 0, values, 0, index);
+                System.arraycopy(d.values, index + 1, values, index, n - index - 1);
+                next.derived.put(d.metric.getKind(), new Derived(d.metric, values));
+            }
+        }
+        return next;
+    }
+
+    private static void copyRows(EntryColumns from, int fromIndex, EntryColumns to, int toIndex, int count) {
+        System.arraycopy(from.entries, fromIndex, to.entries, toIndex, count);
+        System.arraycopy(from.times, fromIndex, to.times, toIndex, count);
+        System.arraycopy(from.weightsKg, fromIndex, to.weightsKg, toIndex, count);
+        System.arraycopy(from.flags, fromIndex, to.flags, toIndex, count);
+    }
+
+    private void refreshOutlierBits(Set<Long> outlierIds) {
+        for (int i = 0; i < entries.length; i++) {
+            int flag = flags[i] & ~FLAG_OUTLIER;
+            if (outlierIds.contains(entries[i].getId())) flag |= FLAG_OUTLIER;
+            flags[i] = (byte) flag;
+        }
+    }
+
+    /**
+     * Calendar day of week minus one (0 = Sunday) for a local epoch day.
+     * 1970-01-01 was a Thursday.
+     */
+    static int dayOfWeekIndex(int epochDay) {
+        return Math.floorMod(epochDay + 4, 7);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    public WeightEntry getEntry(int index) {
+        return entries[index];
+    }
+
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    public double getWeightKg(int index) {
+        return weightsKg[index];
+    }
+
+    // ─── Derived columns ────────────────────────────────────────────────
+
+    /**
+     * {@code metric} for every row, newest first. Computed on the first
+     * request and cached until a request for the same kind with different
+     * settings replaces it. Safe from any thread; treat as read-only.
+     */
+    public synchronized double[] getDerived(DerivedMetric metric) {
+        Derived d = derived.get(metric.getKind());
+        if (d == null || !d.metric.equals(metric)) {
+            double[] values = new double[weightsKg.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = metric.compute(weightsKg[i]);
+            }
+            d = new Derived(metric, values);
+            derived.put(metric.getKind(), d);
+            MemoryBudget.getInstance().onCacheGrew();
+        }
+        return d.values;
+    }
+
+    /**
+     * Drops the cached derived columns; they are recomputed on next use.
+     */
+    synchronized void clearDerived() {
+        derived.clear();
+    }
+
+    /**
+     * Rough heap footprint: the row columns plus cached derived columns.
+     */
+    synchronized long estimateBytes() {
+        long rows = times.length;
+        // Entry reference, time, weight and flags per row
+        return rows * (4 + 8 + 8 + 1) + derived.size() * rows * 8;
+    }
+
+    public boolean isOutlier(int index) {
+        return (flags[index] & FLAG_OUTLIER) != 0;
+    }
+
+    // ─── Date index ─────────────────────────────────────────────────────
+
+    /**
+     * First index whose time is below {@code millis}: entries [0, result)
+     * are at or after it.
+     */
+    public int firstBefore(long millis) {
+        int lo = 0;
+        int hi = times.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] >= millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Package-private raw access for EntryQuery's scan loop
+    long[] times() {
+        return times;
+    }
+
+    double[] weightsKg() {
+        return weightsKg;
+    }
+
+    byte[] flags() {
+        return flags;
+    }
+}
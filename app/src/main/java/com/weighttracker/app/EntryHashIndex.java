@@ -0,0 +1,135 @@
+package com.weighttracker.app;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from a primitive {@code long} key to a {@link WeightEntry},
+ * used by DataStore to find entries by ID and by epoch day.
+ *
+ * Keys and entries sit in two parallel arrays probed linearly from the
+ * key's mixed hash, so a lookup is a few array reads with no boxed Long
+ * and no node per mapping. The table doubles at two-thirds full; removal
+ * shifts the rest of the probe run back instead of leaving tombstones, so
+ * lookups stay short however many deletes there have been. Not
+ * thread-safe.
+ */
+final class EntryHashIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private WeightEntry[] values;  // null marks a free slot
+    private int mask;
+    private int size;
+
+    EntryHashIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new WeightEntry[capacity];
+        mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The entry stored under {@code key}, or null.
+     */
+    WeightEntry get(long key) {
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            WeightEntry value = values[slot];
+            if (value == null) return null;
+            if (keys[slot] == key) return value;
+        }
+    }
+
+    /**
+     * Stores {@code value} under {@code key}; returns the entry it
+     * replaced, or null.
+     */
+    WeightEntry put(long key, WeightEntry value) {
+        int slot = slotOf(key);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                WeightEntry previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 3 > keys.length * 2) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping for {@code key}; returns its entry, or null.
+     */
+    WeightEntry remove(long key) {
+        int slot = slotOf(key);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) break;
+        }
+        WeightEntry removed = values[slot];
+        if (removed == null) return null;
+
+        // Move later entries of the probe run into the gap where that
+        // shortens their path, so no lookup stops early at the hole
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        if (keys.length > MIN_CAPACITY) {
+            allocate(MIN_CAPACITY);
+        } else {
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        WeightEntry[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = slotOf(oldKeys[i]);
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Home slot: the key's bits mixed (the MurmurHash3 finalizer) so
+     * sequential IDs and days spread over the table. Package-private for
+     * tests.
+     */
+    int slotOf(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
@@ -0,0 +1,240 @@
+package com.weighttracker.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filter over the entry history: date range, weight range, days of the
+ * week, outlier flag and unit. Set the conditions, then {@link #compile()}
+ * once and keep the {@link Compiled} query:
+ *
+ * <pre>
+ * EntryQuery.Compiled mornings = new EntryQuery()
+ *         .between(from, to)
+ *         .onDays(Calendar.SATURDAY, Calendar.SUNDAY)
+ *         .excludeOutliers()
+ *         .compile();
+ * List&lt;WeightEntry&gt; matches = mornings.run(dataStore).getEntries();
+ * </pre>
+ *
+ * Compiling folds every condition into a few primitive bounds and masks,
+ * so running is a binary search on the date column for the index range,
+ * then one branch-light pass over {@link EntryColumns} in that range. A
+ * compiled query remembers its last result and returns it again until
+ * the store's version changes.
+ */
+public final class EntryQuery {
+
+    private long fromMillis = Long.MIN_VALUE;
+    private long toMillis = Long.MAX_VALUE;
+    private double minKg = Double.NEGATIVE_INFINITY;
+    private double maxKg = Double.POSITIVE_INFINITY;
+    private int dayMask = ALL_DAYS;
+    private int flagMask;
+    private int flagValue;
+
+    private static final int ALL_DAYS = 0x7F;
+
+    /**
+     * Entries at or after {@code fromMillis} and before {@code toMillis}.
+     */
+    public EntryQuery between(long fromMillis, long toMillis) {
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        return this;
+    }
+
+    /**
+     * Entries on local days {@code firstDay} through {@code lastDay},
+     * inclusive (epoch days).
+     */
+    public EntryQuery betweenDays(int firstDay, int lastDay) {
+        return between(EpochDay.toMillis(firstDay), EpochDay.toMillis(lastDay + 1));
+    }
+
+    /**
+     * Entries weighing at least {@code minKg} and at most {@code maxKg},
+     * compared in kg whatever unit they were recorded in.
+     */
+    public EntryQuery weightBetweenKg(double minKg, double maxKg) {
+        this.minKg = minKg;
+        this.maxKg = maxKg;
+        return this;
+    }
+
+    /**
+     * Entries recorded on any of the given days of the week
+     * ({@link Calendar#SUNDAY} through {@link Calendar#SATURDAY}).
+     */
+    public EntryQuery onDays(int... calendarDays) {
+        int mask = 0;
+        for (int day : calendarDays) {
+            if (day < Calendar.SUNDAY || day > Calendar.SATURDAY) {
+                throw new IllegalArgumentException("Not a Calendar day of week: " + day);
+            }
+            mask |= 1 << (day - Calendar.SUNDAY);
+        }
+        dayMask = mask;
+        return this;
+    }
+
+    public EntryQuery excludeOutliers() {
+        return requireFlag(EntryColumns.FLAG_OUTLIER, false);
+    }
+
+    public EntryQuery onlyOutliers() {
+        return requireFlag(EntryColumns.FLAG_OUTLIER, true);
+    }
+
+    /**
+     * Entries recorded in kg ({@code true}) or in lbs ({@code false}).
+     */
+    public EntryQuery recordedMetric(boolean metric) {
+        return requireFlag(EntryColumns.FLAG_METRIC, metric);
+    }
+
+    private EntryQuery requireFlag(int flag, boolean set) {
+        flagMask |= flag;
+        flagValue = set ? flagValue | flag : flagValue & ~flag;
+        return this;
+    }
+
+    /**
+     * Freezes the current conditions. Later changes to this builder do not
+     * affect the returned query.
+     */
+    public Compiled compile() {
+        return new Compiled(this);
+    }
+
+    // ─── Compiled form ──────────────────────────────────────────────────
+
+    /**
+     * Conditions reduced to primitives, plus the last result. Not thread
+     * safe: run each instance from one thread at a time.
+     */
+    public static final class Compiled {
+
+        private final long fromMillis;
+        private final long toMillis;
+        private final double minKg;
+        private final double maxKg;
+        private final boolean checkWeight;
+        private final int dayMask;
+        private final int flagMask;
+        private final int flagValue;
+        private final boolean checkFlags;
+
+        private Result cached;
+
+        private Compiled(EntryQuery query) {
+            fromMillis = query.fromMillis;
+            toMillis = query.toMillis;
+            minKg = query.minKg;
+            maxKg = query.maxKg;
+            checkWeight = minKg != Double.NEGATIVE_INFINITY || maxKg != Double.POSITIVE_INFINITY;
+            dayMask = query.dayMask;
+            flagMask = query.flagMask;
+            flagValue = query.flagValue;
+            checkFlags = flagMask != 0 || dayMask != ALL_DAYS;
+        }
+
+        /**
+         * Runs against the store's current entries, or returns the previous
+         * result if the store has not changed since.
+         */
+        public Result run(DataStore store) {
+            return run(store.getColumns());
+        }
+
+        /**
+         * Runs against a snapshot, e.g. on a {@link RecomputeScheduler}
+         * job. Reuses the previous result for the same version.
+         */
+        public Result run(EntryColumns columns) {
+            if (cached != null && cached.version == columns.getVersion()) return cached;
+            cached = new Result(columns, scan(columns));
+            return cached;
+        }
+
+        /**
+         * Indices (newest first) of the matching rows in {@code columns}.
+         */
+        int[] scan(EntryColumns columns) {
+            // Times run newest first, so the range ends at the "from" bound
+            int lo = toMillis == Long.MAX_VALUE ? 0 : columns.firstBefore(toMillis);
+            int hi = fromMillis == Long.MIN_VALUE ? columns.size() : columns.firstBefore(fromMillis);
+            if (lo >= hi) return new int[0];
+
+            if (!checkWeight && !checkFlags) {
+                int[] all = new int[hi - lo];
+                for (int i = 0; i < all.length; i++) all[i] = lo + i;
+                return all;
+            }
+
+            double[] weights = columns.weightsKg();
+            byte[] flags = columns.flags();
+            int[] out = new int[hi - lo];
+            int n = 0;
+            for (int i = lo; i < hi; i++) {
+                if (checkFlags) {
+                    int f = flags[i];
+                    if ((f & flagMask) != flagValue) continue;
+                    if ((dayMask & (1 << (f & EntryColumns.DAY_OF_WEEK_MASK))) == 0) continue;
+                }
+                if (checkWeight) {
+                    double w = weights[i];
+                    if (w < minKg || w > maxKg) continue;
+                }
+                out[n++] = i;
+            }
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        }
+    }
+
+    /**
+     * Matching entries at one store version.
+     */
+    public static final class Result {
+
+        private final long version;
+        private final int[] indices;
+        private final List<WeightEntry> entries;
+
+        Result(EntryColumns columns, int[] indices) {
+            this.version = columns.getVersion();
+            this.indices = indices;
+            List<WeightEntry> list = new ArrayList<>(indices.length);
+            for (int index : indices) {
+                list.add(columns.getEntry(index));
+            }
+            entries = Collections.unmodifiableList(list);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return indices.length;
+        }
+
+        /**
+         * Index into {@link DataStore#getWeightEntries()} of the i-th match.
+         * Valid only while the store is still at {@link #getVersion()}.
+         */
+        public int getIndex(int i) {
+            return indices[i];
+        }
+
+        /**
+         * The matching entries, newest first (read-only).
+         */
+        public List<WeightEntry> getEntries() {
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.weighttracker.app;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable view of the entry list (newest first) and its month sections
+ * at one {@link DataStore#getVersion() store version}. A screen takes one
+ * per render pass and reads everything from it, so a change arriving
+ * mid-pass can never show it a mix of two versions.
+ *
+ * Entries are held in chunks of at most {@value #MAX_CHUNK}. After a
+ * single add or remove, {@link #withInserted}/{@link #withRemoved} copy
+ * only the chunk that changed and the array of chunk references; every
+ * other chunk is shared with the previous version, so taking a snapshot
+ * per change costs O(n / {@value #MAX_CHUNK}) rather than a list copy.
+ */
+public final class EntrySnapshot extends AbstractList<WeightEntry> implements RandomAccess {
+
+    static final int MAX_CHUNK = 64;
+
+    private static final WeightEntry[][] NO_CHUNKS = new WeightEntry[0][];
+
+    private final long version;
+    private final WeightEntry[][] chunks;
+    // ends[c] = index one past the last entry of chunk c, ascending
+    private final int[] ends;
+    private final MonthIndex months;
+
+    private EntrySnapshot(long version, WeightEntry[][] chunks, int[] ends, MonthIndex months) {
+        this.version = version;
+        this.chunks = chunks;
+        this.ends = ends;
+        this.months = months;
+    }
+
+    /**
+     * Copies {@code entries} (sorted newest first) into full chunks.
+     * {@code months} must be this snapshot's own copy.
+     */
+    static EntrySnapshot build(List<WeightEntry> entries, MonthIndex months, long version) {
+        int n = entries.size();
+        int chunkCount = (n + MAX_CHUNK - 1) / MAX_CHUNK;
+        WeightEntry[][] chunks = chunkCount == 0 ? NO_CHUNKS : new WeightEntry[chunkCount][];
+        int[] ends = new int[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            int from = c * MAX_CHUNK;
+            int to = Math.min(n, from + MAX_CHUNK);
+            WeightEntry[] chunk = new WeightEntry[to - from];
+            for (int i = from; i < to; i++) {
+                chunk[i - from] = entries.get(i);
+            }
+            chunks[c] = chunk;
+            ends[c] = to;
+        }
+        return new EntrySnapshot(version, chunks, ends, months);
+    }
+
+    // ─── Next version ───────────────────────────────────────────────────
+
+    /**
+     * This snapshot with {@code entry} inserted at {@code index}, sharing
+     * every chunk but the one it lands in. A chunk that outgrows
+     * {@value #MAX_CHUNK} is split in two.
+     */
+    EntrySnapshot withInserted(int index, WeightEntry entry, MonthIndex months, long version) {
+        if (chunks.length == 0) {
+            return new EntrySnapshot(version, new WeightEntry[][]{{entry}}, new int[]{1}, months);
+        }
+        // Appending past the end grows the last chunk
+        int c = Math.min(chunkFor(index), chunks.length - 1);
+        int offset = index - start(c);
+        WeightEntry[] old = chunks[c];
+        WeightEntry[] grown = new WeightEntry[old.length + 1];
+        System.arraycopy(old, 0, grown, 0, offset);
+        grown[offset] = entry;
+        System.arraycopy(old, offset, grown, offset + 1, old.length - offset);
+
+        if (grown.length <= MAX_CHUNK) {
+            WeightEntry[][] newChunks = chunks.clone();
+            newChunks[c] = grown;
+            int[] newEnds = ends.clone();
+            for (int t = c; t < newEnds.length; t++) {
+                newEnds[t]++;
+            }
+            return new EntrySnapshot(version, newChunks, newEnds, months);
+        }
+
+        int half = grown.length / 2;
+        WeightEntry[][] newChunks = new WeightEntry[chunks.length + 1][];
+        int[] newEnds = new int[ends.length + 1];
+        System.arraycopy(chunks, 0, newChunks, 0, c);
+        System.arraycopy(ends, 0, newEnds, 0, c);
+        newChunks[c] = Arrays.copyOfRange(grown, 0, half);
+        newChunks[c + 1] = Arrays.copyOfRange(grown, half, grown.length);
+        newEnds[c] = start(c) + half;
+        newEnds[c + 1] = ends[c] + 1;
+        System.arraycopy(chunks, c + 1, newChunks, c + 2, chunks.length - c - 1);
+        for (int t = c + 1; t < ends.length; t++) {
+            newEnds[t + 1] = ends[t] + 1;
+        }
+        return new EntrySnapshot(version, newChunks, newEnds, months);
+    }
+
+    /**
+     * This snapshot without the entry at {@code index}, sharing every chunk
+     * but the one it came from. An emptied chunk is dropped.
+     */
+    EntrySnapshot withRemoved(int index, MonthIndex months, long version) {
+        int c = chunkFor(index);
+        int offset = index - start(c);
+        WeightEntry[] old = chunks[c];
+
+        if (old.length > 1) {
+            WeightEntry[] shrunk = new WeightEntry[old.length - 1];
+            System.arraycopy(old, 0, shrunk, 0, offset);
+            System.arraycopy(old, offset + 1, shrunk, offset, old.length - offset - 1);
+            WeightEntry[][] newChunks = chunks.clone();
+            newChunks[c] = shrunk;
+            int[] newEnds = ends.clone();
+            for (int t = c; t < newEnds.length; t++) {
+                newEnds[t]--;
+            }
+            return new EntrySnapshot(version, newChunks, newEnds, months);
+        }
+
+        WeightEntry[][] newChunks = new WeightEntry[chunks.length - 1][];
+        int[] newEnds = new int[ends.length - 1];
+        System.arraycopy(chunks, 0, newChunks, 0, c);
+        System.arraycopy(ends, 0, newEnds, 0, c);
+        System.arraycopy(chunks, c + 1, newChunks, c, chunks.length - c - 1);
+        for (int t = c + 1; t < ends.length; t++) {
+            newEnds[t - 1] = ends[t] - 1;
+        }
+        return new EntrySnapshot(version, newChunks, newEnds, months);
+    }
+
+    // ─── Access ─────────────────────────────────────────────────────────
+
+    /**
+     * The store version this snapshot shows.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Month sections of this snapshot's entries. Read-only.
+     */
+    public MonthIndex getMonthIndex() {
+        return months;
+    }
+
+    @Override
+    public int size() {
+        return ends.length == 0 ? 0 : ends[ends.length - 1];
+    }
+
+    /**
+     * Entry at {@code index}, newest first: a binary search over the chunks.
+     */
+    @Override
+    public WeightEntry get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size());
+        }
+        int c = chunkFor(index);
+        return chunks[c][index - start(c)];
+    }
+
+    /**
+     * Chunk holding {@code index}; {@code chunks.length} past the end.
+     */
+    private int chunkFor(int index) {
+        int lo = 0;
+        int hi = ends.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] <= index) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int start(int chunk) {
+        return chunk == 0 ? 0 : ends[chunk - 1];
+    }
+}
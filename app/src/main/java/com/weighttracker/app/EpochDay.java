@@ -0,0 +1,93 @@
+package com.weighttracker.app;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Helpers for converting between dates and local epoch days (days since
+ * 1970-01-01 in the device's time zone). java.time needs API 26, so this
+ * works on plain millisecond arithmetic and Calendar.
+ */
+public final class EpochDay {
+
+    public static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /** Marks an unset day, e.g. no goal date. */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private EpochDay() {
+    }
+
+    /**
+     * Local epoch day containing the given instant.
+     */
+    public static int fromMillis(long millis) {
+        long local = millis + TimeZone.getDefault().getOffset(millis);
+        return (int) Math.floorDiv(local, MILLIS_PER_DAY);
+    }
+
+    public static int fromDate(Date date) {
+        return fromMillis(date.getTime());
+    }
+
+    /**
+     * Epoch day for a calendar date (month is 0-based, as in Calendar).
+     */
+    public static int of(int year, int month, int dayOfMonth) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month, dayOfMonth, 12, 0, 0);
+        return fromMillis(cal.getTimeInMillis());
+    }
+
+    /**
+     * Local midnight at the start of the given epoch day.
+     */
+    public static long toMillis(int epochDay) {
+        long utc = epochDay * MILLIS_PER_DAY;
+        // Two passes so days that start near a DST switch resolve correctly
+        long guess = utc - TimeZone.getDefault().getOffset(utc);
+        return utc - TimeZone.getDefault().getOffset(guess);
+    }
+
+    public static int today() {
+        return fromMillis(System.currentTimeMillis());
+    }
+
+    /**
+     * Month containing the given day as a sortable key: year * 12 + month
+     * (0-based). Pure arithmetic (civil-from-days), no Calendar.
+     */
+    public static int monthKey(int epochDay) {
+        long z = epochDay + 719468L;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153; // 0 = March
+        long month = shiftedMonth < 10 ? shiftedMonth + 2 : shiftedMonth - 10;
+        long year = yearOfEra + era * 400 + (month <= 1 ? 1 : 0);
+        return (int) (year * 12 + month);
+    }
+
+    private static final String[] MONTH_NAMES = {"January", "February", "March", "April",
+            "May", "June", "July", "August", "September", "October", "November", "December"};
+
+    /**
+     * Display form of a month key, e.g. "October 2023".
+     */
+    public static String formatMonth(int monthKey) {
+        return MONTH_NAMES[Math.floorMod(monthKey, 12)] + " " + Math.floorDiv(monthKey, 12);
+    }
+
+    /**
+     * Display form of a day, e.g. "Dec 31, 2024"; empty for {@link #NONE}.
+     */
+    public static String format(int epochDay) {
+        if (epochDay == NONE) return "";
+        return new SimpleDateFormat("MMM d, yyyy", Locale.US).format(new Date(toMillis(epochDay)));
+    }
+}
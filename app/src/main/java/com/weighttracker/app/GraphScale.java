@@ -0,0 +1,72 @@
+package com.weighttracker.app;
+
+/**
+ * Maps time and weight values to pixel coordinates inside a plot rect.
+ * One instance is set up per frame and shared by every series drawn in
+ * that frame, so all series use identical scaling.
+ */
+public class GraphScale {
+
+    private float left;
+    private float top;
+    private float width;
+    private float height;
+
+    private double timeStart;
+    private double timeSpan;
+    private double valueMin;
+    private double valueRange;
+
+    /**
+     * Sets the plot rect in view pixels.
+     */
+    public void setPlotRect(float left, float top, float width, float height) {
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Sets the visible time window (ms since epoch).
+     */
+    public void setTimeRange(double start, double end) {
+        timeStart = start;
+        timeSpan = end > start ? end - start : 1;
+    }
+
+    /**
+     * Sets the value range from the data min/max, padded by {@code padFraction}
+     * of the range on each side so points aren't on the edge.
+     */
+    public void setValueRange(double min, double max, double padFraction) {
+        double range = max - min;
+        if (range == 0) range = 1; // avoid division by zero for flat line
+        valueMin = min - range * padFraction;
+        valueRange = range * (1 + 2 * padFraction);
+    }
+
+    public float x(double time) {
+        return left + (float) (width * ((time - timeStart) / timeSpan));
+    }
+
+    public float y(double value) {
+        return top + height * (1.0f - (float) ((value - valueMin) / valueRange));
+    }
+
+    public float getLeft() {
+        return left;
+    }
+
+    public float getTop() {
+        return top;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,334 @@
+package com.weighttracker.app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Raster tile cache for {@link WeightGraphView}.
+ *
+ * The time axis is cut into fixed-width tiles of {@link #TILE_WIDTH_PX}
+ * pixels per zoom level, where zoom level z means 2^z ms per pixel. Tiles
+ * are rendered into bitmaps on a background thread and kept in an LRU
+ * bounded by bytes. The view just blits whatever tiles cover the visible
+ * window, scaling them by at most 2x between zoom levels.
+ *
+ * Tiles are only dropped when an entry inside (or adjacent to) their time
+ * range changes, when the value scale or view height changes, or when
+ * {@link MemoryBudget} trims them (first of all caches, as they re-render
+ * from data already in memory).
+ */
+public class GraphTileCache {
+
+    public static final int TILE_WIDTH_PX = 256;
+
+    private static final int MAX_ZOOM = 40;
+    private static final long MAX_CACHE_BYTES = 16L * 1024 * 1024;
+    private static final int MAX_RANGE_INVALIDATIONS = 64;
+
+    // One background thread renders tiles for all graph views
+    private static final ExecutorService RENDER_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "graph-tiles");
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Every live tile cache, measured and trimmed as one MemoryBudget consumer
+    private static final Set<GraphTileCache> LIVE_CACHES =
+            Collections.newSetFromMap(new WeakHashMap<>());
+    private static boolean budgetRegistered;
+
+    /**
+     * Callback invoked on the render thread when a new tile is cached.
+     */
+    public interface OnTileReadyListener {
+        void onTileReady();
+    }
+
+    /**
+     * Draws a tile's content. Implementations must be safe to call from
+     * the render thread and must only read immutable data.
+     */
+    public interface TilePainter {
+        void paintTile(Canvas canvas, long startTime, long endTime, int widthPx, int heightPx);
+    }
+
+    private final LruCache<Long, Bitmap> tiles;
+    // Tiles queued for rendering, with the generation they were queued at
+    private final Map<Long, Long> pending = new HashMap<>();
+    private final OnTileReadyListener listener;
+
+    private volatile TilePainter painter;
+    private int tileHeight;
+
+    // Bumped on every invalidation so in-flight renders of stale tiles are
+    // dropped. Changed together with evicting, and checked together with
+    // caching a render, under generationLock: a tile painted before an
+    // invalidation can't be cached after it
+    private final Object generationLock = new Object();
+    private volatile long generation;
+
+    public GraphTileCache(OnTileReadyListener listener) {
+        this.listener = listener;
+        long budget = Math.min(Runtime.getRuntime().maxMemory() / 16, MAX_CACHE_BYTES);
+        tiles = new LruCache<Long, Bitmap>((int) budget) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+
+        synchronized (LIVE_CACHES) {
+            LIVE_CACHES.add(this);
+            if (!budgetRegistered) {
+                budgetRegistered = true;
+                MemoryBudget.getInstance().register("GraphTileCache",
+                        MemoryBudget.PRIORITY_REBUILDABLE, new TileBudget());
+            }
+        }
+    }
+
+    /**
+     * Tiles of all views: trimming keeps the first caches' tiles up to the
+     * target and evicts the rest least recently used first.
+     */
+    private static class TileBudget implements MemoryBudget.Consumer {
+        @Override
+        public long sizeBytes() {
+            long total = 0;
+            for (GraphTileCache cache : liveCaches()) {
+                total += cache.sizeBytes();
+            }
+            return total;
+        }
+
+        @Override
+        public void trimTo(long targetBytes) {
+            long remaining = targetBytes;
+            for (GraphTileCache cache : liveCaches()) {
+                long keep = Math.min(cache.sizeBytes(), remaining);
+                cache.tiles.trimToSize((int) keep);
+                remaining -= keep;
+            }
+        }
+
+        private static List<GraphTileCache> liveCaches() {
+            synchronized (LIVE_CACHES) {
+                return new ArrayList<>(LIVE_CACHES);
+            }
+        }
+    }
+
+    /**
+     * Smallest zoom level whose pixels are at least as fine as
+     * {@code msPerPixel}, so tiles are only ever scaled down when blitted.
+     */
+    public static int zoomFor(double msPerPixel) {
+        int z = 0;
+        while (z < MAX_ZOOM && (double) (1L << z) < msPerPixel) {
+            z++;
+        }
+        return z;
+    }
+
+    /**
+     * Time span covered by one tile at zoom level {@code zoom}.
+     */
+    public static long tileSpan(int zoom) {
+        return (long) TILE_WIDTH_PX << zoom;
+    }
+
+    private static long key(int zoom, long index) {
+        return (index << 6) | zoom;
+    }
+
+    private static int zoomOf(long key) {
+        return (int) (key & 0x3F);
+    }
+
+    private static long indexOf(long key) {
+        return key >> 6;
+    }
+
+    /**
+     * Sets the painter used for new tiles. Does not drop cached tiles;
+     * callers invalidate the ranges that actually changed.
+     */
+    public void setPainter(TilePainter painter) {
+        this.painter = painter;
+    }
+
+    /**
+     * Sets the tile height; a change drops every tile.
+     */
+    public void setTileHeight(int heightPx) {
+        if (heightPx != tileHeight) {
+            tileHeight = heightPx;
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the cached tile, or null after queueing it for rendering.
+     */
+    public Bitmap getTile(int zoom, long index) {
+        long key = key(zoom, index);
+        Bitmap tile = tiles.get(key);
+        if (tile == null) {
+            requestTile(zoom, index, key);
+        }
+        return tile;
+    }
+
+    /**
+     * Returns the cached tile without queueing a render.
+     */
+    public Bitmap peekTile(int zoom, long index) {
+        return tiles.get(key(zoom, index));
+    }
+
+    private void requestTile(int zoom, long index, long key) {
+        final TilePainter tilePainter = painter;
+        final int height = tileHeight;
+        if (tilePainter == null || height <= 0) return;
+
+        // A render queued before the last invalidation will be dropped, so
+        // it doesn't count: queue this tile again at the current generation
+        final long submittedGeneration = generation;
+        synchronized (pending) {
+            Long queued = pending.get(key);
+            if (queued != null && queued == submittedGeneration) return;
+            pending.put(key, submittedGeneration);
+        }
+        RENDER_EXECUTOR.execute(() -> {
+            try {
+                if (submittedGeneration != generation) return;
+
+                long span = tileSpan(zoom);
+                long start = index * span;
+                Bitmap bitmap = Bitmap.createBitmap(TILE_WIDTH_PX, height, Bitmap.Config.ARGB_8888);
+                tilePainter.paintTile(new Canvas(bitmap), start, start + span, TILE_WIDTH_PX, height);
+
+                synchronized (generationLock) {
+                    if (submittedGeneration != generation) return;
+                    tiles.put(key, bitmap);
+                }
+                MemoryBudget.getInstance().onCacheGrew();
+                if (listener != null) listener.onTileReady();
+            } finally {
+                synchronized (pending) {
+                    // Leave a newer request for the same tile in place
+                    Long queued = pending.get(key);
+                    if (queued != null && queued == submittedGeneration) {
+                        pending.remove(key);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops every tile whose time range intersects [startTime, endTime].
+     */
+    public void invalidateRange(long startTime, long endTime) {
+        synchronized (generationLock) {
+            generation++;
+            Map<Long, Bitmap> snapshot = tiles.snapshot();
+            for (Long key : snapshot.keySet()) {
+                long span = tileSpan(zoomOf(key));
+                long tileStart = indexOf(key) * span;
+                if (tileStart <= endTime && tileStart + span >= startTime) {
+                    tiles.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares two versions of the series and drops only the tiles whose
+     * content differs: tiles around added, removed or re-weighted samples,
+     * including the neighbouring samples their line segments connect to.
+     * Falls back to dropping everything when most of the series changed.
+     */
+    public void invalidateChanged(MinMaxPyramid before, MinMaxPyramid after) {
+        int i = 0;
+        int j = 0;
+        int changes = 0;
+        long dirtyStart = Long.MAX_VALUE;
+        long dirtyEnd = Long.MIN_VALUE;
+
+        while (i < before.size() || j < after.size()) {
+            long changed;
+            if (i < before.size() && j < after.size() && before.getTime(i) == after.getTime(j)) {
+                if (before.getValue(i) == after.getValue(j)) {
+                    i++;
+                    j++;
+                    continue;
+                }
+                changed = after.getTime(j);
+                i++;
+                j++;
+            } else if (j >= after.size() || (i < before.size() && before.getTime(i) < after.getTime(j))) {
+                changed = before.getTime(i++);   // removed
+            } else {
+                changed = after.getTime(j++);    // added
+            }
+
+            if (++changes > MAX_RANGE_INVALIDATIONS) {
+                invalidateAll();
+                return;
+            }
+            long start = Math.min(before.timeBefore(changed), after.timeBefore(changed));
+            long end = Math.max(before.timeAfter(changed), after.timeAfter(changed));
+
+            // Merge overlapping dirty ranges before touching the cache
+            if (start <= dirtyEnd && end >= dirtyStart) {
+                dirtyStart = Math.min(dirtyStart, start);
+                dirtyEnd = Math.max(dirtyEnd, end);
+            } else {
+                if (dirtyStart <= dirtyEnd) invalidateRange(dirtyStart, dirtyEnd);
+                dirtyStart = start;
+                dirtyEnd = end;
+            }
+        }
+        if (dirtyStart <= dirtyEnd) invalidateRange(dirtyStart, dirtyEnd);
+    }
+
+    /**
+     * Drops every tile.
+     */
+    public void invalidateAll() {
+        synchronized (generationLock) {
+            generation++;
+            tiles.evictAll();
+        }
+    }
+
+    /**
+     * Bytes currently held by cached tiles.
+     */
+    public int sizeBytes() {
+        return tiles.size();
+    }
+
+    /**
+     * Paint suited to blitting tiles with scaling.
+     */
+    public static Paint createBlitPaint() {
+        Paint paint = new Paint();
+        paint.setFilterBitmap(true);
+        return paint;
+    }
+}
@@ -10,9 +10,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.List;
 
 /**
  * History activity displaying all weight entries, a trend graph, and filter tabs.
@@ -23,12 +21,42 @@ public class HistoryActivity extends AppCompatActivity {
     private Button btnTab30Days;
     private Button btnTabAll;
     private WeightGraphView graphView;
+    private TextView tvGraphMetric;
     private RecyclerView recyclerView;
+    private MonthFastScroller fastScroller;
     private TextView tvNoHistory;
 
     private HistoryAdapter adapter;
     private DataStore dataStore;
 
+    // Graph series: the full history minus scale glitches, prepared in the
+    // background once per burst of changes, so tab switches and resumes
+    // never rebuild it on the UI thread
+    private final EntryQuery.Compiled graphQuery = new EntryQuery().excludeOutliers().compile();
+    private RecomputeScheduler.Registration<WeightGraphView.Series> graphJob;
+    // The tab's window is applied to the first series and on tab changes
+    // only; later series keep the user's pinch-zoom and pan
+    private boolean graphHasSeries;
+
+    // Graphed value: weight (null) or a derived metric, cycled by tapping
+    // its label. graphMetric and graphGoal (the goal weight in the graphed
+    // unit, NaN if unset) carry the current settings to graphJob.
+    private static final DerivedMetric.Kind[] GRAPH_METRICS = {null, DerivedMetric.Kind.BMI,
+            DerivedMetric.Kind.PERCENT_OF_GOAL, DerivedMetric.Kind.DISTANCE_TO_GOAL};
+    private static final int[] GRAPH_METRIC_LABELS = {R.string.graph_metric_weight,
+            R.string.graph_metric_bmi, R.string.graph_metric_percent_of_goal,
+            R.string.graph_metric_distance_to_goal};
+    private int graphMetricIndex;
+    private volatile DerivedMetric graphMetric;
+    private volatile double graphGoal = Double.NaN;
+
+    private static final double LBS_TO_KG = 0.453592;
+
+    private static final LatencyHistogram REFRESH_LATENCY = Metrics.histogram("HistoryActivity.refreshData");
+
+    // Re-lists when the history finishes loading or a sync merges changes
+    private final DataStore.ChangeListener changeListener = version -> refreshData();
+
     // Current filter: 0 = 7 days, 1 = 30 days, 2 = all
     private int currentFilter = 1; // default 30 days
 
@@ -44,15 +72,44 @@ public class HistoryActivity extends AppCompatActivity {
         btnTab30Days = findViewById(R.id.btn_tab_30days);
         btnTabAll = findViewById(R.id.btn_tab_all);
         graphView = findViewById(R.id.graph_view);
+        tvGraphMetric = findViewById(R.id.tv_graph_metric);
         recyclerView = findViewById(R.id.recyclerview_history);
+        fastScroller = findViewById(R.id.fast_scroller_history);
         tvNoHistory = findViewById(R.id.tv_no_history);
 
         // Setup RecyclerView
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new HistoryAdapter(this, new ArrayList<>(dataStore.getWeightEntries()), (index) -> {
-            showDeleteConfirmation(index);
-        });
+        // Rows and the first page of their text were prepared while the
+        // dashboard was idle (see HistoryPrewarmer); whatever is not ready
+        // is made on demand as before
+        HistoryPrewarmer prewarmer = HistoryPrewarmer.getInstance();
+        adapter = new HistoryAdapter(this, dataStore.getSnapshot(), this::showDeleteConfirmation);
+        adapter.setPrecomputedPage(prewarmer.getFirstPage(this));
         recyclerView.setAdapter(adapter);
+        prewarmer.fillPool(recyclerView, adapter);
+        fastScroller.attach(recyclerView);
+
+        graphJob = RecomputeScheduler.getInstance().register("HistoryActivity.graph",
+                RecomputeScheduler.PRIORITY_VISIBLE,
+                (snapshot, cancelled) -> {
+                    DerivedMetric metric = graphMetric;
+                    double[] values = metric != null ? snapshot.getDerived(metric) : null;
+                    return WeightGraphView.prepare(snapshot, graphQuery.run(snapshot), values, graphGoal);
+                },
+                series -> {
+                    graphView.setSeries(series);
+                    if (!graphHasSeries) {
+                        graphHasSeries = true;
+                        applyGraphWindow();
+                    }
+                    graphView.invalidate();
+                });
+
+        tvGraphMetric.setOnClickListener(v -> {
+            graphMetricIndex = (graphMetricIndex + 1) % GRAPH_METRICS.length;
+            tvGraphMetric.setText(GRAPH_METRIC_LABELS[graphMetricIndex]);
+            updateGraphMetric();
+        });
 
         // Tab listeners
         btnTab7Days.setOnClickListener(v -> setFilter(0));
@@ -66,9 +123,45 @@ public class HistoryActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        graphJob.setPriority(RecomputeScheduler.PRIORITY_VISIBLE);
+        dataStore.addChangeListener(changeListener);
+        // Height or goals may have changed in Settings
+        updateGraphMetric();
         refreshData();
     }
 
+    /**
+     * Re-plots if the graphed metric, or the settings it uses, changed.
+     */
+    private void updateGraphMetric() {
+        DerivedMetric.Kind kind = GRAPH_METRICS[graphMetricIndex];
+        DerivedMetric metric = kind != null ? dataStore.getDerivedMetric(kind) : null;
+        double goal = dataStore.getGoalWeight();
+        if (goal <= 0) {
+            goal = Double.NaN;
+        } else if (metric != null) {
+            goal = metric.compute(dataStore.isMetric() ? goal : goal * LBS_TO_KG);
+        }
+        boolean sameMetric = metric == null ? graphMetric == null : metric.equals(graphMetric);
+        if (sameMetric && Double.compare(goal, graphGoal) == 0) return;
+        graphMetric = metric;
+        graphGoal = goal;
+        graphJob.rerun();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        dataStore.removeChangeListener(changeListener);
+        graphJob.setPriority(RecomputeScheduler.PRIORITY_BACKGROUND);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        graphJob.unregister();
+    }
+
     /**
      * Sets the active filter tab and updates the UI.
      */
@@ -97,6 +190,7 @@ public class HistoryActivity extends AppCompatActivity {
                 ? getResources().getColor(R.color.tab_selected_text)
                 : getResources().getColor(R.color.tab_unselected_text));
 
+        applyGraphWindow();
         refreshData();
     }
 
@@ -104,57 +198,58 @@ public class HistoryActivity extends AppCompatActivity {
      * Refreshes the list and graph based on the current filter.
      */
     private void refreshData() {
-        List<WeightEntry> allEntries = dataStore.getWeightEntries();
-        List<WeightEntry> filteredEntries = filterEntries(allEntries);
+        long start = Metrics.start();
+        // One version for the whole pass: list, month sections and empty state
+        EntrySnapshot snapshot = dataStore.getSnapshot();
 
         // Update adapter with ALL entries (list always shows everything)
-        adapter.updateEntries(new ArrayList<>(allEntries));
+        adapter.updateSnapshot(snapshot);
+        fastScroller.setMonthIndex(snapshot.getMonthIndex());
 
-        // Update graph with filtered entries
-        graphView.setEntries(filteredEntries);
+        // The graph's entries come from graphJob (minus scale glitches, so
+        // they don't stretch its scaling) and keep its current window
         graphView.invalidate();
 
         // Show/hide empty state
-        if (allEntries.isEmpty()) {
+        if (snapshot.isEmpty()) {
             tvNoHistory.setVisibility(View.VISIBLE);
             recyclerView.setVisibility(View.GONE);
         } else {
             tvNoHistory.setVisibility(View.GONE);
             recyclerView.setVisibility(View.VISIBLE);
         }
+        Metrics.stop(REFRESH_LATENCY, start);
     }
 
     /**
-     * Filters entries based on the current tab selection.
+     * Moves the graph window to match the current tab selection.
+     * The user can still pinch-zoom and pan from there.
      */
-    private List<WeightEntry> filterEntries(List<WeightEntry> entries) {
+    private void applyGraphWindow() {
         if (currentFilter == 2) {
             // All
-            return entries;
+            graphView.showAll();
+            return;
         }
 
         int daysBack = (currentFilter == 0) ? 7 : 30;
         Calendar cutoff = Calendar.getInstance();
+        long now = cutoff.getTimeInMillis();
         cutoff.add(Calendar.DAY_OF_MONTH, -daysBack);
-
-        List<WeightEntry> filtered = new ArrayList<>();
-        for (WeightEntry entry : entries) {
-            if (!entry.getDate().before(cutoff.getTime())) {
-                filtered.add(entry);
-            }
-        }
-        return filtered;
+        graphView.setTimeWindow(cutoff.getTimeInMillis(), now);
     }
 
     /**
-     * Shows a confirmation dialog before deleting an entry.
+     * Shows a confirmation dialog before deleting an entry. The entry is
+     * removed by ID, so a change while the dialog is open cannot redirect
+     * the delete.
      */
-    private void showDeleteConfirmation(int index) {
+    private void showDeleteConfirmation(WeightEntry entry, long version, int index) {
         new AlertDialog.Builder(this)
                 .setTitle("Delete Entry")
                 .setMessage("Are you sure you want to delete this entry?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    dataStore.removeEntry(index);
+                    dataStore.removeEntryById(entry.getId(), version, index);
                     refreshData();
                 })
                 .setNegativeButton("Cancel", null)
@@ -5,104 +5,249 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.Locale;
 
 /**
- * Adapter for displaying weight entries in the History RecyclerView.
+ * Adapter for displaying weight entries in the History RecyclerView, with
+ * a header row above each month. Rows map to entries through a
+ * {@link MonthIndex} by binary search.
+ *
+ * Everything it shows comes from one {@link EntrySnapshot}, which never
+ * changes under it; a new one arrives through {@link #updateSnapshot}.
+ * Row views come from {@link HistoryPrewarmer} when it has inflated some
+ * ahead of time, and the first rows' text from a precomputed {@link Page}.
+ * A row whose day has a progress photo shows its thumbnail from
+ * {@link ThumbnailCache}.
  */
-public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.EntryViewHolder> {
+public class HistoryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    static final int VIEW_TYPE_ENTRY = 0;
+    static final int VIEW_TYPE_MONTH_HEADER = 1;
 
     private Context context;
-    private List<WeightEntry> entries;
+    private EntrySnapshot snapshot;
+    private Page precomputed;
     private OnDeleteCallback deleteCallback;
 
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("MMMM dd, yyyy", Locale.US);
+    private static final String DATE_PATTERN = "MMMM dd, yyyy";
+    // Main thread only; Page.build makes its own
+    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat(DATE_PATTERN, Locale.US);
+
+    // Row tones: the change's arrow and text color
+    static final int TONE_NONE = 0;
+    static final int TONE_LOSS = 1;
+    static final int TONE_GAIN = 2;
+    static final int TONE_FLAT = 3;
 
+    private static final LatencyHistogram BIND_LATENCY = Metrics.histogram("HistoryAdapter.onBindViewHolder");
+
+    /**
+     * Receives the entry to delete with where it was shown: its index in
+     * the snapshot at {@code version}, for
+     * {@link DataStore#removeEntryById(long, long, int)}.
+     */
     public interface OnDeleteCallback {
-        void onDelete(int index);
+        void onDelete(WeightEntry entry, long version, int index);
     }
 
-    public HistoryAdapter(Context context, List<WeightEntry> entries, OnDeleteCallback deleteCallback) {
+    public HistoryAdapter(Context context, EntrySnapshot snapshot, OnDeleteCallback deleteCallback) {
         this.context = context;
-        this.entries = entries;
+        this.snapshot = snapshot;
         this.deleteCallback = deleteCallback;
     }
 
     /**
-     * Updates the entries list and refreshes the adapter.
+     * Shows {@code newSnapshot}; a no-op if it is the version already shown.
      */
-    public void updateEntries(List<WeightEntry> newEntries) {
-        this.entries = newEntries;
+    public void updateSnapshot(EntrySnapshot newSnapshot) {
+        if (newSnapshot.getVersion() == snapshot.getVersion()) return;
+        this.snapshot = newSnapshot;
         notifyDataSetChanged();
     }
 
+    public EntrySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public MonthIndex getMonthIndex() {
+        return snapshot.getMonthIndex();
+    }
+
+    /**
+     * Row text for the first entries, used while it matches the shown
+     * snapshot's version and unit.
+     */
+    public void setPrecomputedPage(Page page) {
+        this.precomputed = page;
+    }
+
     @Override
-    public EntryViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_history_entry, parent, false);
-        return new EntryViewHolder(view);
+    public int getItemViewType(int position) {
+        return snapshot.getMonthIndex().isHeaderRow(position) ? VIEW_TYPE_MONTH_HEADER : VIEW_TYPE_ENTRY;
     }
 
     @Override
-    public void onBindViewHolder(EntryViewHolder holder, int position) {
-        WeightEntry entry = entries.get(position);
-        DataStore dataStore = DataStore.getInstance();
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View view = HistoryPrewarmer.getInstance().takeView(viewType);
+        if (view == null) {
+            view = LayoutInflater.from(parent.getContext()).inflate(layoutFor(viewType), parent, false);
+        }
+        return viewType == VIEW_TYPE_MONTH_HEADER
+                ? new MonthHeaderViewHolder(view)
+                : new EntryViewHolder(view);
+    }
 
-        // Date
-        holder.tvDate.setText(DATE_FORMAT.format(entry.getDate()));
+    static int layoutFor(int viewType) {
+        return viewType == VIEW_TYPE_MONTH_HEADER
+                ? R.layout.item_history_month_header
+                : R.layout.item_history_entry;
+    }
 
-        // Weight with unit
-        String unit = dataStore.isMetric() ? "kg" : "lbs";
-        holder.tvWeight.setText(String.format("%.1f %s", entry.getWeight(), unit));
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        long start = Metrics.start();
+        MonthIndex months = snapshot.getMonthIndex();
+        if (holder instanceof MonthHeaderViewHolder) {
+            int key = months.getMonthKey(months.sectionForRow(position));
+            ((MonthHeaderViewHolder) holder).tvMonth.setText(EpochDay.formatMonth(key));
+        } else {
+            bindEntry((EntryViewHolder) holder, snapshot, months.entryForRow(position));
+        }
+        Metrics.stop(BIND_LATENCY, start);
+    }
 
-        // Calculate change from previous entry (next item in list since sorted newest first)
-        if (position < entries.size() - 1) {
-            WeightEntry previous = entries.get(position + 1);
-            double change = entry.getWeight() - previous.getWeight();
+    private void bindEntry(EntryViewHolder holder, EntrySnapshot entries, int position) {
+        WeightEntry entry = entries.get(position);
+        boolean metric = DataStore.getInstance().isMetric();
+        Page page = precomputed;
+        RowModel row = page != null && page.matches(entries, metric) && position < page.rows.length
+                ? page.rows[position]
+                : RowModel.of(entries, position, metric, DATE_FORMAT);
 
-            if (change < 0) {
-                // Weight loss — red down arrow
-                holder.tvArrow.setText("▼");
-                holder.tvArrow.setTextColor(context.getResources().getColor(R.color.red_negative));
-                holder.tvChange.setText(String.format("-%.1f %s", Math.abs(change), unit));
-                holder.tvChange.setTextColor(context.getResources().getColor(R.color.red_negative));
-            } else if (change > 0) {
-                // Weight gain — green up arrow
-                holder.tvArrow.setText("▲");
-                holder.tvArrow.setTextColor(context.getResources().getColor(R.color.green_positive));
-                holder.tvChange.setText(String.format("+%.1f %s", change, unit));
-                holder.tvChange.setTextColor(context.getResources().getColor(R.color.green_positive));
-            } else {
-                // No change
-                holder.tvArrow.setText("—");
-                holder.tvArrow.setTextColor(context.getResources().getColor(R.color.text_hint));
-                holder.tvChange.setText(String.format("0.0 %s", unit));
-                holder.tvChange.setTextColor(context.getResources().getColor(R.color.text_hint));
-            }
+        holder.tvDate.setText(row.date);
+        holder.tvWeight.setText(row.weight);
+        holder.tvArrow.setText(row.arrow);
+        holder.tvChange.setText(row.change);
+        if (row.tone != TONE_NONE) {
+            int color = row.tone == TONE_LOSS ? R.color.red_negative
+                    : row.tone == TONE_GAIN ? R.color.green_positive
+                    : R.color.text_hint;
+            holder.tvArrow.setTextColor(context.getResources().getColor(color));
+            holder.tvChange.setTextColor(context.getResources().getColor(color));
         } else {
-            // First entry ever — no previous to compare
-            holder.tvArrow.setText("");
-            holder.tvChange.setText(unit);
             holder.tvChange.setTextColor(context.getResources().getColor(R.color.text_hint));
         }
 
-        // Delete button
+        // Progress photo of the entry's day; a recycled row drops the
+        // previous photo's late result
+        List<String> photos = PhotoStore.getInstance().getPhotosForDay(EpochDay.fromMillis(entry.getTime()));
+        if (photos.isEmpty()) {
+            holder.ivPhoto.setTag(null);
+            holder.ivPhoto.setImageDrawable(null);
+            holder.ivPhoto.setVisibility(View.GONE);
+        } else {
+            holder.ivPhoto.setVisibility(View.VISIBLE);
+            ThumbnailCache.getInstance().load(photos.get(0), holder.ivPhoto);
+        }
+
+        // Delete button: the entry itself, not a position a later change could shift
+        long version = entries.getVersion();
         holder.btnDelete.setOnClickListener(v -> {
             if (deleteCallback != null) {
-                deleteCallback.onDelete(position);
+                deleteCallback.onDelete(entry, version, position);
             }
         });
     }
 
     @Override
     public int getItemCount() {
-        return entries.size();
+        return snapshot.getMonthIndex().getRowCount();
+    }
+
+    // ─── Row text ───────────────────────────────────────────────────────
+
+    /**
+     * The strings and tone one entry row shows. Built from an immutable
+     * snapshot, so any thread can make them.
+     */
+    static final class RowModel {
+        final String date;
+        final String weight;
+        final String arrow;
+        final String change;
+        final int tone;
+
+        private RowModel(String date, String weight, String arrow, String change, int tone) {
+            this.date = date;
+            this.weight = weight;
+            this.arrow = arrow;
+            this.change = change;
+            this.tone = tone;
+        }
+
+        static RowModel of(EntrySnapshot entries, int position, boolean metric, DateFormat dateFormat) {
+            WeightEntry entry = entries.get(position);
+            String unit = metric ? "kg" : "lbs";
+            String date = dateFormat.format(entry.getDate());
+            String weight = String.format("%.1f %s", entry.getWeight(), unit);
+
+            // Change from previous entry (next item in list since sorted newest first)
+            if (position == entries.size() - 1) {
+                // First entry ever — no previous to compare
+                return new RowModel(date, weight, "", unit, TONE_NONE);
+            }
+            double change = entry.getWeight() - entries.get(position + 1).getWeight();
+            if (change < 0) {
+                // Weight loss — red down arrow
+                return new RowModel(date, weight, "▼",
+                        String.format("-%.1f %s", Math.abs(change), unit), TONE_LOSS);
+            } else if (change > 0) {
+                // Weight gain — green up arrow
+                return new RowModel(date, weight, "▲",
+                        String.format("+%.1f %s", change, unit), TONE_GAIN);
+            }
+            return new RowModel(date, weight, "—", String.format("0.0 %s", unit), TONE_FLAT);
+        }
+    }
+
+    /**
+     * Row models for the first entries of one snapshot, in one unit.
+     */
+    static final class Page {
+        final long version;
+        final boolean metric;
+        final RowModel[] rows;
+
+        private Page(long version, boolean metric, RowModel[] rows) {
+            this.version = version;
+            this.metric = metric;
+            this.rows = rows;
+        }
+
+        /**
+         * Models for the first {@code count} entries of {@code entries}.
+         * Safe off the main thread.
+         */
+        static Page build(EntrySnapshot entries, int count, boolean metric) {
+            DateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN, Locale.US);
+            RowModel[] rows = new RowModel[Math.min(count, entries.size())];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = RowModel.of(entries, i, metric, dateFormat);
+            }
+            return new Page(entries.getVersion(), metric, rows);
+        }
+
+        boolean matches(EntrySnapshot entries, boolean metric) {
+            return version == entries.getVersion() && this.metric == metric;
+        }
     }
 
     // ─── ViewHolder ─────────────────────────────────────────────────────
@@ -112,6 +257,7 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.EntryVie
         TextView tvWeight;
         TextView tvArrow;
         TextView tvChange;
+        ImageView ivPhoto;
         ImageButton btnDelete;
 
         EntryViewHolder(View itemView) {
@@ -120,7 +266,17 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.EntryVie
             tvWeight = itemView.findViewById(R.id.tv_entry_weight);
             tvArrow = itemView.findViewById(R.id.tv_entry_arrow);
             tvChange = itemView.findViewById(R.id.tv_entry_change);
+            ivPhoto = itemView.findViewById(R.id.iv_entry_photo);
             btnDelete = itemView.findViewById(R.id.btn_delete);
         }
     }
+
+    static class MonthHeaderViewHolder extends RecyclerView.ViewHolder {
+        TextView tvMonth;
+
+        MonthHeaderViewHolder(View itemView) {
+            super(itemView);
+            tvMonth = itemView.findViewById(R.id.tv_month_header);
+        }
+    }
 }
@@ -0,0 +1,118 @@
+package com.weighttracker.app;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Append-only log of the entry changes made since the history file was
+ * last written, so a single add, edit or delete costs one small append
+ * rather than re-encoding the whole history. Loading applies it on top of
+ * the history file; {@link DataStore} folds it back in (rewrites the file,
+ * then deletes the log) once it grows.
+ *
+ * A record is an op byte, a length byte and the payload: an
+ * {@link EntryCodec} entry for a put, the entry ID for a delete. Puts
+ * replace by ID and deletes of missing IDs do nothing, so replaying the
+ * log over a file that already has its changes, as after a crash between
+ * the rewrite and the delete, changes nothing. A record cut short by a
+ * crash is ignored.
+ */
+final class HistoryJournal {
+
+    private static final int OP_PUT = 1;
+    private static final int OP_DELETE = 2;
+
+    private HistoryJournal() {
+    }
+
+    /**
+     * The log kept next to {@code history}.
+     */
+    static File fileFor(File history) {
+        return new File(history.getPath() + ".journal");
+    }
+
+    /**
+     * Records putting each of {@code entries}, replacing any with its ID.
+     */
+    static byte[] puts(Collection<WeightEntry> entries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 12);
+        for (WeightEntry entry : entries) {
+            byte[] payload = EntryCodec.encode(entry);
+            bytes.write(OP_PUT);
+            bytes.write(payload.length);
+            bytes.write(payload, 0, payload.length);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Records deleting each of {@code entries} by ID.
+     */
+    static byte[] deletes(Collection<WeightEntry> entries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 10);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (WeightEntry entry : entries) {
+                out.writeByte(OP_DELETE);
+                out.writeByte(8);
+                out.writeLong(entry.getId());
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e); // in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    static void append(File journal, byte[] records) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(journal, true)) {
+            out.write(records);
+        }
+    }
+
+    /**
+     * Applies the records in {@code journal}, in order, to {@code entries}
+     * (keyed by ID). Returns false if it stopped at a corrupt record; the
+     * records before it are applied.
+     */
+    static boolean replay(File journal, Map<Long, WeightEntry> entries) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(journal)))) {
+            while (true) {
+                int op = in.read();
+                if (op < 0) return true;
+                byte[] payload = new byte[in.readUnsignedByte()];
+                in.readFully(payload);
+                if (op == OP_PUT && payload.length <= EntryCodec.MAX_ENTRY_BYTES) {
+                    WeightEntry entry;
+                    try {
+                        entry = EntryCodec.decode(payload);
+                    } catch (IOException e) {
+                        return false;
+                    }
+                    entries.put(entry.getId(), entry);
+                } else if (op == OP_DELETE && payload.length == 8) {
+                    long id = 0;
+                    for (byte b : payload) {
+                        id = (id << 8) | (b & 0xff);
+                    }
+                    entries.remove(id);
+                } else {
+                    return false;
+                }
+            }
+        } catch (EOFException e) {
+            // The last record was cut short by a crash
+            return true;
+        }
+    }
+}
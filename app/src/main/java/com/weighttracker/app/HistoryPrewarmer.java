@@ -0,0 +1,303 @@
+package com.weighttracker.app;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gets the History screen ready while the dashboard sits idle, so opening
+ * it costs the same however long the history is.
+ *
+ * Once the main thread goes idle after the dashboard's first frame, the
+ * store's snapshot and column copy are brought up to date there, then a
+ * background thread inflates a screenful of row views and formats the
+ * first page of row text from the (immutable) snapshot. History's adapter
+ * takes the views in {@code onCreateViewHolder}, {@link #fillPool} parks
+ * them as holders in its RecyclerView pool, and the page stands in for
+ * formatting while its version still matches.
+ *
+ * Rows are inflated in History's theme and the dashboard's configuration
+ * (night mode, font scale, locale, ...), on the application context so
+ * they hold no activity. If History opens in a different configuration,
+ * the prepared rows are dropped and it inflates its own. Cached views
+ * count against {@link MemoryBudget} as rebuildable. Call everything but
+ * the background work on the main thread.
+ */
+public class HistoryPrewarmer {
+
+    // Shortest row either layout makes (14dp padding around 14-15sp text)
+    private static final int MIN_ROW_HEIGHT_DP = 44;
+    // Rows just off screen that a first fling binds
+    private static final int EXTRA_ROWS = 2;
+    // Rough size of an inflated entry row (a handful of TextViews)
+    private static final long VIEW_BYTES = 4 * 1024;
+    // RecyclerView's default pool size per view type
+    private static final int DEFAULT_POOL_SIZE = 5;
+
+    private static HistoryPrewarmer instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "history-prewarm");
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Filled on the executor, taken on the main thread; guarded by `this`
+    private final ArrayDeque<View> entryViews = new ArrayDeque<>();
+    private final ArrayDeque<View> headerViews = new ArrayDeque<>();
+    private volatile HistoryAdapter.Page firstPage;
+    // Configuration the cached views and page were made in, and a count of
+    // drops (guarded by `this`) so work queued before one is discarded
+    private Configuration warmedConfig;
+    private int generation;
+    private boolean scheduled;
+
+    private HistoryPrewarmer() {
+        MemoryBudget.getInstance().register("HistoryPrewarmer.views",
+                MemoryBudget.PRIORITY_REBUILDABLE, new ViewBudget());
+    }
+
+    public static HistoryPrewarmer getInstance() {
+        if (instance == null) {
+            instance = new HistoryPrewarmer();
+        }
+        return instance;
+    }
+
+    // ─── Warm-up ────────────────────────────────────────────────────────
+
+    /**
+     * Queues a warm-up for the next time the main thread is idle, i.e.
+     * after the current screen has drawn. Call from the dashboard's
+     * onResume; repeated calls before it runs are merged.
+     */
+    public void scheduleWhenIdle(Context context) {
+        if (scheduled) return;
+        scheduled = true;
+        Context app = context.getApplicationContext();
+        Configuration config = new Configuration(context.getResources().getConfiguration());
+        Looper.myQueue().addIdleHandler(() -> {
+            scheduled = false;
+            prewarm(app, config);
+            return false;
+        });
+    }
+
+    private void prewarm(Context app, Configuration config) {
+        dropIfStale(config);
+        warmedConfig = config;
+        Context themed = new ContextThemeWrapper(app.createConfigurationContext(config), historyTheme(app));
+
+        // Both are O(1) when current; otherwise they are built here, with
+        // nothing waiting, instead of when History opens
+        DataStore dataStore = DataStore.getInstance();
+        EntrySnapshot snapshot = dataStore.getSnapshot();
+        dataStore.getColumns();
+        boolean metric = dataStore.isMetric();
+
+        int rows = rowsPerScreen(themed);
+        int entryTarget = Math.min(rows, snapshot.size());
+        MonthIndex months = snapshot.getMonthIndex();
+        int visibleRows = Math.min(rows, months.getRowCount());
+        int headerTarget = visibleRows == 0 ? 0 : months.sectionForRow(visibleRows - 1) + 1;
+        HistoryAdapter.Page page = firstPage;
+        boolean pageCurrent = page != null && page.matches(snapshot, metric) && page.rows.length >= entryTarget;
+        int entryCount;
+        int headerCount;
+        int gen;
+        synchronized (this) {
+            entryCount = entryViews.size();
+            headerCount = headerViews.size();
+            gen = generation;
+        }
+        if (pageCurrent && entryCount >= entryTarget && headerCount >= headerTarget) return;
+
+        executor.execute(() -> {
+            if (!pageCurrent) {
+                HistoryAdapter.Page built = HistoryAdapter.Page.build(snapshot, rows, metric);
+                synchronized (this) {
+                    if (generation == gen) firstPage = built;
+                }
+            }
+            // A private inflater: LayoutInflater instances are not thread-safe
+            LayoutInflater inflater = LayoutInflater.from(themed).cloneInContext(themed);
+            // Lets inflate() apply the layouts' own width and height
+            FrameLayout parent = new FrameLayout(themed);
+            inflateInto(entryViews, entryTarget, inflater, parent, HistoryAdapter.VIEW_TYPE_ENTRY, gen);
+            inflateInto(headerViews, headerTarget, inflater, parent, HistoryAdapter.VIEW_TYPE_MONTH_HEADER, gen);
+            MemoryBudget.getInstance().onCacheGrew();
+        });
+    }
+
+    /**
+     * HistoryActivity's theme from the manifest (the application's unless
+     * it sets its own).
+     */
+    private static int historyTheme(Context app) {
+        try {
+            return app.getPackageManager()
+                    .getActivityInfo(new ComponentName(app, HistoryActivity.class), 0)
+                    .getThemeResource();
+        } catch (PackageManager.NameNotFoundException e) {
+            return app.getApplicationInfo().theme;
+        }
+    }
+
+    /**
+     * Drops the views and page if they were made in a configuration other
+     * than {@code config}, e.g. before a rotation or a dark mode switch.
+     */
+    private void dropIfStale(Configuration config) {
+        if (warmedConfig == null || warmedConfig.diff(config) == 0) return;
+        synchronized (this) {
+            entryViews.clear();
+            headerViews.clear();
+            firstPage = null;
+            generation++;
+        }
+        warmedConfig = null;
+    }
+
+    /**
+     * Tops {@code cache} up to {@code target} views, unless the cache is
+     * dropped ({@code gen} goes stale) meanwhile.
+     */
+    private void inflateInto(ArrayDeque<View> cache, int target, LayoutInflater inflater,
+                             FrameLayout parent, int viewType, int gen) {
+        int layout = HistoryAdapter.layoutFor(viewType);
+        while (true) {
+            synchronized (this) {
+                if (generation != gen || cache.size() >= target) return;
+            }
+            View view = inflater.inflate(layout, parent, false);
+            synchronized (this) {
+                if (generation != gen) return;
+                cache.add(view);
+            }
+        }
+    }
+
+    /**
+     * Blocks until queued warm-up work has finished, or the timeout passes.
+     * For tests.
+     */
+    boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        try {
+            executor.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rows that fit the screen height, plus a couple for the first fling.
+     */
+    static int rowsPerScreen(Context context) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        float rowPx = MIN_ROW_HEIGHT_DP * metrics.density;
+        return (int) Math.ceil(metrics.heightPixels / rowPx) + EXTRA_ROWS;
+    }
+
+    // ─── Hand-off ───────────────────────────────────────────────────────
+
+    /**
+     * Views ready to hand out, for tests.
+     */
+    @VisibleForTesting
+    synchronized int getCachedViewCount() {
+        return entryViews.size() + headerViews.size();
+    }
+
+    /**
+     * A prewarmed view for {@code viewType}, or null if none is ready.
+     * {@link #fillPool} has already dropped views made in another
+     * configuration.
+     */
+    synchronized View takeView(int viewType) {
+        ArrayDeque<View> cache = viewType == HistoryAdapter.VIEW_TYPE_MONTH_HEADER
+                ? headerViews
+                : entryViews;
+        return cache.poll();
+    }
+
+    /**
+     * The precomputed first page, if any and made in {@code context}'s
+     * configuration; check it against the snapshot shown with
+     * {@link HistoryAdapter.Page#matches}.
+     */
+    HistoryAdapter.Page getFirstPage(Context context) {
+        dropIfStale(context.getResources().getConfiguration());
+        return firstPage;
+    }
+
+    /**
+     * Turns every prewarmed view into a holder (through the adapter, so it
+     * is tagged with its view type) and parks it in {@code recyclerView}'s
+     * pool, so the first layout binds instead of inflating. Call after
+     * setAdapter, which clears the pool. Views made in another
+     * configuration are dropped instead.
+     */
+    public void fillPool(RecyclerView recyclerView, RecyclerView.Adapter<?> adapter) {
+        dropIfStale(recyclerView.getContext().getResources().getConfiguration());
+        fillPool(recyclerView, adapter, HistoryAdapter.VIEW_TYPE_ENTRY, entryViews);
+        fillPool(recyclerView, adapter, HistoryAdapter.VIEW_TYPE_MONTH_HEADER, headerViews);
+    }
+
+    private void fillPool(RecyclerView recyclerView, RecyclerView.Adapter<?> adapter,
+                          int viewType, ArrayDeque<View> cache) {
+        int count;
+        synchronized (this) {
+            count = cache.size();
+        }
+        if (count == 0) return;
+        RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+        pool.setMaxRecycledViews(viewType,
+                Math.max(DEFAULT_POOL_SIZE, pool.getRecycledViewCount(viewType) + count));
+        for (int i = 0; i < count; i++) {
+            pool.putRecycledView(adapter.createViewHolder(recyclerView, viewType));
+        }
+    }
+
+    /**
+     * Lets {@link MemoryBudget} drop cached views; the page goes with the
+     * last of them.
+     */
+    private class ViewBudget implements MemoryBudget.Consumer {
+        @Override
+        public long sizeBytes() {
+            synchronized (HistoryPrewarmer.this) {
+                return (entryViews.size() + headerViews.size()) * VIEW_BYTES;
+            }
+        }
+
+        @Override
+        public void trimTo(long targetBytes) {
+            long keep = targetBytes / VIEW_BYTES;
+            synchronized (HistoryPrewarmer.this) {
+                while (headerViews.size() + entryViews.size() > keep) {
+                    (headerViews.isEmpty() ? entryViews : headerViews).poll();
+                }
+                if (keep == 0) firstPage = null;
+            }
+        }
+    }
+}
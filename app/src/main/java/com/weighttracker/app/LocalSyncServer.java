@@ -0,0 +1,59 @@
+package com.weighttracker.app;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process reference {@link SyncServer}. Keeps pushed batches in an
+ * append-only list indexed by sequence number, so a pull costs a binary
+ * search plus the batches actually returned. Lets several
+ * {@link SyncEngine}s be exercised together with no network.
+ */
+public class LocalSyncServer implements SyncServer {
+
+    private final List<Long> seqs = new ArrayList<>();
+    private final List<Integer> devices = new ArrayList<>();
+    private final List<byte[]> batches = new ArrayList<>();
+    private long nextSeq = 1;
+    private long storedBytes;
+
+    @Override
+    public synchronized long push(int deviceTag, byte[] batch) {
+        long seq = nextSeq++;
+        seqs.add(seq);
+        devices.add(deviceTag);
+        batches.add(batch);
+        storedBytes += batch.length;
+        return seq;
+    }
+
+    @Override
+    public synchronized PullResult pull(int deviceTag, long afterSeq) {
+        // Sequence numbers are dense and ascending: find the first one after afterSeq
+        int lo = 0;
+        int hi = seqs.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (seqs.get(mid) <= afterSeq) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        List<byte[]> result = new ArrayList<>();
+        for (int i = lo; i < seqs.size(); i++) {
+            if (devices.get(i) != deviceTag) {
+                result.add(batches.get(i));
+            }
+        }
+        return new PullResult(result, nextSeq - 1);
+    }
+
+    /**
+     * Total compressed bytes stored, for diagnostics.
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+}
@@ -1,10 +1,16 @@
 package com.weighttracker.app;
 
+import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.VisibleForTesting;
 import androidx.appcompat.app.AppCompatActivity;
 
 import java.text.SimpleDateFormat;
@@ -27,10 +33,25 @@ public class MainActivity extends AppCompatActivity {
     private TextView tvAvgWeeklyLoss;
     private TextView tvLossToDate;
 
+    // Rolling stats
+    private TextView tvAvg7Day;
+    private TextView tvAvg30Day;
+    private TextView tvRange7Day;
+
     // Tip card
     private androidx.cardview.widget.CardView cardTip;
 
     private DataStore dataStore;
+
+    // Redraws when the history finishes loading or a sync merges changes
+    private final DataStore.ChangeListener changeListener = version -> updateDisplay();
+
+    // Progress photo picker; picked photos are linked to today
+    private final ActivityResultLauncher<String> pickPhoto = registerForActivityResult(
+            new ActivityResultContracts.GetContent(), this::onPhotoPicked);
+
+    private static final double LBS_TO_KG = 0.453592;
+
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("MMM dd, yyyy", Locale.US);
 
     @Override
@@ -48,6 +69,9 @@ public class MainActivity extends AppCompatActivity {
         tvBmi = findViewById(R.id.tv_bmi);
         tvAvgWeeklyLoss = findViewById(R.id.tv_avg_weekly_loss);
         tvLossToDate = findViewById(R.id.tv_loss_to_date);
+        tvAvg7Day = findViewById(R.id.tv_avg_7day);
+        tvAvg30Day = findViewById(R.id.tv_avg_30day);
+        tvRange7Day = findViewById(R.id.tv_range_7day);
         cardTip = findViewById(R.id.card_tip);
 
         // Button listeners
@@ -57,9 +81,8 @@ public class MainActivity extends AppCompatActivity {
         findViewById(R.id.btn_view_history).setOnClickListener(v ->
                 startActivity(new Intent(this, HistoryActivity.class)));
 
-        findViewById(R.id.btn_add_progress_photo).setOnClickListener(v -> {
-            // Progress photo will be implemented in Week 8
-        });
+        findViewById(R.id.btn_add_progress_photo).setOnClickListener(v ->
+                pickPhoto.launch("image/*"));
 
         findViewById(R.id.btn_settings_icon).setOnClickListener(v ->
                 startActivity(new Intent(this, SettingsActivity.class)));
@@ -81,29 +104,59 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        dataStore.addChangeListener(changeListener);
         updateDisplay();
+        // History is the usual next screen; prepare it once this one has drawn
+        HistoryPrewarmer.getInstance().scheduleWhenIdle(this);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        dataStore.removeChangeListener(changeListener);
+    }
+
+    /**
+     * Stores a picked progress photo under today's date. The result toast
+     * uses the app context, so a slow save holds no reference to this
+     * screen.
+     */
+    private void onPhotoPicked(Uri uri) {
+        if (uri == null) return; // picker cancelled
+        final Context app = getApplicationContext();
+        PhotoStore.getInstance().importPhotoAsync(uri, EpochDay.today(), hash ->
+                Toast.makeText(app, hash != null
+                        ? "Progress photo saved."
+                        : "Could not save photo.", Toast.LENGTH_SHORT).show());
     }
 
     /**
      * Refreshes all displayed statistics from the DataStore.
      */
-    private void updateDisplay() {
+    @VisibleForTesting
+    void updateDisplay() {
         String unit = dataStore.isMetric() ? "kg" : "lbs";
         tvWeightUnitMain.setText(unit);
 
-        WeightEntry latest = dataStore.getLatestEntry();
+        // Entries from one version, so the latest entry and the count agree
+        EntrySnapshot snapshot = dataStore.getSnapshot();
+        WeightEntry latest = snapshot.isEmpty() ? null : snapshot.get(0);
+        // A flagged reading (someone else on the scale) is not the current weight
+        WeightEntry current = dataStore.getLatestInlier();
 
         if (latest != null) {
             // Current weight
-            tvCurrentWeight.setText(String.format("%.1f", latest.getWeight()));
+            tvCurrentWeight.setText(current != null ? String.format("%.1f", current.getWeight()) : "--");
 
-            // Last entry date
+            // Last entry date, and its weight if it was left out as an outlier
             String dateStr = DATE_FORMAT.format(latest.getDate()).toUpperCase();
-            tvLastEntry.setText("LAST ENTRY, " + dateStr);
+            tvLastEntry.setText(current == latest
+                    ? "LAST ENTRY, " + dateStr
+                    : String.format("LAST ENTRY, %s (%.1f FLAGGED)", dateStr, latest.getWeight()));
 
             // Change from previous entry
             double change = dataStore.calculateLastChange();
-            if (dataStore.getEntryCount() >= 2) {
+            if (snapshot.size() >= 2) {
                 String changeStr = formatChange(change, unit);
                 tvChange.setText("CHANGE: " + changeStr);
                 tvChange.setTextColor(change <= 0
@@ -137,6 +190,23 @@ public class MainActivity extends AppCompatActivity {
         } else {
             tvLossToDate.setText("--");
         }
+
+        // Rolling averages and range over the days up to now, kept in kg
+        long now = System.currentTimeMillis();
+        RollingWindow week = dataStore.getRollingWindow(DataStore.WINDOW_7_DAYS, now);
+        RollingWindow month = dataStore.getRollingWindow(DataStore.WINDOW_30_DAYS, now);
+        tvAvg7Day.setText(week.getCount() > 0 ? String.format("%.1f", fromKg(week.getMean())) : "--");
+        tvAvg30Day.setText(month.getCount() > 0 ? String.format("%.1f", fromKg(month.getMean())) : "--");
+        tvRange7Day.setText(week.getCount() > 0
+                ? String.format("%.1f–%.1f", fromKg(week.getMin()), fromKg(week.getMax()))
+                : "--");
+    }
+
+    /**
+     * Converts a kg value to the display unit.
+     */
+    private double fromKg(double kg) {
+        return dataStore.isMetric() ? kg : kg / LBS_TO_KG;
     }
 
     /**
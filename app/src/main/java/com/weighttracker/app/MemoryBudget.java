@@ -0,0 +1,278 @@
+package com.weighttracker.app;
+
+import android.content.ComponentCallbacks2;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the app's in-memory caches inside one shared fraction of the heap.
+ *
+ * Each cache registers a {@link Consumer} that reports its size and can
+ * shrink itself, with a priority saying how cheap its contents are to get
+ * back: graph tiles re-render from the series, thumbnails re-decode from
+ * disk, column snapshots rebuild from the entries. When the total goes
+ * over budget, or the system asks via onTrimMemory / onLowMemory, the
+ * cheapest consumers are trimmed first and the others only if that is not
+ * enough.
+ *
+ * Caches call {@link #onCacheGrew} from any thread after adding data. The
+ * check runs once per burst on the main thread, so consumers are only
+ * ever trimmed there.
+ */
+public class MemoryBudget {
+
+    /** Re-rendered from data already in memory, e.g. graph tiles. */
+    public static final int PRIORITY_REBUILDABLE = 0;
+    /** Re-decoded from disk, e.g. photo thumbnails. */
+    public static final int PRIORITY_DECODED = 10;
+    /** Recomputed from the entries, e.g. column snapshots. */
+    public static final int PRIORITY_DERIVED = 20;
+
+    static final double DEFAULT_HEAP_FRACTION = 0.25;
+
+    private static final String TAG = "MemoryBudget";
+
+    private static MemoryBudget instance;
+
+    /**
+     * A cache the budget can measure and shrink. Both methods may be
+     * called from any thread; {@link #trimTo} only from the main thread.
+     */
+    public interface Consumer {
+        /**
+         * Current size estimate in bytes.
+         */
+        long sizeBytes();
+
+        /**
+         * Shrinks to at most {@code targetBytes}; 0 drops everything.
+         */
+        void trimTo(long targetBytes);
+    }
+
+    /**
+     * One consumer's occupancy, for diagnostics.
+     */
+    public static final class Usage {
+        public final String name;
+        public final int priority;
+        public final long bytes;
+
+        Usage(String name, int priority, long bytes) {
+            this.name = name;
+            this.priority = priority;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long maxHeap;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Sorted by priority, cheapest to rebuild first
+    private final List<Registration> registrations = new ArrayList<>();
+    private final Runnable enforceRunnable = this::enforce;
+    private volatile double heapFraction = DEFAULT_HEAP_FRACTION;
+    private boolean enforcePosted;
+
+    private MemoryBudget(long maxHeap) {
+        this.maxHeap = maxHeap;
+    }
+
+    public static synchronized MemoryBudget getInstance() {
+        if (instance == null) {
+            instance = new MemoryBudget(Runtime.getRuntime().maxMemory());
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a consumer. Consumers of equal priority are trimmed in
+     * registration order.
+     */
+    public Registration register(String name, int priority, Consumer consumer) {
+        Registration registration = new Registration(name, priority, consumer);
+        synchronized (registrations) {
+            int at = registrations.size();
+            while (at > 0 && registrations.get(at - 1).priority > priority) {
+                at--;
+            }
+            registrations.add(at, registration);
+        }
+        onCacheGrew();
+        return registration;
+    }
+
+    /**
+     * Handle for a registered consumer.
+     */
+    public final class Registration {
+        final String name;
+        final int priority;
+        final Consumer consumer;
+
+        Registration(String name, int priority, Consumer consumer) {
+            this.name = name;
+            this.priority = priority;
+            this.consumer = consumer;
+        }
+
+        public void unregister() {
+            synchronized (registrations) {
+                registrations.remove(this);
+            }
+        }
+    }
+
+    // ─── Budget ─────────────────────────────────────────────────────────
+
+    /**
+     * Sets the share of the maximum heap all consumers together may use.
+     */
+    public void setHeapFraction(double fraction) {
+        if (fraction <= 0 || fraction > 1) {
+            throw new IllegalArgumentException("heap fraction must be in (0, 1]");
+        }
+        heapFraction = fraction;
+        onCacheGrew();
+    }
+
+    public long getBudgetBytes() {
+        return (long) (maxHeap * heapFraction);
+    }
+
+    /**
+     * Schedules an over-budget check on the main thread. Cheap to call
+     * after every cache insert; calls before the check runs are merged.
+     */
+    public void onCacheGrew() {
+        synchronized (registrations) {
+            if (enforcePosted) return;
+            enforcePosted = true;
+        }
+        mainHandler.post(enforceRunnable);
+    }
+
+    private void enforce() {
+        synchronized (registrations) {
+            enforcePosted = false;
+        }
+        trimTotalTo(getBudgetBytes());
+    }
+
+    /**
+     * Responds to {@link ComponentCallbacks2#onTrimMemory}: the more
+     * pressure the level signals, the smaller the share of the budget kept.
+     * Once the UI is hidden nothing is on screen, so tiles go first.
+     */
+    public void onTrimMemory(int level) {
+        long budget = getBudgetBytes();
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimTotalTo(0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            trimTotalTo(budget / 4);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimTotalTo(budget / 2);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            trimPriorityUpTo(PRIORITY_REBUILDABLE);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            trimTotalTo(budget * 3 / 4);
+        }
+    }
+
+    /**
+     * Responds to {@link ComponentCallbacks2#onLowMemory}: drops everything.
+     */
+    public void onLowMemory() {
+        trimTotalTo(0);
+    }
+
+    /**
+     * Trims consumers, cheapest first, until all of them together use at
+     * most {@code targetBytes}. Main thread only.
+     */
+    void trimTotalTo(long targetBytes) {
+        List<Registration> ordered = snapshotRegistrations();
+        long[] sizes = new long[ordered.size()];
+        long total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = ordered.get(i).consumer.sizeBytes();
+            total += sizes[i];
+        }
+        for (int i = 0; i < sizes.length && total > targetBytes; i++) {
+            if (sizes[i] == 0) continue;
+            Consumer consumer = ordered.get(i).consumer;
+            consumer.trimTo(Math.max(0, sizes[i] - (total - targetBytes)));
+            total += consumer.sizeBytes() - sizes[i];
+        }
+    }
+
+    /**
+     * Empties every consumer with priority up to {@code priority}.
+     */
+    void trimPriorityUpTo(int priority) {
+        for (Registration registration : snapshotRegistrations()) {
+            if (registration.priority > priority) break;
+            registration.consumer.trimTo(0);
+        }
+    }
+
+    private List<Registration> snapshotRegistrations() {
+        synchronized (registrations) {
+            return new ArrayList<>(registrations);
+        }
+    }
+
+    // ─── Diagnostics ────────────────────────────────────────────────────
+
+    /**
+     * Current occupancy of each consumer, cheapest to rebuild first.
+     */
+    public List<Usage> getUsage() {
+        List<Usage> usage = new ArrayList<>();
+        for (Registration registration : snapshotRegistrations()) {
+            usage.add(new Usage(registration.name, registration.priority,
+                    registration.consumer.sizeBytes()));
+        }
+        return usage;
+    }
+
+    public long getTotalBytes() {
+        long total = 0;
+        for (Registration registration : snapshotRegistrations()) {
+            total += registration.consumer.sizeBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Writes one line per consumer (name, priority, KB) and the total
+     * against the budget.
+     */
+    public void dump(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        out.printf("%-32s %8s %10s%n", "cache", "priority", "kb");
+        long total = 0;
+        for (Usage usage : getUsage()) {
+            out.printf("%-32s %8d %10d%n", usage.name, usage.priority, usage.bytes / 1024);
+            total += usage.bytes;
+        }
+        out.printf("%-32s %8s %10d of %d%n", "total", "", total / 1024, getBudgetBytes() / 1024);
+        out.flush();
+    }
+
+    public void dumpToLog() {
+        StringWriter text = new StringWriter();
+        dump(text);
+        for (String line : text.toString().split("\n")) {
+            Log.i(TAG, line);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.weighttracker.app;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of named {@link LatencyHistogram}s for timing hot paths.
+ *
+ * Call sites keep their histogram in a static field and bracket the work:
+ *
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.stop(DRAW_LATENCY, start);
+ * </pre>
+ *
+ * While disabled, {@link #start()} is one field read and {@link #stop}
+ * returns immediately, so instrumentation can stay in release builds.
+ */
+public final class Metrics {
+
+    private static final String TAG = "Metrics";
+
+    private static volatile boolean enabled;
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the histogram registered under {@code name}, creating it if needed.
+     */
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram(name);
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) histogram = created;
+        }
+        return histogram;
+    }
+
+    // ─── Timing ─────────────────────────────────────────────────────────
+
+    /**
+     * Monotonic start time, or 0 while metrics are disabled.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since {@code start} unless it came from a disabled
+     * {@link #start()}.
+     */
+    public static void stop(LatencyHistogram histogram, long start) {
+        if (start == 0) return;
+        histogram.record(System.nanoTime() - start);
+    }
+
+    public static void resetAll() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    // ─── Reporting ──────────────────────────────────────────────────────
+
+    /**
+     * Writes one line per histogram that has data: count, p50/p95/p99,
+     * max and mean in milliseconds, sorted by name.
+     */
+    public static void dump(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        out.printf("%-32s %8s %9s %9s %9s %9s %9s%n",
+                "name", "count", "p50ms", "p95ms", "p99ms", "maxms", "meanms");
+        for (LatencyHistogram histogram : new TreeMap<>(histograms).values()) {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            if (s.count == 0) continue;
+            out.printf("%-32s %8d %9.3f %9.3f %9.3f %9.3f %9.3f%n", s.name, s.count,
+                    toMs(s.percentileNanos(0.50)), toMs(s.percentileNanos(0.95)),
+                    toMs(s.percentileNanos(0.99)), toMs(s.maxNanos), s.meanNanos() / 1e6);
+        }
+        out.flush();
+    }
+
+    public static void dumpToFile(File file) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            dump(writer);
+        }
+    }
+
+    public static void dumpToLog() {
+        StringWriter text = new StringWriter();
+        dump(text);
+        for (String line : text.toString().split("\n")) {
+            Log.i(TAG, line);
+        }
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,204 @@
+package com.weighttracker.app;
+
+import java.util.Arrays;
+
+/**
+ * Multi-resolution min/max summary of a chronological weight series,
+ * built once per data change (similar to texture mipmaps).
+ *
+ * Level 0 is the raw series. Each level k above it stores, for every run
+ * of 2^k consecutive samples, the minimum and maximum weight in that run.
+ * A frame only ever reads the one level whose bucket count is close to the
+ * number of horizontal pixels, so drawing cost depends on view width rather
+ * than on history size.
+ */
+public class MinMaxPyramid {
+
+    private final long[] times;      // level 0 timestamps, ascending (ms)
+    private final float[] values;    // level 0 weights
+    private final float[][] mins;    // mins[k] = bucket minimums for level k (k >= 1)
+    private final float[][] maxs;    // maxs[k] = bucket maximums for level k (k >= 1)
+    private final int levelCount;
+
+    /**
+     * Builds the pyramid. {@code times} must be sorted ascending and the same
+     * length as {@code values}; both arrays are kept by reference.
+     */
+    public MinMaxPyramid(long[] times, float[] values) {
+        this(times, values, values);
+    }
+
+    /**
+     * Builds a pyramid over a per-sample band, e.g. the envelope of several
+     * series sampled at the same times: level 0 buckets span
+     * {@code lows[i]..highs[i]}. {@link #getValue} returns the low.
+     */
+    public MinMaxPyramid(long[] times, float[] lows, float[] highs) {
+        if (times.length != lows.length || times.length != highs.length) {
+            throw new IllegalArgumentException("times and values differ in length");
+        }
+        this.times = times;
+        this.values = lows;
+
+        int n = times.length;
+        int levels = 1;
+        while ((n >> levels) > 0 && (1 << levels) < n) {
+            levels++;
+        }
+        levelCount = levels;
+        mins = new float[levelCount][];
+        maxs = new float[levelCount][];
+        mins[0] = lows;
+        maxs[0] = highs;
+
+        for (int k = 1; k < levelCount; k++) {
+            float[] lowerMin = mins[k - 1];
+            float[] lowerMax = maxs[k - 1];
+            int size = (lowerMin.length + 1) / 2;
+            float[] levelMin = new float[size];
+            float[] levelMax = new float[size];
+            for (int i = 0; i < size; i++) {
+                int a = i * 2;
+                int b = Math.min(a + 1, lowerMin.length - 1);
+                levelMin[i] = Math.min(lowerMin[a], lowerMin[b]);
+                levelMax[i] = Math.max(lowerMax[a], lowerMax[b]);
+            }
+            mins[k] = levelMin;
+            maxs[k] = levelMax;
+        }
+    }
+
+    /**
+     * Returns an empty pyramid.
+     */
+    public static MinMaxPyramid empty() {
+        return new MinMaxPyramid(new long[0], new float[0]);
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    public long getFirstTime() {
+        return times.length == 0 ? 0 : times[0];
+    }
+
+    public long getLastTime() {
+        return times.length == 0 ? 0 : times[times.length - 1];
+    }
+
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    public float getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Smallest weight in the whole series (0 if empty).
+     */
+    public float getMin() {
+        float[] top = mins[levelCount - 1];
+        if (top.length == 0) return 0;
+        float min = top[0];
+        for (float v : top) min = Math.min(min, v);
+        return min;
+    }
+
+    /**
+     * Largest weight in the whole series (0 if empty).
+     */
+    public float getMax() {
+        float[] top = maxs[levelCount - 1];
+        if (top.length == 0) return 0;
+        float max = top[0];
+        for (float v : top) max = Math.max(max, v);
+        return max;
+    }
+
+    /**
+     * Number of buckets at the given level.
+     */
+    public int bucketCount(int level) {
+        return mins[level].length;
+    }
+
+    public float bucketMin(int level, int bucket) {
+        return mins[level][bucket];
+    }
+
+    public float bucketMax(int level, int bucket) {
+        return maxs[level][bucket];
+    }
+
+    /**
+     * Timestamp of the first sample covered by a bucket.
+     */
+    public long bucketStartTime(int level, int bucket) {
+        return times[bucket << level];
+    }
+
+    /**
+     * Timestamp of the last sample covered by a bucket.
+     */
+    public long bucketEndTime(int level, int bucket) {
+        int last = Math.min(((bucket + 1) << level) - 1, times.length - 1);
+        return times[last];
+    }
+
+    /**
+     * Index of the first sample with time >= {@code time}.
+     */
+    public int lowerBound(long time) {
+        int i = Arrays.binarySearch(times, time);
+        if (i < 0) return -i - 1;
+        while (i > 0 && times[i - 1] == time) i--;
+        return i;
+    }
+
+    /**
+     * Index one past the last sample with time <= {@code time}.
+     */
+    public int upperBound(long time) {
+        int i = Arrays.binarySearch(times, time);
+        if (i < 0) return -i - 1;
+        while (i < times.length - 1 && times[i + 1] == time) i++;
+        return i + 1;
+    }
+
+    /**
+     * Time of the last sample strictly before {@code time}, or {@code time}
+     * itself if there is none.
+     */
+    public long timeBefore(long time) {
+        int i = lowerBound(time);
+        return i > 0 ? times[i - 1] : time;
+    }
+
+    /**
+     * Time of the first sample strictly after {@code time}, or {@code time}
+     * itself if there is none.
+     */
+    public long timeAfter(long time) {
+        int i = upperBound(time);
+        return i < times.length ? times[i] : time;
+    }
+
+    /**
+     * Picks the finest level at which {@code sampleCount} samples fit into
+     * at most {@code maxBuckets} buckets.
+     */
+    public int levelFor(int sampleCount, int maxBuckets) {
+        if (maxBuckets <= 0) return levelCount - 1;
+        int level = 0;
+        while (level < levelCount - 1 && (sampleCount >> level) > maxBuckets) {
+            level++;
+        }
+        return level;
+    }
+}
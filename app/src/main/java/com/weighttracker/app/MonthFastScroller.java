@@ -0,0 +1,220 @@
+package com.weighttracker.app;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Fast scroller for the History list that jumps by month.
+ *
+ * Lies over the RecyclerView but only takes touches that start in the
+ * strip along its right edge. The thumb's track is divided evenly between
+ * months, so dragging moves one month at a time regardless of how many
+ * entries each has; the month under the thumb is shown in a bubble and
+ * the list jumps to its header row. All lookups go through the
+ * {@link MonthIndex}, never the entry list.
+ */
+public class MonthFastScroller extends View {
+
+    private RecyclerView recyclerView;
+    private MonthIndex months = new MonthIndex();
+    private int currentSection;
+    private boolean dragging;
+
+    private Paint trackPaint;
+    private Paint thumbPaint;
+    private Paint bubblePaint;
+    private Paint labelPaint;
+    private final RectF rect = new RectF();
+    private float density;
+
+    private static final int COLOR_TRACK = 0xFFEEEEEE;
+    private static final int COLOR_THUMB = 0xFFE8533F;   // primary red
+    private static final int COLOR_LABEL = 0xFFFFFFFF;
+
+    // Sizes in dp
+    private static final float TOUCH_WIDTH = 32f;
+    private static final float TRACK_WIDTH = 2f;
+    private static final float THUMB_WIDTH = 4f;
+    private static final float THUMB_HEIGHT = 40f;
+    private static final float EDGE_MARGIN = 6f;
+    private static final float BUBBLE_HEIGHT = 36f;
+    private static final float BUBBLE_PADDING = 12f;
+    private static final float LABEL_SIZE = 14f;
+
+    // Fewer months than this and the list is short enough to fling
+    private static final int MIN_SECTIONS = 3;
+
+    public MonthFastScroller(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public MonthFastScroller(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    public MonthFastScroller(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context);
+    }
+
+    private void init(Context context) {
+        density = context.getResources().getDisplayMetrics().density;
+
+        trackPaint = new Paint();
+        trackPaint.setColor(COLOR_TRACK);
+        trackPaint.setStyle(Paint.Style.FILL);
+
+        thumbPaint = new Paint();
+        thumbPaint.setColor(COLOR_THUMB);
+        thumbPaint.setStyle(Paint.Style.FILL);
+        thumbPaint.setAntiAlias(true);
+
+        bubblePaint = new Paint(thumbPaint);
+
+        labelPaint = new Paint();
+        labelPaint.setColor(COLOR_LABEL);
+        labelPaint.setTextSize(LABEL_SIZE * density);
+        labelPaint.setTextAlign(Paint.Align.CENTER);
+        labelPaint.setAntiAlias(true);
+    }
+
+    /**
+     * Follows {@code recyclerView}'s scroll position. Its layout manager
+     * must be a {@link LinearLayoutManager}.
+     */
+    public void attach(RecyclerView recyclerView) {
+        this.recyclerView = recyclerView;
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView rv, int dx, int dy) {
+                if (!dragging) syncToList();
+            }
+        });
+    }
+
+    /**
+     * Sets the month sections of the list's current contents. Hides the
+     * scroller when there are too few months to need it.
+     */
+    public void setMonthIndex(MonthIndex months) {
+        this.months = months;
+        setVisibility(months.getSectionCount() >= MIN_SECTIONS ? VISIBLE : GONE);
+        currentSection = Math.min(currentSection, Math.max(0, months.getSectionCount() - 1));
+        syncToList();
+        invalidate();
+    }
+
+    /**
+     * Scrolls the list to the header of the month with key {@code monthKey}
+     * ({@link EpochDay#monthKey}), or of the nearest older month if that
+     * one has no entries.
+     */
+    public void scrollToMonth(int monthKey) {
+        int count = months.getSectionCount();
+        if (count == 0) return;
+        int section = months.findSection(monthKey);
+        if (section < 0) section = Math.min(-section - 1, count - 1);
+        scrollToSection(section);
+    }
+
+    private void scrollToSection(int section) {
+        currentSection = section;
+        LinearLayoutManager layout = (LinearLayoutManager) recyclerView.getLayoutManager();
+        layout.scrollToPositionWithOffset(months.getHeaderRow(section), 0);
+        invalidate();
+    }
+
+    private void syncToList() {
+        if (recyclerView == null || months.getSectionCount() == 0) return;
+        LinearLayoutManager layout = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int first = layout.findFirstVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) return;
+        int section = Math.max(0, months.sectionForRow(first));
+        if (section != currentSection) {
+            currentSection = section;
+            invalidate();
+        }
+    }
+
+    // ─── Touch ──────────────────────────────────────────────────────────
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (recyclerView == null || months.getSectionCount() < MIN_SECTIONS) return false;
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Let touches elsewhere fall through to the list underneath
+                if (event.getX() < getWidth() - TOUCH_WIDTH * density) return false;
+                dragging = true;
+                getParent().requestDisallowInterceptTouchEvent(true);
+                recyclerView.stopScroll();
+                scrollToSection(sectionForY(event.getY()));
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (!dragging) return false;
+                int section = sectionForY(event.getY());
+                if (section != currentSection) scrollToSection(section);
+                return true;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                if (!dragging) return false;
+                dragging = false;
+                invalidate();
+                return true;
+            default:
+                return dragging;
+        }
+    }
+
+    private int sectionForY(float y) {
+        float thumbHeight = THUMB_HEIGHT * density;
+        float travel = Math.max(1f, getHeight() - thumbHeight);
+        float fraction = Math.max(0f, Math.min(1f, (y - thumbHeight / 2f) / travel));
+        return Math.round(fraction * (months.getSectionCount() - 1));
+    }
+
+    // ─── Drawing ────────────────────────────────────────────────────────
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int count = months.getSectionCount();
+        if (count < MIN_SECTIONS) return;
+
+        float right = getWidth() - EDGE_MARGIN * density;
+        float thumbHeight = THUMB_HEIGHT * density;
+        float thumbWidth = THUMB_WIDTH * density;
+        float trackWidth = TRACK_WIDTH * density;
+        float center = right - thumbWidth / 2f;
+        float thumbTop = (getHeight() - thumbHeight) * currentSection / (float) (count - 1);
+
+        canvas.drawRect(center - trackWidth / 2f, 0, center + trackWidth / 2f, getHeight(), trackPaint);
+
+        rect.set(right - thumbWidth, thumbTop, right, thumbTop + thumbHeight);
+        canvas.drawRoundRect(rect, thumbWidth / 2f, thumbWidth / 2f, thumbPaint);
+
+        if (dragging) {
+            String label = EpochDay.formatMonth(months.getMonthKey(currentSection));
+            float bubbleHeight = BUBBLE_HEIGHT * density;
+            float bubbleWidth = labelPaint.measureText(label) + 2 * BUBBLE_PADDING * density;
+            float bubbleRight = right - thumbWidth - BUBBLE_PADDING * density;
+            float bubbleTop = Math.max(0f, Math.min(getHeight() - bubbleHeight,
+                    thumbTop + (thumbHeight - bubbleHeight) / 2f));
+            rect.set(bubbleRight - bubbleWidth, bubbleTop, bubbleRight, bubbleTop + bubbleHeight);
+            canvas.drawRoundRect(rect, bubbleHeight / 2f, bubbleHeight / 2f, bubblePaint);
+            canvas.drawText(label, rect.centerX(),
+                    rect.centerY() + labelPaint.getTextSize() / 3f, labelPaint);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.weighttracker.app;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Month sections of the entry list DataStore keeps sorted newest first:
+ * for each month that has entries, its key ({@link EpochDay#monthKey}) and
+ * the list index of its newest entry.
+ *
+ * Inserts and deletes update it in O(months) without touching entries, and
+ * every lookup is a binary search, so headers and fast scrolling never
+ * scan the list. It also maps positions in a list that shows a header row
+ * above each month.
+ */
+public final class MonthIndex {
+
+    private int[] keys;    // month keys, descending
+    private int[] starts;  // entry index of each month's newest entry, ascending
+    private int count;
+    private int entryCount;
+
+    public MonthIndex() {
+        keys = new int[16];
+        starts = new int[16];
+    }
+
+    private MonthIndex(MonthIndex other) {
+        keys = Arrays.copyOf(other.keys, Math.max(16, other.count));
+        starts = Arrays.copyOf(other.starts, Math.max(16, other.count));
+        count = other.count;
+        entryCount = other.entryCount;
+    }
+
+    /**
+     * Builds the index from entries sorted newest first.
+     */
+    public static MonthIndex build(List<WeightEntry> entries) {
+        MonthIndex index = new MonthIndex();
+        int previous = Integer.MAX_VALUE;
+        for (int i = 0; i < entries.size(); i++) {
+            int key = monthKeyOf(entries.get(i));
+            if (key != previous) {
+                index.insertSection(index.count, key, i);
+                previous = key;
+            }
+        }
+        index.entryCount = entries.size();
+        return index;
+    }
+
+    public static int monthKeyOf(WeightEntry entry) {
+        return EpochDay.monthKey(EpochDay.fromMillis(entry.getTime()));
+    }
+
+    /**
+     * Independent copy, e.g. to pair with a snapshot of the entry list.
+     */
+    public MonthIndex copy() {
+        return new MonthIndex(this);
+    }
+
+    // ─── Maintenance ────────────────────────────────────────────────────
+
+    /**
+     * Records that an entry in month {@code key} was inserted at list
+     * position {@code index}.
+     */
+    public void onInserted(int index, int key) {
+        int s = findSection(key);
+        if (s >= 0) {
+            shiftStarts(s + 1, 1);
+        } else {
+            s = -s - 1;
+            shiftStarts(s, 1);
+            insertSection(s, key, index);
+        }
+        entryCount++;
+    }
+
+    /**
+     * Records that the entry at list position {@code index}, in month
+     * {@code key}, was removed.
+     */
+    public void onRemoved(int index, int key) {
+        int s = findSection(key);
+        if (s < 0) return;
+        shiftStarts(s + 1, -1);
+        entryCount--;
+        if (getEnd(s) == starts[s]) {
+            System.arraycopy(keys, s + 1, keys, s, count - s - 1);
+            System.arraycopy(starts, s + 1, starts, s, count - s - 1);
+            count--;
+        }
+    }
+
+    private void shiftStarts(int from, int delta) {
+        for (int t = from; t < count; t++) {
+            starts[t] += delta;
+        }
+    }
+
+    private void insertSection(int s, int key, int start) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            starts = Arrays.copyOf(starts, count * 2);
+        }
+        System.arraycopy(keys, s, keys, s + 1, count - s);
+        System.arraycopy(starts, s, starts, s + 1, count - s);
+        keys[s] = key;
+        starts[s] = start;
+        count++;
+    }
+
+    // ─── Sections ───────────────────────────────────────────────────────
+
+    public int getSectionCount() {
+        return count;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public int getMonthKey(int section) {
+        return keys[section];
+    }
+
+    /**
+     * List index of the section's newest entry.
+     */
+    public int getStart(int section) {
+        return starts[section];
+    }
+
+    /**
+     * List index just past the section's oldest entry.
+     */
+    public int getEnd(int section) {
+        return section + 1 < count ? starts[section + 1] : entryCount;
+    }
+
+    /**
+     * Section for a month key, or -(insertion point) - 1 if that month has
+     * no entries.
+     */
+    public int findSection(int key) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] > key) {
+                lo = mid + 1;
+            } else if (keys[mid] < key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -lo - 1;
+    }
+
+    /**
+     * Section containing list index {@code entryIndex}.
+     */
+    public int sectionForEntry(int entryIndex) {
+        return lastAtOrBefore(entryIndex, 0);
+    }
+
+    // ─── Positions in a list with header rows ───────────────────────────
+
+    /**
+     * Rows in a list with one header above each month.
+     */
+    public int getRowCount() {
+        return entryCount + count;
+    }
+
+    public int getHeaderRow(int section) {
+        return starts[section] + section;
+    }
+
+    /**
+     * Section a row belongs to (its header or one of its entries).
+     */
+    public int sectionForRow(int row) {
+        return lastAtOrBefore(row, 1);
+    }
+
+    public boolean isHeaderRow(int row) {
+        int s = sectionForRow(row);
+        return s >= 0 && getHeaderRow(s) == row;
+    }
+
+    /**
+     * List index of the entry shown in a non-header row.
+     */
+    public int entryForRow(int row) {
+        return row - sectionForRow(row) - 1;
+    }
+
+    /**
+     * Row showing list index {@code entryIndex}.
+     */
+    public int rowForEntry(int entryIndex) {
+        return entryIndex + sectionForEntry(entryIndex) + 1;
+    }
+
+    /**
+     * Last section s with starts[s] + s * perSection <= target, or -1.
+     */
+    private int lastAtOrBefore(int target, int perSection) {
+        int lo = 0;
+        int hi = count - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] + mid * perSection <= target) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,176 @@
+package com.weighttracker.app;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Online detector for scale glitches (someone else on the scale, a reading
+ * in the wrong unit). Values are fed in chronological order; a value is
+ * flagged when it lies more than {@code threshold} robust standard
+ * deviations from the median of the preceding window.
+ *
+ * The robust deviation is 1.4826 × MAD, where the MAD is tracked as the
+ * sliding median of each value's distance from the window median at the
+ * time it arrived. Both medians are kept with two heaps, so each value
+ * costs O(log w) rather than a re-sort of the window.
+ */
+public class OutlierDetector {
+
+    // Scales a MAD to a standard deviation for normally distributed data
+    private static final double MAD_TO_SIGMA = 1.4826;
+
+    // Values seen before anything can be flagged
+    private static final int MIN_SAMPLES = 5;
+
+    private final double threshold;
+    private final double minDeviation;
+    private final SlidingMedian values;
+    private final SlidingMedian residuals;
+
+    /**
+     * @param windowSize   number of preceding values the median covers
+     * @param threshold    flag distance, in robust standard deviations
+     * @param minDeviation floor for the robust deviation, so a run of identical
+     *                     readings doesn't make every small change an outlier
+     */
+    public OutlierDetector(int windowSize, double threshold, double minDeviation) {
+        this.threshold = threshold;
+        this.minDeviation = minDeviation;
+        this.values = new SlidingMedian(windowSize);
+        this.residuals = new SlidingMedian(windowSize);
+    }
+
+    /**
+     * Adds the next value and returns whether it is an outlier. Flagged
+     * values still enter the window; the medians are robust to them, and a
+     * genuine level shift stops being flagged once it fills half the window.
+     */
+    public boolean add(double value) {
+        boolean outlier = false;
+        double residual = 0;
+        if (values.size() > 0) {
+            residual = Math.abs(value - values.median());
+            if (values.size() >= MIN_SAMPLES) {
+                double sigma = Math.max(minDeviation, MAD_TO_SIGMA * residuals.median());
+                outlier = residual > threshold * sigma;
+            }
+            residuals.add(residual);
+        }
+        values.add(value);
+        return outlier;
+    }
+
+    public double getMedian() {
+        return values.size() > 0 ? values.median() : Double.NaN;
+    }
+
+    public double getMad() {
+        return residuals.size() > 0 ? residuals.median() : Double.NaN;
+    }
+
+    public void reset() {
+        values.clear();
+        residuals.clear();
+    }
+
+    // ─── Sliding median ─────────────────────────────────────────────────
+
+    /**
+     * Median of the last {@code capacity} values. The lower half sits in a
+     * max-heap and the upper half in a min-heap; values leaving the window
+     * are deleted lazily when they surface at a heap top.
+     */
+    private static final class SlidingMedian {
+        private final int capacity;
+        private final ArrayDeque<Double> window = new ArrayDeque<>();
+        private final PriorityQueue<Double> low = new PriorityQueue<>(Collections.reverseOrder());
+        private final PriorityQueue<Double> high = new PriorityQueue<>();
+        private final Map<Double, Integer> delayed = new HashMap<>();
+        private int lowSize;   // live values in low
+        private int highSize;  // live values in high
+
+        SlidingMedian(int capacity) {
+            this.capacity = Math.max(1, capacity);
+        }
+
+        int size() {
+            return window.size();
+        }
+
+        void add(double value) {
+            if (lowSize == 0 || value <= low.peek()) {
+                low.add(value);
+                lowSize++;
+            } else {
+                high.add(value);
+                highSize++;
+            }
+            rebalance();
+
+            window.addLast(value);
+            if (window.size() > capacity) {
+                remove(window.pollFirst());
+            }
+        }
+
+        double median() {
+            if (lowSize > highSize) return low.peek();
+            return (low.peek() + high.peek()) / 2;
+        }
+
+        void clear() {
+            window.clear();
+            low.clear();
+            high.clear();
+            delayed.clear();
+            lowSize = 0;
+            highSize = 0;
+        }
+
+        private void remove(double value) {
+            delayed.merge(value, 1, Integer::sum);
+            if (value <= low.peek()) {
+                lowSize--;
+                prune(low);
+            } else {
+                highSize--;
+                prune(high);
+            }
+            rebalance();
+        }
+
+        private void rebalance() {
+            if (lowSize > highSize + 1) {
+                high.add(low.poll());
+                lowSize--;
+                highSize++;
+                prune(low);
+            } else if (lowSize < highSize) {
+                low.add(high.poll());
+                highSize--;
+                lowSize++;
+                prune(high);
+            }
+        }
+
+        /**
+         * Drops lazily deleted values from the top of {@code heap}.
+         */
+        private void prune(PriorityQueue<Double> heap) {
+            while (!heap.isEmpty()) {
+                Double top = heap.peek();
+                Integer pending = delayed.get(top);
+                if (pending == null) return;
+                if (pending == 1) {
+                    delayed.remove(top);
+                } else {
+                    delayed.put(top, pending - 1);
+                }
+                heap.poll();
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.weighttracker.app;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Content-addressed store for progress photos, linked to entry dates.
+ *
+ * Each photo is saved once under the SHA-256 of its bytes, so importing the
+ * same image twice costs no extra space. A small append-only index file maps
+ * local epoch days to photo hashes; it is loaded into a sorted map so the
+ * photo timeline can be walked by date.
+ *
+ * Imports do disk I/O and hashing: call them off the UI thread.
+ */
+public class PhotoStore {
+
+    private static final String PHOTO_DIR = "photos";
+    private static final String INDEX_FILE = "index.txt";
+
+    private static PhotoStore instance;
+
+    /**
+     * Result of an asynchronous import, delivered on the main thread.
+     * {@code hash} is null if the import failed.
+     */
+    public interface ImportCallback {
+        void onImported(String hash);
+    }
+
+    private final Context appContext;
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final File photoDir;
+    private final File indexFile;
+
+    // Epoch day -> photo hashes taken that day, in import order
+    private final TreeMap<Integer, List<String>> photosByDay = new TreeMap<>();
+
+    private PhotoStore(Context context) {
+        appContext = context;
+        photoDir = new File(context.getFilesDir(), PHOTO_DIR);
+        indexFile = new File(photoDir, INDEX_FILE);
+        if (!photoDir.exists()) {
+            photoDir.mkdirs();
+        }
+        loadIndex();
+    }
+
+    /**
+     * Creates the singleton; called once from {@link WeightTrackerApp}.
+     */
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new PhotoStore(context.getApplicationContext());
+        }
+    }
+
+    public static synchronized PhotoStore getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("PhotoStore.init() has not been called");
+        }
+        return instance;
+    }
+
+    // ─── Import ─────────────────────────────────────────────────────────
+
+    /**
+     * Copies a photo into the store and links it to the given epoch day.
+     * Returns the photo's content hash.
+     */
+    public String importPhoto(InputStream in, int epochDay) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 unavailable", e);
+        }
+
+        // Stream to a temp file while hashing, then move it to its hash name
+        File temp = File.createTempFile("import", ".tmp", photoDir);
+        try (OutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        }
+
+        String hash = toHex(digest.digest());
+        File target = getPhotoFile(hash);
+        if (target.exists()) {
+            temp.delete(); // same content already stored
+        } else if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Could not store photo " + hash);
+        }
+
+        link(hash, epochDay);
+        return hash;
+    }
+
+    /**
+     * Imports a picked image (e.g. from a photo picker) on a background
+     * thread and reports the result on the main thread. The image is
+     * opened right here: a picker's read grant can end with the activity
+     * that received it, so call this before finishing; the copy carries
+     * on from the open stream after that.
+     */
+    public void importPhotoAsync(Uri uri, int epochDay, ImportCallback callback) {
+        InputStream opened;
+        try {
+            opened = appContext.getContentResolver().openInputStream(uri);
+        } catch (IOException | SecurityException e) {
+            opened = null;
+        }
+        final InputStream source = opened;
+        importExecutor.execute(() -> {
+            String hash = null;
+            if (source != null) {
+                try (InputStream in = source) {
+                    hash = importPhoto(in, epochDay);
+                } catch (IOException e) {
+                    hash = null;
+                }
+            }
+            final String result = hash;
+            if (callback != null) {
+                mainHandler.post(() -> callback.onImported(result));
+            }
+        });
+    }
+
+    private synchronized void link(String hash, int epochDay) throws IOException {
+        List<String> hashes = photosByDay.get(epochDay);
+        if (hashes == null) {
+            hashes = new ArrayList<>();
+            photosByDay.put(epochDay, hashes);
+        }
+        if (hashes.contains(hash)) return;
+        hashes.add(hash);
+
+        try (Writer writer = new FileWriter(indexFile, true)) {
+            writer.write(epochDay + " " + hash + "\n");
+        }
+    }
+
+    // ─── Queries ────────────────────────────────────────────────────────
+
+    /**
+     * Full-resolution file for a photo hash. Never decode this on the UI
+     * thread; go through {@link ThumbnailCache} instead.
+     */
+    public File getPhotoFile(String hash) {
+        return new File(photoDir, hash + ".jpg");
+    }
+
+    /**
+     * Photo hashes linked to the given epoch day (empty if none).
+     */
+    public synchronized List<String> getPhotosForDay(int epochDay) {
+        List<String> hashes = photosByDay.get(epochDay);
+        return hashes == null ? Collections.<String>emptyList() : new ArrayList<>(hashes);
+    }
+
+    /**
+     * Epoch days that have at least one photo, oldest first.
+     */
+    public synchronized List<Integer> getPhotoDays() {
+        return new ArrayList<>(photosByDay.keySet());
+    }
+
+    public synchronized int getPhotoCount() {
+        int count = 0;
+        for (List<String> hashes : photosByDay.values()) {
+            count += hashes.size();
+        }
+        return count;
+    }
+
+    // ─── Index persistence ──────────────────────────────────────────────
+
+    private void loadIndex() {
+        if (!indexFile.exists()) return;
+        try (BufferedReader reader = new BufferedReader(new FileReader(indexFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space <= 0) continue;
+                int day;
+                try {
+                    day = Integer.parseInt(line.substring(0, space));
+                } catch (NumberFormatException e) {
+                    continue; // skip a torn line from an interrupted write
+                }
+                String hash = line.substring(space + 1).trim();
+                if (!getPhotoFile(hash).exists()) continue;
+
+                List<String> hashes = photosByDay.get(day);
+                if (hashes == null) {
+                    hashes = new ArrayList<>();
+                    photosByDay.put(day, hashes);
+                }
+                if (!hashes.contains(hash)) hashes.add(hash);
+            }
+        } catch (IOException e) {
+            // Unreadable index: start empty rather than crash on launch
+            photosByDay.clear();
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,406 @@
+package com.weighttracker.app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Progress report for a date range (summary stats, then a graph and a
+ * table of entries per page) rendered as a PDF or one PNG per page.
+ *
+ * Reports read an immutable {@link EntryColumns} snapshot and find each
+ * page's rows through its date index, so nothing is copied per entry: a
+ * first pass over the range collects the stats and the value scale every
+ * page's graph shares, then pages are drawn one at a time into a single
+ * reused page bitmap and written out before the next is drawn. Peak memory
+ * is one page, however long the range.
+ *
+ * Generation runs on a background thread; progress and the result are
+ * delivered on the main thread.
+ */
+public final class ProgressReport {
+
+    public enum Format { PDF, PNG }
+
+    /**
+     * Receives progress and the result on the main thread.
+     */
+    public interface Listener {
+        void onProgress(int pagesDone, int pageCount);
+
+        /**
+         * The finished report: the PDF file, or the directory holding
+         * page-001.png, page-002.png, ...
+         */
+        void onComplete(File output);
+
+        void onError(IOException error);
+    }
+
+    // A4 portrait in points, rendered at 1.5 pixels per point (108 dpi)
+    static final float PAGE_WIDTH_PT = 595f;
+    static final float PAGE_HEIGHT_PT = 842f;
+    private static final float PIXELS_PER_POINT = 1.5f;
+
+    private static final float MARGIN = 40f;
+    private static final float ROW_HEIGHT = 16f;
+    private static final float GRAPH_HEIGHT = 220f;
+    private static final float STATS_HEIGHT = 90f;
+    private static final float HEADER_HEIGHT = 60f;
+    private static final float TABLE_GAP = 30f;
+
+    static final int FIRST_PAGE_ROWS = rowsFitting(MARGIN + HEADER_HEIGHT + STATS_HEIGHT);
+    static final int ROWS_PER_PAGE = rowsFitting(MARGIN + HEADER_HEIGHT);
+
+    private static final int COLOR_TEXT = 0xFF212121;
+    private static final int COLOR_SECONDARY = 0xFF757575;
+    private static final int COLOR_LINE = 0xFFE8533F;
+    private static final int COLOR_GRID = 0xFFEEEEEE;
+    private static final double KG_TO_LBS = 1 / 0.453592;
+
+    // One report at a time; each holds a page bitmap
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "progress-report");
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private final EntryColumns columns;
+    private final long fromMillis;
+    private final long toMillis;
+    private final boolean metric;
+
+    // Rows in range, newest first: columns [start, end)
+    private final int start;
+    private final int end;
+
+    // Summary over the range, weights in the display unit
+    private double first;
+    private double last;
+    private double min = Double.MAX_VALUE;
+    private double max = -Double.MAX_VALUE;
+    private double sum;
+    private int outliers;
+
+    private final Paint titlePaint = textPaint(18f, COLOR_TEXT);
+    private final Paint textPaint = textPaint(11f, COLOR_TEXT);
+    private final Paint secondaryPaint = textPaint(10f, COLOR_SECONDARY);
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint markerPaint = new Paint();
+    private final Paint gridPaint = new Paint();
+    private final GraphScale scale = new GraphScale();
+    private final SeriesRenderer renderer = new SeriesRenderer();
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("MMM d, yyyy", Locale.US);
+
+    ProgressReport(EntryColumns columns, long fromMillis, long toMillis, boolean metric) {
+        this.columns = columns;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        this.metric = metric;
+        start = toMillis == Long.MAX_VALUE ? 0 : columns.firstBefore(toMillis + 1);
+        end = Math.max(start, columns.firstBefore(fromMillis));
+
+        linePaint.setColor(COLOR_LINE);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(1.5f);
+        linePaint.setStrokeCap(Paint.Cap.ROUND);
+        markerPaint.setColor(COLOR_LINE);
+        SeriesRenderer.setupMarkerPaint(markerPaint, 2f);
+        gridPaint.setColor(COLOR_GRID);
+        gridPaint.setStyle(Paint.Style.STROKE);
+    }
+
+    /**
+     * Starts writing the report for entries in [fromMillis, toMillis] of
+     * {@code snapshot} to {@code output}: a file for PDF, a directory for
+     * PNG. Weights are shown in kg if {@code metric}, otherwise lbs.
+     */
+    public static Task generate(EntryColumns snapshot, long fromMillis, long toMillis, boolean metric,
+                                Format format, File output, Listener listener) {
+        ProgressReport report = new ProgressReport(snapshot, fromMillis, toMillis, metric);
+        Task task = new Task();
+        EXECUTOR.execute(() -> report.run(task, format, output, listener));
+        return task;
+    }
+
+    /**
+     * Handle for a running report.
+     */
+    public static final class Task {
+        private volatile boolean cancelled;
+
+        /**
+         * Stops after the current page and deletes the partial output; the
+         * listener hears nothing more.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    // ─── Generation ─────────────────────────────────────────────────────
+
+    int getRowCount() {
+        return end - start;
+    }
+
+    int getPageCount() {
+        int rows = getRowCount();
+        if (rows <= FIRST_PAGE_ROWS) return 1;
+        return 1 + (rows - FIRST_PAGE_ROWS + ROWS_PER_PAGE - 1) / ROWS_PER_PAGE;
+    }
+
+    private void run(Task task, Format format, File output, Listener listener) {
+        Bitmap page = null;
+        try {
+            summarize();
+            int pageCount = getPageCount();
+            page = Bitmap.createBitmap(Math.round(PAGE_WIDTH_PT * PIXELS_PER_POINT),
+                    Math.round(PAGE_HEIGHT_PT * PIXELS_PER_POINT), Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(page);
+            canvas.scale(PIXELS_PER_POINT, PIXELS_PER_POINT);
+
+            if (format == Format.PDF) {
+                try (StreamingPdfWriter pdf = new StreamingPdfWriter(new FileOutputStream(output),
+                        PAGE_WIDTH_PT, PAGE_HEIGHT_PT)) {
+                    for (int p = 0; p < pageCount && !task.cancelled; p++) {
+                        drawPage(page, canvas, p, pageCount);
+                        pdf.addPage(page);
+                        postProgress(task, listener, p + 1, pageCount);
+                    }
+                    pdf.finish();
+                }
+            } else {
+                if (!output.isDirectory() && !output.mkdirs()) {
+                    throw new IOException("Could not create " + output);
+                }
+                for (int p = 0; p < pageCount && !task.cancelled; p++) {
+                    drawPage(page, canvas, p, pageCount);
+                    try (OutputStream out = new FileOutputStream(pageFile(output, p))) {
+                        page.compress(Bitmap.CompressFormat.PNG, 100, out);
+                    }
+                    postProgress(task, listener, p + 1, pageCount);
+                }
+            }
+
+            if (task.cancelled) {
+                deleteOutput(output, format);
+            } else {
+                MAIN.post(() -> {
+                    if (!task.cancelled) listener.onComplete(output);
+                });
+            }
+        } catch (IOException e) {
+            deleteOutput(output, format);
+            MAIN.post(() -> {
+                if (!task.cancelled) listener.onError(e);
+            });
+        } finally {
+            if (page != null) page.recycle();
+        }
+    }
+
+    private static void postProgress(Task task, Listener listener, int done, int count) {
+        MAIN.post(() -> {
+            if (!task.cancelled) listener.onProgress(done, count);
+        });
+    }
+
+    static File pageFile(File directory, int page) {
+        return new File(directory, String.format(Locale.US, "page-%03d.png", page + 1));
+    }
+
+    private void deleteOutput(File output, Format format) {
+        if (format == Format.PNG) {
+            for (int p = 0; p < getPageCount(); p++) {
+                pageFile(output, p).delete();
+            }
+        }
+        output.delete();
+    }
+
+    /**
+     * One pass over the range for the summary and the shared value scale.
+     */
+    private void summarize() {
+        for (int i = end - 1; i >= start; i--) {
+            double weight = displayWeight(i);
+            if (i == end - 1) first = weight;
+            last = weight;
+            min = Math.min(min, weight);
+            max = Math.max(max, weight);
+            sum += weight;
+            if (columns.isOutlier(i)) outliers++;
+        }
+    }
+
+    private double displayWeight(int row) {
+        double kg = columns.getWeightKg(row);
+        return metric ? kg : kg * KG_TO_LBS;
+    }
+
+    // ─── Page layout ────────────────────────────────────────────────────
+
+    private static int rowsFitting(float top) {
+        float tableTop = top + GRAPH_HEIGHT + TABLE_GAP + ROW_HEIGHT;
+        return (int) ((PAGE_HEIGHT_PT - MARGIN - tableTop) / ROW_HEIGHT);
+    }
+
+    /**
+     * Draws page {@code p}: its rows run oldest first, page 0 holding the
+     * oldest entries of the range.
+     */
+    private void drawPage(Bitmap page, Canvas canvas, int p, int pageCount) {
+        page.eraseColor(Color.WHITE);
+
+        float y = MARGIN + 18f;
+        canvas.drawText("Progress report", MARGIN, y, titlePaint);
+        canvas.drawText(getRangeLabel(), MARGIN, y + 18f, secondaryPaint);
+        String pageLabel = "Page " + (p + 1) + " of " + pageCount;
+        canvas.drawText(pageLabel, PAGE_WIDTH_PT - MARGIN - secondaryPaint.measureText(pageLabel),
+                y, secondaryPaint);
+        float top = MARGIN + HEADER_HEIGHT;
+
+        if (p == 0) {
+            drawStats(canvas, top);
+            top += STATS_HEIGHT;
+        }
+
+        // Chronological position k maps to column row end - 1 - k
+        int firstRow = p == 0 ? 0 : FIRST_PAGE_ROWS + (p - 1) * ROWS_PER_PAGE;
+        int rows = Math.min(p == 0 ? FIRST_PAGE_ROWS : ROWS_PER_PAGE, getRowCount() - firstRow);
+        drawGraph(canvas, top, firstRow, rows);
+        drawTable(canvas, top + GRAPH_HEIGHT + TABLE_GAP, firstRow, rows);
+    }
+
+    /**
+     * The requested range, narrowed to the history's first and last entry:
+     * an open-ended range (up to Long.MAX_VALUE) prints real dates.
+     */
+    String getRangeLabel() {
+        long oldest = columns.size() > 0 ? columns.getTime(columns.size() - 1) : System.currentTimeMillis();
+        long newest = columns.size() > 0 ? columns.getTime(0) : oldest;
+        long from = Math.max(fromMillis, Math.min(oldest, toMillis));
+        long to = Math.min(toMillis, Math.max(newest, fromMillis));
+        return dayFormat.format(new Date(from)) + " – " + dayFormat.format(new Date(to));
+    }
+
+    private void drawStats(Canvas canvas, float top) {
+        int count = getRowCount();
+        String unit = metric ? "kg" : "lbs";
+        float left = MARGIN;
+        float middle = PAGE_WIDTH_PT / 2;
+        float y = top + 14f;
+        if (count == 0) {
+            canvas.drawText("No entries in this period.", left, y, textPaint);
+            return;
+        }
+
+        long span = columns.getTime(start) - columns.getTime(end - 1);
+        double weeks = span / (7.0 * EpochDay.MILLIS_PER_DAY);
+        canvas.drawText("Entries: " + count, left, y, textPaint);
+        canvas.drawText(String.format(Locale.US, "Start: %.1f %s", first, unit), left, y + ROW_HEIGHT, textPaint);
+        canvas.drawText(String.format(Locale.US, "End: %.1f %s", last, unit), left, y + 2 * ROW_HEIGHT, textPaint);
+        canvas.drawText(String.format(Locale.US, "Change: %+.1f %s", last - first, unit),
+                left, y + 3 * ROW_HEIGHT, textPaint);
+        canvas.drawText(String.format(Locale.US, "Lowest: %.1f %s", min, unit), middle, y, textPaint);
+        canvas.drawText(String.format(Locale.US, "Highest: %.1f %s", max, unit), middle, y + ROW_HEIGHT, textPaint);
+        canvas.drawText(String.format(Locale.US, "Average: %.1f %s", sum / count, unit),
+                middle, y + 2 * ROW_HEIGHT, textPaint);
+        String weekly = weeks > 0
+                ? String.format(Locale.US, "Per week: %+.2f %s", (last - first) / weeks, unit)
+                : "Per week: –";
+        canvas.drawText(weekly + (outliers > 0 ? "   (" + outliers + " flagged)" : ""),
+                middle, y + 3 * ROW_HEIGHT, textPaint);
+    }
+
+    /**
+     * The page's entries against the whole range's value scale, so pages
+     * read as one continuous graph.
+     */
+    private void drawGraph(Canvas canvas, float top, int firstRow, int rows) {
+        float width = PAGE_WIDTH_PT - 2 * MARGIN;
+        canvas.drawRect(MARGIN, top, MARGIN + width, top + GRAPH_HEIGHT, gridPaint);
+        if (rows <= 0) return;
+
+        int newest = end - 1 - (firstRow + rows - 1);
+        int oldest = end - 1 - firstRow;
+        long startTime = columns.getTime(oldest);
+        long endTime = columns.getTime(newest);
+        if (endTime == startTime) {
+            startTime -= EpochDay.MILLIS_PER_DAY / 2;
+            endTime += EpochDay.MILLIS_PER_DAY / 2;
+        }
+        scale.setPlotRect(MARGIN + 8f, top + 8f, width - 16f, GRAPH_HEIGHT - 16f);
+        scale.setTimeRange(startTime, endTime);
+        scale.setValueRange(min, max, 0.1);
+
+        renderer.beginLine();
+        for (int i = oldest; i >= newest; i--) {
+            float x = scale.x(columns.getTime(i));
+            float yValue = scale.y(displayWeight(i));
+            renderer.lineTo(x, yValue);
+            renderer.point(x, yValue);
+        }
+        renderer.flushLines(canvas, linePaint);
+        renderer.flushPoints(canvas, markerPaint);
+
+        canvas.drawText(String.format(Locale.US, "%.1f", max), MARGIN + 4f, top + 12f, secondaryPaint);
+        canvas.drawText(String.format(Locale.US, "%.1f", min), MARGIN + 4f, top + GRAPH_HEIGHT - 4f,
+                secondaryPaint);
+    }
+
+    private void drawTable(Canvas canvas, float top, int firstRow, int rows) {
+        float dateX = MARGIN;
+        float weightX = MARGIN + 180f;
+        float changeX = MARGIN + 300f;
+        canvas.drawText("Date", dateX, top, secondaryPaint);
+        canvas.drawText("Weight", weightX, top, secondaryPaint);
+        canvas.drawText("Change", changeX, top, secondaryPaint);
+        canvas.drawLine(MARGIN, top + 4f, PAGE_WIDTH_PT - MARGIN, top + 4f, gridPaint);
+
+        String unit = metric ? " kg" : " lbs";
+        float y = top + ROW_HEIGHT;
+        for (int k = firstRow; k < firstRow + rows; k++) {
+            int i = end - 1 - k;
+            double weight = displayWeight(i);
+            canvas.drawText(dayFormat.format(columns.getEntry(i).getDate()), dateX, y, textPaint);
+            String weightText = String.format(Locale.US, "%.1f%s", weight, unit);
+            if (columns.isOutlier(i)) weightText += " *";
+            canvas.drawText(weightText, weightX, y, textPaint);
+            // Change from the entry before, even if that is before the range
+            if (i + 1 < columns.size()) {
+                canvas.drawText(String.format(Locale.US, "%+.1f", weight - displayWeight(i + 1)),
+                        changeX, y, textPaint);
+            }
+            y += ROW_HEIGHT;
+        }
+    }
+
+    private static Paint textPaint(float size, int color) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(size);
+        paint.setColor(color);
+        return paint;
+    }
+}
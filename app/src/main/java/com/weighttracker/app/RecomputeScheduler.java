@@ -0,0 +1,218 @@
+package com.weighttracker.app;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Recomputes derived data (graph series, rollups, ...) off the UI thread
+ * when the entries change.
+ *
+ * Each screen registers a {@link Job} once. A DataStore change only marks
+ * the jobs dirty; changes that arrive within {@link #COALESCE_DELAY_MS} of
+ * each other (a bulk import, rapid deletes) are dispatched together, so
+ * every job runs once per burst against one {@link EntryColumns} snapshot.
+ * Jobs queue on a single background thread by priority, visible screens
+ * first. When a newer snapshot is dispatched, queued work for older ones
+ * is skipped and running work sees its cancellation flag flip; results
+ * for anything but the latest snapshot are never delivered.
+ *
+ * Register, change priority and unregister on the main thread; results
+ * are delivered there too.
+ */
+public class RecomputeScheduler {
+
+    public static final int PRIORITY_VISIBLE = 0;
+    public static final int PRIORITY_BACKGROUND = 10;
+
+    static final long COALESCE_DELAY_MS = 32;
+
+    private static RecomputeScheduler instance;
+
+    /**
+     * Computes a derived value from an immutable snapshot, on the
+     * background thread. May return early (any value) once
+     * {@code cancelled} turns true; the result is then discarded.
+     */
+    public interface Job<T> {
+        T compute(EntryColumns snapshot, BooleanSupplier cancelled);
+    }
+
+    /**
+     * Receives a job's result on the main thread.
+     */
+    public interface Consumer<T> {
+        void onResult(T result);
+    }
+
+    private final DataStore dataStore;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ThreadPoolExecutor executor;
+    private final List<Registration<?>> registrations = new ArrayList<>();
+    private final Runnable dispatchRunnable = this::dispatch;
+    private boolean dispatchPosted;
+    private long sequence;
+
+    private RecomputeScheduler(DataStore dataStore) {
+        this.dataStore = dataStore;
+        executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "recompute");
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        dataStore.addChangeListener(version -> markDirty());
+    }
+
+    public static RecomputeScheduler getInstance() {
+        if (instance == null) {
+            instance = new RecomputeScheduler(DataStore.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a job and runs it against the current entries right away.
+     */
+    public <T> Registration<T> register(String name, int priority, Job<T> job, Consumer<T> consumer) {
+        Registration<T> registration = new Registration<>(name, priority, job, consumer);
+        registrations.add(registration);
+        submit(registration, dataStore.getColumns());
+        return registration;
+    }
+
+    /**
+     * Schedules one dispatch for the current burst of changes.
+     */
+    void markDirty() {
+        if (dispatchPosted) return;
+        dispatchPosted = true;
+        mainHandler.postDelayed(dispatchRunnable, COALESCE_DELAY_MS);
+    }
+
+    private void dispatch() {
+        dispatchPosted = false;
+        EntryColumns snapshot = dataStore.getColumns();
+        for (Registration<?> registration : registrations) {
+            submit(registration, snapshot);
+        }
+    }
+
+    private <T> void submit(Registration<T> registration, EntryColumns snapshot) {
+        // Already queued, running or delivered for this version
+        if (registration.requestedVersion == snapshot.getVersion()) return;
+        registration.requestedVersion = snapshot.getVersion();
+        executor.execute(new Work<>(registration, snapshot, sequence++));
+    }
+
+    /**
+     * Blocks until queued work has finished, or the timeout passes. For
+     * tests; results still arrive through the main looper.
+     */
+    boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (executor.getActiveCount() > 0 || !executor.getQueue().isEmpty()) {
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    // ─── Registrations ──────────────────────────────────────────────────
+
+    /**
+     * A registered job. Screens raise their jobs to
+     * {@link #PRIORITY_VISIBLE} in onResume and drop them to
+     * {@link #PRIORITY_BACKGROUND} in onPause.
+     */
+    public final class Registration<T> {
+        private final String name;
+        private final Job<T> job;
+        private final Consumer<T> consumer;
+        private volatile int priority;
+        private volatile long requestedVersion = -1;
+        private volatile boolean active = true;
+
+        private Registration(String name, int priority, Job<T> job, Consumer<T> consumer) {
+            this.name = name;
+            this.priority = priority;
+            this.job = job;
+            this.consumer = consumer;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Takes effect from the next dispatch; work already queued keeps
+         * its place.
+         */
+        public void setPriority(int priority) {
+            this.priority = priority;
+        }
+
+        /**
+         * Runs the job again even if the entries have not changed, e.g.
+         * after an input it reads from outside the store changed.
+         */
+        public void rerun() {
+            requestedVersion = -1;
+            submit(this, dataStore.getColumns());
+        }
+
+        /**
+         * Stops future runs and drops any pending result.
+         */
+        public void unregister() {
+            active = false;
+            registrations.remove(this);
+        }
+
+        private boolean isStale(long version) {
+            return !active || requestedVersion != version;
+        }
+    }
+
+    /**
+     * One run of a job against one snapshot, ordered by priority and then
+     * submission order.
+     */
+    private final class Work<T> implements Runnable, Comparable<Work<?>> {
+        private final Registration<T> registration;
+        private final EntryColumns snapshot;
+        private final int priority;
+        private final long order;
+
+        Work(Registration<T> registration, EntryColumns snapshot, long order) {
+            this.registration = registration;
+            this.snapshot = snapshot;
+            this.priority = registration.priority;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Work<?> other) {
+            if (priority != other.priority) return Integer.compare(priority, other.priority);
+            return Long.compare(order, other.order);
+        }
+
+        @Override
+        public void run() {
+            final long version = snapshot.getVersion();
+            if (registration.isStale(version)) return;
+            final T result = registration.job.compute(snapshot, () -> registration.isStale(version));
+            if (registration.isStale(version)) return;
+            mainHandler.post(() -> {
+                if (!registration.isStale(version)) registration.consumer.onResult(result);
+            });
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.weighttracker.app;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The entry history on a regular grid of local days or weeks, so
+ * consumers (export, analytics, graph overlays) never deal with skipped
+ * days or days with several weigh-ins themselves.
+ *
+ * Each bucket aggregates the entries logged in it (the last one, their
+ * mean or their minimum), in kg whatever unit each was logged in. Buckets without entries are filled according to
+ * the {@link GapFill} mode. The grid spans the oldest to the newest
+ * entry and lives in primitive arrays indexed from {@link #getFirstBucket()}.
+ *
+ * The grid is not rebuilt when entries change: {@link #refresh} re-reads
+ * only the entries in the changed bucket (a binary search in the sorted
+ * list) and re-fills the gaps on either side of it.
+ */
+public class ResampledSeries {
+
+    public enum Period { DAY, WEEK }
+
+    public enum Aggregation { LAST, MEAN, MIN }
+
+    /**
+     * How empty buckets are filled: left empty (NaN), holding the previous
+     * bucket's value, or interpolated linearly between their neighbors.
+     */
+    public enum GapFill { NONE, HOLD, LINEAR }
+
+    private final Period period;
+    private final Aggregation aggregation;
+    private final GapFill gapFill;
+
+    private int firstBucket;
+    private int size;
+    private int[] counts = new int[0];
+    private double[] samples = new double[0];   // aggregate per bucket, NaN if empty
+    private double[] values = new double[0];    // samples with gaps filled
+
+    public ResampledSeries(Period period, Aggregation aggregation, GapFill gapFill) {
+        this.period = period;
+        this.aggregation = aggregation;
+        this.gapFill = gapFill;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    public GapFill getGapFill() {
+        return gapFill;
+    }
+
+    // ─── Buckets ────────────────────────────────────────────────────────
+
+    /**
+     * Bucket number of an instant: its local epoch day, or for weeks the
+     * number of Mondays since the epoch (1970-01-01 was a Thursday).
+     */
+    public int bucketOf(long millis) {
+        int day = EpochDay.fromMillis(millis);
+        return period == Period.DAY ? day : Math.floorDiv(day + 3, 7);
+    }
+
+    /**
+     * First local epoch day of a bucket.
+     */
+    public int bucketStartDay(int bucket) {
+        return period == Period.DAY ? bucket : bucket * 7 - 3;
+    }
+
+    private long bucketStartMillis(int bucket) {
+        return EpochDay.toMillis(bucketStartDay(bucket));
+    }
+
+    // ─── Updates ────────────────────────────────────────────────────────
+
+    /**
+     * Rebuilds the whole grid from entries sorted newest first.
+     */
+    public void rebuild(List<WeightEntry> entries) {
+        if (entries.isEmpty()) {
+            size = 0;
+            return;
+        }
+        firstBucket = bucketOf(time(entries, entries.size() - 1));
+        size = bucketOf(time(entries, 0)) - firstBucket + 1;
+        counts = new int[size];
+        samples = new double[size];
+        values = new double[size];
+
+        // One pass, oldest first: counts and sums/minimums per bucket
+        Arrays.fill(samples, Double.NaN);
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            WeightEntry entry = entries.get(i);
+            int b = bucketOf(entry.getTime()) - firstBucket;
+            double w = DataStore.toKg(entry);
+            if (counts[b]++ == 0) {
+                samples[b] = w;
+            } else if (aggregation == Aggregation.LAST) {
+                samples[b] = w;
+            } else if (aggregation == Aggregation.MEAN) {
+                samples[b] += w;
+            } else {
+                samples[b] = Math.min(samples[b], w);
+            }
+        }
+        if (aggregation == Aggregation.MEAN) {
+            for (int b = 0; b < size; b++) {
+                if (counts[b] > 0) samples[b] /= counts[b];
+            }
+        }
+        fill(0, size - 1);
+    }
+
+    /**
+     * Updates the grid after entries at {@code millis} were added or
+     * removed. {@code entries} is the list after the change, newest first.
+     */
+    public void refresh(List<WeightEntry> entries, long millis) {
+        if (entries.isEmpty()) {
+            size = 0;
+            return;
+        }
+        resize(bucketOf(time(entries, entries.size() - 1)), bucketOf(time(entries, 0)));
+
+        int bucket = bucketOf(millis);
+        int b = bucket - firstBucket;
+        if (b < 0 || b >= size) return; // an end bucket that was emptied and trimmed
+
+        // Entries in the bucket are a contiguous run of the sorted list
+        int lo = firstIndexBefore(entries, bucketStartMillis(bucket + 1));
+        int hi = firstIndexBefore(entries, bucketStartMillis(bucket));
+        counts[b] = hi - lo;
+        samples[b] = aggregate(entries, lo, hi);
+
+        // Gaps on either side of this bucket may change
+        int from = b;
+        while (from > 0 && counts[from - 1] == 0) from--;
+        int to = b;
+        while (to < size - 1 && counts[to + 1] == 0) to++;
+        fill(Math.max(0, from - 1), Math.min(size - 1, to + 1));
+    }
+
+    private double aggregate(List<WeightEntry> entries, int lo, int hi) {
+        if (lo >= hi) return Double.NaN;
+        if (aggregation == Aggregation.LAST) return DataStore.toKg(entries.get(lo));
+        double result = aggregation == Aggregation.MEAN ? 0 : Double.POSITIVE_INFINITY;
+        for (int i = lo; i < hi; i++) {
+            double w = DataStore.toKg(entries.get(i));
+            result = aggregation == Aggregation.MEAN ? result + w : Math.min(result, w);
+        }
+        return aggregation == Aggregation.MEAN ? result / (hi - lo) : result;
+    }
+
+    /**
+     * Moves the grid to span buckets {@code first} through {@code last},
+     * keeping the buckets the old and new ranges share.
+     */
+    private void resize(int first, int last) {
+        int newSize = last - first + 1;
+        if (first == firstBucket && newSize == size) return;
+
+        int[] newCounts = new int[newSize];
+        double[] newSamples = new double[newSize];
+        double[] newValues = new double[newSize];
+        Arrays.fill(newSamples, Double.NaN);
+        Arrays.fill(newValues, Double.NaN);
+        int overlapStart = Math.max(first, firstBucket);
+        int overlapEnd = Math.min(last, firstBucket + size - 1);
+        if (size > 0 && overlapStart <= overlapEnd) {
+            int length = overlapEnd - overlapStart + 1;
+            System.arraycopy(counts, overlapStart - firstBucket, newCounts, overlapStart - first, length);
+            System.arraycopy(samples, overlapStart - firstBucket, newSamples, overlapStart - first, length);
+            System.arraycopy(values, overlapStart - firstBucket, newValues, overlapStart - first, length);
+        }
+        firstBucket = first;
+        size = newSize;
+        counts = newCounts;
+        samples = newSamples;
+        values = newValues;
+    }
+
+    /**
+     * Recomputes filled values over [from, to]. Gaps are only interpolated
+     * between buckets that have entries, so the range should start and end
+     * on such buckets (or the grid ends).
+     */
+    private void fill(int from, int to) {
+        int previous = -1;
+        for (int b = from; b <= to; b++) {
+            if (counts[b] > 0) {
+                values[b] = samples[b];
+                previous = b;
+                continue;
+            }
+            int next = b;
+            while (next < size && counts[next] == 0) next++;
+            for (int g = b; g < next && g <= to; g++) {
+                values[g] = gapValue(previous, next, g);
+            }
+            b = next - 1;
+        }
+    }
+
+    private double gapValue(int previous, int next, int b) {
+        if (previous < 0 || gapFill == GapFill.NONE) return Double.NaN;
+        if (gapFill == GapFill.HOLD || next >= size) return samples[previous];
+        double fraction = (double) (b - previous) / (next - previous);
+        return samples[previous] + (samples[next] - samples[previous]) * fraction;
+    }
+
+    private static long time(List<WeightEntry> entries, int index) {
+        return entries.get(index).getTime();
+    }
+
+    /**
+     * First index whose entry is older than {@code millis}.
+     */
+    private static int firstIndexBefore(List<WeightEntry> entries, long millis) {
+        int lo = 0;
+        int hi = entries.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (time(entries, mid) >= millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // ─── Reads ──────────────────────────────────────────────────────────
+
+    /**
+     * Number of buckets from the oldest to the newest entry's.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getFirstBucket() {
+        return firstBucket;
+    }
+
+    /**
+     * Local midnight starting bucket {@code index} (0 = oldest).
+     */
+    public long getStartMillis(int index) {
+        return bucketStartMillis(firstBucket + index);
+    }
+
+    /**
+     * Aggregated or gap-filled value in kg; NaN for gaps left empty.
+     */
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Entries logged in the bucket; 0 means its value was filled in.
+     */
+    public int getCount(int index) {
+        return counts[index];
+    }
+}
@@ -0,0 +1,203 @@
+package com.weighttracker.app;
+
+import java.util.Arrays;
+
+/**
+ * Mean, variance, min and max over a trailing time window of a
+ * chronological series, e.g. the last 7 or 30 days of weights.
+ *
+ * The window covers (t - length, t], where t is the latest sample's time
+ * or a later time passed to {@link #advanceTo}. Appending costs amortized
+ * O(1): the sums are updated in place as values enter and leave, and
+ * min/max come from monotonic deques of sample indices, so every sample is
+ * pushed and popped at most once. All reads are O(1). Evicted samples are
+ * compacted away, so memory is proportional to the window, not the series.
+ */
+public class RollingWindow {
+
+    private final long length;
+
+    private static final int MIN_CAPACITY = 16;
+
+    // Samples not yet compacted away; [head, size) is the current window
+    private long[] times = new long[MIN_CAPACITY];
+    private double[] values = new double[MIN_CAPACITY];
+    private int size;
+    private int head;
+    private long latestTime = Long.MIN_VALUE;  // of the latest sample
+    private long endTime = Long.MIN_VALUE;     // t above
+
+    // Monotonic deques of sample indices: values ascending in minDeque and
+    // descending in maxDeque, so the front is the window extreme. An index
+    // is pushed once, so the arrays never need to wrap.
+    private int[] minDeque = new int[MIN_CAPACITY];
+    private int[] maxDeque = new int[MIN_CAPACITY];
+    private int minHead;
+    private int minTail;
+    private int maxHead;
+    private int maxTail;
+
+    // Sums of (value - shift); shifting by the first value keeps the
+    // variance from cancelling catastrophically
+    private double shift;
+    private double sum;
+    private double sumSquares;
+
+    /**
+     * @param lengthMs window length in milliseconds, e.g. 7 days
+     */
+    public RollingWindow(long lengthMs) {
+        if (lengthMs <= 0) {
+            throw new IllegalArgumentException("window length must be positive");
+        }
+        this.length = lengthMs;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Appends a sample. Times must not go backwards; a sample older than a
+     * time passed to {@link #advanceTo} is fine, and is evicted at once if
+     * it falls outside the window.
+     */
+    public void add(long time, double value) {
+        if (time < latestTime) {
+            throw new IllegalArgumentException("samples must be added in time order");
+        }
+        if (size == times.length) makeRoom();
+        if (size == head) shift = value;
+
+        times[size] = time;
+        values[size] = value;
+
+        while (maxTail > maxHead && values[maxDeque[maxTail - 1]] <= value) maxTail--;
+        maxDeque[maxTail++] = size;
+        while (minTail > minHead && values[minDeque[minTail - 1]] >= value) minTail--;
+        minDeque[minTail++] = size;
+
+        double d = value - shift;
+        sum += d;
+        sumSquares += d * d;
+        size++;
+        latestTime = time;
+        endTime = Math.max(endTime, time);
+
+        evictThrough(endTime - length);
+    }
+
+    /**
+     * Slides the window forward to end at {@code now} without adding a
+     * sample, e.g. so "last 7 days" goes empty after a week without
+     * entries. Does nothing if the window already ends later.
+     */
+    public void advanceTo(long now) {
+        if (now <= endTime) return;
+        endTime = now;
+        evictThrough(now - length);
+    }
+
+    public void clear() {
+        size = 0;
+        head = 0;
+        latestTime = Long.MIN_VALUE;
+        endTime = Long.MIN_VALUE;
+        minHead = minTail = 0;
+        maxHead = maxTail = 0;
+        sum = 0;
+        sumSquares = 0;
+    }
+
+    private void evictThrough(long cutoff) {
+        while (head < size && times[head] <= cutoff) {
+            double d = values[head] - shift;
+            sum -= d;
+            sumSquares -= d * d;
+            if (minHead < minTail && minDeque[minHead] == head) minHead++;
+            if (maxHead < maxTail && maxDeque[maxHead] == head) maxHead++;
+            head++;
+        }
+        if (head == size) {
+            // Drop accumulated rounding while the window is empty
+            sum = 0;
+            sumSquares = 0;
+        }
+    }
+
+    /**
+     * Frees a slot for the next sample: slides the window down over the
+     * evicted samples if they fill at least half the arrays, otherwise
+     * doubles them. Each sample is moved at most once per doubling of
+     * the window, so appends stay amortized O(1).
+     */
+    private void makeRoom() {
+        if (head * 2 >= size) {
+            int count = size - head;
+            System.arraycopy(times, head, times, 0, count);
+            System.arraycopy(values, head, values, 0, count);
+            minTail = compactDeque(minDeque, minHead, minTail);
+            maxTail = compactDeque(maxDeque, maxHead, maxTail);
+            minHead = 0;
+            maxHead = 0;
+            size = count;
+            head = 0;
+            return;
+        }
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        values = Arrays.copyOf(values, capacity);
+        minDeque = Arrays.copyOf(minDeque, capacity);
+        maxDeque = Arrays.copyOf(maxDeque, capacity);
+    }
+
+    /**
+     * Moves deque entries [from, to) to the front, re-based on the
+     * compacted sample indices; returns the new tail.
+     */
+    private int compactDeque(int[] deque, int from, int to) {
+        for (int i = from; i < to; i++) {
+            deque[i - from] = deque[i] - head;
+        }
+        return to - from;
+    }
+
+    // ─── Current window ─────────────────────────────────────────────────
+
+    /**
+     * Number of samples in the window.
+     */
+    public int getCount() {
+        return size - head;
+    }
+
+    /**
+     * Mean of the window, or NaN if it is empty.
+     */
+    public double getMean() {
+        int n = getCount();
+        return n > 0 ? shift + sum / n : Double.NaN;
+    }
+
+    /**
+     * Population variance of the window, or NaN if it is empty.
+     */
+    public double getVariance() {
+        int n = getCount();
+        if (n == 0) return Double.NaN;
+        double mean = sum / n;
+        return Math.max(0, sumSquares / n - mean * mean);
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return minHead < minTail ? values[minDeque[minHead]] : Double.NaN;
+    }
+
+    public double getMax() {
+        return maxHead < maxTail ? values[maxDeque[maxHead]] : Double.NaN;
+    }
+}
@@ -0,0 +1,115 @@
+package com.weighttracker.app;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * Batches polyline and marker drawing into reusable float buffers so a
+ * whole series goes to the canvas in one {@code drawLines} call and one
+ * {@code drawPoints} call, instead of one {@code Path.lineTo} and one
+ * {@code drawCircle} per point.
+ *
+ * Buffers grow on demand and are kept between frames, so steady-state
+ * drawing does not allocate. A single renderer can be reused for any
+ * number of series in the same frame.
+ */
+public class SeriesRenderer {
+
+    private float[] lineBuffer = new float[256];
+    private float[] pointBuffer = new float[128];
+    private int lineCount;   // floats used in lineBuffer
+    private int pointCount;  // floats used in pointBuffer
+
+    private float lastX;
+    private float lastY;
+    private boolean hasLast;
+
+    /**
+     * Starts a new polyline. The next vertex will not connect to the
+     * previous one.
+     */
+    public void beginLine() {
+        hasLast = false;
+    }
+
+    /**
+     * Appends a vertex to the current polyline. Every vertex after the
+     * first adds one segment (four floats) to the line buffer.
+     */
+    public void lineTo(float x, float y) {
+        if (hasLast) {
+            ensureLineCapacity(lineCount + 4);
+            float[] buf = lineBuffer;
+            buf[lineCount] = lastX;
+            buf[lineCount + 1] = lastY;
+            buf[lineCount + 2] = x;
+            buf[lineCount + 3] = y;
+            lineCount += 4;
+        }
+        lastX = x;
+        lastY = y;
+        hasLast = true;
+    }
+
+    /**
+     * Queues a marker at the given position.
+     */
+    public void point(float x, float y) {
+        if (pointCount + 2 > pointBuffer.length) {
+            pointBuffer = grow(pointBuffer, pointCount + 2);
+        }
+        pointBuffer[pointCount] = x;
+        pointBuffer[pointCount + 1] = y;
+        pointCount += 2;
+    }
+
+    /**
+     * Draws all queued segments in one call and clears the line buffer.
+     * {@code paint} should use a round cap so segment joints look continuous.
+     */
+    public void flushLines(Canvas canvas, Paint paint) {
+        if (lineCount > 0) {
+            canvas.drawLines(lineBuffer, 0, lineCount, paint);
+        }
+        lineCount = 0;
+        hasLast = false;
+    }
+
+    /**
+     * Draws all queued markers in one call and clears the point buffer.
+     * Marker size comes from the paint's stroke width and cap.
+     */
+    public void flushPoints(Canvas canvas, Paint paint) {
+        if (pointCount > 0) {
+            canvas.drawPoints(pointBuffer, 0, pointCount, paint);
+        }
+        pointCount = 0;
+    }
+
+    /**
+     * Configures a paint for round markers of the given radius, suitable
+     * for {@link #flushPoints}.
+     */
+    public static void setupMarkerPaint(Paint paint, float radius) {
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(radius * 2);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setAntiAlias(true);
+    }
+
+    private void ensureLineCapacity(int needed) {
+        if (needed > lineBuffer.length) {
+            lineBuffer = grow(lineBuffer, needed);
+        }
+    }
+
+    private static float[] grow(float[] buf, int needed) {
+        int size = buf.length;
+        while (size < needed) {
+            size *= 2;
+        }
+        float[] bigger = new float[size];
+        System.arraycopy(buf, 0, bigger, 0, buf.length);
+        return bigger;
+    }
+}
@@ -31,7 +31,7 @@ public class SettingsActivity extends AppCompatActivity {
     private TextView tvBeginningWeightUnit;
 
     private DataStore dataStore;
-    private String selectedGoalDate;
+    private int selectedGoalDay = EpochDay.NONE;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -79,19 +79,18 @@ public class SettingsActivity extends AppCompatActivity {
      */
     private void openGoalDatePicker() {
         Calendar cal = Calendar.getInstance();
-        // Default to one year from now
-        cal.add(Calendar.YEAR, 1);
+        if (selectedGoalDay != EpochDay.NONE) {
+            cal.setTimeInMillis(EpochDay.toMillis(selectedGoalDay));
+        } else {
+            // Default to one year from now
+            cal.add(Calendar.YEAR, 1);
+        }
 
         DatePickerDialog datePicker = new DatePickerDialog(
                 this,
                 (view, year, month, dayOfMonth) -> {
-                    Calendar selected = Calendar.getInstance();
-                    selected.set(year, month, dayOfMonth);
-
-                    String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
-                            "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
-                    selectedGoalDate = months[month] + " " + dayOfMonth + ", " + year;
-                    tvGoalDate.setText(selectedGoalDate);
+                    selectedGoalDay = EpochDay.of(year, month, dayOfMonth);
+                    tvGoalDate.setText(EpochDay.format(selectedGoalDay));
                 },
                 cal.get(Calendar.YEAR),
                 cal.get(Calendar.MONTH),
@@ -122,9 +121,9 @@ public class SettingsActivity extends AppCompatActivity {
         }
 
         // Goal date
-        if (!dataStore.getGoalDate().isEmpty()) {
-            selectedGoalDate = dataStore.getGoalDate();
-            tvGoalDate.setText(selectedGoalDate);
+        if (dataStore.getGoalDay() != EpochDay.NONE) {
+            selectedGoalDay = dataStore.getGoalDay();
+            tvGoalDate.setText(EpochDay.format(selectedGoalDay));
         }
 
         // Gender
@@ -176,8 +175,8 @@ public class SettingsActivity extends AppCompatActivity {
         }
 
         // Goal date
-        if (selectedGoalDate != null) {
-            dataStore.setGoalDate(selectedGoalDate);
+        if (selectedGoalDay != EpochDay.NONE) {
+            dataStore.setGoalDay(selectedGoalDay);
         }
 
         // Gender
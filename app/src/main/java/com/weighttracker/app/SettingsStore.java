@@ -0,0 +1,157 @@
+package com.weighttracker.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Typed user settings in a small fixed-layout record, memory-mapped from a
+ * file so every getter is a plain memory read and every setter a single
+ * in-place write; there is nothing to parse on launch or on read.
+ *
+ * Writes land in the page cache and reach disk when the kernel flushes
+ * them, which survives the app process being killed. {@link #flush()}
+ * forces them out, e.g. when the app goes to the background.
+ */
+public final class SettingsStore {
+
+    private static final int MAGIC = 0x57545354; // "WTST"
+    private static final int VERSION = 1;
+
+    // Fixed offsets of each field in the record
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_GOAL_WEIGHT = 8;
+    private static final int OFF_GOAL_DAY = 16;
+    private static final int OFF_GENDER = 20;
+    private static final int OFF_HEIGHT = 24;
+    private static final int OFF_BEGINNING_WEIGHT = 32;
+    private static final int OFF_METRIC = 40;
+    private static final int RECORD_SIZE = 48;
+
+    // Gender is stored as an index into this table; 0 = not set
+    private static final String[] GENDERS = {"", "Male", "Female", "Other"};
+
+    private final ByteBuffer buffer;
+
+    private SettingsStore(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(OFF_MAGIC) != MAGIC || buffer.getInt(OFF_VERSION) != VERSION) {
+            writeDefaults();
+        }
+    }
+
+    /**
+     * Settings kept on the heap only, for use before storage is attached.
+     */
+    public static SettingsStore inMemory() {
+        return new SettingsStore(ByteBuffer.allocate(RECORD_SIZE));
+    }
+
+    /**
+     * Maps {@code file}, creating it with default settings if needed.
+     */
+    public static SettingsStore open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // The mapping stays valid after the channel is closed
+            return new SettingsStore(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, RECORD_SIZE));
+        }
+    }
+
+    private void writeDefaults() {
+        buffer.putDouble(OFF_GOAL_WEIGHT, 0);
+        buffer.putInt(OFF_GOAL_DAY, EpochDay.NONE);
+        buffer.putInt(OFF_GENDER, 0);
+        buffer.putDouble(OFF_HEIGHT, 0);
+        buffer.putDouble(OFF_BEGINNING_WEIGHT, 0);
+        buffer.put(OFF_METRIC, (byte) 1); // default to metric
+        buffer.putInt(OFF_VERSION, VERSION);
+        // Magic last, so a torn first write is redone on the next open
+        buffer.putInt(OFF_MAGIC, MAGIC);
+    }
+
+    /**
+     * Copies every setting from {@code other} into this store.
+     */
+    public void copyFrom(SettingsStore other) {
+        for (int i = OFF_GOAL_WEIGHT; i < RECORD_SIZE; i++) {
+            buffer.put(i, other.buffer.get(i));
+        }
+    }
+
+    /**
+     * Forces mapped writes to disk; a no-op for in-memory stores.
+     */
+    public void flush() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    // ─── Fields ─────────────────────────────────────────────────────────
+
+    public double getGoalWeight() {
+        return buffer.getDouble(OFF_GOAL_WEIGHT);
+    }
+
+    public void setGoalWeight(double goalWeight) {
+        buffer.putDouble(OFF_GOAL_WEIGHT, goalWeight);
+    }
+
+    /**
+     * Goal date as a local epoch day, or {@link EpochDay#NONE}.
+     */
+    public int getGoalDay() {
+        return buffer.getInt(OFF_GOAL_DAY);
+    }
+
+    public void setGoalDay(int epochDay) {
+        buffer.putInt(OFF_GOAL_DAY, epochDay);
+    }
+
+    /**
+     * "Male", "Female", "Other", or empty if not set.
+     */
+    public String getGender() {
+        int code = buffer.getInt(OFF_GENDER);
+        return code > 0 && code < GENDERS.length ? GENDERS[code] : "";
+    }
+
+    /**
+     * Stores a gender from the fixed set; anything else clears it.
+     */
+    public void setGender(String gender) {
+        int code = 0;
+        for (int i = 1; i < GENDERS.length; i++) {
+            if (GENDERS[i].equals(gender)) code = i;
+        }
+        buffer.putInt(OFF_GENDER, code);
+    }
+
+    public double getHeight() {
+        return buffer.getDouble(OFF_HEIGHT);
+    }
+
+    public void setHeight(double height) {
+        buffer.putDouble(OFF_HEIGHT, height);
+    }
+
+    public double getBeginningWeight() {
+        return buffer.getDouble(OFF_BEGINNING_WEIGHT);
+    }
+
+    public void setBeginningWeight(double beginningWeight) {
+        buffer.putDouble(OFF_BEGINNING_WEIGHT, beginningWeight);
+    }
+
+    public boolean isMetric() {
+        return buffer.get(OFF_METRIC) != 0;
+    }
+
+    public void setMetric(boolean metric) {
+        buffer.put(OFF_METRIC, (byte) (metric ? 1 : 0));
+    }
+}
@@ -0,0 +1,185 @@
+package com.weighttracker.app;
+
+import android.graphics.Bitmap;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a PDF one page at a time, each page a full-bleed image of a
+ * rendered bitmap.
+ *
+ * {@link android.graphics.pdf.PdfDocument} keeps every finished page until
+ * the whole document is written out, so its memory grows with the page
+ * count. Here each page goes to the stream as soon as it is added, pixel
+ * rows deflated on the fly; only the byte offsets of the objects written
+ * so far are kept for the cross-reference table at the end.
+ */
+final class StreamingPdfWriter implements Closeable {
+
+    private static final int PAGES_OBJECT = 1;
+    private static final int CATALOG_OBJECT = 2;
+    // Image, its stream length, content stream and page dictionary
+    private static final int OBJECTS_PER_PAGE = 4;
+
+    private final CountingOutputStream out;
+    private final float pageWidthPt;
+    private final float pageHeightPt;
+
+    // offsets[n] = byte offset of object n (1-based; 0 unused)
+    private long[] offsets = new long[16];
+    private int objectCount = CATALOG_OBJECT;
+    private int pageCount;
+
+    // Reused per row so a page never holds its pixels twice
+    private int[] rowPixels = new int[0];
+    private byte[] rowBytes = new byte[0];
+
+    StreamingPdfWriter(OutputStream out, float pageWidthPt, float pageHeightPt) throws IOException {
+        this.out = new CountingOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.pageWidthPt = pageWidthPt;
+        this.pageHeightPt = pageHeightPt;
+        // The binary comment marks the file as binary for transfer tools
+        write("%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n");
+    }
+
+    /**
+     * Appends {@code page}, scaled to fill the page, as an RGB image.
+     */
+    void addPage(Bitmap page) throws IOException {
+        int first = objectCount + 1;
+        int image = first;
+        int length = first + 1;
+        int content = first + 2;
+        int pageObject = first + 3;
+        objectCount += OBJECTS_PER_PAGE;
+        pageCount++;
+
+        int width = page.getWidth();
+        int height = page.getHeight();
+        beginObject(image);
+        write("<< /Type /XObject /Subtype /Image /Width " + width + " /Height " + height
+                + " /ColorSpace /DeviceRGB /BitsPerComponent 8 /Filter /FlateDecode /Length "
+                + length + " 0 R >>\nstream\n");
+        long start = out.count;
+        writePixels(page, width, height);
+        long streamLength = out.count - start;
+        write("\nendstream\nendobj\n");
+
+        beginObject(length);
+        write(streamLength + "\nendobj\n");
+
+        String drawImage = "q " + fmt(pageWidthPt) + " 0 0 " + fmt(pageHeightPt) + " 0 0 cm /Im0 Do Q\n";
+        beginObject(content);
+        write("<< /Length " + drawImage.length() + " >>\nstream\n" + drawImage + "endstream\nendobj\n");
+
+        beginObject(pageObject);
+        write("<< /Type /Page /Parent " + PAGES_OBJECT + " 0 R /MediaBox [0 0 " + fmt(pageWidthPt)
+                + " " + fmt(pageHeightPt) + "] /Resources << /XObject << /Im0 " + image
+                + " 0 R >> >> /Contents " + content + " 0 R >>\nendobj\n");
+        out.flush();
+    }
+
+    private void writePixels(Bitmap page, int width, int height) throws IOException {
+        if (rowPixels.length < width) {
+            rowPixels = new int[width];
+            rowBytes = new byte[width * 3];
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            // Finished, not closed: closing would close the file stream too
+            DeflaterOutputStream pixels = new DeflaterOutputStream(out, deflater, 16 * 1024);
+            for (int y = 0; y < height; y++) {
+                page.getPixels(rowPixels, 0, width, 0, y, width, 1);
+                for (int x = 0, b = 0; x < width; x++) {
+                    int argb = rowPixels[x];
+                    rowBytes[b++] = (byte) (argb >> 16);
+                    rowBytes[b++] = (byte) (argb >> 8);
+                    rowBytes[b++] = (byte) argb;
+                }
+                pixels.write(rowBytes, 0, width * 3);
+            }
+            pixels.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Writes the page tree, catalog, cross-reference table and trailer.
+     * The writer must not be used afterwards.
+     */
+    void finish() throws IOException {
+        StringBuilder kids = new StringBuilder();
+        for (int p = 0; p < pageCount; p++) {
+            kids.append(CATALOG_OBJECT + p * OBJECTS_PER_PAGE + OBJECTS_PER_PAGE).append(" 0 R ");
+        }
+        beginObject(PAGES_OBJECT);
+        write("<< /Type /Pages /Kids [" + kids + "] /Count " + pageCount + " >>\nendobj\n");
+        beginObject(CATALOG_OBJECT);
+        write("<< /Type /Catalog /Pages " + PAGES_OBJECT + " 0 R >>\nendobj\n");
+
+        long xref = out.count;
+        StringBuilder table = new StringBuilder();
+        table.append("xref\n0 ").append(objectCount + 1).append("\n0000000000 65535 f \n");
+        for (int n = 1; n <= objectCount; n++) {
+            table.append(String.format(Locale.US, "%010d 00000 n \n", offsets[n]));
+        }
+        table.append("trailer\n<< /Size ").append(objectCount + 1).append(" /Root ")
+                .append(CATALOG_OBJECT).append(" 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+        write(table.toString());
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void beginObject(int number) throws IOException {
+        if (number >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, number + 1));
+        }
+        offsets[number] = out.count;
+        write(number + " 0 obj\n");
+    }
+
+    private void write(String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String fmt(float points) {
+        return String.format(Locale.US, "%.2f", points);
+    }
+
+    /**
+     * Tracks the byte offset for the cross-reference table.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
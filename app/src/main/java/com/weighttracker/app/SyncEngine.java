@@ -0,0 +1,744 @@
+package com.weighttracker.app;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Delta sync between devices sharing one {@link SyncServer}.
+ *
+ * Local mutations of the {@link DataStore} are recorded as
+ * {@link ChangeRecord}s with Lamport stamps. {@link #sync} pushes only the
+ * records made since the last push, as one compressed batch, and pulls only
+ * the batches other devices pushed after the last pulled sequence number.
+ * Cost therefore scales with the number of changes, not the history size.
+ *
+ * Merging is deterministic regardless of arrival order or re-delivery: for
+ * each entry ID or setting key the highest stamp wins, deletes included.
+ * Deletes are kept as tombstones with their stamp, so an older put arriving
+ * late cannot bring a deleted entry back, while a put stamped after the
+ * delete (an edit made without having seen it) does. Only the newest
+ * {@value #MAX_TOMBSTONES} tombstones are kept; a put older than all of
+ * them that arrives after that many later deletes would be applied.
+ *
+ * State is saved as a file plus a log of the changes made since it was
+ * written, so a change costs an append of its own records; the file is
+ * rewritten from the two on the save thread once the log grows.
+ *
+ * {@link #syncAsync} talks to the server on a background thread and merges
+ * on the main thread. Call everything on the main thread.
+ */
+public class SyncEngine implements DataStore.MutationListener {
+
+    private final DataStore dataStore;
+    private final File stateFile;
+    private final File logFile;
+    private final ExecutorService saveExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sync-io");
+        t.setDaemon(true);
+        return t;
+    });
+    private Handler mainHandler;
+    private boolean syncing;
+
+    // Deleted IDs kept for ordering against late puts; oldest are pruned
+    static final int MAX_TOMBSTONES = 10_000;
+
+    // The state file is rewritten once the log holds this many saves
+    private static final int LOG_MAX_FRAMES = 512;
+
+    private long lamport;
+    private long pulledSeq;
+    private final List<ChangeRecord> pending;
+    private final Map<Long, Long> entryStamps;
+    private final Map<String, Long> settingStamps;
+    private final Set<Long> tombstones;
+
+    // Changes since the last save: pending records pushed and added, and
+    // the stamp changes as log ops
+    private int unsavedPushed;
+    private int unsavedPending;
+    private final ByteArrayOutputStream unsavedStamps = new ByteArrayOutputStream();
+    private final DataOutputStream stampOut = new DataOutputStream(unsavedStamps);
+
+    // Set when the log couldn't be written; the next save writes the whole
+    // state file instead
+    private volatile boolean saveFailed;
+
+    // Save thread only: the state file generation that log frames belong
+    // to, and the frames appended since the file was written
+    private long logGeneration;
+    private int logFrames;
+
+    // True while remote changes are applied, so they aren't re-recorded
+    private boolean applyingRemote;
+
+    /**
+     * Outcome of one sync round.
+     */
+    public static final class Result {
+        public final int pushed;
+        public final int pulled;
+        public final int applied;
+
+        Result(int pushed, int pulled, int applied) {
+            this.pushed = pushed;
+            this.pulled = pulled;
+            this.applied = applied;
+        }
+    }
+
+    /**
+     * Receives the outcome of {@link #syncAsync} on the main thread.
+     */
+    public interface Callback {
+        void onSyncFinished(Result result);
+
+        /**
+         * Nothing was merged; unpushed changes stay queued for the next sync.
+         */
+        void onSyncFailed(IOException error);
+    }
+
+    /**
+     * Attaches to {@code dataStore} and restores state from {@code stateFile}.
+     * On first run, everything already in the store is queued for push.
+     */
+    public SyncEngine(DataStore dataStore, File stateFile) {
+        this.dataStore = dataStore;
+        this.stateFile = stateFile;
+        this.logFile = stateFile != null ? new File(stateFile.getPath() + ".log") : null;
+        State saved = loadState();
+        lamport = saved.lamport;
+        pulledSeq = saved.pulledSeq;
+        pending = saved.pending;
+        entryStamps = saved.entryStamps;
+        settingStamps = saved.settingStamps;
+        tombstones = saved.tombstones;
+        logGeneration = saved.generation;
+        if (saved.fromLog) {
+            // Fold the log in now, so appends never follow a torn frame
+            saveExecutor.execute(this::compact);
+        }
+        if (!saved.loaded) {
+            seedFromStore();
+        }
+        dataStore.setMutationListener(this);
+    }
+
+    private int deviceTag() {
+        return dataStore.getDeviceTag();
+    }
+
+    private long nextStamp() {
+        return ChangeRecord.stamp(++lamport, deviceTag());
+    }
+
+    /**
+     * Queues puts for all existing entries and settings, so data created
+     * before sync was set up reaches other devices.
+     */
+    private void seedFromStore() {
+        onEntriesAdded(dataStore.getWeightEntries());
+        onSettingChanged(DataStore.KEY_GOAL_WEIGHT, String.valueOf(dataStore.getGoalWeight()));
+        onSettingChanged(DataStore.KEY_GOAL_DATE, String.valueOf(dataStore.getGoalDay()));
+        onSettingChanged(DataStore.KEY_GENDER, dataStore.getGender());
+        onSettingChanged(DataStore.KEY_HEIGHT, String.valueOf(dataStore.getHeight()));
+        onSettingChanged(DataStore.KEY_BEGINNING_WEIGHT, String.valueOf(dataStore.getBeginningWeight()));
+        onSettingChanged(DataStore.KEY_METRIC, String.valueOf(dataStore.isMetric()));
+    }
+
+    // ─── Change log ─────────────────────────────────────────────────────
+
+    @Override
+    public void onEntryAdded(WeightEntry entry) {
+        if (applyingRemote) return;
+        recordPut(entry);
+        saveStateAsync();
+    }
+
+    @Override
+    public void onEntryRemoved(WeightEntry entry) {
+        if (applyingRemote) return;
+        recordDelete(entry);
+        saveStateAsync();
+    }
+
+    @Override
+    public void onEntriesAdded(List<WeightEntry> entries) {
+        if (applyingRemote) return;
+        for (WeightEntry entry : entries) {
+            recordPut(entry);
+        }
+        saveStateAsync();
+    }
+
+    @Override
+    public void onEntriesRemoved(List<WeightEntry> entries) {
+        if (applyingRemote) return;
+        for (WeightEntry entry : entries) {
+            recordDelete(entry);
+        }
+        saveStateAsync();
+    }
+
+    private void recordPut(WeightEntry entry) {
+        long stamp = nextStamp();
+        setEntryStamp(entry.getId(), stamp, false);
+        addPending(ChangeRecord.put(stamp, entry));
+    }
+
+    private void recordDelete(WeightEntry entry) {
+        long stamp = nextStamp();
+        setEntryStamp(entry.getId(), stamp, true);
+        addPending(ChangeRecord.delete(stamp, entry.getId()));
+        pruneTombstones();
+    }
+
+    private void addPending(ChangeRecord record) {
+        pending.add(record);
+        unsavedPending++;
+    }
+
+    /**
+     * Records the latest stamp for entry {@code id}, as a tombstone if it
+     * was a delete.
+     */
+    private void setEntryStamp(long id, long stamp, boolean deleted) {
+        entryStamps.put(id, stamp);
+        if (deleted) {
+            tombstones.add(id);
+        } else {
+            tombstones.remove(id);
+        }
+        if (logFile == null) return;
+        try {
+            stampOut.writeByte(deleted ? OP_TOMBSTONE : OP_STAMP);
+            stampOut.writeLong(id);
+            stampOut.writeLong(stamp);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    private void setSettingStamp(String key, long stamp) {
+        settingStamps.put(key, stamp);
+        if (logFile == null) return;
+        try {
+            stampOut.writeByte(OP_SETTING);
+            stampOut.writeUTF(key);
+            stampOut.writeLong(stamp);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    private void forgetEntry(long id) {
+        tombstones.remove(id);
+        entryStamps.remove(id);
+        if (logFile == null) return;
+        try {
+            stampOut.writeByte(OP_FORGET);
+            stampOut.writeLong(id);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    /**
+     * Once tombstones pass {@value #MAX_TOMBSTONES} by a quarter, forgets
+     * the oldest (and their stamps) down to that many.
+     */
+    private void pruneTombstones() {
+        if (tombstones.size() <= MAX_TOMBSTONES + MAX_TOMBSTONES / 4) return;
+        List<Long> byStamp = new ArrayList<>(tombstones);
+        Collections.sort(byStamp, (a, b) -> Long.compare(entryStamps.get(a), entryStamps.get(b)));
+        for (long id : byStamp.subList(0, byStamp.size() - MAX_TOMBSTONES)) {
+            forgetEntry(id);
+        }
+    }
+
+    int getTombstoneCount() {
+        return tombstones.size();
+    }
+
+    @Override
+    public void onSettingChanged(String key, String value) {
+        if (applyingRemote) return;
+        long stamp = nextStamp();
+        setSettingStamp(key, stamp);
+        addPending(ChangeRecord.setting(stamp, key, value));
+        saveStateAsync();
+    }
+
+    /**
+     * Number of local changes not yet pushed.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    // ─── Sync ───────────────────────────────────────────────────────────
+
+    /**
+     * Pushes local changes since the last push, then pulls other devices'
+     * changes since the last pull, on a background thread; merges them on
+     * the main thread and reports to {@code callback}. Returns false, doing
+     * nothing, while a previous sync is still running.
+     */
+    public boolean syncAsync(SyncServer server, Callback callback) {
+        if (syncing) return false;
+        syncing = true;
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        final int tag = deviceTag();
+        final int pushed = pending.size();
+        final byte[] batch = pushed > 0 ? ChangeRecord.encodeBatch(pending) : null;
+        final long afterSeq = pulledSeq;
+        ioExecutor.execute(() -> {
+            try {
+                Exchange exchange = exchange(server, tag, batch, afterSeq);
+                mainHandler.post(() -> {
+                    syncing = false;
+                    callback.onSyncFinished(applyExchange(pushed, exchange));
+                });
+            } catch (IOException e) {
+                mainHandler.post(() -> {
+                    syncing = false;
+                    callback.onSyncFailed(e);
+                });
+            }
+        });
+        return true;
+    }
+
+    /**
+     * {@link #syncAsync} with the server I/O on the calling thread. For
+     * tests and in-process servers.
+     */
+    public Result sync(SyncServer server) throws IOException {
+        int pushed = pending.size();
+        byte[] batch = pushed > 0 ? ChangeRecord.encodeBatch(pending) : null;
+        return applyExchange(pushed, exchange(server, deviceTag(), batch, pulledSeq));
+    }
+
+    /**
+     * What one round trip brought back: the other devices' records in
+     * stamp order, and the sequence number to pull after next time.
+     */
+    private static final class Exchange {
+        final List<ChangeRecord> incoming;
+        final long latestSeq;
+
+        Exchange(List<ChangeRecord> incoming, long latestSeq) {
+            this.incoming = incoming;
+            this.latestSeq = latestSeq;
+        }
+    }
+
+    /**
+     * Pushes {@code batch} (if any) and pulls and decodes everything after
+     * {@code afterSeq}. Touches no engine state, so it runs on any thread.
+     */
+    private static Exchange exchange(SyncServer server, int deviceTag, byte[] batch, long afterSeq)
+            throws IOException {
+        if (batch != null) {
+            server.push(deviceTag, batch);
+        }
+        SyncServer.PullResult pull = server.pull(deviceTag, afterSeq);
+        List<ChangeRecord> incoming = new ArrayList<>();
+        for (byte[] pulled : pull.batches) {
+            incoming.addAll(ChangeRecord.decodeBatch(pulled));
+        }
+        // Decide in stamp order so every device reaches the same result
+        Collections.sort(incoming, (a, b) -> Long.compare(a.getStamp(), b.getStamp()));
+        return new Exchange(incoming, pull.latestSeq);
+    }
+
+    /**
+     * Drops the first {@code pushed} pending records, now on the server,
+     * and applies the pulled ones; entry changes reach the store as one
+     * batch.
+     */
+    private Result applyExchange(int pushed, Exchange exchange) {
+        pending.subList(0, pushed).clear();
+        unsavedPushed += pushed;
+        int applied = 0;
+        Map<Long, WeightEntry> puts = new LinkedHashMap<>();
+        Set<Long> removals = new HashSet<>();
+        applyingRemote = true;
+        try {
+            for (ChangeRecord record : exchange.incoming) {
+                lamport = Math.max(lamport, ChangeRecord.lamportOf(record.getStamp()));
+                if (merge(record, puts, removals)) applied++;
+            }
+            dataStore.removeEntriesById(removals);
+            dataStore.addEntries(puts.values());
+        } finally {
+            applyingRemote = false;
+        }
+        pruneTombstones();
+
+        pulledSeq = exchange.latestSeq;
+        saveStateAsync();
+        return new Result(pushed, exchange.incoming.size(), applied);
+    }
+
+    /**
+     * Decides one remote record: settings are applied directly, entry
+     * changes are collected into {@code puts} and {@code removals} (IDs to
+     * drop before the puts are added). Returns whether the store changes.
+     */
+    private boolean merge(ChangeRecord record, Map<Long, WeightEntry> puts, Set<Long> removals) {
+        switch (record.getType()) {
+            case ChangeRecord.TYPE_PUT: {
+                long id = record.getEntryId();
+                Long current = entryStamps.get(id);
+                if (current != null && current >= record.getStamp()) return false;
+                setEntryStamp(id, record.getStamp(), false);
+                removals.add(id);
+                puts.put(id, record.toEntry());
+                return true;
+            }
+            case ChangeRecord.TYPE_DELETE: {
+                long id = record.getEntryId();
+                Long current = entryStamps.get(id);
+                if (current != null && current >= record.getStamp()) return false;
+                setEntryStamp(id, record.getStamp(), true);
+                // Present if put earlier in this batch, or stored and not yet removed
+                boolean present = puts.remove(id) != null
+                        || (!removals.contains(id) && dataStore.findEntryById(id) != null);
+                removals.add(id);
+                return present;
+            }
+            default: {
+                Long current = settingStamps.get(record.getKey());
+                if (current != null && current >= record.getStamp()) return false;
+                setSettingStamp(record.getKey(), record.getStamp());
+                dataStore.applySetting(record.getKey(), record.getValue());
+                return true;
+            }
+        }
+    }
+
+    // ─── State persistence ──────────────────────────────────────────────
+
+    private static final int STATE_VERSION = 2;
+
+    // Ops after a log frame's header
+    private static final int OP_STAMP = 1;
+    private static final int OP_TOMBSTONE = 2;
+    private static final int OP_SETTING = 3;
+    private static final int OP_FORGET = 4;
+
+    // Larger than any frame the engine writes; a longer one is corrupt
+    private static final int MAX_FRAME_BYTES = 1 << 26;
+
+    /**
+     * Appends the changes since the last save to the log as one frame: the
+     * cursors, how many pending records were pushed, the ones added and
+     * the stamp changes. Copies only those changes on this thread.
+     */
+    private void saveStateAsync() {
+        if (logFile == null) return;
+        if (saveFailed) {
+            writeStateAsync();
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + unsavedStamps.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(lamport);
+            out.writeLong(pulledSeq);
+            out.writeInt(unsavedPushed);
+            byte[] added = unsavedPending > 0
+                    ? ChangeRecord.encodeBatch(pending.subList(pending.size() - unsavedPending, pending.size()))
+                    : new byte[0];
+            out.writeInt(added.length);
+            out.write(added);
+            unsavedStamps.writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+        clearUnsaved();
+        final byte[] frame = bytes.toByteArray();
+        saveExecutor.execute(() -> appendFrame(frame));
+    }
+
+    /**
+     * Writes the whole state file from a copy of the state. Only after a
+     * failed write, when the log can't be trusted to have every change.
+     */
+    private void writeStateAsync() {
+        saveFailed = false;
+        clearUnsaved();
+        final State copy = new State();
+        copy.lamport = lamport;
+        copy.pulledSeq = pulledSeq;
+        copy.pending.addAll(pending);
+        copy.entryStamps.putAll(entryStamps);
+        copy.settingStamps.putAll(settingStamps);
+        copy.tombstones.addAll(tombstones);
+        saveExecutor.execute(() -> writeState(copy));
+    }
+
+    private void clearUnsaved() {
+        unsavedPushed = 0;
+        unsavedPending = 0;
+        unsavedStamps.reset();
+    }
+
+    private void appendFrame(byte[] frame) {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(logFile, true)))) {
+            out.writeInt(8 + frame.length);
+            out.writeLong(logGeneration);
+            out.write(frame);
+        } catch (IOException e) {
+            saveFailed = true;
+            return;
+        }
+        if (++logFrames > LOG_MAX_FRAMES) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the state file from itself and the log. Runs on the save
+     * thread, so the main thread never copies the whole state.
+     */
+    private void compact() {
+        try {
+            writeState(State.read(stateFile, logFile));
+        } catch (IOException e) {
+            saveFailed = true;
+        }
+    }
+
+    /**
+     * Writes {@code state} as the next generation of the state file, then
+     * deletes the log. Frames the log still holds after a crash in between
+     * belong to the previous generation and are skipped on load.
+     */
+    private void writeState(State state) {
+        long generation = logGeneration + 1;
+        File temp = new File(stateFile.getPath() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+            state.writeTo(out, generation);
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException e) {
+            temp.delete();
+            saveFailed = true;
+            return;
+        }
+        if (!temp.renameTo(stateFile)) {
+            temp.delete();
+            saveFailed = true;
+            return;
+        }
+        logFile.delete();
+        logGeneration = generation;
+        logFrames = 0;
+    }
+
+    /**
+     * Restores saved state; empty, with {@link State#loaded} false, if
+     * there was none or it was unreadable.
+     */
+    private State loadState() {
+        if (stateFile == null) return new State();
+        try {
+            return State.read(stateFile, logFile);
+        } catch (IOException e) {
+            // Corrupt state: start over and re-push everything; merges are
+            // idempotent. The first save rewrites the file.
+            saveFailed = true;
+            return new State();
+        }
+    }
+
+    /**
+     * Blocks until queued saves have been written, or the timeout passes.
+     * For tests.
+     */
+    boolean awaitSaved(long timeoutMs) throws InterruptedException {
+        try {
+            saveExecutor.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Engine state as read from, or written to, the state file and log.
+     */
+    private static final class State {
+        long generation;
+        long lamport;
+        long pulledSeq;
+        final List<ChangeRecord> pending = new ArrayList<>();
+        final Map<Long, Long> entryStamps = new HashMap<>();
+        final Map<String, Long> settingStamps = new HashMap<>();
+        final Set<Long> tombstones = new HashSet<>();
+        boolean loaded;   // there was a state file or a log
+        boolean fromLog;  // a log was applied
+
+        static State read(File stateFile, File logFile) throws IOException {
+            State state = new State();
+            if (stateFile.exists()) {
+                try (DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(stateFile)))) {
+                    state.readFrom(in);
+                }
+                state.loaded = true;
+            }
+            if (logFile.exists()) {
+                state.replay(logFile);
+                state.loaded = true;
+                state.fromLog = true;
+            }
+            return state;
+        }
+
+        private void readFrom(DataInputStream in) throws IOException {
+            if (in.readInt() != STATE_VERSION) throw new IOException("Unknown sync state version");
+            generation = in.readLong();
+            lamport = in.readLong();
+            pulledSeq = in.readLong();
+            byte[] pendingBatch = new byte[in.readInt()];
+            in.readFully(pendingBatch);
+            pending.addAll(ChangeRecord.decodeBatch(pendingBatch));
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                entryStamps.put(in.readLong(), in.readLong());
+            }
+            int settings = in.readInt();
+            for (int i = 0; i < settings; i++) {
+                settingStamps.put(in.readUTF(), in.readLong());
+            }
+            int deleted = in.readInt();
+            for (int i = 0; i < deleted; i++) {
+                tombstones.add(in.readLong());
+            }
+        }
+
+        void writeTo(DataOutputStream out, long generation) throws IOException {
+            byte[] pendingBatch = ChangeRecord.encodeBatch(pending);
+            out.writeInt(STATE_VERSION);
+            out.writeLong(generation);
+            out.writeLong(lamport);
+            out.writeLong(pulledSeq);
+            out.writeInt(pendingBatch.length);
+            out.write(pendingBatch);
+            out.writeInt(entryStamps.size());
+            for (Map.Entry<Long, Long> e : entryStamps.entrySet()) {
+                out.writeLong(e.getKey());
+                out.writeLong(e.getValue());
+            }
+            out.writeInt(settingStamps.size());
+            for (Map.Entry<String, Long> e : settingStamps.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue());
+            }
+            out.writeInt(tombstones.size());
+            for (long id : tombstones) {
+                out.writeLong(id);
+            }
+        }
+
+        /**
+         * Applies the log frames of this state's generation, in order. A
+         * frame cut short by a crash ends the log.
+         */
+        private void replay(File logFile) throws IOException {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(logFile)))) {
+                while (true) {
+                    byte[] frame;
+                    try {
+                        int length = in.readInt();
+                        if (length < 8 || length > MAX_FRAME_BYTES) throw new IOException("Corrupt sync log");
+                        frame = new byte[length];
+                        in.readFully(frame);
+                    } catch (EOFException e) {
+                        return;
+                    }
+                    DataInputStream f = new DataInputStream(new ByteArrayInputStream(frame));
+                    if (f.readLong() == generation) {
+                        applyFrame(f);
+                    }
+                }
+            }
+        }
+
+        private void applyFrame(DataInputStream f) throws IOException {
+            lamport = f.readLong();
+            pulledSeq = f.readLong();
+            int pushed = f.readInt();
+            int addedLength = f.readInt();
+            if (pushed < 0 || pushed > pending.size() || addedLength < 0) {
+                throw new IOException("Corrupt sync log");
+            }
+            pending.subList(0, pushed).clear();
+            if (addedLength > 0) {
+                byte[] added = new byte[addedLength];
+                f.readFully(added);
+                pending.addAll(ChangeRecord.decodeBatch(added));
+            }
+            for (int op = f.read(); op >= 0; op = f.read()) {
+                switch (op) {
+                    case OP_STAMP:
+                    case OP_TOMBSTONE: {
+                        long id = f.readLong();
+                        entryStamps.put(id, f.readLong());
+                        if (op == OP_TOMBSTONE) {
+                            tombstones.add(id);
+                        } else {
+                            tombstones.remove(id);
+                        }
+                        break;
+                    }
+                    case OP_SETTING:
+                        settingStamps.put(f.readUTF(), f.readLong());
+                        break;
+                    case OP_FORGET: {
+                        long id = f.readLong();
+                        tombstones.remove(id);
+                        entryStamps.remove(id);
+                        break;
+                    }
+                    default:
+                        throw new IOException("Corrupt sync log");
+                }
+            }
+        }
+    }
+}
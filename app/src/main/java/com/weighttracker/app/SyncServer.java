@@ -0,0 +1,34 @@
+package com.weighttracker.app;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Server side of delta sync. The server only stores and relays compressed
+ * change batches in arrival order; merging happens on each device.
+ */
+public interface SyncServer {
+
+    /**
+     * Stores a batch pushed by a device and returns its server sequence number.
+     */
+    long push(int deviceTag, byte[] batch) throws IOException;
+
+    /**
+     * Returns the batches other devices pushed after {@code afterSeq}.
+     */
+    PullResult pull(int deviceTag, long afterSeq) throws IOException;
+
+    /**
+     * Batches returned by a pull and the sequence number to pull after next time.
+     */
+    final class PullResult {
+        public final List<byte[]> batches;
+        public final long latestSeq;
+
+        public PullResult(List<byte[]> batches, long latestSeq) {
+            this.batches = batches;
+            this.latestSeq = latestSeq;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.weighttracker.app;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-level thumbnail cache for progress photos.
+ *
+ * Level 1 is an in-memory LRU sized in bytes. Level 2 is a directory of
+ * small JPEG thumbnails under the app cache dir. Misses on both levels
+ * decode the original with {@code inSampleSize} on a small, bounded
+ * background pool, write the thumbnail to disk and deliver the bitmap on
+ * the main thread. Full-size images are never decoded on the UI thread.
+ *
+ * The work queue is last-in-first-out and bounded: while a photo timeline
+ * is flung, the most recently requested (visible) thumbnails are decoded
+ * first and requests for rows long scrolled away are dropped.
+ *
+ * The memory level also answers to {@link MemoryBudget}, which trims it
+ * after graph tiles when the app's caches outgrow their heap share.
+ */
+public class ThumbnailCache {
+
+    public static final int THUMBNAIL_SIZE_PX = 256;
+
+    private static final String THUMB_DIR = "thumbnails";
+    private static final int WORKER_THREADS = 2;
+    private static final int MAX_QUEUED = 32;
+    private static final int JPEG_QUALITY = 85;
+
+    private static ThumbnailCache instance;
+
+    /**
+     * Receives a decoded thumbnail on the main thread.
+     */
+    public interface Callback {
+        void onThumbnail(String hash, Bitmap thumbnail);
+    }
+
+    private final PhotoStore photoStore;
+    private final File thumbDir;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Hash -> callbacks waiting for a thumbnail already being decoded
+    private final Map<String, List<Callback>> pending = new HashMap<>();
+
+    private ThumbnailCache(Context context, PhotoStore photoStore) {
+        this.photoStore = photoStore;
+        thumbDir = new File(context.getCacheDir(), THUMB_DIR);
+        if (!thumbDir.exists()) {
+            thumbDir.mkdirs();
+        }
+
+        int budget = (int) (Runtime.getRuntime().maxMemory() / 8);
+        memoryCache = new LruCache<String, Bitmap>(budget) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+
+        executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS,
+                30, TimeUnit.SECONDS, new LifoQueue(MAX_QUEUED), r -> {
+                    Thread t = new Thread(r, "thumbnails");
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        MemoryBudget.getInstance().register("ThumbnailCache", MemoryBudget.PRIORITY_DECODED,
+                new MemoryBudget.Consumer() {
+                    @Override
+                    public long sizeBytes() {
+                        return memoryCache.size();
+                    }
+
+                    @Override
+                    public void trimTo(long targetBytes) {
+                        memoryCache.trimToSize((int) Math.min(targetBytes, Integer.MAX_VALUE));
+                    }
+                });
+    }
+
+    /**
+     * Creates the singleton; called once from {@link WeightTrackerApp}
+     * after {@link PhotoStore#init}.
+     */
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailCache(context.getApplicationContext(), PhotoStore.getInstance());
+        }
+    }
+
+    public static synchronized ThumbnailCache getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("ThumbnailCache.init() has not been called");
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the thumbnail if it is already in memory. Safe on the UI thread.
+     */
+    public Bitmap getCached(String hash) {
+        return memoryCache.get(hash);
+    }
+
+    /**
+     * Delivers the thumbnail for {@code hash} to {@code callback} on the
+     * main thread: immediately on a memory hit, otherwise once decoded.
+     */
+    public void load(String hash, Callback callback) {
+        Bitmap cached = memoryCache.get(hash);
+        if (cached != null) {
+            callback.onThumbnail(hash, cached);
+            return;
+        }
+
+        synchronized (pending) {
+            List<Callback> waiting = pending.get(hash);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            pending.put(hash, waiting);
+        }
+        executor.execute(new DecodeTask(hash));
+    }
+
+    /**
+     * Binds a thumbnail to an ImageView, ignoring late results if the view
+     * has since been rebound to another photo (e.g. a recycled row).
+     */
+    public void load(String hash, ImageView target) {
+        target.setTag(hash);
+        Bitmap cached = memoryCache.get(hash);
+        if (cached != null) {
+            target.setImageBitmap(cached);
+            return;
+        }
+        target.setImageDrawable(null);
+        load(hash, (h, thumbnail) -> {
+            if (h.equals(target.getTag())) {
+                target.setImageBitmap(thumbnail);
+            }
+        });
+    }
+
+    /**
+     * Drops all in-memory thumbnails; disk thumbnails are kept.
+     */
+    public void clearMemory() {
+        memoryCache.evictAll();
+    }
+
+    // ─── Background decoding ────────────────────────────────────────────
+
+    private class DecodeTask implements Runnable {
+        final String hash;
+
+        DecodeTask(String hash) {
+            this.hash = hash;
+        }
+
+        @Override
+        public void run() {
+            Bitmap thumbnail = null;
+            try {
+                thumbnail = loadOrCreateThumbnail(hash);
+                if (thumbnail != null) {
+                    memoryCache.put(hash, thumbnail);
+                    MemoryBudget.getInstance().onCacheGrew();
+                }
+            } finally {
+                deliver(hash, thumbnail);
+            }
+        }
+    }
+
+    /**
+     * Reads the disk thumbnail, or builds it from the original photo.
+     * Runs on a worker thread.
+     */
+    private Bitmap loadOrCreateThumbnail(String hash) {
+        File thumbFile = new File(thumbDir, hash + "_" + THUMBNAIL_SIZE_PX + ".jpg");
+        if (thumbFile.exists()) {
+            Bitmap fromDisk = BitmapFactory.decodeFile(thumbFile.getPath());
+            if (fromDisk != null) return fromDisk;
+        }
+
+        File original = photoStore.getPhotoFile(hash);
+        if (!original.exists()) return null;
+
+        // Read only the bounds, then decode at the largest power-of-two
+        // reduction that still covers the thumbnail size
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(original.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        int sampleSize = 1;
+        int shortSide = Math.min(options.outWidth, options.outHeight);
+        while (shortSide / (sampleSize * 2) >= THUMBNAIL_SIZE_PX) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap sampled = BitmapFactory.decodeFile(original.getPath(), options);
+        if (sampled == null) return null;
+
+        float scale = (float) THUMBNAIL_SIZE_PX / Math.min(sampled.getWidth(), sampled.getHeight());
+        Bitmap thumbnail = sampled;
+        if (scale < 1f) {
+            thumbnail = Bitmap.createScaledBitmap(sampled,
+                    Math.round(sampled.getWidth() * scale),
+                    Math.round(sampled.getHeight() * scale), true);
+            if (thumbnail != sampled) sampled.recycle();
+        }
+
+        try (OutputStream out = new FileOutputStream(thumbFile)) {
+            thumbnail.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        } catch (IOException e) {
+            thumbFile.delete(); // the memory copy is still usable
+        }
+        return thumbnail;
+    }
+
+    private void deliver(String hash, Bitmap thumbnail) {
+        final List<Callback> callbacks;
+        synchronized (pending) {
+            callbacks = pending.remove(hash);
+        }
+        if (callbacks == null || thumbnail == null) return;
+        mainHandler.post(() -> {
+            for (Callback callback : callbacks) {
+                callback.onThumbnail(hash, thumbnail);
+            }
+        });
+    }
+
+    /**
+     * Bounded deque that hands out the newest task first. When full, the
+     * oldest task is dropped and its waiters forgotten so a later request
+     * for the same photo starts a fresh decode.
+     */
+    private class LifoQueue extends LinkedBlockingDeque<Runnable> {
+        LifoQueue(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public boolean offer(Runnable task) {
+            if (remainingCapacity() == 0) {
+                Runnable oldest = pollLast();
+                if (oldest instanceof DecodeTask) {
+                    synchronized (pending) {
+                        pending.remove(((DecodeTask) oldest).hash);
+                    }
+                }
+            }
+            return offerFirst(task);
+        }
+    }
+}
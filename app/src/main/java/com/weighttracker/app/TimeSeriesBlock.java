@@ -0,0 +1,419 @@
+package com.weighttracker.app;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Immutable, compressed block of chronologically ordered weight entries,
+ * using Gorilla-style bit packing.
+ *
+ * Timestamps are stored as delta-of-delta in units of the block's time
+ * scale (the GCD of all offsets from the first timestamp, so midnight or
+ * whole-second dates shrink to small integers). Weights are stored as
+ * fixed-point hundredths and encoded as deltas from the previous weight.
+ * Both use short prefix codes, so a regular series with slowly changing
+ * weights costs a few bits per entry. Units cost nothing unless the block
+ * mixes kg and lbs, in which case one bit per entry is added. Entry IDs
+ * are stored as the gap to the previous ID, so IDs handed out in sequence
+ * by one device cost one bit each.
+ *
+ * {@link Cursor} decodes one entry at a time, so range scans can stop as
+ * soon as they pass the end of the range without inflating the block.
+ */
+public final class TimeSeriesBlock {
+
+    /** Weights are kept to this many units per kg/lb (two decimal places). */
+    public static final int WEIGHT_SCALE = 100;
+
+    private final int count;
+    private final long firstTime;
+    private final long lastTime;
+    private final long timeScale;
+    private final long firstValue;
+    private final boolean firstMetric;
+    private final boolean mixedUnits;
+    private final long firstId;
+    private final byte[] data;
+
+    private TimeSeriesBlock(int count, long firstTime, long lastTime, long timeScale,
+                            long firstValue, boolean firstMetric, boolean mixedUnits,
+                            long firstId, byte[] data) {
+        this.count = count;
+        this.firstTime = firstTime;
+        this.lastTime = lastTime;
+        this.timeScale = timeScale;
+        this.firstValue = firstValue;
+        this.firstMetric = firstMetric;
+        this.mixedUnits = mixedUnits;
+        this.firstId = firstId;
+        this.data = data;
+    }
+
+    // ─── Encoding ───────────────────────────────────────────────────────
+
+    /**
+     * Encodes entries {@code [from, to)} of the given columns. Times must be
+     * ascending within that range.
+     */
+    public static TimeSeriesBlock encode(long[] ids, long[] times, double[] weights,
+                                         boolean[] metric, int from, int to) {
+        int n = to - from;
+        if (n <= 0) {
+            throw new IllegalArgumentException("empty block");
+        }
+
+        long scale = 0;
+        for (int i = from + 1; i < to; i++) {
+            scale = gcd(scale, times[i] - times[from]);
+        }
+        if (scale <= 0) scale = 1;
+
+        boolean mixed = false;
+        for (int i = from + 1; i < to; i++) {
+            if (metric[i] != metric[from]) {
+                mixed = true;
+                break;
+            }
+        }
+
+        BitWriter out = new BitWriter(n);
+        long prevTime = times[from];
+        long prevDelta = 0;
+        long prevValue = toFixed(weights[from]);
+        if (mixed) out.writeBit(metric[from]);
+
+        for (int i = from + 1; i < to; i++) {
+            long delta = (times[i] - prevTime) / scale;
+            writeDeltaOfDelta(out, delta - prevDelta);
+            prevDelta = delta;
+            prevTime = times[i];
+
+            long value = toFixed(weights[i]);
+            writeValueDelta(out, value - prevValue);
+            prevValue = value;
+
+            if (mixed) out.writeBit(metric[i]);
+
+            writeValueDelta(out, ids[i] - ids[i - 1] - 1);
+        }
+
+        return new TimeSeriesBlock(n, times[from], times[to - 1], scale,
+                toFixed(weights[from]), metric[from], mixed, ids[from], out.toByteArray());
+    }
+
+    private static void writeDeltaOfDelta(BitWriter out, long dod) {
+        if (dod == 0) {
+            out.writeBits(0b0, 1);
+        } else if (fits(dod, 7)) {
+            out.writeBits(0b10, 2);
+            out.writeBits(dod, 7);
+        } else if (fits(dod, 12)) {
+            out.writeBits(0b110, 3);
+            out.writeBits(dod, 12);
+        } else if (fits(dod, 24)) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(dod, 24);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(dod, 64);
+        }
+    }
+
+    private static void writeValueDelta(BitWriter out, long delta) {
+        if (delta == 0) {
+            out.writeBits(0b0, 1);
+        } else if (fits(delta, 6)) {
+            out.writeBits(0b10, 2);
+            out.writeBits(delta, 6);
+        } else if (fits(delta, 10)) {
+            out.writeBits(0b110, 3);
+            out.writeBits(delta, 10);
+        } else if (fits(delta, 16)) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(delta, 16);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(delta, 64);
+        }
+    }
+
+    private static boolean fits(long value, int bits) {
+        long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    private static long toFixed(double weight) {
+        return Math.round(weight * WEIGHT_SCALE);
+    }
+
+    private static long gcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    // ─── Accessors ──────────────────────────────────────────────────────
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getFirstTime() {
+        return firstTime;
+    }
+
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * Whether any entry in this block can fall inside [start, end].
+     */
+    public boolean overlaps(long start, long end) {
+        return firstTime <= end && lastTime >= start;
+    }
+
+    /**
+     * Approximate heap/disk footprint of the encoded block in bytes.
+     */
+    public int sizeBytes() {
+        return data.length + HEADER_BYTES;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    // ─── Serialization ──────────────────────────────────────────────────
+
+    static final int HEADER_BYTES = 4 + 8 + 8 + 8 + 8 + 1 + 8 + 4;
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(count);
+        out.writeLong(firstTime);
+        out.writeLong(lastTime);
+        out.writeLong(timeScale);
+        out.writeLong(firstValue);
+        out.writeByte((firstMetric ? 1 : 0) | (mixedUnits ? 2 : 0));
+        out.writeLong(firstId);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    // Fewest and most bits one entry after the first can take: a zero
+    // delta-of-delta, weight delta and ID gap; or three 64-bit escapes and
+    // a unit bit
+    private static final int MIN_ENTRY_BITS = 3;
+    private static final int MAX_ENTRY_BITS = 3 * (4 + 64) + 1;
+
+    /**
+     * Reads a block written by {@link #writeTo}, of at most {@code maxBytes}
+     * (what is left of the file). Sizes are checked before anything is
+     * allocated and the block is decoded once, so a corrupt or truncated
+     * block fails here with an IOException rather than in a later scan.
+     */
+    public static TimeSeriesBlock readFrom(DataInput in, long maxBytes) throws IOException {
+        int count = in.readInt();
+        long firstTime = in.readLong();
+        long lastTime = in.readLong();
+        long timeScale = in.readLong();
+        long firstValue = in.readLong();
+        int flags = in.readByte();
+        long firstId = in.readLong();
+        int length = in.readInt();
+        if (count <= 0 || length < 0 || timeScale <= 0 || lastTime < firstTime
+                || length > maxBytes - HEADER_BYTES
+                || (long) length * 8 < (long) (count - 1) * MIN_ENTRY_BITS
+                || (long) length * 8 > (long) count * MAX_ENTRY_BITS + 8) {
+            throw new IOException("Corrupt time series block");
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        TimeSeriesBlock block = new TimeSeriesBlock(count, firstTime, lastTime, timeScale, firstValue,
+                (flags & 1) != 0, (flags & 2) != 0, firstId, data);
+        block.validate();
+        return block;
+    }
+
+    /**
+     * Decodes every entry, checking the data holds {@code count} entries in
+     * time order ending at {@code lastTime}.
+     */
+    private void validate() throws IOException {
+        try {
+            Cursor cursor = cursor();
+            long previous = Long.MIN_VALUE;
+            while (cursor.next()) {
+                if (cursor.time < previous) break;
+                previous = cursor.time;
+            }
+            if (cursor.index == count && previous == lastTime) return;
+        } catch (IndexOutOfBoundsException e) {
+            // Ran off the end of the data
+        }
+        throw new IOException("Corrupt time series block");
+    }
+
+    // ─── Streaming decoder ──────────────────────────────────────────────
+
+    /**
+     * Forward-only decoder over a block. Call {@link #next()} before reading
+     * the first entry.
+     */
+    public final class Cursor {
+        private final BitReader in = new BitReader(data);
+        private int index = -1;
+        private long time;
+        private long delta;
+        private long value;
+        private boolean metric;
+        private long id;
+
+        /**
+         * Advances to the next entry; returns false past the end of the block.
+         */
+        public boolean next() {
+            if (index + 1 >= count) {
+                index = count;
+                return false;
+            }
+            index++;
+            if (index == 0) {
+                time = firstTime;
+                value = firstValue;
+                metric = mixedUnits ? in.readBit() : firstMetric;
+                id = firstId;
+                return true;
+            }
+
+            delta += readDeltaOfDelta();
+            time += delta * timeScale;
+            value += readValueDelta();
+            if (mixedUnits) metric = in.readBit();
+            id += readValueDelta() + 1;
+            return true;
+        }
+
+        /**
+         * Advances to the first entry with time >= {@code target}; returns
+         * false if there is none in this block.
+         */
+        public boolean seek(long target) {
+            if (target > lastTime) {
+                index = count;
+                return false;
+            }
+            while (next()) {
+                if (time >= target) return true;
+            }
+            return false;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public double getWeight() {
+            return (double) value / WEIGHT_SCALE;
+        }
+
+        public boolean isMetric() {
+            return metric;
+        }
+
+        private long readDeltaOfDelta() {
+            if (!in.readBit()) return 0;
+            if (!in.readBit()) return in.readSigned(7);
+            if (!in.readBit()) return in.readSigned(12);
+            if (!in.readBit()) return in.readSigned(24);
+            return in.readSigned(64);
+        }
+
+        private long readValueDelta() {
+            if (!in.readBit()) return 0;
+            if (!in.readBit()) return in.readSigned(6);
+            if (!in.readBit()) return in.readSigned(10);
+            if (!in.readBit()) return in.readSigned(16);
+            return in.readSigned(64);
+        }
+    }
+
+    // ─── Bit I/O ────────────────────────────────────────────────────────
+
+    private static final class BitWriter {
+        private byte[] buffer;
+        private int bitPos;
+
+        BitWriter(int expectedEntries) {
+            buffer = new byte[Math.max(16, expectedEntries)];
+        }
+
+        void writeBit(boolean bit) {
+            writeBits(bit ? 1 : 0, 1);
+        }
+
+        /**
+         * Writes the low {@code bits} bits of {@code value}, most significant first.
+         */
+        void writeBits(long value, int bits) {
+            for (int i = bits - 1; i >= 0; i--) {
+                int byteIndex = bitPos >>> 3;
+                if (byteIndex >= buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                if (((value >>> i) & 1) != 0) {
+                    buffer[byteIndex] |= (byte) (0x80 >>> (bitPos & 7));
+                }
+                bitPos++;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, (bitPos + 7) >>> 3);
+        }
+    }
+
+    private static final class BitReader {
+        private final byte[] buffer;
+        private int bitPos;
+
+        BitReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean readBit() {
+            if (bitPos >>> 3 >= buffer.length) {
+                throw new IndexOutOfBoundsException("Read past the end of the block");
+            }
+            int b = buffer[bitPos >>> 3] & (0x80 >>> (bitPos & 7));
+            bitPos++;
+            return b != 0;
+        }
+
+        /**
+         * Reads {@code bits} bits and sign-extends them to a long.
+         */
+        long readSigned(int bits) {
+            long value = 0;
+            for (int i = 0; i < bits; i++) {
+                value = (value << 1) | (readBit() ? 1 : 0);
+            }
+            if (bits < 64) {
+                int shift = 64 - bits;
+                value = (value << shift) >> shift;
+            }
+            return value;
+        }
+    }
+}
@@ -1,47 +1,71 @@
 package com.weighttracker.app;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
 import java.io.Serializable;
 import java.util.Date;
 
 /**
- * Data model representing a single weight entry.
+ * Data model representing a single weight entry. Entries don't change
+ * once stored (snapshots share them); {@link DataStore#updateEntry}
+ * replaces one under the same ID.
+ *
+ * Prefer the Parcelable form or {@link EntryCodec} over Java serialization
+ * for Bundles, Intents and files; Serializable is kept only for
+ * compatibility.
  */
-public class WeightEntry implements Serializable {
+public class WeightEntry implements Serializable, Parcelable {
 
-    private Date date;
-    private double weight;
-    private boolean isMetric; // true = kg, false = lbs
+    private long id;        // stable across devices; 0 until DataStore assigns one
+    private final Date date;
+    private final double weight;
+    private final boolean isMetric; // true = kg, false = lbs
 
     public WeightEntry(Date date, double weight, boolean isMetric) {
-        this.date = date;
+        this.date = new Date(date.getTime());
         this.weight = weight;
         this.isMetric = isMetric;
     }
 
+    public WeightEntry(long id, Date date, double weight, boolean isMetric) {
+        this(date, weight, isMetric);
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Assigned once by DataStore when the entry is added.
+     */
+    void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * A copy: the store sorts and indexes entries by their date.
+     */
     public Date getDate() {
-        return date;
+        return new Date(date.getTime());
     }
 
-    public void setDate(Date date) {
-        this.date = date;
+    /**
+     * The date in epoch millis, without the copy.
+     */
+    public long getTime() {
+        return date.getTime();
     }
 
     public double getWeight() {
         return weight;
     }
 
-    public void setWeight(double weight) {
-        this.weight = weight;
-    }
-
     public boolean isMetric() {
         return isMetric;
     }
 
-    public void setMetric(boolean metric) {
-        isMetric = metric;
-    }
-
     /**
      * Returns weight formatted to one decimal place with the appropriate unit.
      */
@@ -49,4 +73,32 @@ public class WeightEntry implements Serializable {
         String unit = isMetric ? "kg" : "lbs";
         return String.format("%.1f %s", weight, unit);
     }
+
+    // ─── Parcelable ─────────────────────────────────────────────────────
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLong(id);
+        dest.writeLong(date.getTime());
+        dest.writeDouble(weight);
+        dest.writeByte((byte) (isMetric ? 1 : 0));
+    }
+
+    public static final Creator<WeightEntry> CREATOR = new Creator<WeightEntry>() {
+        @Override
+        public WeightEntry createFromParcel(Parcel source) {
+            return new WeightEntry(source.readLong(), new Date(source.readLong()),
+                    source.readDouble(), source.readByte() != 0);
+        }
+
+        @Override
+        public WeightEntry[] newArray(int size) {
+            return new WeightEntry[size];
+        }
+    };
 }
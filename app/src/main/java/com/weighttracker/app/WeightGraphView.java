@@ -1,55 +1,143 @@
 package com.weighttracker.app;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.RectF;
 import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Custom View that draws a simple line graph of weight entries over time.
- * Entries are expected sorted newest-first; this class reverses them for
- * left-to-right chronological plotting.
+ * Custom View that draws a line graph of weight entries over time.
+ * Entries are expected sorted newest-first; this class sorts them
+ * chronologically and plots them on a time axis (oldest on the left).
+ *
+ * The visible time window can be pinch-zoomed and panned across the full
+ * history. Each frame reads only the {@link MinMaxPyramid} level whose
+ * bucket count matches the view's pixel width, so frame cost stays flat
+ * no matter how many entries are stored.
+ *
+ * By default the series itself is drawn from a {@link GraphTileCache}:
+ * onDraw only blits cached bitmap tiles, which are re-rendered in the
+ * background when entries in their time range change. Tiles share one
+ * value scale fitted to the visible window with some slack, so they stay
+ * valid while panning and zooming; the tiles are re-rendered at a new
+ * scale once the visible values leave it or fill less than half of it.
+ *
+ * Besides the raw weights the graph overlays a smoothed trend, a 7-day
+ * rolling average, the goal line and a projection of the trend towards the
+ * goal. All line series share the raw series' sample times, so one range
+ * pyramid gives the value scale for all of them and one loop over the
+ * visible buckets feeds every line.
  */
 public class WeightGraphView extends View {
 
     private List<WeightEntry> entries = new ArrayList<>();
+    private MinMaxPyramid pyramid = MinMaxPyramid.empty();
+
+    // Visible time window (ms since epoch)
+    private double viewStart;
+    private double viewEnd;
+    private boolean hasWindow = false;
+
+    private Series series = Series.EMPTY;
 
     private Paint linePaint;
     private Paint dotPaint;
     private Paint gridPaint;
+    private Paint markerPaint;
+    private Pens pens;
+    private final Path linePath = new Path();
+
+    // Shared per-frame scaling and reusable draw buffers, one per line
+    // series so a single pass over the buckets can fill all of them
+    private final GraphScale scale = new GraphScale();
+    private final SeriesRenderer[] renderers = newRenderers();
+    private boolean batchedRendering = true;
+
+    // Bitmap tiles of the series, rendered off the UI thread
+    private final GraphTileCache tileCache = new GraphTileCache(this::postInvalidate);
+    private final Paint blitPaint = GraphTileCache.createBlitPaint();
+    private final RectF tileRect = new RectF();
+    private boolean tileCaching = true;
+
+    // Value range the cached tiles are drawn at; NaN until the first frame
+    private float tileMin = Float.NaN;
+    private float tileMax = Float.NaN;
+
+    // Value range of the visible window, from fitValueRange()
+    private float fitMin;
+    private float fitMax;
+
+    private static final LatencyHistogram DRAW_LATENCY = Metrics.histogram("WeightGraphView.onDraw");
+
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector gestureDetector;
 
     private static final float LINE_WIDTH = 2.5f;
     private static final float DOT_RADIUS = 5f;
     private static final int COLOR_LINE = 0xFFE8533F;   // primary red
     private static final int COLOR_DOT = 0xFFE8533F;
     private static final int COLOR_GRID = 0xFFEEEEEE;
+    private static final int COLOR_TREND = 0xFF3F7FE8;
+    private static final int COLOR_AVERAGE = 0xFFB0B0B0;
+    private static final int COLOR_GOAL = 0xFF4CAF50;
+    private static final int COLOR_PROJECTION = 0x803F7FE8;
+
+    private static final float PAD_LEFT = 20f;
+    private static final float PAD_RIGHT = 20f;
+    private static final float PAD_TOP = 15f;
+    private static final float PAD_BOTTOM = 15f;
+
+    // Target horizontal pixels per pyramid bucket
+    private static final float PIXELS_PER_BUCKET = 2f;
+    // Narrowest window the user can zoom into
+    private static final long MIN_WINDOW_MS = 24L * 60 * 60 * 1000;
+
+    // Trend: exponential moving average giving each day's weights a 10% say
+    private static final double TREND_DAILY_RETAIN = 0.9;
+    // Projection: trend slope over the last 4 weeks, carried up to 90 days
+    // ahead or until it reaches the goal
+    private static final long PROJECTION_BASIS_MS = 28 * EpochDay.MILLIS_PER_DAY;
+    private static final long PROJECTION_SPAN_MS = 90 * EpochDay.MILLIS_PER_DAY;
+
+    // Line series in draw order; each has its own renderer
+    private static final int LINE_AVERAGE = 0;
+    private static final int LINE_TREND = 1;
+    private static final int LINE_RAW = 2;
+    private static final int LINE_COUNT = 3;
 
     public WeightGraphView(Context context) {
         super(context);
-        init();
+        init(context);
     }
 
     public WeightGraphView(Context context, AttributeSet attrs) {
         super(context, attrs);
-        init();
+        init(context);
     }
 
     public WeightGraphView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init();
+        init(context);
     }
 
-    private void init() {
+    private void init(Context context) {
         linePaint = new Paint();
         linePaint.setColor(COLOR_LINE);
         linePaint.setStrokeWidth(LINE_WIDTH);
         linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeCap(Paint.Cap.ROUND); // hides seams between drawLines segments
+        linePaint.setStrokeJoin(Paint.Join.ROUND); // Path strokes match the drawLines ones
         linePaint.setAntiAlias(true);
 
         dotPaint = new Paint();
@@ -57,85 +145,710 @@ public class WeightGraphView extends View {
         dotPaint.setStyle(Paint.Style.FILL);
         dotPaint.setAntiAlias(true);
 
+        markerPaint = new Paint();
+        markerPaint.setColor(COLOR_DOT);
+        SeriesRenderer.setupMarkerPaint(markerPaint, DOT_RADIUS);
+
         gridPaint = new Paint();
         gridPaint.setColor(COLOR_GRID);
         gridPaint.setStrokeWidth(1f);
         gridPaint.setStyle(Paint.Style.STROKE);
+
+        Paint trendPaint = new Paint(linePaint);
+        trendPaint.setColor(COLOR_TREND);
+
+        Paint averagePaint = new Paint(linePaint);
+        averagePaint.setColor(COLOR_AVERAGE);
+        averagePaint.setStrokeWidth(LINE_WIDTH / 2);
+
+        Paint goalPaint = new Paint(averagePaint);
+        goalPaint.setColor(COLOR_GOAL);
+
+        Paint projectionPaint = new Paint(trendPaint);
+        projectionPaint.setColor(COLOR_PROJECTION);
+
+        pens = new Pens(linePaint, markerPaint, trendPaint, averagePaint, goalPaint, projectionPaint);
+
+        scaleDetector = new ScaleGestureDetector(context, new ScaleListener());
+        gestureDetector = new GestureDetector(context, new PanListener());
     }
 
     /**
      * Sets the list of entries to plot. Expects entries sorted newest first.
+     * Rebuilds the min/max pyramid; the current time window is kept.
      */
     public void setEntries(List<WeightEntry> entries) {
-        this.entries = entries != null ? entries : new ArrayList<>();
+        setSeries(prepare(entries));
+    }
+
+    /**
+     * Sorts {@code entries} and builds their pyramids, without a goal line.
+     * Touches no view state, so it can run on a background thread; hand the
+     * result to {@link #setSeries} on the UI thread.
+     */
+    public static Series prepare(List<WeightEntry> entries) {
+        List<WeightEntry> list = entries != null ? entries : new ArrayList<>();
+
+        WeightEntry[] sorted = list.toArray(new WeightEntry[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.getTime(), b.getTime()));
+
+        long[] times = new long[sorted.length];
+        float[] values = new float[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            times[i] = sorted[i].getTime();
+            values[i] = (float) sorted[i].getWeight();
+        }
+        return build(list, times, values, Double.NaN);
+    }
+
+    /**
+     * Builds a series from query rows of a column snapshot, plotting
+     * {@code values} (one per snapshot row, e.g. a derived column) or the
+     * entries' weights if null, with a goal line at {@code goal} (NaN for
+     * none, same unit as the values). Rows with NaN values are skipped. The
+     * rows are already in time order, so unlike {@link #prepare(List)}
+     * nothing is sorted. Safe off the UI thread.
+     */
+    public static Series prepare(EntryColumns columns, EntryQuery.Result rows, double[] values,
+                                 double goal) {
+        int n = rows.size();
+        long[] times = new long[n];
+        float[] plotted = new float[n];
+        List<WeightEntry> list = new ArrayList<>(n);
+        int count = 0;
+        // Rows run newest first; the pyramid wants oldest first
+        for (int r = n - 1; r >= 0; r--) {
+            int i = rows.getIndex(r);
+            double value = values != null ? values[i] : columns.getEntry(i).getWeight();
+            if (Double.isNaN(value)) continue;
+            times[count] = columns.getTime(i);
+            plotted[count] = (float) value;
+            list.add(columns.getEntry(i));
+            count++;
+        }
+        if (count < n) {
+            times = Arrays.copyOf(times, count);
+            plotted = Arrays.copyOf(plotted, count);
+        }
+        return build(list, times, plotted, goal);
+    }
+
+    /**
+     * Derives the overlay series from chronological samples in one pass and
+     * builds their pyramids, plus the range pyramid spanning all of them.
+     */
+    private static Series build(List<WeightEntry> entries, long[] times, float[] values, double goal) {
+        int n = times.length;
+        float[] trend = new float[n];
+        float[] average = new float[n];
+        float[] lows = new float[n];
+        float[] highs = new float[n];
+        RollingWindow window = new RollingWindow(DataStore.WINDOW_7_DAYS);
+        double smoothed = n > 0 ? values[0] : 0;
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                double days = (double) (times[i] - times[i - 1]) / EpochDay.MILLIS_PER_DAY;
+                double retain = Math.pow(TREND_DAILY_RETAIN, days);
+                smoothed = values[i] + (smoothed - values[i]) * retain;
+            }
+            trend[i] = (float) smoothed;
+            window.add(times[i], values[i]);
+            average[i] = (float) window.getMean();
+            lows[i] = Math.min(values[i], Math.min(trend[i], average[i]));
+            highs[i] = Math.max(values[i], Math.max(trend[i], average[i]));
+        }
+
+        // Project the trend's recent slope forward, stopping at the goal
+        long projectionStart = 0;
+        long projectionEnd = 0;
+        double projectionFrom = Double.NaN;
+        double projectionTo = Double.NaN;
+        if (n >= 2) {
+            int last = n - 1;
+            int basis = Arrays.binarySearch(times, times[last] - PROJECTION_BASIS_MS);
+            if (basis < 0) basis = -basis - 1;
+            basis = Math.min(basis, last - 1);
+            double slope = (trend[last] - trend[basis]) / (double) (times[last] - times[basis]);
+            if (times[last] > times[basis] && !Double.isNaN(slope) && !Double.isInfinite(slope)) {
+                long span = PROJECTION_SPAN_MS;
+                double toGoal = goal - trend[last];
+                if (slope != 0 && toGoal / slope >= 0 && toGoal / slope < span) {
+                    span = (long) (toGoal / slope);
+                }
+                projectionStart = times[last];
+                projectionEnd = times[last] + span;
+                projectionFrom = trend[last];
+                projectionTo = trend[last] + slope * span;
+            }
+        }
+
+        return new Series(entries, new MinMaxPyramid(times, values), new MinMaxPyramid(times, trend),
+                new MinMaxPyramid(times, average), new MinMaxPyramid(times, lows, highs), goal,
+                projectionStart, projectionEnd, projectionFrom, projectionTo);
+    }
+
+    /**
+     * Plots a series from {@link #prepare}; the current time window is kept.
+     */
+    public void setSeries(Series series) {
+        Series previous = this.series;
+        this.series = series;
+        this.entries = series.entries;
+        pyramid = series.pyramid;
+
+        // Only tiles near changed samples need re-rendering, unless the
+        // guide lines moved; the next frame refits the value scale
+        if (!series.sameGuides(previous)) {
+            tileCache.invalidateAll();
+        } else {
+            tileCache.invalidateChanged(previous.pyramid, series.pyramid);
+            tileCache.invalidateChanged(previous.trend, series.trend);
+            tileCache.invalidateChanged(previous.average, series.average);
+        }
+        tileCache.setPainter(new SeriesTilePainter(series, pens, tileMin, tileMax));
+
+        if (!hasWindow) {
+            resetWindow();
+        }
+    }
+
+    /**
+     * Entries with the pyramids of every line series, the range pyramid
+     * over all of them, and the goal and projection lines, ready to plot.
+     */
+    public static final class Series {
+        static final Series EMPTY = build(new ArrayList<>(), new long[0], new float[0], Double.NaN);
+
+        final List<WeightEntry> entries;
+        final MinMaxPyramid pyramid;
+        final MinMaxPyramid trend;
+        final MinMaxPyramid average;
+        final MinMaxPyramid range;
+        final double goal;
+        final long projectionStart;
+        final long projectionEnd;
+        final double projectionFrom;
+        final double projectionTo;
+
+        Series(List<WeightEntry> entries, MinMaxPyramid pyramid, MinMaxPyramid trend,
+               MinMaxPyramid average, MinMaxPyramid range, double goal, long projectionStart,
+               long projectionEnd, double projectionFrom, double projectionTo) {
+            this.entries = entries;
+            this.pyramid = pyramid;
+            this.trend = trend;
+            this.average = average;
+            this.range = range;
+            this.goal = goal;
+            this.projectionStart = projectionStart;
+            this.projectionEnd = projectionEnd;
+            this.projectionFrom = projectionFrom;
+            this.projectionTo = projectionTo;
+        }
+
+        boolean hasGoal() {
+            return !Double.isNaN(goal) && range.size() > 0;
+        }
+
+        boolean hasProjection() {
+            return !Double.isNaN(projectionFrom);
+        }
+
+        boolean sameGuides(Series other) {
+            return Double.compare(goal, other.goal) == 0
+                    && projectionStart == other.projectionStart
+                    && projectionEnd == other.projectionEnd
+                    && Double.compare(projectionFrom, other.projectionFrom) == 0
+                    && Double.compare(projectionTo, other.projectionTo) == 0;
+        }
+    }
+
+    /**
+     * Switches between the batched drawLines/drawPoints path (default) and
+     * the original Path/drawCircle path.
+     */
+    public void setBatchedRendering(boolean batched) {
+        batchedRendering = batched;
+        invalidate();
+    }
+
+    /**
+     * Switches between blitting cached tiles (default) and drawing the
+     * series as vectors on every frame.
+     */
+    public void setTileCaching(boolean enabled) {
+        tileCaching = enabled;
+        invalidate();
+    }
+
+    /**
+     * Shows the given time range (ms since epoch).
+     */
+    public void setTimeWindow(long startMs, long endMs) {
+        viewStart = startMs;
+        viewEnd = Math.max(endMs, startMs + MIN_WINDOW_MS);
+        hasWindow = true;
+        invalidate();
+    }
+
+    /**
+     * Zooms out to show the full history.
+     */
+    public void showAll() {
+        hasWindow = false;
+        resetWindow();
+        invalidate();
+    }
+
+    private void resetWindow() {
+        long first = pyramid.getFirstTime();
+        long last = series.hasProjection()
+                ? Math.max(pyramid.getLastTime(), series.projectionEnd)
+                : pyramid.getLastTime();
+        viewStart = first;
+        viewEnd = Math.max(last, first + MIN_WINDOW_MS);
+    }
+
+    // ─── Gestures ───────────────────────────────────────────────────────
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN && getParent() != null) {
+            // Keep scrolling parents from stealing pan gestures
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled |= gestureDetector.onTouchEvent(event);
+        return handled || super.onTouchEvent(event);
+    }
+
+    private float plotWidth() {
+        return getWidth() - PAD_LEFT - PAD_RIGHT;
+    }
+
+    /**
+     * Keeps the window's center inside the data range and its span between
+     * one day and twice the full history.
+     */
+    private void clampWindow() {
+        double span = viewEnd - viewStart;
+        double fullSpan = Math.max(pyramid.getLastTime() - pyramid.getFirstTime(), MIN_WINDOW_MS);
+        if (span < MIN_WINDOW_MS) span = MIN_WINDOW_MS;
+        if (span > fullSpan * 2) span = fullSpan * 2;
+
+        double center = (viewStart + viewEnd) / 2;
+        double lo = pyramid.getFirstTime();
+        double hi = pyramid.getLastTime();
+        if (center < lo) center = lo;
+        if (center > hi) center = hi;
+
+        viewStart = center - span / 2;
+        viewEnd = center + span / 2;
+    }
+
+    private class ScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
+        @Override
+        public boolean onScale(ScaleGestureDetector detector) {
+            float width = plotWidth();
+            if (width <= 0) return false;
+
+            // Keep the time under the focal point fixed while zooming
+            double span = viewEnd - viewStart;
+            double fraction = (detector.getFocusX() - PAD_LEFT) / width;
+            double focusTime = viewStart + span * fraction;
+            double newSpan = span / detector.getScaleFactor();
+
+            viewStart = focusTime - newSpan * fraction;
+            viewEnd = viewStart + newSpan;
+            hasWindow = true;
+            clampWindow();
+            invalidate();
+            return true;
+        }
+    }
+
+    private class PanListener extends GestureDetector.SimpleOnGestureListener {
+        @Override
+        public boolean onDown(MotionEvent e) {
+            return true;
+        }
+
+        @Override
+        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+            float width = plotWidth();
+            if (width <= 0) return false;
+
+            double shift = (viewEnd - viewStart) * distanceX / width;
+            viewStart += shift;
+            viewEnd += shift;
+            hasWindow = true;
+            clampWindow();
+            invalidate();
+            return true;
+        }
+
+        @Override
+        public boolean onDoubleTap(MotionEvent e) {
+            showAll();
+            return true;
+        }
     }
 
+    // ─── Drawing ────────────────────────────────────────────────────────
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        long start = Metrics.start();
+        drawGraph(canvas);
+        Metrics.stop(DRAW_LATENCY, start);
+    }
 
-        if (entries.size() < 2) {
+    private void drawGraph(Canvas canvas) {
+        if (pyramid.size() < 2) {
             // Not enough data to draw a line
             return;
         }
 
-        float padLeft = 20f;
-        float padRight = 20f;
-        float padTop = 15f;
-        float padBottom = 15f;
-
-        float width = getWidth() - padLeft - padRight;
-        float height = getHeight() - padTop - padBottom;
+        float width = getWidth() - PAD_LEFT - PAD_RIGHT;
+        float height = getHeight() - PAD_TOP - PAD_BOTTOM;
 
         if (width <= 0 || height <= 0) return;
 
-        // Reverse entries for chronological order (oldest on left)
-        List<WeightEntry> chronological = new ArrayList<>(entries);
-        Collections.reverse(chronological);
+        // Visible sample range, widened by one so the line runs off the edges
+        int first = Math.max(0, pyramid.lowerBound((long) viewStart) - 1);
+        int last = Math.min(pyramid.size(), pyramid.upperBound((long) viewEnd) + 1);
+        int visible = last - first;
+        if (visible < 1) return;
+
+        // Read the pyramid level that gives about one bucket per PIXELS_PER_BUCKET
+        int level = pyramid.levelFor(visible, (int) (width / PIXELS_PER_BUCKET));
+        int firstBucket = first >> level;
+        int lastBucket = (last - 1) >> level;
+
+        fitValueRange(level, firstBucket, lastBucket);
+
+        if (tileCaching) {
+            drawGrid(canvas, width, height);
+            fitTileRange();
+            drawTiles(canvas, width);
+            return;
+        }
+
+        scale.setPlotRect(PAD_LEFT, PAD_TOP, width, height);
+        scale.setTimeRange(viewStart, viewEnd);
+        scale.setValueRange(fitMin, fitMax, 0.15);
+
+        drawGrid(canvas, width, height);
+
+        canvas.save();
+        canvas.clipRect(PAD_LEFT - DOT_RADIUS, 0, PAD_LEFT + width + DOT_RADIUS, getHeight());
+
+        // Dots only while individual points are distinguishable
+        boolean drawDots = level == 0 && visible * DOT_RADIUS * 4 <= width;
+        if (batchedRendering) {
+            drawSeriesBatched(canvas, series, scale, renderers, level, firstBucket, lastBucket,
+                    drawDots, (long) viewStart, (long) viewEnd, pens);
+        } else {
+            drawSeriesWithPath(canvas, level, firstBucket, lastBucket, drawDots);
+        }
+
+        canvas.restore();
+    }
 
-        // Find min and max weight for scaling
-        double minWeight = Double.MAX_VALUE;
-        double maxWeight = Double.MIN_VALUE;
-        for (WeightEntry entry : chronological) {
-            minWeight = Math.min(minWeight, entry.getWeight());
-            maxWeight = Math.max(maxWeight, entry.getWeight());
+    /**
+     * Sets {@link #fitMin}/{@link #fitMax} to the values the visible buckets
+     * reach. Bounds for every line series come from the one range pyramid;
+     * the straight guide lines are folded in as constants.
+     */
+    private void fitValueRange(int level, int firstBucket, int lastBucket) {
+        MinMaxPyramid range = series.range;
+        float minValue = Float.MAX_VALUE;
+        float maxValue = -Float.MAX_VALUE;
+        for (int b = firstBucket; b <= lastBucket; b++) {
+            minValue = Math.min(minValue, range.bucketMin(level, b));
+            maxValue = Math.max(maxValue, range.bucketMax(level, b));
         }
+        if (series.hasGoal()) {
+            minValue = Math.min(minValue, (float) series.goal);
+            maxValue = Math.max(maxValue, (float) series.goal);
+        }
+        if (series.hasProjection() && series.projectionEnd >= viewStart) {
+            minValue = Math.min(minValue, (float) Math.min(series.projectionFrom, series.projectionTo));
+            maxValue = Math.max(maxValue, (float) Math.max(series.projectionFrom, series.projectionTo));
+        }
+        fitMin = minValue;
+        fitMax = maxValue;
+    }
 
-        // Add a small padding to the range so points aren't on the edge
-        double range = maxWeight - minWeight;
-        if (range == 0) range = 1; // avoid division by zero for flat line
-        double paddedMin = minWeight - range * 0.15;
-        double paddedMax = maxWeight + range * 0.15;
-        double paddedRange = paddedMax - paddedMin;
+    /**
+     * Keeps the tiles' value scale while the visible values fit in it and
+     * span at least half of it, so panning and small zooms reuse tiles.
+     * Otherwise re-renders every tile at the visible range plus a quarter
+     * of slack on each side.
+     */
+    private void fitTileRange() {
+        float visibleSpan = fitMax - fitMin;
+        if (fitMin >= tileMin && fitMax <= tileMax && visibleSpan * 2 >= tileMax - tileMin) return;
+        float slack = Math.max(visibleSpan, 1f) / 4;
+        tileMin = fitMin - slack;
+        tileMax = fitMax + slack;
+        tileCache.invalidateAll();
+        tileCache.setPainter(new SeriesTilePainter(series, pens, tileMin, tileMax));
+    }
 
-        // Draw horizontal grid lines (3 lines)
+    /**
+     * Draws horizontal grid lines (3 lines).
+     */
+    private void drawGrid(Canvas canvas, float width, float height) {
         for (int i = 0; i <= 2; i++) {
-            float y = padTop + (height / 2f) * i;
-            canvas.drawLine(padLeft, y, padLeft + width, y, gridPaint);
+            float y = PAD_TOP + (height / 2f) * i;
+            canvas.drawLine(PAD_LEFT, y, PAD_LEFT + width, y, gridPaint);
         }
+    }
 
-        // Calculate points
-        int pointCount = chronological.size();
-        float[] xPoints = new float[pointCount];
-        float[] yPoints = new float[pointCount];
+    /**
+     * Blits the cached tiles covering the visible window. Tiles still being
+     * rendered fall back to the next coarser zoom level if that is cached.
+     */
+    private void drawTiles(Canvas canvas, float width) {
+        double span = viewEnd - viewStart;
+        int zoom = GraphTileCache.zoomFor(span / width);
+        long tileSpan = GraphTileCache.tileSpan(zoom);
+        long firstTile = (long) Math.floor(viewStart / tileSpan);
+        long lastTile = (long) Math.floor(viewEnd / tileSpan);
+
+        scale.setPlotRect(PAD_LEFT, 0, width, getHeight());
+        scale.setTimeRange(viewStart, viewEnd);
 
-        for (int i = 0; i < pointCount; i++) {
-            double weight = chronological.get(i).getWeight();
-            xPoints[i] = padLeft + (width * i) / (pointCount - 1);
-            yPoints[i] = padTop + height * (1.0f - (float)((weight - paddedMin) / paddedRange));
+        canvas.save();
+        canvas.clipRect(PAD_LEFT - DOT_RADIUS, 0, PAD_LEFT + width + DOT_RADIUS, getHeight());
+
+        long lastFallback = Long.MIN_VALUE;
+        for (long index = firstTile; index <= lastTile; index++) {
+            Bitmap tile = tileCache.getTile(zoom, index);
+            if (tile != null) {
+                long start = index * tileSpan;
+                tileRect.set(scale.x(start), 0, scale.x(start + tileSpan), getHeight());
+                canvas.drawBitmap(tile, null, tileRect, blitPaint);
+                continue;
+            }
+
+            long coarseIndex = index >> 1;
+            if (coarseIndex == lastFallback) continue;
+            Bitmap coarse = tileCache.peekTile(zoom + 1, coarseIndex);
+            if (coarse != null) {
+                long start = coarseIndex * tileSpan * 2;
+                tileRect.set(scale.x(start), 0, scale.x(start + tileSpan * 2), getHeight());
+                canvas.drawBitmap(coarse, null, tileRect, blitPaint);
+                lastFallback = coarseIndex;
+            }
         }
 
-        // Draw line path
-        Path path = new Path();
-        path.moveTo(xPoints[0], yPoints[0]);
-        for (int i = 1; i < pointCount; i++) {
-            path.lineTo(xPoints[i], yPoints[i]);
+        canvas.restore();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        tileCache.setTileHeight(h);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        tileCache.invalidateAll();
+    }
+
+    /**
+     * Time of a bucket's plotted vertex: the sample itself at level 0,
+     * the midpoint of the covered samples above that.
+     */
+    private static long bucketTime(MinMaxPyramid pyramid, int level, int bucket) {
+        return level == 0
+                ? pyramid.getTime(bucket)
+                : (pyramid.bucketStartTime(level, bucket) + pyramid.bucketEndTime(level, bucket)) / 2;
+    }
+
+    private static SeriesRenderer[] newRenderers() {
+        SeriesRenderer[] renderers = new SeriesRenderer[LINE_COUNT];
+        for (int i = 0; i < LINE_COUNT; i++) {
+            renderers[i] = new SeriesRenderer();
+        }
+        return renderers;
+    }
+
+    /**
+     * Writes every line series into its renderer's segment buffer in one
+     * pass over the buckets, then issues one drawLines per line, one for
+     * each guide line, and one drawPoints for the markers. Coarse levels
+     * trace each bucket's min/max envelope.
+     */
+    private static void drawSeriesBatched(Canvas canvas, Series series, GraphScale scale,
+                                          SeriesRenderer[] renderers, int level, int firstBucket,
+                                          int lastBucket, boolean drawDots, long startTime,
+                                          long endTime, Pens pens) {
+        MinMaxPyramid pyramid = series.pyramid;
+        SeriesRenderer raw = renderers[LINE_RAW];
+        SeriesRenderer trend = renderers[LINE_TREND];
+        SeriesRenderer average = renderers[LINE_AVERAGE];
+        raw.beginLine();
+        trend.beginLine();
+        average.beginLine();
+        for (int b = firstBucket; b <= lastBucket; b++) {
+            float x = scale.x(bucketTime(pyramid, level, b));
+            float yMax = traceBucket(raw, scale, pyramid, level, b, x);
+            traceBucket(trend, scale, series.trend, level, b, x);
+            traceBucket(average, scale, series.average, level, b, x);
+            if (drawDots) {
+                raw.point(x, yMax);
+            }
+        }
+
+        // Guides first so the data lines draw over them
+        SeriesRenderer guides = renderers[LINE_AVERAGE];
+        average.flushLines(canvas, pens.average);
+        if (series.hasGoal()) {
+            float y = scale.y(series.goal);
+            guides.lineTo(scale.x(startTime), y);
+            guides.lineTo(scale.x(endTime), y);
+            guides.flushLines(canvas, pens.goal);
+        }
+        if (series.hasProjection() && series.projectionEnd >= startTime
+                && series.projectionStart <= endTime) {
+            guides.lineTo(scale.x(series.projectionStart), scale.y(series.projectionFrom));
+            guides.lineTo(scale.x(series.projectionEnd), scale.y(series.projectionTo));
+            guides.flushLines(canvas, pens.projection);
+        }
+        trend.flushLines(canvas, pens.trend);
+        raw.flushLines(canvas, pens.line);
+        raw.flushPoints(canvas, pens.marker);
+    }
+
+    /**
+     * Appends one bucket of {@code pyramid} to a polyline and returns the
+     * y of its maximum.
+     */
+    private static float traceBucket(SeriesRenderer renderer, GraphScale scale, MinMaxPyramid pyramid,
+                                     int level, int bucket, float x) {
+        float yMax = scale.y(pyramid.bucketMax(level, bucket));
+        float yMin = scale.y(pyramid.bucketMin(level, bucket));
+        renderer.lineTo(x, yMax);
+        if (yMin != yMax) {
+            renderer.lineTo(x, yMin);
+        }
+        return yMax;
+    }
+
+    /**
+     * Original rendering path: one Path.lineTo per vertex and one
+     * drawCircle per dot, for each series. Kept for comparison benchmarks.
+     */
+    private void drawSeriesWithPath(Canvas canvas, int level, int firstBucket, int lastBucket,
+                                    boolean drawDots) {
+        if (series.hasGoal()) {
+            float y = scale.y(series.goal);
+            canvas.drawLine(scale.x(viewStart), y, scale.x(viewEnd), y, pens.goal);
+        }
+        if (series.hasProjection()) {
+            canvas.drawLine(scale.x(series.projectionStart), scale.y(series.projectionFrom),
+                    scale.x(series.projectionEnd), scale.y(series.projectionTo), pens.projection);
         }
-        canvas.drawPath(path, linePaint);
+        drawPyramidWithPath(canvas, series.average, level, firstBucket, lastBucket, pens.average);
+        drawPyramidWithPath(canvas, series.trend, level, firstBucket, lastBucket, pens.trend);
+        drawPyramidWithPath(canvas, pyramid, level, firstBucket, lastBucket, linePaint);
+
+        if (drawDots) {
+            for (int b = firstBucket; b <= lastBucket; b++) {
+                canvas.drawCircle(scale.x(pyramid.getTime(b)), scale.y(pyramid.getValue(b)),
+                        DOT_RADIUS, dotPaint);
+            }
+        }
+    }
+
+    private void drawPyramidWithPath(Canvas canvas, MinMaxPyramid line, int level, int firstBucket,
+                                     int lastBucket, Paint paint) {
+        linePath.rewind();
+        for (int b = firstBucket; b <= lastBucket; b++) {
+            float x = scale.x(bucketTime(pyramid, level, b));
+            float yMax = scale.y(line.bucketMax(level, b));
+            float yMin = scale.y(line.bucketMin(level, b));
+
+            if (b == firstBucket) {
+                linePath.moveTo(x, yMax);
+            } else {
+                linePath.lineTo(x, yMax);
+            }
+            if (yMin != yMax) {
+                linePath.lineTo(x, yMin);
+            }
+        }
+        canvas.drawPath(linePath, paint);
+    }
+
+    /**
+     * Paints for each line of the graph.
+     */
+    private static final class Pens {
+        final Paint line;
+        final Paint marker;
+        final Paint trend;
+        final Paint average;
+        final Paint goal;
+        final Paint projection;
+
+        Pens(Paint line, Paint marker, Paint trend, Paint average, Paint goal, Paint projection) {
+            this.line = line;
+            this.marker = marker;
+            this.trend = trend;
+            this.average = average;
+            this.goal = goal;
+            this.projection = projection;
+        }
+
+        Pens copy() {
+            return new Pens(new Paint(line), new Paint(marker), new Paint(trend), new Paint(average),
+                    new Paint(goal), new Paint(projection));
+        }
+    }
+
+    /**
+     * Renders one tile of an immutable series snapshot on the tile thread,
+     * all tiles at one value range so neighbouring tiles line up.
+     */
+    private static class SeriesTilePainter implements GraphTileCache.TilePainter {
+        private final Series series;
+        private final Pens pens;
+        private final float minValue;
+        private final float maxValue;
+        private final SeriesRenderer[] renderers = newRenderers();
+
+        SeriesTilePainter(Series series, Pens pens, float minValue, float maxValue) {
+            this.series = series;
+            // Private copies: Paint objects are not safe to share across threads
+            this.pens = pens.copy();
+            this.minValue = minValue;
+            this.maxValue = maxValue;
+        }
+
+        @Override
+        public void paintTile(Canvas canvas, long startTime, long endTime, int widthPx, int heightPx) {
+            MinMaxPyramid pyramid = series.pyramid;
+            if (pyramid.size() < 2) return;
+
+            int first = Math.max(0, pyramid.lowerBound(startTime) - 1);
+            int last = Math.min(pyramid.size(), pyramid.upperBound(endTime) + 1);
+            int visible = last - first;
+            if (visible < 1) return;
+
+            GraphScale scale = new GraphScale();
+            scale.setPlotRect(0, PAD_TOP, widthPx, heightPx - PAD_TOP - PAD_BOTTOM);
+            scale.setTimeRange(startTime, endTime);
+            scale.setValueRange(minValue, maxValue, 0.15);
 
-        // Draw dots at each data point
-        for (int i = 0; i < pointCount; i++) {
-            canvas.drawCircle(xPoints[i], yPoints[i], DOT_RADIUS, dotPaint);
+            int level = pyramid.levelFor(visible, (int) (widthPx / PIXELS_PER_BUCKET));
+            boolean drawDots = level == 0 && visible * DOT_RADIUS * 4 <= widthPx;
+            drawSeriesBatched(canvas, series, scale, renderers, level, first >> level,
+                    (last - 1) >> level, drawDots, startTime, endTime, pens);
         }
     }
 }
@@ -1,6 +1,11 @@
 package com.weighttracker.app;
 
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.pm.ApplicationInfo;
+
+import java.io.File;
+import java.io.IOException;
 
 /**
  * Custom Application class to ensure the DataStore singleton
@@ -8,10 +13,62 @@ import android.app.Application;
  */
 public class WeightTrackerApp extends Application {
 
+    private static SyncEngine syncEngine;
+
+    /**
+     * Change log for syncing with other devices, or null until the saved
+     * history has loaded.
+     */
+    public static SyncEngine getSyncEngine() {
+        return syncEngine;
+    }
+
     @Override
     public void onCreate() {
         super.onCreate();
-        // Initialize the DataStore singleton
-        DataStore.getInstance();
+        // Hot-path latency histograms, in debuggable builds only
+        Metrics.setEnabled((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+
+        // Initialize the DataStore singleton and load the saved history off
+        // the main thread; screens refresh when it lands. Sync starts after
+        // it, so a first run queues the loaded entries for push.
+        final File filesDir = getFilesDir();
+        DataStore.getInstance().attachStorageAsync(new File(filesDir, "history.wts"), () ->
+                syncEngine = new SyncEngine(DataStore.getInstance(), new File(filesDir, "sync.state")));
+
+        // Progress photos and their thumbnail cache
+        PhotoStore.init(this);
+        ThumbnailCache.init(this);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            // Leaving the foreground: make settings durable, and save
+            // latency summaries and cache occupancy (before trimming) for
+            // bug reports
+            DataStore.getInstance().flushSettings();
+            MemoryBudget.getInstance().dumpToLog();
+            if (Metrics.isEnabled()) {
+                final File report = new File(getFilesDir(), "metrics.txt");
+                DataStore.getInstance().runOnPersistThread(() -> {
+                    try {
+                        Metrics.dumpToFile(report);
+                    } catch (IOException e) {
+                        // Diagnostics only
+                    }
+                    Metrics.dumpToLog();
+                });
+            }
+        }
+        // Caches shrink, cheapest to rebuild first, as pressure rises
+        MemoryBudget.getInstance().onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        MemoryBudget.getInstance().onLowMemory();
     }
 }
@@ -0,0 +1,163 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Date
+import java.util.Random
+import java.util.concurrent.ForkJoinPool
+
+/**
+ * [CohortAnalytics]: the fork/join analysis against a sequential fold,
+ * merge order, per-client unit normalization and percentile math.
+ */
+class CohortAnalyticsTest {
+
+    // ─── Cohort ─────────────────────────────────────────────────────────
+
+    @Test
+    fun analyzeOnThePoolMatchesASequentialFold() {
+        val random = Random(32)
+        // Enough clients for several levels of splits, some with no entries
+        val clients = List(500) { client(random, "client $it") }
+        val pool = ForkJoinPool(4)
+        val result = try {
+            CohortAnalytics.analyze(clients, pool)
+        } finally {
+            pool.shutdown()
+        }
+
+        val expected = CohortAnalytics.Partial()
+        clients.forEachIndexed { i, client ->
+            val stats = CohortAnalytics.analyzeClient(client)
+            assertSameStats("client $i", stats, result.users[i])
+            expected.add(stats)
+        }
+        assertSamePartial(expected, result.cohort)
+    }
+
+    @Test
+    fun mergeIsAssociative() {
+        val random = Random(33)
+        val stats = List(90) { CohortAnalytics.analyzeClient(client(random, "client $it")) }
+        fun partial(from: Int, to: Int) = CohortAnalytics.Partial().also { p -> stats.subList(from, to).forEach { p.add(it) } }
+
+        val leftFirst = partial(0, 30).merge(partial(30, 60)).merge(partial(60, 90))
+        val rightFirst = partial(0, 30).merge(partial(30, 60).merge(partial(60, 90)))
+        assertSamePartial(leftFirst, rightFirst)
+        assertSamePartial(partial(0, 90), rightFirst)
+    }
+
+    // ─── One client ─────────────────────────────────────────────────────
+
+    @Test
+    fun analyzeClientNormalizesLbsToKg() {
+        val history = CompressedHistory.fromEntries(listOf(
+            WeightEntry(3L, Date(START + 14 * DAY), 200.0, false),
+            WeightEntry(2L, Date(START + 7 * DAY), 95.0, true),
+            WeightEntry(1L, Date(START), 220.0, false)
+        ))
+        val stats = CohortAnalytics.analyzeClient(CohortAnalytics.ClientHistory("a", history, 180.0, false))
+
+        assertEquals(3, stats.entryCount)
+        assertEquals(220 * LBS_TO_KG, stats.startWeight, 1e-9)
+        assertEquals(200 * LBS_TO_KG, stats.currentWeight, 1e-9)
+        // 20 lbs lost over two weeks
+        assertEquals(-10 * LBS_TO_KG, stats.weeklyRate, 1e-9)
+        assertEquals(1.5, stats.adherence, 1e-9)
+        assertEquals(20 * LBS_TO_KG, stats.distanceToGoal, 1e-9)
+
+        val kgGoal = CohortAnalytics.analyzeClient(CohortAnalytics.ClientHistory("a", history, 85.0, true))
+        assertEquals(200 * LBS_TO_KG - 85, kgGoal.distanceToGoal, 1e-9)
+        val noGoal = CohortAnalytics.analyzeClient(CohortAnalytics.ClientHistory("a", history, 0.0, true))
+        assertTrue(noGoal.distanceToGoal.isNaN())
+    }
+
+    // ─── Distribution ───────────────────────────────────────────────────
+
+    @Test
+    fun percentileInterpolatesWithinBins() {
+        val distribution = CohortAnalytics.Distribution(0.0, 10.0, 1.0)
+        assertTrue(distribution.percentile(0.5).isNaN())
+        // One sample in each of bins 0 to 3
+        listOf(0.5, 1.5, 2.5, 3.5, Double.NaN).forEach { distribution.add(it) }
+
+        assertEquals(4L, distribution.count)
+        assertEquals(0.0, distribution.percentile(0.0), 1e-9)
+        assertEquals(1.0, distribution.percentile(0.25), 1e-9)
+        assertEquals(1.5, distribution.percentile(0.375), 1e-9)
+        assertEquals(2.0, distribution.percentile(0.5), 1e-9)
+        assertEquals(4.0, distribution.percentile(1.0), 1e-9)
+        assertEquals(4.0, distribution.percentile(2.0), 1e-9)
+
+        // Out of range: counted in the edge bins
+        distribution.add(-3.0)
+        distribution.add(42.0)
+        assertEquals(0.5, distribution.percentile(1.0 / 6), 1e-9)
+        assertEquals(10.0, distribution.percentile(1.0), 1e-9)
+    }
+
+    @Test
+    fun meanAndStdDevAreExact() {
+        val distribution = CohortAnalytics.Distribution(0.0, 10.0, 1.0)
+        assertTrue(distribution.mean.isNaN())
+        listOf(2.0, 4.0, 4.0, 4.0, 5.0, 5.0, 7.0, 9.0).forEach { distribution.add(it) }
+        assertEquals(5.0, distribution.mean, 1e-9)
+        assertEquals(Math.sqrt(32.0 / 7), distribution.stdDev, 1e-9)
+    }
+
+    /**
+     * A random client: up to 40 entries in mixed units, often a goal.
+     */
+    private fun client(random: Random, id: String): CohortAnalytics.ClientHistory {
+        var time = START + random.nextInt(30) * DAY
+        val entries = List(random.nextInt(41)) { k ->
+            time += (1 + random.nextInt(72)) * HOUR
+            val metric = random.nextBoolean()
+            val kg = 70 + random.nextInt(4_000) / 100.0
+            WeightEntry(k + 1L, Date(time), if (metric) kg else Math.round(kg / LBS_TO_KG * 100) / 100.0, metric)
+        }
+        val goal = if (random.nextInt(3) == 0) 0.0 else 60.0 + random.nextInt(40)
+        return CohortAnalytics.ClientHistory(id, CompressedHistory.fromEntries(entries), goal, random.nextBoolean())
+    }
+
+    private fun assertSameStats(message: String, expected: CohortAnalytics.UserStats, actual: CohortAnalytics.UserStats) {
+        assertEquals(message, expected.clientId, actual.clientId)
+        assertEquals(message, expected.entryCount, actual.entryCount)
+        // assertEquals(Double, Double, delta) treats two NaNs as equal
+        assertEquals(message, expected.startWeight, actual.startWeight, 0.0)
+        assertEquals(message, expected.currentWeight, actual.currentWeight, 0.0)
+        assertEquals(message, expected.weeklyRate, actual.weeklyRate, 0.0)
+        assertEquals(message, expected.adherence, actual.adherence, 0.0)
+        assertEquals(message, expected.distanceToGoal, actual.distanceToGoal, 0.0)
+    }
+
+    private fun assertSamePartial(expected: CohortAnalytics.Partial, actual: CohortAnalytics.Partial) {
+        assertEquals(expected.userCount, actual.userCount)
+        assertEquals(expected.entryCount, actual.entryCount)
+        assertSameDistribution("weekly rate", expected.weeklyRate, actual.weeklyRate)
+        assertSameDistribution("adherence", expected.adherence, actual.adherence)
+        assertSameDistribution("distance to goal", expected.distanceToGoal, actual.distanceToGoal)
+    }
+
+    private fun assertSameDistribution(
+        message: String,
+        expected: CohortAnalytics.Distribution,
+        actual: CohortAnalytics.Distribution
+    ) {
+        assertEquals(message, expected.count, actual.count)
+        // Sums are added in a different order
+        assertEquals(message, expected.mean, actual.mean, 1e-9)
+        assertEquals(message, expected.stdDev, actual.stdDev, 1e-9)
+        for (p in listOf(0.0, 0.1, 0.25, 0.5, 0.75, 0.9, 1.0)) {
+            assertEquals("$message: p$p", expected.percentile(p), actual.percentile(p), 0.0)
+        }
+    }
+
+    companion object {
+        private const val HOUR = 60 * 60_000L
+        private const val DAY = 24 * HOUR
+        private const val START = 1_700_000_000_000L
+        private const val LBS_TO_KG = 0.453592
+    }
+}
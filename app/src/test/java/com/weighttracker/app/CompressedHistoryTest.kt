@@ -0,0 +1,147 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.util.Date
+import java.util.Random
+
+/**
+ * Encode/decode round trips for [CompressedHistory] and [TimeSeriesBlock].
+ */
+class CompressedHistoryTest {
+
+    @get:Rule
+    val tmp = TemporaryFolder()
+
+    @Test
+    fun equalTimestampsReloadInStoreOrder() {
+        val time = 1_700_000_000_000L
+        val entries = listOf(
+            WeightEntry(5L, Date(time), 80.0, true),
+            WeightEntry(9L, Date(time), 81.0, true),
+            WeightEntry(7L, Date(time + DAY), 82.0, true),
+            WeightEntry(2L, Date(time), 83.0, true),
+            WeightEntry(8L, Date(time + DAY), 84.0, true)
+        )
+        val loaded = roundTrip(entries)
+        // Newest first, then highest ID first, as DataStore.comesBefore
+        assertEquals(listOf(8L, 7L, 9L, 5L, 2L), loaded.map { it.id })
+    }
+
+    @Test
+    fun mixedUnitsRoundTrip() {
+        val entries = List(CompressedHistory.BLOCK_SIZE + 10) { i ->
+            WeightEntry(i + 1L, Date(1_600_000_000_000L + i * DAY), 70.0 + i % 13, i % 3 != 0)
+        }
+        assertSameEntries(entries, roundTrip(entries))
+    }
+
+    @Test
+    fun largeIdGapsRoundTrip() {
+        val random = Random(7)
+        val ids = listOf(Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE) + List(200) { random.nextLong() }
+        val entries = ids.mapIndexed { i, id ->
+            WeightEntry(id, Date(1_600_000_000_000L + i * HOUR), 90.5, true)
+        }
+        assertSameEntries(entries, roundTrip(entries))
+    }
+
+    @Test
+    fun weightsAreKeptToHundredths() {
+        val weights = doubleArrayOf(0.0, 0.01, 81.23, 180.4, 999.99, 81.23456789, 81.235, 72.004)
+        val entries = weights.mapIndexed { i, w ->
+            WeightEntry(i + 1L, Date(1_600_000_000_000L + i * DAY), w, true)
+        }
+        val loaded = roundTrip(entries).reversed()
+        weights.forEachIndexed { i, w ->
+            val expected = Math.round(w * TimeSeriesBlock.WEIGHT_SCALE).toDouble() / TimeSeriesBlock.WEIGHT_SCALE
+            assertEquals(expected, loaded[i].weight, 0.0)
+        }
+    }
+
+    @Test
+    fun cursorSeeksAndScansStopAtRange() {
+        val entries = List(100) { i -> WeightEntry(i + 1L, Date(i * DAY), 80.0, true) }
+        val history = CompressedHistory.fromEntries(entries)
+        val cursor = history.blocks[0].cursor()
+        assertTrue(cursor.seek(10 * DAY + 1))
+        assertEquals(11 * DAY, cursor.time)
+        assertFalse(history.blocks[0].cursor().seek(100 * DAY))
+
+        val seen = mutableListOf<Long>()
+        history.scan(20 * DAY, 25 * DAY) { id, _, _, _ -> seen += id }
+        assertEquals((21L..26L).toList(), seen)
+    }
+
+    @Test
+    fun truncatedFileFailsWithIOException() {
+        val file = writeHistory(1000)
+        RandomAccessFile(file, "rw").use { it.setLength(it.length() / 2) }
+        assertThrows(IOException::class.java) { CompressedHistory.readFrom(file) }
+    }
+
+    @Test
+    fun oversizedLengthsFailBeforeAllocating() {
+        // Block count, first block's entry count and data length
+        for (offset in listOf(8L, 12L, 12L + 45)) {
+            val file = writeHistory(1000)
+            RandomAccessFile(file, "rw").use {
+                it.seek(offset)
+                it.writeInt(Int.MAX_VALUE)
+            }
+            assertThrows(IOException::class.java) { CompressedHistory.readFrom(file) }
+        }
+    }
+
+    @Test
+    fun corruptBitsFailWithIOException() {
+        val file = writeHistory(1000)
+        RandomAccessFile(file, "rw").use {
+            // Inside the first block's data: every bit set reads as 64-bit
+            // escapes, which run off the end of the block
+            it.seek(12L + TimeSeriesBlock.HEADER_BYTES)
+            it.write(ByteArray(64) { -1 })
+        }
+        assertThrows(IOException::class.java) { CompressedHistory.readFrom(file) }
+    }
+
+    private fun writeHistory(count: Int): File {
+        val entries = List(count) { i -> WeightEntry(i + 1L, Date(i * DAY), 80.0 + i % 7, true) }
+        val file = tmp.newFile()
+        CompressedHistory.fromEntries(entries).writeTo(file)
+        return file
+    }
+
+    /**
+     * Through a file and back, as DataStore saves and loads.
+     */
+    private fun roundTrip(entries: List<WeightEntry>): List<WeightEntry> {
+        val file = tmp.newFile()
+        CompressedHistory.fromEntries(entries).writeTo(file)
+        return CompressedHistory.readFrom(file).toEntries()
+    }
+
+    private fun assertSameEntries(expected: List<WeightEntry>, actual: List<WeightEntry>) {
+        val sorted = expected.sortedWith(compareByDescending<WeightEntry> { it.date.time }.thenByDescending { it.id })
+        assertEquals(sorted.size, actual.size)
+        sorted.zip(actual).forEach { (e, a) ->
+            assertEquals(e.id, a.id)
+            assertEquals(e.date, a.date)
+            assertEquals(e.weight, a.weight, 0.0)
+            assertEquals(e.isMetric, a.isMetric)
+        }
+    }
+
+    companion object {
+        private const val HOUR = 60 * 60_000L
+        private const val DAY = 24 * HOUR
+    }
+}
@@ -0,0 +1,284 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.util.Date
+import java.util.Random
+
+/**
+ * [DataStore]'s incremental upkeep against rebuilding from scratch:
+ * outlier flags after back-dated changes, the indexes, snapshot and
+ * derived data after bulk merges and removals, and the day index when a
+ * day has several entries.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class DataStoreTest {
+
+    // ─── Outlier flags ──────────────────────────────────────────────────
+
+    @Test
+    fun backDatedChangesReflagOnlyTheirNeighbours() {
+        val store = DataStore()
+        // Two spikes in a steady history: day 10 (ID 11) and day 45 (ID 46)
+        store.addEntries(List(60) { day ->
+            val weight = if (day == 10 || day == 45) 90.0 else 80.0 + day % 2 * 0.4
+            WeightEntry(day + 1L, Date(START + day * DAY), weight, true)
+        })
+        assertEquals(setOf(11L, 46L), flagged(store))
+
+        // Back-dated readings at the spike's level just before it make it
+        // a level shift, and the return to normal after it the odd one out
+        val inserted = List(8) { k -> WeightEntry(100L + k, Date(START + (37 + k) * DAY + 12 * HOUR), 90.0, true) }
+        inserted.forEach { store.addEntry(it) }
+        val flags = flagged(store)
+        assertFalse(46L in flags)
+        assertTrue(47L in flags)
+        assertTrue(11L in flags)
+        assertEquals(rebuiltFlags(store), flags)
+
+        inserted.forEach { store.removeEntryById(it.id) }
+        assertEquals(setOf(11L, 46L), flagged(store))
+    }
+
+    @Test
+    fun flagsAfterEachChangeMatchARebuild() {
+        val random = Random(3)
+        val store = DataStore()
+        store.addEntries(List(200) { day ->
+            WeightEntry(day + 1L, Date(START + day * DAY), reading(random), true)
+        })
+        var nextId = 1_000L
+        repeat(300) { op ->
+            val entries = store.weightEntries
+            val weight = reading(random)
+            when (random.nextInt(3)) {
+                0 -> store.addEntry(WeightEntry(nextId++, randomDate(random), weight, random.nextBoolean()))
+                1 -> store.removeEntryById(entries[random.nextInt(entries.size)].id)
+                else -> {
+                    val entry = entries[random.nextInt(entries.size)]
+                    val date = if (random.nextBoolean()) entry.date else randomDate(random)
+                    store.updateEntry(entry.id, date, weight, true)
+                }
+            }
+            assertEquals("op $op", rebuiltFlags(store), flagged(store))
+        }
+    }
+
+    // ─── Bulk changes ───────────────────────────────────────────────────
+
+    @Test
+    fun addEntriesMergesInterleavedDates() {
+        val store = DataStore()
+        val stored = List(20) { k -> WeightEntry(101L + k, Date(START + 2 * k * DAY), 80.0, true) }
+        store.addEntries(stored)
+        // Odd days in scrambled order, plus two at the same time as stored
+        // entries: one with a higher ID (newer) and one with a lower
+        val batch = List(20) { k ->
+            val day = (k * 7) % 20
+            WeightEntry(day + 1L, Date(START + (2 * day + 1) * DAY), 81.0, true)
+        } + WeightEntry(200L, Date(START + 10 * DAY), 82.0, true) + WeightEntry(50L, Date(START + 20 * DAY), 82.0, true)
+        store.addEntries(batch)
+
+        val expected = (stored + batch).sortedWith(NEWEST_FIRST).map { it.id }
+        assertEquals(expected, store.weightEntries.map { it.id })
+        assertEquals(listOf(200L, 106L), store.weightEntries.filter { it.date.time == START + 10 * DAY }.map { it.id })
+        assertEquals(listOf(111L, 50L), store.weightEntries.filter { it.date.time == START + 20 * DAY }.map { it.id })
+    }
+
+    @Test
+    fun addEntriesReplacesStoredIds() {
+        val store = DataStore()
+        store.addEntries(List(10) { k -> WeightEntry(k + 1L, Date(START + (k + 1) * DAY), 80.0, true) })
+        store.addEntries(listOf(
+            WeightEntry(3L, Date(START + 20 * DAY), 70.0, true),       // moves to the front
+            WeightEntry(8L, Date(START + 8 * DAY), 75.0, true),
+            WeightEntry(8L, Date(START + 8 * DAY + HOUR), 76.0, true), // the batch's last one wins
+            WeightEntry(11L, Date(START), 90.0, true)
+        ))
+
+        assertEquals(11, store.entryCount)
+        assertEquals(listOf(3L, 10L, 9L, 8L, 7L, 6L, 5L, 4L, 2L, 1L, 11L), store.weightEntries.map { it.id })
+        assertEquals(76.0, store.findEntryById(8L)!!.weight, 0.0)
+        assertEquals(3L, store.findEntryForDay(EpochDay.fromDate(Date(START + 20 * DAY)))!!.id)
+        assertNull(store.findEntryForDay(EpochDay.fromDate(Date(START + 3 * DAY))))
+        assertMatchesRebuild("replaced", store, store.weightEntries.toList())
+    }
+
+    @Test
+    fun bulkChangesMatchARebuild() {
+        val random = Random(5)
+        val store = DataStore()
+        val expected = LinkedHashMap<Long, WeightEntry>()
+        var nextId = 1L
+        repeat(200) { op ->
+            // Taken before each change, so the next ones start from them
+            store.snapshot
+            store.columns
+            store.getRollingWindow(WEEK)
+            when (random.nextInt(3)) {
+                0 -> {
+                    val batch = List(1 + random.nextInt(30)) {
+                        // Some replace a stored entry, at a new date
+                        val id = if (expected.isNotEmpty() && random.nextInt(4) == 0) anyId(random, expected) else nextId++
+                        WeightEntry(id, randomDate(random), reading(random), random.nextBoolean())
+                    }
+                    batch.forEach { expected.remove(it.id); expected[it.id] = it }
+                    store.addEntries(batch)
+                }
+                1 -> {
+                    // Some IDs are not stored at all
+                    val ids = List(random.nextInt(20)) { k ->
+                        if (expected.isNotEmpty() && random.nextBoolean()) anyId(random, expected) else nextId + 1_000 + k
+                    }
+                    val before = expected.size
+                    ids.forEach { expected.remove(it) }
+                    assertEquals("op $op: removed", before - expected.size, store.removeEntriesById(ids))
+                }
+                else -> {
+                    val from = randomDate(random).time
+                    val to = from + random.nextInt(20 * 24) * HOUR
+                    val before = expected.size
+                    expected.values.removeAll { it.date.time in from until to }
+                    assertEquals("op $op: removed", before - expected.size, store.removeEntriesBetween(from, to))
+                }
+            }
+            assertMatchesRebuild("op $op", store, expected.values.toList())
+        }
+    }
+
+    // ─── Day index ──────────────────────────────────────────────────────
+
+    @Test
+    fun nextEntryOfTheDayTakesOverFromTheNewest() {
+        val store = DataStore()
+        val day = EpochDay.fromMillis(START)
+        fun at(id: Long, days: Int, hours: Int) =
+            WeightEntry(id, Date(EpochDay.toMillis(day + days) + hours * HOUR), 80.0, true)
+        store.addEntries(listOf(
+            at(1L, -1, 23), at(2L, 0, 8), at(3L, 0, 12),
+            at(4L, 0, 12), // same time as 3, and the higher ID, so newer
+            at(5L, 0, 20), at(6L, 1, 0)
+        ))
+        assertEquals(5L, store.findEntryForDay(day)!!.id)
+        store.addEntry(at(7L, 0, 6))
+        assertEquals(5L, store.findEntryForDay(day)!!.id)
+
+        store.removeEntryById(5L)
+        assertEquals(4L, store.findEntryForDay(day)!!.id)
+        store.removeEntryById(2L)
+        assertEquals(4L, store.findEntryForDay(day)!!.id)
+        store.removeEntriesById(listOf(4L, 1L))
+        assertEquals(3L, store.findEntryForDay(day)!!.id)
+        assertNull(store.findEntryForDay(day - 1))
+
+        // Moved to the next day, and newer than what is there
+        store.updateEntry(3L, Date(EpochDay.toMillis(day + 1) + HOUR), 80.0, true)
+        assertEquals(7L, store.findEntryForDay(day)!!.id)
+        assertEquals(3L, store.findEntryForDay(day + 1)!!.id)
+        store.removeEntriesBetween(EpochDay.toMillis(day), EpochDay.toMillis(day + 1) + HOUR)
+        assertNull(store.findEntryForDay(day))
+        assertEquals(3L, store.findEntryForDay(day + 1)!!.id)
+        assertEquals(listOf(3L), store.weightEntries.map { it.id })
+    }
+
+    @Test
+    fun entryDatesCannotBeChangedFromOutside() {
+        val store = DataStore()
+        val date = Date(START)
+        store.addEntry(WeightEntry(1L, date, 80.0, true))
+        date.time = 0
+        store.weightEntries[0].date.time = 0
+        assertEquals(START, store.weightEntries[0].time)
+        assertEquals(1L, store.findEntryForDay(EpochDay.fromMillis(START))!!.id)
+    }
+
+    private fun anyId(random: Random, entries: Map<Long, WeightEntry>) =
+        entries.keys.elementAt(random.nextInt(entries.size))
+
+    /**
+     * The store holds exactly [entries], and everything it keeps alongside
+     * them matches a store built from scratch.
+     */
+    private fun assertMatchesRebuild(message: String, store: DataStore, entries: List<WeightEntry>) {
+        val sorted = entries.sortedWith(NEWEST_FIRST)
+        assertEquals("$message: order", sorted.map { it.id }, store.weightEntries.map { it.id })
+
+        val months = MonthIndex.build(sorted)
+        assertSameMonths("$message: month index", months, store.monthIndex)
+        val snapshot = store.snapshot
+        assertEquals("$message: snapshot", sorted.map { it.id }, snapshot.map { it.id })
+        assertSameMonths("$message: snapshot months", months, snapshot.monthIndex)
+
+        val fresh = rebuilt(sorted)
+        val columns = store.columns
+        val rebuiltColumns = fresh.columns
+        assertEquals("$message: columns", rebuiltColumns.size(), columns.size())
+        for (i in 0 until columns.size()) {
+            assertEquals("$message: time $i", rebuiltColumns.getTime(i), columns.getTime(i))
+            assertEquals("$message: weight $i", rebuiltColumns.getWeightKg(i), columns.getWeightKg(i), 0.0)
+            assertEquals("$message: outlier $i", rebuiltColumns.isOutlier(i), columns.isOutlier(i))
+        }
+        assertEquals("$message: flags", flagged(fresh), flagged(store))
+
+        val window = store.getRollingWindow(WEEK)
+        val rebuiltWindow = fresh.getRollingWindow(WEEK)
+        assertEquals("$message: window count", rebuiltWindow.count, window.count)
+        if (window.count > 0) assertEquals("$message: window mean", rebuiltWindow.mean, window.mean, 1e-9)
+
+        // The newest entry of each day
+        sorted.distinctBy { EpochDay.fromDate(it.date) }.forEach {
+            assertSame("$message: day of ${it.id}", it, store.findEntryForDay(EpochDay.fromDate(it.date)))
+        }
+    }
+
+    private fun assertSameMonths(message: String, expected: MonthIndex, actual: MonthIndex) {
+        assertEquals("$message: entries", expected.entryCount, actual.entryCount)
+        assertEquals("$message: sections", expected.sectionCount, actual.sectionCount)
+        for (s in 0 until expected.sectionCount) {
+            assertEquals("$message: key $s", expected.getMonthKey(s), actual.getMonthKey(s))
+            assertEquals("$message: start $s", expected.getStart(s), actual.getStart(s))
+        }
+    }
+
+    private fun reading(random: Random) = if (random.nextInt(8) == 0) 95.0 else 80 + random.nextInt(8) * 0.2
+
+    private fun randomDate(random: Random) = Date(START + random.nextInt(200 * 24) * HOUR)
+
+    private fun flagged(store: DataStore) = store.weightEntries.filter { store.isOutlier(it) }.map { it.id }.toSet()
+
+    /**
+     * Flags from a fresh store whose detector ran over the whole history.
+     */
+    private fun rebuiltFlags(store: DataStore) = flagged(rebuilt(store.weightEntries))
+
+    /**
+     * A fresh store holding [entries], its detector run over the whole
+     * history.
+     */
+    private fun rebuilt(entries: List<WeightEntry>): DataStore {
+        val fresh = DataStore()
+        fresh.addEntries(entries)
+        val threshold = fresh.outlierThreshold
+        fresh.setOutlierThreshold(threshold + 1)
+        fresh.setOutlierThreshold(threshold)
+        return fresh
+    }
+
+    companion object {
+        private const val HOUR = 60 * 60_000L
+        private const val DAY = 24 * HOUR
+        private const val WEEK = 7 * DAY
+        private const val START = 1_700_000_000_000L
+
+        // As DataStore sorts: newer first, then the higher ID on a tie
+        private val NEWEST_FIRST = compareByDescending<WeightEntry> { it.date.time }.thenByDescending { it.id }
+    }
+}
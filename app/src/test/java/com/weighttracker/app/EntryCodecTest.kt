@@ -0,0 +1,162 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.IOException
+import java.io.ObjectInputStream
+import java.io.ObjectOutputStream
+import java.nio.ByteBuffer
+import java.util.Date
+import java.util.Random
+
+/**
+ * Round trips for [EntryCodec], and a size and throughput comparison with
+ * Java serialization written to build/reports/loadtest/codec.txt.
+ */
+class EntryCodecTest {
+
+    @Test
+    fun singleEntriesRoundTripExactly() {
+        for (entry in edgeCases() + generateHistory(1_000)) {
+            assertSame(entry, EntryCodec.decode(EntryCodec.encode(entry)))
+        }
+    }
+
+    @Test
+    fun batchesRoundTripExactly() {
+        val entries = edgeCases() + generateHistory(10_000)
+        val decoded = EntryCodec.decodeBatch(EntryCodec.encodeBatch(entries))
+        assertEquals(entries.size, decoded.size)
+        entries.zip(decoded).forEach { (expected, actual) -> assertSame(expected, actual) }
+    }
+
+    @Test
+    fun byteBufferBatchesFollowEachOther() {
+        val first = generateHistory(100)
+        val second = edgeCases()
+        val buffer = ByteBuffer.allocate(EntryCodec.maxBatchBytes(first.size + second.size) + 5)
+        EntryCodec.writeBatch(buffer, first)
+        EntryCodec.writeBatch(buffer, second)
+        buffer.flip()
+        assertEquals(first.size, EntryCodec.readBatch(buffer).size)
+        assertEquals(second.size, EntryCodec.readBatch(buffer).size)
+        assertEquals(0, buffer.remaining())
+    }
+
+    @Test
+    fun truncatedBatchIsRejected() {
+        val bytes = EntryCodec.encodeBatch(generateHistory(100))
+        try {
+            EntryCodec.decodeBatch(bytes.copyOf(bytes.size / 2))
+            fail("expected IOException")
+        } catch (expected: IOException) {
+        }
+    }
+
+    @Test
+    fun smallerAndFasterThanJavaSerialization() {
+        val entries = generateHistory(100_000)
+        val codecBytes = EntryCodec.encodeBatch(entries)
+        val javaBytes = javaSerialize(entries)
+
+        val reps = 10
+        val codecEncode = timeMs(reps) { EntryCodec.encodeBatch(entries) }
+        val codecDecode = timeMs(reps) { EntryCodec.decodeBatch(codecBytes) }
+        val javaEncode = timeMs(reps) { javaSerialize(entries) }
+        val javaDecode = timeMs(reps) { javaDeserialize(javaBytes) }
+
+        val report = StringBuilder()
+        report.append("── ${entries.size} entries ──\n")
+        report.append(row("EntryCodec", codecBytes.size, entries.size, codecEncode, codecDecode))
+        report.append(row("Serializable", javaBytes.size, entries.size, javaEncode, javaDecode))
+        val out = File("build/reports/loadtest")
+        out.mkdirs()
+        File(out, "codec.txt").writeText(report.toString())
+        println(report)
+
+        assertTrue("codec ${codecBytes.size} B vs ${javaBytes.size} B",
+            codecBytes.size * 3 < javaBytes.size)
+        assertTrue("codec %.1f ms vs %.1f ms".format(codecEncode + codecDecode, javaEncode + javaDecode),
+            codecEncode + codecDecode < javaEncode + javaDecode)
+    }
+
+    private fun row(name: String, bytes: Int, entries: Int, encodeMs: Double, decodeMs: Double) =
+        "%-14s size=%9dB (%5.1fB/entry) encode=%8.2fms (%6.1f MB/s) decode=%8.2fms (%6.1f MB/s)\n".format(
+            name, bytes, bytes.toDouble() / entries, encodeMs, mbPerSecond(bytes, encodeMs),
+            decodeMs, mbPerSecond(bytes, decodeMs)
+        )
+
+    private fun mbPerSecond(bytes: Int, ms: Double) = bytes / 1e6 / (ms / 1000.0)
+
+    /**
+     * Median of [reps] timed runs after one warm-up run, in ms.
+     */
+    private inline fun timeMs(reps: Int, block: () -> Unit): Double {
+        block()
+        val nanos = LongArray(reps)
+        for (i in 0 until reps) {
+            val t0 = System.nanoTime()
+            block()
+            nanos[i] = System.nanoTime() - t0
+        }
+        nanos.sort()
+        return nanos[reps / 2] / 1_000_000.0
+    }
+
+    private fun javaSerialize(entries: List<WeightEntry>): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        ObjectOutputStream(bytes).use { it.writeObject(ArrayList(entries)) }
+        return bytes.toByteArray()
+    }
+
+    private fun javaDeserialize(bytes: ByteArray): Any =
+        ObjectInputStream(ByteArrayInputStream(bytes)).use { it.readObject() }
+
+    private fun assertSame(expected: WeightEntry, actual: WeightEntry) {
+        assertEquals(expected.id, actual.id)
+        assertEquals(expected.date, actual.date)
+        assertEquals(
+            java.lang.Double.doubleToRawLongBits(expected.weight),
+            java.lang.Double.doubleToRawLongBits(actual.weight)
+        )
+        assertEquals(expected.isMetric, actual.isMetric)
+    }
+
+    /**
+     * Values that must fall back to raw doubles or stress the varints.
+     */
+    private fun edgeCases() = listOf(
+        WeightEntry(0L, Date(0), 0.0, true),
+        WeightEntry(Long.MIN_VALUE, Date(Long.MAX_VALUE), -0.0, false),
+        WeightEntry(Long.MAX_VALUE, Date(Long.MIN_VALUE), Double.NaN, true),
+        WeightEntry(-1L, Date(-1), 1e300, false),
+        WeightEntry(42L, Date(1_700_000_000_000L), 81.23456789, true),
+        WeightEntry(43L, Date(1_700_000_000_001L), 180.4, false)
+    )
+
+    /**
+     * About one entry a day with weights typed to one decimal, oldest
+     * first, IDs from one device.
+     */
+    private fun generateHistory(n: Int): List<WeightEntry> {
+        val random = Random(n.toLong())
+        val deviceTag = 0x1234L shl 40
+        var time = 1_600_000_000_000L
+        var weight = 95.0
+        return List(n) { i ->
+            time += DAY + random.nextInt(HOUR.toInt()) - HOUR / 2
+            weight += -0.01 + random.nextGaussian() * 0.3
+            WeightEntry(deviceTag or (i + 1L), Date(time), Math.round(weight * 10) / 10.0, true)
+        }
+    }
+
+    companion object {
+        private const val HOUR = 60 * 60_000L
+        private const val DAY = 24 * HOUR
+    }
+}
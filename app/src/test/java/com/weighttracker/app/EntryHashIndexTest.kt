@@ -0,0 +1,69 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+import java.util.Date
+import java.util.Random
+
+/**
+ * [EntryHashIndex] removal: probe runs that wrap past the end of the table
+ * stay reachable, and random puts and removes agree with a HashMap.
+ */
+class EntryHashIndexTest {
+
+    @Test
+    fun removeShiftsRunsThatWrapAroundTheTableEnd() {
+        val index = EntryHashIndex()
+        val last = CAPACITY - 1
+        // One key homed on the second-to-last slot, three on the last and
+        // two on the first: the run fills slots 14, 15, 0, 1, 2 and 3
+        val keys = keysHomedAt(index, last - 1, 1) + keysHomedAt(index, last, 3) + keysHomedAt(index, 0, 2)
+        val entries = keys.associateWith { entry(it) }
+        keys.forEach { index.put(it, entries.getValue(it)) }
+
+        // Each removal leaves a gap that later members have to move into,
+        // across the end of the table
+        val remaining = keys.toMutableList()
+        for (key in listOf(keys[1], keys[0], keys[4], keys[2], keys[5], keys[3])) {
+            assertSame(entries[key], index.remove(key))
+            remaining.remove(key)
+            assertNull(index.get(key))
+            assertNull(index.remove(key))
+            assertEquals(remaining.size, index.size())
+            remaining.forEach { assertSame("key $it", entries[it], index.get(it)) }
+        }
+    }
+
+    @Test
+    fun randomChangesMatchAHashMap() {
+        val random = Random(11)
+        val index = EntryHashIndex()
+        val expected = HashMap<Long, WeightEntry>()
+        repeat(20_000) { op ->
+            // Few enough keys that the table grows, then fills and drains
+            val key = random.nextInt(if (op < 10_000) 200 else 2_000).toLong()
+            if (random.nextInt(5) < 2) {
+                assertSame("op $op", expected.remove(key), index.remove(key))
+            } else {
+                val entry = entry(key)
+                assertSame("op $op", expected.put(key, entry), index.put(key, entry))
+            }
+            assertEquals("op $op", expected.size, index.size())
+        }
+        for (key in 0L until 2_000L) {
+            assertSame("key $key", expected[key], index.get(key))
+        }
+    }
+
+    private fun keysHomedAt(index: EntryHashIndex, slot: Int, count: Int) =
+        generateSequence(1L) { it + 1 }.filter { index.slotOf(it) == slot }.take(count).toList()
+
+    private fun entry(key: Long) = WeightEntry(key, Date(key), 80.0, true)
+
+    companion object {
+        // A new index's table, until it is two-thirds full
+        private const val CAPACITY = 16
+    }
+}
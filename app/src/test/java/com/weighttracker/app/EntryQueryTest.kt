@@ -0,0 +1,153 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.util.Calendar
+import java.util.Date
+import java.util.Random
+
+/**
+ * Compiled [EntryQuery] filters against a plain filter over the entry
+ * list, and [EntryColumns] patched after single inserts and removes
+ * against a build from scratch.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class EntryQueryTest {
+
+    // ─── Queries ────────────────────────────────────────────────────────
+
+    @Test
+    fun compiledQueriesMatchANaiveFilter() {
+        val random = Random(21)
+        val entries = List(300) { WeightEntry(it + 1L, randomDate(random), 60 + random.nextInt(400) / 10.0, random.nextBoolean()) }
+            .sortedByDescending { it.date.time }
+        val outlierIds = entries.filter { random.nextInt(6) == 0 }.map { it.id }.toSet()
+        val columns = EntryColumns.build(entries, outlierIds, 1)
+
+        repeat(500) { n ->
+            val query = EntryQuery()
+            val conditions = mutableListOf<(WeightEntry) -> Boolean>()
+            if (random.nextBoolean()) {
+                // Open-ended on either side now and then
+                val from = if (random.nextInt(4) == 0) Long.MIN_VALUE else randomDate(random).time
+                val to = if (random.nextInt(4) == 0) Long.MAX_VALUE else randomDate(random).time
+                query.between(from, to)
+                conditions.add { it.date.time >= from && it.date.time < to }
+            }
+            if (random.nextInt(3) == 0) {
+                val min = 50 + random.nextInt(40).toDouble()
+                val max = min + random.nextInt(20)
+                query.weightBetweenKg(min, max)
+                conditions.add { kg(it) in min..max }
+            }
+            if (random.nextInt(3) == 0) {
+                val days = (Calendar.SUNDAY..Calendar.SATURDAY).filter { random.nextBoolean() }
+                query.onDays(*days.toIntArray())
+                conditions.add { dayOfWeek(it) in days }
+            }
+            when (random.nextInt(3)) {
+                0 -> {
+                    query.excludeOutliers()
+                    conditions.add { it.id !in outlierIds }
+                }
+                1 -> {
+                    query.onlyOutliers()
+                    conditions.add { it.id in outlierIds }
+                }
+            }
+            if (random.nextInt(3) == 0) {
+                val metric = random.nextBoolean()
+                query.recordedMetric(metric)
+                conditions.add { it.isMetric == metric }
+            }
+
+            val result = query.compile().run(columns)
+            val expected = entries.filter { entry -> conditions.all { it(entry) } }
+            assertEquals("query $n", expected.map { it.id }, result.entries.map { it.id })
+            for (i in 0 until result.size()) {
+                assertSame("query $n", result.entries[i], entries[result.getIndex(i)])
+            }
+        }
+    }
+
+    @Test
+    fun resultIsReusedUntilTheVersionChanges() {
+        val entries = List(10) { WeightEntry(it + 1L, Date(START - it * DAY), 80.0, true) }
+        val query = EntryQuery().excludeOutliers().compile()
+        val first = query.run(EntryColumns.build(entries, setOf(3L), 1))
+        assertSame(first, query.run(EntryColumns.build(entries, setOf(3L), 1)))
+        val second = query.run(EntryColumns.build(entries, setOf(4L), 2))
+        assertEquals(entries.filter { it.id != 4L }, second.entries)
+    }
+
+    // ─── Column patches ─────────────────────────────────────────────────
+
+    @Test
+    fun patchedColumnsMatchABuild() {
+        val random = Random(22)
+        val entries = mutableListOf<WeightEntry>() // newest first
+        val outlierIds = HashSet<Long>()
+        val bmi = DerivedMetric.bmi(175.0, true)
+        val goal = DerivedMetric.distanceToGoal(70.0, true)
+        var columns = EntryColumns.build(entries, outlierIds, 0)
+        var nextId = 1L
+        for (version in 1L..1_000L) {
+            // Derived columns cached before the change are carried over
+            columns.getDerived(bmi)
+            if (random.nextBoolean()) columns.getDerived(goal)
+            // The detector sometimes re-flags other rows along the way
+            val outliersChanged = entries.isNotEmpty() && random.nextInt(4) == 0
+            if (outliersChanged) {
+                val other = entries[random.nextInt(entries.size)].id
+                if (!outlierIds.remove(other)) outlierIds.add(other)
+            }
+            columns = if (entries.isEmpty() || random.nextInt(5) < 3) {
+                val entry = WeightEntry(nextId++, randomDate(random), 60 + random.nextInt(400) / 10.0, random.nextBoolean())
+                if (random.nextInt(6) == 0) outlierIds.add(entry.id)
+                var index = entries.indexOfFirst { it.date.time < entry.date.time }
+                if (index < 0) index = entries.size
+                entries.add(index, entry)
+                columns.withInserted(index, entry, outlierIds, outliersChanged, version)
+            } else {
+                val index = random.nextInt(entries.size)
+                outlierIds.remove(entries.removeAt(index).id)
+                columns.withRemoved(index, outlierIds, outliersChanged, version)
+            }
+
+            val rebuilt = EntryColumns.build(entries, outlierIds, version)
+            val message = "version $version"
+            assertEquals(message, version, columns.version)
+            assertEquals(message, rebuilt.size(), columns.size())
+            for (i in 0 until rebuilt.size()) {
+                assertSame("$message: entry $i", rebuilt.getEntry(i), columns.getEntry(i))
+                assertEquals("$message: time $i", rebuilt.getTime(i), columns.getTime(i))
+                assertEquals("$message: weight $i", rebuilt.getWeightKg(i), columns.getWeightKg(i), 0.0)
+                assertEquals("$message: flags $i", rebuilt.flags()[i], columns.flags()[i])
+            }
+            assertEquals(message, rebuilt.getDerived(bmi).toList(), columns.getDerived(bmi).toList())
+            assertEquals(message, rebuilt.getDerived(goal).toList(), columns.getDerived(goal).toList())
+        }
+    }
+
+    private fun randomDate(random: Random) = Date(START - random.nextInt(60 * 24) * HOUR)
+
+    private fun kg(entry: WeightEntry) = if (entry.isMetric) entry.weight else entry.weight * LBS_TO_KG
+
+    private fun dayOfWeek(entry: WeightEntry): Int {
+        val calendar = Calendar.getInstance()
+        calendar.time = entry.date
+        return calendar.get(Calendar.DAY_OF_WEEK)
+    }
+
+    companion object {
+        private const val HOUR = 60 * 60_000L
+        private const val DAY = 24 * HOUR
+        private const val START = 1_700_000_000_000L
+        private const val LBS_TO_KG = 0.453592
+    }
+}
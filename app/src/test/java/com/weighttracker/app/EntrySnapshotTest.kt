@@ -0,0 +1,70 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.Date
+import java.util.Random
+
+/**
+ * [EntrySnapshot] versions after random inserts and removes against a
+ * plain list, and every older version left as it was.
+ */
+class EntrySnapshotTest {
+
+    @Test
+    fun changesMatchAListAndLeaveOlderSnapshotsAlone() {
+        val random = Random(7)
+        val expected = ArrayList<WeightEntry>()
+        var snapshot = EntrySnapshot.build(expected, MonthIndex(), 0)
+        val history = mutableListOf(snapshot to expected.toList())
+        var nextId = 1L
+        // Grow past several chunk splits, shrink to nothing, and again
+        for (target in listOf(600, 0, 300, 0)) {
+            while (expected.size != target) {
+                val op = history.size
+                val grow = if (expected.size < target) random.nextInt(4) != 0 else random.nextInt(4) == 0
+                if (grow) {
+                    val index = pickIndex(random, expected.size + 1)
+                    val id = nextId++
+                    val entry = WeightEntry(id, Date(id), 80.0, true)
+                    expected.add(index, entry)
+                    snapshot = snapshot.withInserted(index, entry, MonthIndex(), op.toLong())
+                } else if (expected.isNotEmpty()) {
+                    val index = pickIndex(random, expected.size)
+                    expected.removeAt(index)
+                    snapshot = snapshot.withRemoved(index, MonthIndex(), op.toLong())
+                }
+                assertEquals("op $op", expected, snapshot)
+                assertEquals(op.toLong(), snapshot.version)
+                history.add(snapshot to expected.toList())
+            }
+        }
+        history.forEachIndexed { op, (old, entries) -> assertEquals("version $op", entries, old) }
+    }
+
+    @Test
+    fun appendingToAFullChunkSplitsIt() {
+        val entries = List(EntrySnapshot.MAX_CHUNK) { WeightEntry(it + 1L, Date(it.toLong()), 80.0, true) }
+        val full = EntrySnapshot.build(entries, MonthIndex(), 0)
+        val extra = WeightEntry(0L, Date(-1L), 80.0, true)
+        val split = full.withInserted(full.size, extra, MonthIndex(), 1)
+        assertEquals(entries + extra, split)
+        assertEquals(entries, full)
+
+        // Removed down to nothing, dropping each chunk as it empties
+        var shrunk = split
+        repeat(split.size) { shrunk = shrunk.withRemoved(0, MonthIndex(), 2) }
+        assertEquals(emptyList<WeightEntry>(), shrunk)
+        assertEquals(listOf(extra), shrunk.withInserted(0, extra, MonthIndex(), 3))
+    }
+
+    /**
+     * Often an end or a chunk edge, where the bookkeeping differs.
+     */
+    private fun pickIndex(random: Random, bound: Int) = when (random.nextInt(4)) {
+        0 -> 0
+        1 -> bound - 1
+        2 -> minOf(bound - 1, random.nextInt(bound / EntrySnapshot.MAX_CHUNK + 1) * EntrySnapshot.MAX_CHUNK)
+        else -> random.nextInt(bound)
+    }
+}
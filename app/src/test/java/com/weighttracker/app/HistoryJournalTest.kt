@@ -0,0 +1,68 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.util.Date
+
+/**
+ * Replaying [HistoryJournal] records: in order, idempotently, and
+ * stopping cleanly at a torn or corrupt record.
+ */
+class HistoryJournalTest {
+
+    @get:Rule
+    val tmp = TemporaryFolder()
+
+    @Test
+    fun putsReplaceAndDeletesRemoveById() {
+        val journal = tmp.newFile()
+        val first = WeightEntry(1L, Date(DAY), 80.0, true)
+        val second = WeightEntry(2L, Date(2 * DAY), 81.0, true)
+        HistoryJournal.append(journal, HistoryJournal.puts(listOf(first, second)))
+        HistoryJournal.append(journal, HistoryJournal.puts(listOf(WeightEntry(1L, Date(DAY), 79.5, false))))
+        HistoryJournal.append(journal, HistoryJournal.deletes(listOf(second)))
+
+        val entries = mutableMapOf(3L to WeightEntry(3L, Date(0), 82.0, true))
+        assertTrue(HistoryJournal.replay(journal, entries))
+        assertEquals(setOf(1L, 3L), entries.keys)
+        assertEquals(79.5, entries[1L]!!.weight, 0.0)
+        assertFalse(entries[1L]!!.isMetric)
+
+        // Replaying over its own result changes nothing
+        val again = HashMap(entries)
+        assertTrue(HistoryJournal.replay(journal, again))
+        assertEquals(entries.mapValues { it.value.weight }, again.mapValues { it.value.weight })
+    }
+
+    @Test
+    fun recordCutShortIsIgnored() {
+        val journal = tmp.newFile()
+        val record = HistoryJournal.puts(listOf(WeightEntry(1L, Date(DAY), 80.0, true)))
+        HistoryJournal.append(journal, record)
+        HistoryJournal.append(journal, record.copyOf(record.size - 1))
+
+        val entries = mutableMapOf<Long, WeightEntry>()
+        assertTrue(HistoryJournal.replay(journal, entries))
+        assertEquals(setOf(1L), entries.keys)
+    }
+
+    @Test
+    fun corruptRecordStopsReplay() {
+        val journal = tmp.newFile()
+        HistoryJournal.append(journal, HistoryJournal.puts(listOf(WeightEntry(1L, Date(DAY), 80.0, true))))
+        HistoryJournal.append(journal, byteArrayOf(9, 1, 0))
+        HistoryJournal.append(journal, HistoryJournal.puts(listOf(WeightEntry(2L, Date(DAY), 80.0, true))))
+
+        val entries = mutableMapOf<Long, WeightEntry>()
+        assertFalse(HistoryJournal.replay(journal, entries))
+        assertEquals(setOf(1L), entries.keys)
+    }
+
+    companion object {
+        private const val DAY = 24 * 60 * 60_000L
+    }
+}
@@ -0,0 +1,77 @@
+package com.weighttracker.app
+
+import android.content.res.Configuration
+import android.os.Looper
+import androidx.recyclerview.widget.RecyclerView
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import java.util.Date
+
+/**
+ * History takes the rows [HistoryPrewarmer] made while the dashboard was
+ * idle, and drops them when it opens in another configuration.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class HistoryPrewarmerTest {
+
+    private val prewarmer = HistoryPrewarmer.getInstance()
+
+    @Before
+    fun fillHistory() {
+        // Fixed IDs: a second run replaces rather than duplicates
+        DataStore.getInstance().addEntries(List(100) { i ->
+            WeightEntry(i + 1L, Date(START + i * DAY), 80.0 + i % 7, true)
+        })
+    }
+
+    @Test
+    fun historyTakesThePrewarmedRows() {
+        warmFromDashboard()
+        assertTrue(prewarmer.cachedViewCount > 0)
+
+        val history = Robolectric.buildActivity(HistoryActivity::class.java).setup().get()
+        assertEquals(0, prewarmer.cachedViewCount)
+        assertTrue(history.findViewById<RecyclerView>(R.id.recyclerview_history).childCount > 0)
+    }
+
+    @Test
+    fun configurationChangeDropsThePrewarmedRows() {
+        val main = warmFromDashboard()
+        assertNotNull(prewarmer.getFirstPage(main))
+        assertTrue(prewarmer.cachedViewCount > 0)
+
+        // History opening after a rotation
+        val rotated = Configuration(main.resources.configuration).apply {
+            orientation = if (orientation == Configuration.ORIENTATION_LANDSCAPE) {
+                Configuration.ORIENTATION_PORTRAIT
+            } else {
+                Configuration.ORIENTATION_LANDSCAPE
+            }
+        }
+        assertNull(prewarmer.getFirstPage(main.createConfigurationContext(rotated)))
+        assertEquals(0, prewarmer.cachedViewCount)
+    }
+
+    private fun warmFromDashboard(): MainActivity {
+        val main = Robolectric.buildActivity(MainActivity::class.java).setup().get()
+        prewarmer.scheduleWhenIdle(main)
+        shadowOf(Looper.getMainLooper()).idle()
+        assertTrue(prewarmer.awaitIdle(10_000))
+        return main
+    }
+
+    companion object {
+        private const val DAY = 24 * 60 * 60_000L
+        private const val START = 1_700_000_000_000L
+    }
+}
@@ -0,0 +1,113 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Calendar
+import java.util.Date
+import java.util.Random
+
+/**
+ * [MonthIndex] kept up by single inserts and removes against
+ * [MonthIndex.build] on the resulting list, and its mapping to rows with a
+ * header above each month.
+ */
+class MonthIndexTest {
+
+    @Test
+    fun newMonthInTheMiddleAndEmptiedMonth() {
+        // Newest first: two in March, one in January
+        val entries = mutableListOf(on(2024, Calendar.MARCH, 20), on(2024, Calendar.MARCH, 2), on(2024, Calendar.JANUARY, 15))
+        val index = MonthIndex.build(entries)
+        assertEquals(2, index.sectionCount)
+
+        val february = on(2024, Calendar.FEBRUARY, 10)
+        entries.add(2, february)
+        index.onInserted(2, MonthIndex.monthKeyOf(february))
+        assertSameIndex("inserted", MonthIndex.build(entries), index)
+        assertEquals(3, index.sectionCount)
+        assertEquals(2, index.getStart(1))
+        assertEquals(3, index.getStart(2))
+
+        entries.removeAt(2)
+        index.onRemoved(2, MonthIndex.monthKeyOf(february))
+        assertSameIndex("removed", MonthIndex.build(entries), index)
+        assertEquals(-2, index.findSection(MonthIndex.monthKeyOf(february)))
+    }
+
+    @Test
+    fun rowsOfTheFirstAndLastSections() {
+        val entries = listOf(on(2024, Calendar.MAY, 3), on(2024, Calendar.APRIL, 9), on(2024, Calendar.APRIL, 1))
+        val index = MonthIndex.build(entries)
+        // Header, May 3, header, April 9, April 1
+        assertEquals(5, index.rowCount)
+        assertTrue(index.isHeaderRow(0))
+        assertEquals(0, index.entryForRow(1))
+        assertEquals(1, index.rowForEntry(0))
+        assertTrue(index.isHeaderRow(2))
+        assertEquals(1, index.sectionForRow(2))
+        assertFalse(index.isHeaderRow(4))
+        assertEquals(2, index.entryForRow(4))
+        assertEquals(4, index.rowForEntry(2))
+        assertEquals(1, index.sectionForRow(4))
+    }
+
+    @Test
+    fun incrementalUpdatesMatchABuild() {
+        val random = Random(9)
+        val entries = mutableListOf<WeightEntry>() // newest first
+        val index = MonthIndex()
+        repeat(2_000) { op ->
+            if (entries.isNotEmpty() && random.nextInt(5) < 2) {
+                // Often an end, so the first and last months come and go
+                val at = when (random.nextInt(3)) {
+                    0 -> 0
+                    1 -> entries.size - 1
+                    else -> random.nextInt(entries.size)
+                }
+                val removed = entries.removeAt(at)
+                index.onRemoved(at, MonthIndex.monthKeyOf(removed))
+            } else {
+                // Three years, so months are often empty or new
+                val entry = WeightEntry(op + 1L, Date(EpochDay.toMillis(START_DAY + random.nextInt(3 * 365)) + HOUR), 80.0, true)
+                var at = entries.indexOfFirst { it.date.time < entry.date.time }
+                if (at < 0) at = entries.size
+                entries.add(at, entry)
+                index.onInserted(at, MonthIndex.monthKeyOf(entry))
+            }
+            assertSameIndex("op $op", MonthIndex.build(entries), index)
+        }
+    }
+
+    private fun assertSameIndex(message: String, expected: MonthIndex, actual: MonthIndex) {
+        assertEquals("$message: entries", expected.entryCount, actual.entryCount)
+        assertEquals("$message: sections", expected.sectionCount, actual.sectionCount)
+        for (s in 0 until expected.sectionCount) {
+            assertEquals("$message: key $s", expected.getMonthKey(s), actual.getMonthKey(s))
+            assertEquals("$message: start $s", expected.getStart(s), actual.getStart(s))
+            assertEquals("$message: end $s", expected.getEnd(s), actual.getEnd(s))
+        }
+        assertEquals("$message: rows", expected.rowCount, actual.rowCount)
+        for (row in 0 until expected.rowCount) {
+            val section = expected.sectionForRow(row)
+            assertEquals("$message: section of row $row", section, actual.sectionForRow(row))
+            val header = expected.getHeaderRow(section) == row
+            assertEquals("$message: header row $row", header, actual.isHeaderRow(row))
+            if (!header) {
+                val entry = actual.entryForRow(row)
+                assertEquals("$message: entry of row $row", row - section - 1, entry)
+                assertEquals("$message: row of entry $entry", row, actual.rowForEntry(entry))
+                assertEquals("$message: section of entry $entry", section, actual.sectionForEntry(entry))
+            }
+        }
+    }
+
+    private fun on(year: Int, month: Int, day: Int) =
+        WeightEntry(Date(EpochDay.toMillis(EpochDay.of(year, month, day)) + HOUR), 80.0, true)
+
+    companion object {
+        private const val HOUR = 60 * 60_000L
+        private const val START_DAY = 19_000
+    }
+}
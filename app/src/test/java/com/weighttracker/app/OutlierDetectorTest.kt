@@ -0,0 +1,71 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.Random
+
+/**
+ * [OutlierDetector]'s two-heap medians against sorting the window, with
+ * many repeated values leaving the window and spikes pushing stale values
+ * to the heap tops.
+ */
+class OutlierDetectorTest {
+
+    @Test
+    fun matchesBruteForceWindow() {
+        for (window in listOf(1, 2, 3, 4, 15)) {
+            for (seed in 0 until 20) {
+                checkAgainstBruteForce(window, Random(seed.toLong()))
+            }
+        }
+    }
+
+    private fun checkAgainstBruteForce(window: Int, random: Random) {
+        val detector = OutlierDetector(window, THRESHOLD, MIN_DEVIATION)
+        val values = ArrayDeque<Double>()
+        val residuals = ArrayDeque<Double>()
+        repeat(2_000) { i ->
+            // Few distinct values, so duplicates leave the window together
+            val value = if (random.nextInt(20) == 0) 120.0 + random.nextInt(3) else 70 + random.nextInt(6) * 0.5
+
+            var expected = false
+            if (values.isNotEmpty()) {
+                val residual = Math.abs(value - median(values))
+                if (values.size >= 5) {
+                    val sigma = maxOf(MIN_DEVIATION, 1.4826 * median(residuals))
+                    expected = residual > THRESHOLD * sigma
+                }
+                residuals.addLast(residual)
+                if (residuals.size > window) residuals.removeFirst()
+            }
+            values.addLast(value)
+            if (values.size > window) values.removeFirst()
+
+            val message = "window $window, value $i"
+            assertEquals(message, expected, detector.add(value))
+            assertEquals(message, median(values), detector.median, 0.0)
+            if (residuals.isNotEmpty()) {
+                assertEquals(message, median(residuals), detector.mad, 0.0)
+            }
+        }
+    }
+
+    @Test
+    fun levelShiftStopsBeingFlaggedHalfwayThroughTheWindow() {
+        val detector = OutlierDetector(15, THRESHOLD, MIN_DEVIATION)
+        repeat(15) { detector.add(80.0 + it % 2 * 0.4) }
+        val flags = List(15) { detector.add(90.0) }
+        assertEquals(List(8) { true } + List(7) { false }, flags)
+    }
+
+    private fun median(window: Collection<Double>): Double {
+        val sorted = window.sorted()
+        val n = sorted.size
+        return if (n % 2 == 1) sorted[n / 2] else (sorted[n / 2 - 1] + sorted[n / 2]) / 2
+    }
+
+    companion object {
+        private const val THRESHOLD = 3.5
+        private const val MIN_DEVIATION = 0.5
+    }
+}
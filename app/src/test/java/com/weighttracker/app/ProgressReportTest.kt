@@ -0,0 +1,91 @@
+package com.weighttracker.app
+
+import android.os.Looper
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import java.io.File
+import java.io.IOException
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+
+/**
+ * A multi-page [ProgressReport] PDF: every cross-reference offset lands on
+ * its object, and the page tree counts the pages written.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class ProgressReportTest {
+
+    @get:Rule
+    val tmp = TemporaryFolder()
+
+    private val columns = EntryColumns.build(List(ENTRIES) { i ->
+        // Newest first, as the store keeps them
+        WeightEntry(ENTRIES - i.toLong(), Date(START + (ENTRIES - 1 - i) * DAY), 80.0 + i % 9, i % 4 != 0)
+    }, emptySet(), 0)
+
+    @Test
+    fun pdfXrefPointsAtEveryObject() {
+        val output = tmp.newFile("report.pdf")
+        var pages = 0
+        var done: File? = null
+        ProgressReport.generate(columns, 0, Long.MAX_VALUE, true, ProgressReport.Format.PDF, output,
+            object : ProgressReport.Listener {
+                override fun onProgress(pagesDone: Int, pageCount: Int) {
+                    pages = pagesDone
+                }
+
+                override fun onComplete(output: File) {
+                    done = output
+                }
+
+                override fun onError(error: IOException) = throw error
+            })
+        val deadline = System.currentTimeMillis() + 30_000
+        while (done == null && System.currentTimeMillis() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle()
+            Thread.sleep(10)
+        }
+        assertNotNull(done)
+        assertTrue(pages > 1)
+
+        val pdf = output.readBytes().toString(Charsets.ISO_8859_1)
+        val xref = Regex("startxref\n(\\d+)\n%%EOF\n\$").find(pdf)!!.groupValues[1].toInt()
+        assertTrue(pdf.startsWith("xref\n0 ", xref))
+        val countEnd = pdf.indexOf('\n', xref + 7)
+        val objects = pdf.substring(xref + 7, countEnd).toInt()
+        for (n in 1 until objects) {
+            val entry = countEnd + 1 + n * XREF_ENTRY_BYTES
+            val offset = pdf.substring(entry, entry + 10).toInt()
+            assertTrue("object $n at $offset", pdf.startsWith("$n 0 obj\n", offset))
+        }
+        val count = Regex("/Type /Pages /Kids \\[[^\\]]*] /Count (\\d+)").find(pdf)!!.groupValues[1].toInt()
+        assertEquals(pages, count)
+        assertEquals(pages, Regex("/Type /Page /Parent").findAll(pdf).count())
+    }
+
+    @Test
+    fun openEndedRangeShowsTheEntriesDates() {
+        val format = SimpleDateFormat("MMM d, yyyy", Locale.US)
+        val expected = format.format(Date(START)) + " – " + format.format(Date(START + (ENTRIES - 1) * DAY))
+        assertEquals(expected, ProgressReport(columns, 0, Long.MAX_VALUE, true).rangeLabel)
+        assertEquals(expected, ProgressReport(columns, Long.MIN_VALUE, Long.MAX_VALUE, true).rangeLabel)
+    }
+
+    companion object {
+        private const val DAY = 24 * 60 * 60_000L
+        private const val START = 1_700_000_000_000L
+        private const val ENTRIES = 200
+        // "0000000123 00000 n \n"
+        private const val XREF_ENTRY_BYTES = 20
+    }
+}
@@ -0,0 +1,126 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Date
+import java.util.Random
+
+/**
+ * [ResampledSeries.refresh] after single inserts and removes against a
+ * rebuild from scratch, for every period, aggregation and gap fill.
+ */
+class ResampledSeriesTest {
+
+    @Test
+    fun refreshMatchesRebuild() {
+        for (period in ResampledSeries.Period.values()) {
+            for (aggregation in ResampledSeries.Aggregation.values()) {
+                for (gapFill in ResampledSeries.GapFill.values()) {
+                    checkRefreshes(period, aggregation, gapFill)
+                }
+            }
+        }
+    }
+
+    private fun checkRefreshes(
+        period: ResampledSeries.Period,
+        aggregation: ResampledSeries.Aggregation,
+        gapFill: ResampledSeries.GapFill
+    ) {
+        val random = Random(42)
+        val entries = mutableListOf<WeightEntry>() // newest first
+        val series = ResampledSeries(period, aggregation, gapFill)
+        series.rebuild(entries)
+        var nextId = 1L
+        repeat(1_000) { op ->
+            val millis: Long
+            if (entries.isNotEmpty() && random.nextInt(3) == 0) {
+                // Often an end entry, so the range shrinks
+                val index = when (random.nextInt(3)) {
+                    0 -> 0
+                    1 -> entries.size - 1
+                    else -> random.nextInt(entries.size)
+                }
+                millis = entries.removeAt(index).date.time
+            } else {
+                // Sometimes far outside the range, so it grows
+                val day = START_DAY + if (random.nextInt(10) == 0) random.nextInt(200) - 100 else random.nextInt(60)
+                val bucket = series.bucketOf(EpochDay.toMillis(day))
+                val start = EpochDay.toMillis(series.bucketStartDay(bucket))
+                millis = when (random.nextInt(3)) {
+                    0 -> start
+                    1 -> EpochDay.toMillis(series.bucketStartDay(bucket + 1)) - 1
+                    else -> start + random.nextInt(EpochDay.MILLIS_PER_DAY.toInt())
+                }
+                val entry = WeightEntry(nextId++, Date(millis), 60 + random.nextInt(400) / 10.0, random.nextBoolean())
+                val index = entries.indexOfFirst { it.date.time < millis }
+                entries.add(if (index < 0) entries.size else index, entry)
+            }
+            series.refresh(entries, millis)
+
+            val rebuilt = ResampledSeries(period, aggregation, gapFill)
+            rebuilt.rebuild(entries)
+            assertSameGrid("$period $aggregation $gapFill, op $op", rebuilt, series)
+        }
+    }
+
+    @Test
+    fun bucketsMixingUnitsAggregateInKg() {
+        val day = EpochDay.toMillis(START_DAY)
+        val entries = listOf(
+            WeightEntry(2L, Date(day + 2 * HOUR), 81.0 / LBS_TO_KG, false),
+            WeightEntry(1L, Date(day + HOUR), 79.0, true)
+        )
+        val expected = mapOf(
+            ResampledSeries.Aggregation.LAST to 81.0,
+            ResampledSeries.Aggregation.MEAN to 80.0,
+            ResampledSeries.Aggregation.MIN to 79.0
+        )
+        for ((aggregation, kg) in expected) {
+            val series = ResampledSeries(ResampledSeries.Period.DAY, aggregation, ResampledSeries.GapFill.NONE)
+            series.rebuild(entries)
+            assertEquals(1, series.size())
+            assertEquals("$aggregation", kg, series.getValue(0), 1e-9)
+        }
+    }
+
+    @Test
+    fun gapsAreFilledBetweenNeighbours() {
+        val entries = listOf(
+            WeightEntry(2L, Date(EpochDay.toMillis(START_DAY + 4)), 84.0, true),
+            WeightEntry(1L, Date(EpochDay.toMillis(START_DAY)), 80.0, true)
+        )
+        val expected = mapOf(
+            ResampledSeries.GapFill.HOLD to listOf(80.0, 80.0, 80.0, 80.0, 84.0),
+            ResampledSeries.GapFill.LINEAR to listOf(80.0, 81.0, 82.0, 83.0, 84.0)
+        )
+        for ((gapFill, values) in expected) {
+            val series = ResampledSeries(ResampledSeries.Period.DAY, ResampledSeries.Aggregation.LAST, gapFill)
+            series.rebuild(entries)
+            assertEquals("$gapFill", values, List(series.size()) { series.getValue(it) })
+        }
+
+        val empty = ResampledSeries(ResampledSeries.Period.DAY, ResampledSeries.Aggregation.LAST,
+            ResampledSeries.GapFill.NONE)
+        empty.rebuild(entries)
+        assertTrue((1..3).all { empty.getValue(it).isNaN() && empty.getCount(it) == 0 })
+    }
+
+    private fun assertSameGrid(message: String, expected: ResampledSeries, actual: ResampledSeries) {
+        assertEquals("$message: size", expected.size(), actual.size())
+        if (expected.size() == 0) return
+        assertEquals("$message: first bucket", expected.firstBucket, actual.firstBucket)
+        for (i in 0 until expected.size()) {
+            assertEquals("$message: count $i", expected.getCount(i), actual.getCount(i))
+            // assertEquals(Double, Double, delta) treats two NaNs as equal
+            assertEquals("$message: value $i", expected.getValue(i), actual.getValue(i), 1e-9)
+        }
+    }
+
+    companion object {
+        private const val HOUR = 60 * 60_000L
+        private const val START_DAY = 19_000
+        private const val LBS_TO_KG = 0.453592
+    }
+}
@@ -0,0 +1,67 @@
+package com.weighttracker.app
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+/**
+ * [RollingWindow] against a brute-force scan of every sample, across
+ * compactions and [RollingWindow.advanceTo].
+ */
+class RollingWindowTest {
+
+    @Test
+    fun matchesBruteForceWhileAdvancing() {
+        val random = Random(5)
+        val window = RollingWindow(WEEK)
+        val times = mutableListOf<Long>()
+        val values = mutableListOf<Double>()
+        var time = 0L
+        var end = Long.MIN_VALUE
+        repeat(5_000) { i ->
+            if (random.nextInt(10) == 0) {
+                end = maxOf(end, time) + random.nextInt(10) * DAY
+                window.advanceTo(end)
+            } else {
+                time += random.nextInt(30) * HOUR
+                val value = 50 + random.nextInt(5000) / 100.0
+                window.add(time, value)
+                times += time
+                values += value
+                end = maxOf(end, time)
+            }
+            val inWindow = values.filterIndexed { k, _ -> times[k] > end - WEEK && times[k] <= end }
+            assertEquals("count at $i", inWindow.size, window.count)
+            if (inWindow.isNotEmpty()) {
+                assertEquals(inWindow.average(), window.mean, 1e-6)
+                assertEquals(inWindow.minOrNull()!!, window.min, 0.0)
+                assertEquals(inWindow.maxOrNull()!!, window.max, 0.0)
+            }
+        }
+    }
+
+    @Test
+    fun advancingPastTheLastSampleEmptiesTheWindow() {
+        val window = RollingWindow(WEEK)
+        window.add(0, 80.0)
+        window.add(DAY, 81.0)
+        window.advanceTo(DAY + WEEK)
+        assertEquals(0, window.count)
+        assertTrue(window.mean.isNaN())
+
+        // A sample older than the window end is taken, and kept only if
+        // it is inside the window
+        window.add(DAY, 82.0)
+        assertEquals(0, window.count)
+        window.add(2 * DAY, 83.0)
+        window.add(DAY + WEEK, 84.0)
+        assertEquals(83.5, window.mean, 0.0)
+    }
+
+    companion object {
+        private const val HOUR = 60 * 60_000L
+        private const val DAY = 24 * HOUR
+        private const val WEEK = 7 * DAY
+    }
+}
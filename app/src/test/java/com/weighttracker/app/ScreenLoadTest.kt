@@ -0,0 +1,262 @@
+package com.weighttracker.app
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.os.Looper
+import android.view.View
+import android.widget.Button
+import androidx.recyclerview.widget.RecyclerView
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.util.Date
+import java.util.Random
+
+/**
+ * Synthetic-load benchmark for the dashboard and History screens. Skipped
+ * unless run with `-PloadTest` (add `-PloadTestMaxEntries=1000000` for the
+ * full run; the default stops at 100k entries).
+ *
+ * Drives the real activities under Robolectric over generated histories:
+ * dashboard refresh, opening History, tab switches, adapter binds, graph
+ * draws and inserts. Per operation it reports p50/p95/p99 latency and
+ * bytes allocated to build/reports/loadtest/screens.txt, marking any over
+ * budget; wall-clock numbers vary by machine, so it never fails on them.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+class ScreenLoadTest {
+
+    @get:Rule
+    val tmp = TemporaryFolder()
+
+    private val report = StringBuilder()
+    private val overBudget = mutableListOf<String>()
+    private val threads = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+
+    /**
+     * Reference budgets per operation: p95 may take [fixedMs] plus [msPerThousand]
+     * for every thousand entries, and allocate at most [maxBytes] per run.
+     */
+    private enum class Op(val fixedMs: Double, val msPerThousand: Double, val maxBytes: Long) {
+        LOAD_HISTORY(50.0, 10.0, Long.MAX_VALUE),
+        DASHBOARD_REFRESH(16.0, 0.0, 256L * 1024),
+        OPEN_HISTORY(100.0, 0.0, Long.MAX_VALUE),
+        TAB_SWITCH(16.0, 2.0, Long.MAX_VALUE),
+        ADAPTER_BIND(4.0, 0.0, 64L * 1024),
+        GRAPH_DRAW_VECTOR(32.0, 0.0, 1024L * 1024),
+        GRAPH_DRAW_TILED(16.0, 0.0, 1024L * 1024),
+        ADD_LATEST(4.0, 0.05, Long.MAX_VALUE),
+        ADD_BACKDATED(8.0, 1.0, Long.MAX_VALUE);
+
+        fun budgetMs(entries: Int) = fixedMs + msPerThousand * entries / 1000.0
+    }
+
+    @Test
+    fun reportScreenLoad() {
+        assumeTrue(System.getProperty("loadtest.enabled").toBoolean())
+        val maxEntries = System.getProperty("loadtest.maxEntries", "100000").toInt()
+        for (n in intArrayOf(1_000, 10_000, 100_000, 1_000_000)) {
+            if (n <= maxEntries) runAtSize(n)
+        }
+
+        val out = File("build/reports/loadtest")
+        out.mkdirs()
+        if (overBudget.isNotEmpty()) {
+            report.append("── over budget ──\n").append(overBudget.joinToString("\n")).append('\n')
+        }
+        File(out, "screens.txt").writeText(report.toString())
+        println(report)
+    }
+
+    private fun runAtSize(n: Int) {
+        report.append("── $n entries ──\n")
+        val reps = when {
+            n >= 1_000_000 -> 3
+            n >= 100_000 -> 10
+            else -> 30
+        }
+
+        // Each size gets its own directory: settings and device tag live
+        // next to the history file
+        val dir = tmp.newFolder("n$n")
+        val file = File(dir, "history.wts")
+        val entries = generateHistory(n)
+        CompressedHistory.fromEntries(entries).writeTo(file)
+
+        val store = DataStore.getInstance()
+        measure(Op.LOAD_HISTORY, n, if (n >= 1_000_000) 1 else 3) { store.attachStorage(file) }
+        store.setHeight(175.0)
+        store.setBeginningWeight(entries.last().weight)
+
+        // Dashboard
+        val main = Robolectric.buildActivity(MainActivity::class.java).setup().get()
+        measure(Op.DASHBOARD_REFRESH, n, 50) { main.updateDisplay() }
+
+        // Opening History once the dashboard has gone idle and the row
+        // views and first page are ready: independent of the entry count.
+        // One unmeasured open first, so class loading is not counted.
+        val prewarmer = HistoryPrewarmer.getInstance()
+        repeat(2) { i ->
+            prewarmer.scheduleWhenIdle(main)
+            shadowOf(Looper.getMainLooper()).idle()
+            assertTrue(prewarmer.awaitIdle(10_000))
+            if (i == 0) {
+                Robolectric.buildActivity(HistoryActivity::class.java).setup().destroy()
+            } else {
+                measure(Op.OPEN_HISTORY, n, 1) {
+                    Robolectric.buildActivity(HistoryActivity::class.java).setup().destroy()
+                }
+            }
+        }
+
+        // History tabs
+        val history = Robolectric.buildActivity(HistoryActivity::class.java).setup().get()
+        val tabs = listOf(
+            history.findViewById<Button>(R.id.btn_tab_7days),
+            history.findViewById<Button>(R.id.btn_tab_30days),
+            history.findViewById<Button>(R.id.btn_tab_all)
+        )
+        measure(Op.TAB_SWITCH, n, reps) { i -> tabs[i % tabs.size].performClick() }
+
+        // Fling: bind consecutive rows into one recycled holder per view type
+        val recycler = history.findViewById<RecyclerView>(R.id.recyclerview_history)
+        val adapter = recycler.adapter as HistoryAdapter
+        val entryHolder = adapter.onCreateViewHolder(recycler, HistoryAdapter.VIEW_TYPE_ENTRY)
+        val headerHolder = adapter.onCreateViewHolder(recycler, HistoryAdapter.VIEW_TYPE_MONTH_HEADER)
+        measure(Op.ADAPTER_BIND, n, minOf(1_000, adapter.itemCount)) { i ->
+            val header = adapter.getItemViewType(i) == HistoryAdapter.VIEW_TYPE_MONTH_HEADER
+            adapter.onBindViewHolder(if (header) headerHolder else entryHolder, i)
+        }
+
+        // Graph into an offscreen canvas, on the "All" tab, once the
+        // background recompute has delivered its series
+        tabs[2].performClick()
+        assertTrue(RecomputeScheduler.getInstance().awaitIdle(60_000))
+        shadowOf(Looper.getMainLooper()).idle()
+        val graph = history.findViewById<WeightGraphView>(R.id.graph_view)
+        graph.measure(
+            View.MeasureSpec.makeMeasureSpec(GRAPH_WIDTH, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(GRAPH_HEIGHT, View.MeasureSpec.EXACTLY)
+        )
+        graph.layout(0, 0, GRAPH_WIDTH, GRAPH_HEIGHT)
+        val bitmap = Bitmap.createBitmap(GRAPH_WIDTH, GRAPH_HEIGHT, Bitmap.Config.ARGB_8888)
+        val canvas = Canvas(bitmap)
+
+        graph.setTileCaching(false)
+        measure(Op.GRAPH_DRAW_VECTOR, n, 30) { graph.draw(canvas) }
+
+        graph.setTileCaching(true)
+        warmTiles(graph, canvas)
+        measure(Op.GRAPH_DRAW_TILED, n, 30) { graph.draw(canvas) }
+        bitmap.recycle()
+
+        // Inserts: newest entry, then entries back-dated into the middle
+        val latest = store.latestEntry!!.date.time
+        measure(Op.ADD_LATEST, n, reps) { i ->
+            store.addEntry(WeightEntry(Date(latest + (i + 1) * HOUR), 80.0, true))
+        }
+        val middle = entries[entries.size / 2].date.time
+        measure(Op.ADD_BACKDATED, n, reps) { i ->
+            store.addEntry(WeightEntry(Date(middle + i * MINUTE), 80.0, true))
+        }
+    }
+
+    /**
+     * Draws until the background tile renderer has filled the visible tiles.
+     */
+    private fun warmTiles(graph: WeightGraphView, canvas: Canvas) {
+        repeat(TILE_WARMUP_FRAMES) {
+            graph.draw(canvas)
+            Thread.sleep(10)
+            shadowOf(Looper.getMainLooper()).idle()
+        }
+    }
+
+    /**
+     * Runs [block] [reps] times, records latency and allocation, and notes
+     * where they go over [op]'s budget at [entries] entries.
+     */
+    private inline fun measure(op: Op, entries: Int, reps: Int, block: (Int) -> Unit) {
+        val thread = Thread.currentThread().id
+        val nanos = LongArray(reps)
+        var bytes = 0L
+        for (i in 0 until reps) {
+            val allocatedBefore = threads.getThreadAllocatedBytes(thread)
+            val t0 = System.nanoTime()
+            block(i)
+            nanos[i] = System.nanoTime() - t0
+            bytes += threads.getThreadAllocatedBytes(thread) - allocatedBefore
+        }
+        nanos.sort()
+
+        val p50 = percentileMs(nanos, 0.50)
+        val p95 = percentileMs(nanos, 0.95)
+        val p99 = percentileMs(nanos, 0.99)
+        val bytesPerOp = bytes / reps
+        val budget = op.budgetMs(entries)
+        report.append(
+            "%-18s n=%-8d p50=%8.2fms p95=%8.2fms p99=%8.2fms alloc=%8dB/op (budget p95 %.0fms)\n"
+                .format(op.name, reps, p50, p95, p99, bytesPerOp, budget)
+        )
+        if (p95 > budget) {
+            overBudget += "${op.name} @ $entries entries: p95 %.2fms > %.0fms".format(p95, budget)
+        }
+        if (bytesPerOp > op.maxBytes) {
+            overBudget += "${op.name} @ $entries entries: $bytesPerOp B/op > ${op.maxBytes} B/op"
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanosecond samples, in ms.
+     */
+    private fun percentileMs(sorted: LongArray, p: Double): Double {
+        val rank = Math.ceil(p * sorted.size).toInt().coerceIn(1, sorted.size)
+        return sorted[rank - 1] / 1_000_000.0
+    }
+
+    /**
+     * About 1.3 entries per day ending now: some days have none, some have
+     * several. Newest first, as DataStore keeps them.
+     */
+    private fun generateHistory(n: Int): List<WeightEntry> {
+        val random = Random(n.toLong())
+        val times = LongArray(n)
+        val days = (n / 1.3).toLong() + 1
+        val start = System.currentTimeMillis() - days * DAY
+        for (i in 0 until n) {
+            val day = random.nextInt(days.toInt()).toLong()
+            times[i] = start + day * DAY + (6 + random.nextInt(16)) * HOUR + random.nextInt(60) * MINUTE
+        }
+        times.sort()
+
+        var weight = 95.0
+        val entries = ArrayList<WeightEntry>(n)
+        for (i in 0 until n) {
+            weight += -0.01 + random.nextGaussian() * 0.3
+            entries += WeightEntry(i + 1L, Date(times[i]), weight, true)
+        }
+        entries.reverse()
+        return entries
+    }
+
+    companion object {
+        private const val MINUTE = 60_000L
+        private const val HOUR = 60 * MINUTE
+        private const val DAY = 24 * HOUR
+        private const val GRAPH_WIDTH = 1080
+        private const val GRAPH_HEIGHT = 600
+        private const val TILE_WARMUP_FRAMES = 20
+    }
+}
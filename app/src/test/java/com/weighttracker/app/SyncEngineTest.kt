@@ -0,0 +1,246 @@
+package com.weighttracker.app
+
+import android.os.Looper
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import java.io.File
+import java.io.IOException
+import java.util.Date
+
+/**
+ * Two devices syncing through a [LocalSyncServer]: concurrent and
+ * back-dated edits, deletes racing puts, and batches delivered twice or
+ * out of order must all leave both devices with the same history.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class SyncEngineTest {
+
+    @get:Rule
+    val tmp = TemporaryFolder()
+
+    private val server = LocalSyncServer()
+
+    @Test
+    fun concurrentEditsConvergeOnHigherStamp() {
+        val a = Device()
+        val b = Device()
+        val entry = a.add(1, 80.0)
+        syncAll(a, b)
+
+        a.store.updateEntry(entry.id, entry.date, 81.0, true)
+        b.store.updateEntry(entry.id, entry.date, 82.0, true)
+        syncAll(a, b)
+
+        // Equal Lamport counters: the higher device tag breaks the tie
+        val expected = if (a.store.deviceTag > b.store.deviceTag) 81.0 else 82.0
+        assertEquals(expected, a.store.findEntryById(entry.id).weight, 0.0)
+        assertEquals(a.rows(), b.rows())
+    }
+
+    @Test
+    fun backDatedEditsKeepTheSameOrder() {
+        val a = Device()
+        val b = Device()
+        val entries = (10..14).map { a.add(it, 80.0 + it) }
+        syncAll(a, b)
+
+        a.add(5, 79.0)
+        a.store.updateEntry(entries[2].id, Date(3 * DAY), 78.0, true)
+        b.add(7, 77.0)
+        syncAll(a, b)
+
+        assertEquals(7, a.store.entryCount)
+        assertEquals(a.rows(), b.rows())
+        assertEquals(3 * DAY, b.store.weightEntries.last().date.time)
+    }
+
+    @Test
+    fun putStampedAfterDeleteWins() {
+        val a = Device()
+        val b = Device()
+        val entry = a.add(1, 80.0)
+        syncAll(a, b)
+
+        a.store.removeEntryById(entry.id)
+        b.store.updateEntry(entry.id, entry.date, 81.0, true)
+        b.store.updateEntry(entry.id, entry.date, 82.0, true)
+        syncAll(a, b)
+
+        assertEquals(82.0, a.store.findEntryById(entry.id).weight, 0.0)
+        assertEquals(a.rows(), b.rows())
+    }
+
+    @Test
+    fun deleteStampedAfterPutWins() {
+        val a = Device()
+        val b = Device()
+        val entry = a.add(1, 80.0)
+        syncAll(a, b)
+
+        b.store.updateEntry(entry.id, entry.date, 81.0, true)
+        a.store.updateEntry(entry.id, entry.date, 82.0, true)
+        a.store.removeEntryById(entry.id)
+        syncAll(a, b)
+
+        assertNull(a.store.findEntryById(entry.id))
+        assertNull(b.store.findEntryById(entry.id))
+    }
+
+    @Test
+    fun redeliveredAndReorderedBatchesChangeNothing() {
+        val replaying = ReplayingServer(server)
+        val a = Device()
+        val b = Device()
+        val first = a.add(1, 80.0)
+        val second = a.add(2, 81.0)
+        a.sync.sync(replaying)
+        a.store.updateEntry(first.id, first.date, 85.0, true)
+        a.sync.sync(replaying)
+        a.store.removeEntryById(second.id)
+        a.sync.sync(replaying)
+
+        // Every batch at once, newest first
+        b.sync.sync(replaying)
+        assertEquals(a.rows(), b.rows())
+        assertNull(b.store.findEntryById(second.id))
+
+        // The same batches again
+        val again = b.sync.sync(replaying)
+        assertEquals(0, again.applied)
+        assertEquals(a.rows(), b.rows())
+        // a takes b's settings once, then nothing
+        a.sync.sync(replaying)
+        assertEquals(0, a.sync.sync(replaying).applied)
+    }
+
+    @Test
+    fun tombstonesAreCapped() {
+        val a = Device()
+        val b = Device()
+        val count = SyncEngine.MAX_TOMBSTONES * 2
+        a.store.addEntries(List(count) { WeightEntry(Date(it * HOUR), 80.0, true) })
+        a.store.removeEntriesBetween(0, count * HOUR)
+        assertTrue(a.sync.tombstoneCount <= SyncEngine.MAX_TOMBSTONES * 5 / 4)
+
+        b.sync.sync(server)
+        a.sync.sync(server)
+        b.sync.sync(server)
+        assertEquals(0, b.store.entryCount)
+        assertTrue(b.sync.tombstoneCount <= SyncEngine.MAX_TOMBSTONES * 5 / 4)
+    }
+
+    @Test
+    fun syncAsyncMergesOnTheMainThread() {
+        val a = Device()
+        val b = Device()
+        val entry = a.add(1, 80.0)
+        a.sync.sync(server)
+
+        var result: SyncEngine.Result? = null
+        var callbackThread: Thread? = null
+        assertTrue(b.sync.syncAsync(server, object : SyncEngine.Callback {
+            override fun onSyncFinished(r: SyncEngine.Result) {
+                result = r
+                callbackThread = Thread.currentThread()
+            }
+
+            override fun onSyncFailed(error: IOException) = throw error
+        }))
+        assertFalse(b.sync.syncAsync(server, NO_CALLBACK))
+
+        val deadline = System.currentTimeMillis() + 5_000
+        while (result == null && System.currentTimeMillis() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle()
+            Thread.sleep(5)
+        }
+        assertNotNull(result)
+        assertSame(Looper.getMainLooper().thread, callbackThread)
+        assertEquals(80.0, b.store.findEntryById(entry.id).weight, 0.0)
+    }
+
+    @Test
+    fun savedStateResumesWhereItLeftOff() {
+        val stateFile = File(tmp.root, "sync.state")
+        val store = DataStore()
+        var sync = SyncEngine(store, stateFile)
+        val kept = WeightEntry(Date(DAY), 80.0, true)
+        val deleted = WeightEntry(Date(2 * DAY), 81.0, true)
+        store.addEntry(kept)
+        store.addEntry(deleted)
+        sync.sync(server)
+        store.removeEntryById(deleted.id)
+        // Enough saves to rewrite the state file from the log at least once
+        repeat(600) { store.updateEntry(kept.id, kept.date, 80.0 + it % 5, true) }
+        assertTrue(sync.awaitSaved(10_000))
+        File(stateFile.path + ".log").appendBytes(byteArrayOf(0, 0, 1)) // torn frame
+
+        sync = SyncEngine(store, stateFile)
+        assertEquals(601, sync.pendingCount)
+        assertEquals(1, sync.tombstoneCount)
+
+        // Nothing pushed twice: a second device sees one delete and the last edit
+        val other = Device()
+        sync.sync(server)
+        other.sync.sync(server)
+        assertEquals(store.weightEntries.map { it.weight }, other.store.weightEntries.map { it.weight })
+        assertNull(other.store.findEntryById(deleted.id))
+    }
+
+    private fun syncAll(a: Device, b: Device) {
+        a.sync.sync(server)
+        b.sync.sync(server)
+        a.sync.sync(server)
+    }
+
+    /**
+     * One device: its own store and change log, with no files.
+     */
+    private class Device {
+        val store = DataStore()
+        val sync = SyncEngine(store, null)
+
+        fun add(day: Int, weight: Double): WeightEntry {
+            val entry = WeightEntry(Date(day * DAY), weight, true)
+            store.addEntry(entry)
+            return entry
+        }
+
+        fun rows() = store.weightEntries.map { Triple(it.id, it.date.time, it.weight) }
+    }
+
+    /**
+     * Returns every stored batch on every pull, newest first: each sync
+     * sees re-deliveries, and batches arrive out of order.
+     */
+    private class ReplayingServer(private val inner: LocalSyncServer) : SyncServer {
+        override fun push(deviceTag: Int, batch: ByteArray) = inner.push(deviceTag, batch)
+
+        override fun pull(deviceTag: Int, afterSeq: Long): SyncServer.PullResult {
+            val all = inner.pull(deviceTag, 0)
+            return SyncServer.PullResult(all.batches.reversed(), all.latestSeq)
+        }
+    }
+
+    companion object {
+        private const val HOUR = 60 * 60_000L
+        private const val DAY = 24 * HOUR
+
+        private val NO_CALLBACK = object : SyncEngine.Callback {
+            override fun onSyncFinished(result: SyncEngine.Result) {}
+
+            override fun onSyncFailed(error: IOException) {}
+        }
+    }
+}